@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2008, 2010, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores
+ * CA 94065 USA or visit www.oracle.com if you need additional information or
+ * have any questions.
+ */
+package com.sun.lwuit.benchmark;
+
+import java.util.Hashtable;
+
+/**
+ * A single benchmark scenario, the runner invokes {@link #setup()} once,
+ * {@link #run()} for the warmup and the measured iterations and finally
+ * {@link #teardown()}. Scenarios must be deterministic so results of separate
+ * runs can be compared.
+ */
+public abstract class Benchmark {
+	private String name;
+	private int warmupIterations = 10;
+	private int iterations = 30;
+	private boolean measurePeakHeap;
+	private Hashtable parameters = new Hashtable();
+
+	/**
+	 * Creates a benchmark with the given name, names are dot separated with
+	 * the subsystem first e.g. list.paint
+	 * 
+	 * @param name
+	 *            the name of the benchmark
+	 */
+	protected Benchmark(String name) {
+		this.name = name;
+	}
+
+	/**
+	 * Returns the name of the benchmark
+	 * 
+	 * @return the name
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Prepares the fixture of the benchmark, this isn't measured
+	 * 
+	 * @throws Exception
+	 *             any failure aborts the benchmark
+	 */
+	public void setup() throws Exception {
+	}
+
+	/**
+	 * Performs a single measured operation
+	 * 
+	 * @throws Exception
+	 *             any failure aborts the benchmark
+	 */
+	public abstract void run() throws Exception;
+
+	/**
+	 * Releases the fixture of the benchmark
+	 * 
+	 * @throws Exception
+	 *             failures are reported but don't fail the run
+	 */
+	public void teardown() throws Exception {
+	}
+
+	/**
+	 * Returns the number of unmeasured iterations performed before measuring
+	 * 
+	 * @return the warmup iteration count
+	 */
+	public int getWarmupIterations() {
+		return warmupIterations;
+	}
+
+	/**
+	 * Returns the number of measured iterations
+	 * 
+	 * @return the iteration count
+	 */
+	public int getIterations() {
+		return iterations;
+	}
+
+	/**
+	 * Sets the number of warmup and measured iterations
+	 * 
+	 * @param warmupIterations
+	 *            the warmup iteration count
+	 * @param iterations
+	 *            the measured iteration count
+	 */
+	public void setIterations(int warmupIterations, int iterations) {
+		this.warmupIterations = warmupIterations;
+		this.iterations = iterations;
+	}
+
+	/**
+	 * Indicates whether the peak heap usage of every iteration should be
+	 * measured, this forces a garbage collection before each iteration
+	 * 
+	 * @return true to measure peak heap usage
+	 */
+	public boolean isMeasurePeakHeap() {
+		return measurePeakHeap;
+	}
+
+	/**
+	 * Indicates whether the peak heap usage of every iteration should be
+	 * measured, this forces a garbage collection before each iteration
+	 * 
+	 * @param measurePeakHeap
+	 *            true to measure peak heap usage
+	 */
+	public void setMeasurePeakHeap(boolean measurePeakHeap) {
+		this.measurePeakHeap = measurePeakHeap;
+	}
+
+	/**
+	 * Returns the parameters describing the scenario, these are written with
+	 * the results
+	 * 
+	 * @return the parameters of the benchmark
+	 */
+	public Hashtable getParameters() {
+		return parameters;
+	}
+
+	/**
+	 * Records a parameter describing the scenario
+	 * 
+	 * @param key
+	 *            the name of the parameter
+	 * @param value
+	 *            the value of the parameter
+	 */
+	protected void setParameter(String key, Object value) {
+		parameters.put(key, value);
+	}
+}
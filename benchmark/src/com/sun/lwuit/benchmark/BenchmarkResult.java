@@ -0,0 +1,213 @@
+/*
+ * Copyright (c) 2008, 2010, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores
+ * CA 94065 USA or visit www.oracle.com if you need additional information or
+ * have any questions.
+ */
+package com.sun.lwuit.benchmark;
+
+import java.util.Enumeration;
+import java.util.Hashtable;
+
+/**
+ * The measurements of a single benchmark run
+ */
+public class BenchmarkResult {
+	private String name;
+	private Hashtable parameters;
+	private int warmupIterations;
+	private long[] times;
+	private long allocatedBytes = -1;
+	private long peakHeapBytes = -1;
+	private String error;
+
+	BenchmarkResult(Benchmark b, long[] times) {
+		name = b.getName();
+		parameters = b.getParameters();
+		warmupIterations = b.getWarmupIterations();
+		this.times = times;
+	}
+
+	void setAllocatedBytes(long allocatedBytes) {
+		this.allocatedBytes = allocatedBytes;
+	}
+
+	void setPeakHeapBytes(long peakHeapBytes) {
+		this.peakHeapBytes = peakHeapBytes;
+	}
+
+	void setError(String error) {
+		this.error = error;
+	}
+
+	/**
+	 * Returns the name of the benchmark
+	 * 
+	 * @return the benchmark name
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Returns the error that aborted the benchmark
+	 * 
+	 * @return the error message or null if the benchmark completed
+	 */
+	public String getError() {
+		return error;
+	}
+
+	/**
+	 * Returns the number of measured iterations
+	 * 
+	 * @return the iteration count
+	 */
+	public int getIterations() {
+		return times.length;
+	}
+
+	/**
+	 * Returns the given percentile of the iteration times using the nearest
+	 * rank method
+	 * 
+	 * @param percentile
+	 *            a value between 0 and 100
+	 * @return the iteration time in nanoseconds
+	 */
+	public long getPercentile(int percentile) {
+		if (times.length == 0) {
+			return 0;
+		}
+		int rank = (percentile * times.length + 99) / 100;
+		return times[Math.max(0, Math.min(times.length - 1, rank - 1))];
+	}
+
+	/**
+	 * Returns the average iteration time
+	 * 
+	 * @return the mean in nanoseconds
+	 */
+	public long getMean() {
+		if (times.length == 0) {
+			return 0;
+		}
+		long total = 0;
+		for (int iter = 0; iter < times.length; iter++) {
+			total += times[iter];
+		}
+		return total / times.length;
+	}
+
+	/**
+	 * Returns the bytes allocated per iteration on the benchmark thread and
+	 * the EDT
+	 * 
+	 * @return allocated bytes per iteration or -1 if the JVM can't measure
+	 *         allocations
+	 */
+	public long getAllocatedBytesPerIteration() {
+		if (allocatedBytes < 0 || times.length == 0) {
+			return -1;
+		}
+		return allocatedBytes / times.length;
+	}
+
+	/**
+	 * Returns the highest heap growth over the live heap measured in any
+	 * iteration, this is approximate since the peaks of the separate memory
+	 * pools are summed
+	 * 
+	 * @return the peak heap growth in bytes or -1 if it wasn't measured
+	 */
+	public long getPeakHeapBytes() {
+		return peakHeapBytes;
+	}
+
+	/**
+	 * Appends this result as a JSON object
+	 * 
+	 * @param b
+	 *            the buffer to append to
+	 */
+	public void toJSON(StringBuffer b) {
+		b.append("{\"name\":");
+		appendString(b, name);
+		b.append(",\"parameters\":{");
+		Enumeration e = parameters.keys();
+		boolean first = true;
+		while (e.hasMoreElements()) {
+			String key = (String) e.nextElement();
+			if (!first) {
+				b.append(',');
+			}
+			first = false;
+			appendString(b, key);
+			b.append(':');
+			Object value = parameters.get(key);
+			if (value instanceof Number) {
+				b.append(value);
+			} else {
+				appendString(b, value.toString());
+			}
+		}
+		b.append("},\"warmupIterations\":").append(warmupIterations);
+		b.append(",\"iterations\":").append(times.length);
+		if (error != null) {
+			b.append(",\"error\":");
+			appendString(b, error);
+		} else {
+			b.append(",\"meanNs\":").append(getMean());
+			b.append(",\"minNs\":").append(getPercentile(0));
+			b.append(",\"p50Ns\":").append(getPercentile(50));
+			b.append(",\"p90Ns\":").append(getPercentile(90));
+			b.append(",\"p99Ns\":").append(getPercentile(99));
+			b.append(",\"maxNs\":").append(getPercentile(100));
+			b.append(",\"allocatedBytesPerIteration\":").append(getAllocatedBytesPerIteration());
+			b.append(",\"peakHeapBytes\":").append(peakHeapBytes);
+		}
+		b.append('}');
+	}
+
+	static void appendString(StringBuffer b, String s) {
+		b.append('"');
+		for (int iter = 0; iter < s.length(); iter++) {
+			char c = s.charAt(iter);
+			switch (c) {
+			case '"':
+				b.append("\\\"");
+				break;
+			case '\\':
+				b.append("\\\\");
+				break;
+			case '\n':
+				b.append("\\n");
+				break;
+			default:
+				if (c < 0x20) {
+					b.append(' ');
+				} else {
+					b.append(c);
+				}
+			}
+		}
+		b.append('"');
+	}
+}
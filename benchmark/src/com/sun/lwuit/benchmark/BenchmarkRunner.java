@@ -0,0 +1,313 @@
+/*
+ * Copyright (c) 2008, 2010, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores
+ * CA 94065 USA or visit www.oracle.com if you need additional information or
+ * have any questions.
+ */
+package com.sun.lwuit.benchmark;
+
+import com.sun.lwuit.Display;
+import com.sun.lwuit.io.Storage;
+import com.sun.lwuit.io.util.JSONParser;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.Vector;
+
+/**
+ * Runs the benchmark suite on top of the headless implementation and writes
+ * the results as JSON. Usage:
+ * 
+ * <pre>
+ * BenchmarkRunner [-o results.json] [-b baseline.json] [-f filter] [-w warmup] [-i iterations]
+ * </pre>
+ * 
+ * The filter is a substring of the benchmark names to run, when a baseline
+ * from a previous run is given the change of the median against it is
+ * printed for every benchmark.
+ */
+public class BenchmarkRunner {
+	private int warmupIterations = -1;
+	private int iterations = -1;
+	private String filter;
+	private ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+	private long[] measuredThreads;
+
+	/**
+	 * Entry point of the benchmark runner
+	 * 
+	 * @param argv
+	 *            command line arguments
+	 * @throws Exception
+	 *             on failure to write the results
+	 */
+	public static void main(String[] argv) throws Exception {
+		String output = null;
+		String baseline = null;
+		BenchmarkRunner runner = new BenchmarkRunner();
+		for (int iter = 0; iter + 1 < argv.length; iter += 2) {
+			if (argv[iter].equals("-o")) {
+				output = argv[iter + 1];
+			} else if (argv[iter].equals("-b")) {
+				baseline = argv[iter + 1];
+			} else if (argv[iter].equals("-f")) {
+				runner.filter = argv[iter + 1];
+			} else if (argv[iter].equals("-w")) {
+				runner.warmupIterations = Integer.parseInt(argv[iter + 1]);
+			} else if (argv[iter].equals("-i")) {
+				runner.iterations = Integer.parseInt(argv[iter + 1]);
+			} else {
+				System.err.println("Unknown argument: " + argv[iter]);
+				System.exit(1);
+			}
+		}
+
+		// keep the storage of the benchmarks away from the user storage
+		if (System.getProperty("lwuit.headless.storage") == null) {
+			File f = File.createTempFile("lwuit-benchmark", "");
+			f.delete();
+			System.setProperty("lwuit.headless.storage", f.getAbsolutePath());
+		}
+		Display.init(null);
+		Storage.init("benchmark");
+
+		Vector results = runner.run(BenchmarkSuite.createBenchmarks());
+		String json = toJSON(results);
+		if (output != null) {
+			Writer w = new OutputStreamWriter(new FileOutputStream(output), "UTF-8");
+			w.write(json);
+			w.close();
+		} else {
+			System.out.println(json);
+		}
+		if (baseline != null) {
+			compare(results, baseline);
+		}
+		Storage.getInstance().clearStorage();
+		System.exit(0);
+	}
+
+	/**
+	 * Runs all the benchmarks that match the filter
+	 * 
+	 * @param benchmarks
+	 *            vector of benchmark instances
+	 * @return vector of results
+	 */
+	public Vector run(Vector benchmarks) {
+		// allocations on the EDT are attributed to the benchmark as well
+		final long[] edt = new long[1];
+		Display.getInstance().callSeriallyAndWait(new Runnable() {
+			public void run() {
+				edt[0] = Thread.currentThread().getId();
+			}
+		});
+		measuredThreads = new long[] { Thread.currentThread().getId(), edt[0] };
+
+		Vector results = new Vector();
+		for (int iter = 0; iter < benchmarks.size(); iter++) {
+			Benchmark b = (Benchmark) benchmarks.elementAt(iter);
+			if (filter != null && b.getName().indexOf(filter) < 0) {
+				continue;
+			}
+			if (warmupIterations > -1 || iterations > -1) {
+				b.setIterations(warmupIterations > -1 ? warmupIterations : b.getWarmupIterations(),
+						iterations > -1 ? iterations : b.getIterations());
+			}
+			BenchmarkResult r = run(b);
+			results.addElement(r);
+			if (r.getError() != null) {
+				System.err.println(b.getName() + " failed: " + r.getError());
+			} else {
+				System.err.println(b.getName() + ": p50 " + (r.getPercentile(50) / 1000) + "us, p90 " + (r.getPercentile(90) / 1000) + "us, "
+						+ r.getAllocatedBytesPerIteration() + " bytes allocated");
+			}
+		}
+		return results;
+	}
+
+	/**
+	 * Runs a single benchmark
+	 * 
+	 * @param b
+	 *            the benchmark
+	 * @return the result of the run
+	 */
+	public BenchmarkResult run(Benchmark b) {
+		long[] times = new long[b.getIterations()];
+		long allocated = 0;
+		long peakHeap = -1;
+		try {
+			b.setup();
+			for (int iter = 0; iter < b.getWarmupIterations(); iter++) {
+				b.run();
+			}
+			for (int iter = 0; iter < times.length; iter++) {
+				long heapBase = 0;
+				if (b.isMeasurePeakHeap()) {
+					heapBase = resetHeapPeak();
+				}
+				long allocatedBefore = getAllocatedBytes();
+				long start = System.nanoTime();
+				b.run();
+				times[iter] = System.nanoTime() - start;
+				allocated += getAllocatedBytes() - allocatedBefore;
+				if (b.isMeasurePeakHeap()) {
+					peakHeap = Math.max(peakHeap, getHeapPeak() - heapBase);
+				}
+			}
+		} catch (Throwable t) {
+			t.printStackTrace();
+			BenchmarkResult r = new BenchmarkResult(b, new long[0]);
+			r.setError(t.toString());
+			return r;
+		} finally {
+			try {
+				b.teardown();
+			} catch (Throwable t) {
+				t.printStackTrace();
+			}
+		}
+		Arrays.sort(times);
+		BenchmarkResult r = new BenchmarkResult(b, times);
+		if (allocated >= 0 && isAllocationSupported()) {
+			r.setAllocatedBytes(allocated);
+		}
+		r.setPeakHeapBytes(peakHeap);
+		return r;
+	}
+
+	private boolean isAllocationSupported() {
+		return threads instanceof com.sun.management.ThreadMXBean
+				&& ((com.sun.management.ThreadMXBean) threads).isThreadAllocatedMemorySupported();
+	}
+
+	private long getAllocatedBytes() {
+		if (!isAllocationSupported()) {
+			return 0;
+		}
+		long[] bytes = ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(measuredThreads);
+		long total = 0;
+		for (int iter = 0; iter < bytes.length; iter++) {
+			total += Math.max(0, bytes[iter]);
+		}
+		return total;
+	}
+
+	/**
+	 * Collects garbage and resets the peak usage of the heap pools
+	 * 
+	 * @return the live heap size
+	 */
+	private long resetHeapPeak() {
+		System.gc();
+		System.gc();
+		List pools = ManagementFactory.getMemoryPoolMXBeans();
+		long used = 0;
+		for (int iter = 0; iter < pools.size(); iter++) {
+			MemoryPoolMXBean pool = (MemoryPoolMXBean) pools.get(iter);
+			if (pool.getType() == MemoryType.HEAP) {
+				used += pool.getUsage().getUsed();
+				pool.resetPeakUsage();
+			}
+		}
+		return used;
+	}
+
+	private long getHeapPeak() {
+		List pools = ManagementFactory.getMemoryPoolMXBeans();
+		long peak = 0;
+		for (int iter = 0; iter < pools.size(); iter++) {
+			MemoryPoolMXBean pool = (MemoryPoolMXBean) pools.get(iter);
+			if (pool.getType() == MemoryType.HEAP) {
+				peak += pool.getPeakUsage().getUsed();
+			}
+		}
+		return peak;
+	}
+
+	private static String toJSON(Vector results) {
+		StringBuffer b = new StringBuffer();
+		b.append("{\"timestamp\":").append(System.currentTimeMillis());
+		b.append(",\"java\":");
+		BenchmarkResult.appendString(b, System.getProperty("java.vm.name") + " " + System.getProperty("java.version"));
+		b.append(",\"os\":");
+		BenchmarkResult.appendString(b, System.getProperty("os.name") + " " + System.getProperty("os.arch"));
+		b.append(",\"processors\":").append(Runtime.getRuntime().availableProcessors());
+		b.append(",\"results\":[\n");
+		for (int iter = 0; iter < results.size(); iter++) {
+			if (iter > 0) {
+				b.append(",\n");
+			}
+			((BenchmarkResult) results.elementAt(iter)).toJSON(b);
+		}
+		b.append("\n]}\n");
+		return b.toString();
+	}
+
+	/**
+	 * Prints the change of the median and of the allocations relative to a
+	 * previous run
+	 */
+	private static void compare(Vector results, String baselineFile) throws IOException {
+		InputStreamReader r = new InputStreamReader(new FileInputStream(baselineFile), "UTF-8");
+		Hashtable baseline = new JSONParser().parse(r);
+		r.close();
+		Vector entries = (Vector) baseline.get("results");
+		Hashtable byName = new Hashtable();
+		for (int iter = 0; iter < entries.size(); iter++) {
+			Hashtable h = (Hashtable) entries.elementAt(iter);
+			byName.put(h.get("name"), h);
+		}
+		for (int iter = 0; iter < results.size(); iter++) {
+			BenchmarkResult current = (BenchmarkResult) results.elementAt(iter);
+			Hashtable old = (Hashtable) byName.get(current.getName());
+			if (old == null || current.getError() != null || old.get("p50Ns") == null) {
+				continue;
+			}
+			double oldMedian = ((Double) old.get("p50Ns")).doubleValue();
+			double oldAllocated = ((Double) old.get("allocatedBytesPerIteration")).doubleValue();
+			System.out.println(current.getName() + ": median " + percentChange(oldMedian, current.getPercentile(50)) + ", allocations "
+					+ percentChange(oldAllocated, current.getAllocatedBytesPerIteration()));
+		}
+	}
+
+	private static String percentChange(double old, double current) {
+		if (old <= 0) {
+			return "n/a";
+		}
+		long change = Math.round((current - old) * 100 / old);
+		if (change > 0) {
+			return "+" + change + "%";
+		}
+		return change + "%";
+	}
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2008, 2010, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores
+ * CA 94065 USA or visit www.oracle.com if you need additional information or
+ * have any questions.
+ */
+package com.sun.lwuit.benchmark;
+
+import java.util.Vector;
+
+/**
+ * The list of benchmarks executed by the runner, new scenarios should be
+ * added here
+ */
+public class BenchmarkSuite {
+	private BenchmarkSuite() {
+	}
+
+	/**
+	 * Creates the benchmarks of the suite in execution order
+	 * 
+	 * @return vector of benchmarks
+	 */
+	public static Vector createBenchmarks() {
+		Vector v = new Vector();
+		v.addElement(new ListPaintBenchmark(false));
+		v.addElement(new ListPaintBenchmark(true));
+		v.addElement(new TextAreaBenchmark());
+		v.addElement(new TransitionBenchmark(false));
+		v.addElement(new TransitionBenchmark(true));
+		v.addElement(new KineticScrollBenchmark());
+		v.addElement(new ParserBenchmark(ParserBenchmark.XML));
+		v.addElement(new ParserBenchmark(ParserBenchmark.HTML));
+		v.addElement(new ParserBenchmark(ParserBenchmark.JSON));
+		v.addElement(new HTMLRenderBenchmark(false));
+		v.addElement(new HTMLRenderBenchmark(true));
+		v.addElement(new ResourcesBenchmark());
+		v.addElement(new ExternalizeBenchmark(false));
+		v.addElement(new ExternalizeBenchmark(true));
+		v.addElement(new CookieBenchmark(false));
+		v.addElement(new CookieBenchmark(true));
+		for (int depth = 2; depth <= 6; depth += 2) {
+			v.addElement(new GroupLayoutBenchmark(depth, false));
+			v.addElement(new GroupLayoutBenchmark(depth, true));
+		}
+		v.addElement(new ImageDecodeBenchmark(false));
+		v.addElement(new ImageDecodeBenchmark(true));
+		v.addElement(new ImageTransformBenchmark(false));
+		v.addElement(new ImageTransformBenchmark(true));
+		v.addElement(new UIBuilderBenchmark(false));
+		v.addElement(new UIBuilderBenchmark(true));
+		v.addElement(new FindByNameBenchmark());
+		v.addElement(new StorageBenchmark());
+		v.addElement(new RecordStreamBenchmark(false));
+		v.addElement(new RecordStreamBenchmark(true));
+		return v;
+	}
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2008, 2010, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores
+ * CA 94065 USA or visit www.oracle.com if you need additional information or
+ * have any questions.
+ */
+package com.sun.lwuit.benchmark;
+
+import com.sun.lwuit.io.Cookie;
+import com.sun.lwuit.io.impl.IOImplementation;
+
+/**
+ * Simulates a cookie heavy browsing session, the cookies of every domain are
+ * set and then looked up for a request to each of the domains
+ */
+public class CookieBenchmark extends Benchmark {
+	private static final int DOMAINS = 20;
+	private static final int PER_DOMAIN = 25;
+
+	private boolean autoStored;
+	private boolean oldAutoStored;
+	private Cookie[] cookies;
+
+	/**
+	 * Creates the benchmark
+	 * 
+	 * @param autoStored
+	 *            true to persist the cookies to storage as they change
+	 */
+	public CookieBenchmark(boolean autoStored) {
+		super(autoStored ? "cookies.session.stored" : "cookies.session");
+		this.autoStored = autoStored;
+		setParameter("domains", new Integer(DOMAINS));
+		setParameter("cookiesPerDomain", new Integer(PER_DOMAIN));
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public void setup() {
+		cookies = Fixtures.createCookies(DOMAINS, PER_DOMAIN);
+		oldAutoStored = Cookie.isAutoStored();
+		Cookie.setAutoStored(autoStored);
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public void run() {
+		IOImplementation impl = IOImplementation.getInstance();
+		for (int iter = 0; iter < DOMAINS; iter++) {
+			Cookie[] domainCookies = new Cookie[PER_DOMAIN];
+			System.arraycopy(cookies, iter * PER_DOMAIN, domainCookies, 0, PER_DOMAIN);
+			impl.addCookie(domainCookies);
+		}
+		for (int iter = 0; iter < DOMAINS; iter++) {
+			impl.getCookiesForURL("http://" + Fixtures.getCookieDomain(iter) + "/path/page.html");
+		}
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public void teardown() {
+		Cookie.setAutoStored(oldAutoStored);
+		if (autoStored) {
+			Cookie.clearCookiesFromStorage();
+		}
+	}
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2008, 2010, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores
+ * CA 94065 USA or visit www.oracle.com if you need additional information or
+ * have any questions.
+ */
+package com.sun.lwuit.benchmark;
+
+import com.sun.lwuit.io.util.Util;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.util.Hashtable;
+
+/**
+ * Writes or reads an object graph with Util.writeObject/readObject as used by
+ * Storage
+ */
+public class ExternalizeBenchmark extends Benchmark {
+	private static final int ENTRIES = 1000;
+
+	private boolean read;
+	private Hashtable graph;
+	private byte[] data;
+
+	/**
+	 * Creates the benchmark
+	 * 
+	 * @param read
+	 *            true to benchmark reading, false for writing
+	 */
+	public ExternalizeBenchmark(boolean read) {
+		super(read ? "util.readObject" : "util.writeObject");
+		this.read = read;
+		setParameter("entries", new Integer(ENTRIES));
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public void setup() throws Exception {
+		graph = Fixtures.createObjectGraph(ENTRIES);
+		data = write();
+		setParameter("bytes", new Integer(data.length));
+	}
+
+	private byte[] write() throws Exception {
+		ByteArrayOutputStream bo = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bo);
+		Util.writeObject(graph, out);
+		out.close();
+		return bo.toByteArray();
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public void run() throws Exception {
+		if (read) {
+			Util.readObject(new DataInputStream(new ByteArrayInputStream(data)));
+		} else {
+			write();
+		}
+	}
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2008, 2010, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores
+ * CA 94065 USA or visit www.oracle.com if you need additional information or
+ * have any questions.
+ */
+package com.sun.lwuit.benchmark;
+
+import com.sun.lwuit.Container;
+import com.sun.lwuit.util.Resources;
+import com.sun.lwuit.util.UIBuilder;
+import java.io.ByteArrayInputStream;
+
+/**
+ * Looks up components of a form created from a UI resource by name the way
+ * generated code does within event listeners
+ */
+public class FindByNameBenchmark extends Benchmark {
+	private static final int PAGES = 4;
+	private static final int LABELS = 40;
+	private static final int LOOKUPS = 10000;
+
+	private UIBuilder builder;
+	private Container root;
+	private String[] names;
+
+	/**
+	 * Creates the benchmark
+	 */
+	public FindByNameBenchmark() {
+		super("uibuilder.findByName");
+		setParameter("components", new Integer(PAGES * LABELS));
+		setParameter("lookups", new Integer(LOOKUPS));
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public void setup() throws Exception {
+		Resources res = Resources.open(new ByteArrayInputStream(Fixtures.createUI(PAGES, LABELS)));
+		builder = new UIBuilder();
+		root = builder.createContainer(res, "Main");
+		names = new String[PAGES * LABELS];
+		for (int page = 0; page < PAGES; page++) {
+			for (int iter = 0; iter < LABELS; iter++) {
+				names[page * LABELS + iter] = "label" + page + "_" + iter;
+			}
+		}
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public void run() throws Exception {
+		for (int iter = 0; iter < LOOKUPS; iter++) {
+			if (builder.findByName(names[iter % names.length], root) == null) {
+				throw new IllegalStateException("Component not found: " + names[iter % names.length]);
+			}
+		}
+	}
+}
@@ -0,0 +1,418 @@
+/*
+ * Copyright (c) 2008, 2010, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores
+ * CA 94065 USA or visit www.oracle.com if you need additional information or
+ * have any questions.
+ */
+package com.sun.lwuit.benchmark;
+
+import com.sun.lwuit.io.Cookie;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Hashtable;
+import java.util.Random;
+import java.util.Vector;
+import javax.imageio.ImageIO;
+
+/**
+ * Generates the fixtures used by the benchmarks. Every fixture is derived
+ * from a fixed seed so the same data is produced on every run and machine.
+ */
+public class Fixtures {
+	private static final String[] WORDS = { "the", "mobile", "form", "list", "render", "theme", "of", "and", "component", "layout",
+			"a", "network", "image", "to", "style", "device", "in", "container", "event", "is", "paint", "with", "screen", "text",
+			"for", "storage", "parser", "on", "cache", "scroll", "that", "document", "table", "by", "font", "border" };
+
+	private Fixtures() {
+	}
+
+	private static void appendWords(StringBuffer b, Random r, int count) {
+		for (int iter = 0; iter < count; iter++) {
+			if (iter > 0) {
+				b.append(' ');
+			}
+			b.append(WORDS[r.nextInt(WORDS.length)]);
+		}
+	}
+
+	/**
+	 * Creates list items of varying length
+	 * 
+	 * @param count
+	 *            the number of items
+	 * @return vector of strings
+	 */
+	public static Vector createListItems(int count) {
+		Random r = new Random(1);
+		Vector v = new Vector(count);
+		for (int iter = 0; iter < count; iter++) {
+			StringBuffer b = new StringBuffer("Item ");
+			b.append(iter).append(' ');
+			appendWords(b, r, 2 + r.nextInt(6));
+			v.addElement(b.toString());
+		}
+		return v;
+	}
+
+	/**
+	 * Creates plain text made of paragraphs separated by new lines
+	 * 
+	 * @param length
+	 *            the approximate length in characters
+	 * @return the text
+	 */
+	public static String createText(int length) {
+		Random r = new Random(2);
+		StringBuffer b = new StringBuffer(length + 100);
+		while (b.length() < length) {
+			appendWords(b, r, 20 + r.nextInt(60));
+			b.append(".\n");
+		}
+		return b.toString();
+	}
+
+	/**
+	 * Creates an article style XHTML page with an embedded style sheet,
+	 * headings, paragraphs with inline markup, lists and tables
+	 * 
+	 * @param length
+	 *            the approximate length of the page in characters
+	 * @return the page
+	 */
+	public static String createHTMLPage(int length) {
+		Random r = new Random(3);
+		StringBuffer b = new StringBuffer(length + 1000);
+		b.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<html><head><title>Benchmark</title><style type=\"text/css\">\n");
+		b.append("body { background-color: #ffffff; color: #202020; margin: 2px; }\n");
+		b.append("h1 { color: #003366; font-size: large; text-align: center; }\n");
+		b.append("h2 { color: #336699; border-bottom: 1px solid #336699; }\n");
+		b.append("p { margin: 2px; padding: 1px; }\n");
+		b.append("a { color: #0000cc; text-decoration: underline; }\n");
+		b.append("table { border: 1px solid #999999; }\n");
+		b.append("td { padding: 2px; border: 1px solid #cccccc; }\n");
+		b.append("th { background-color: #dddddd; font-weight: bold; }\n");
+		b.append("li { color: #404040; }\n");
+		for (int iter = 0; iter < 40; iter++) {
+			b.append(".c").append(iter).append(" { color: #").append(Integer.toHexString(0x100000 + r.nextInt(0xefffff)));
+			b.append("; padding: ").append(r.nextInt(4)).append("px; }\n");
+			b.append("#s").append(iter).append(" p { margin-left: ").append(r.nextInt(6)).append("px; }\n");
+		}
+		b.append("</style></head>\n<body><h1>Benchmark page</h1>\n");
+		int section = 0;
+		while (b.length() < length) {
+			b.append("<div id=\"s").append(section % 40).append("\"><h2>");
+			appendWords(b, r, 4);
+			b.append("</h2>\n");
+			for (int p = 0; p < 4; p++) {
+				b.append("<p class=\"c").append(r.nextInt(40)).append("\">");
+				appendWords(b, r, 20);
+				b.append(" <b>");
+				appendWords(b, r, 3);
+				b.append("</b> ");
+				appendWords(b, r, 10);
+				b.append(" <a href=\"http://www.example.com/page").append(r.nextInt(100)).append(".html\">");
+				appendWords(b, r, 2);
+				b.append("</a> <i>");
+				appendWords(b, r, 4);
+				b.append("</i> ");
+				appendWords(b, r, 15);
+				b.append(".</p>\n");
+			}
+			if (section % 3 == 0) {
+				b.append("<ul>");
+				for (int iter = 0; iter < 5; iter++) {
+					b.append("<li>");
+					appendWords(b, r, 6);
+					b.append("</li>");
+				}
+				b.append("</ul>\n");
+			}
+			if (section % 4 == 1) {
+				b.append("<table><tr><th>Name</th><th>Value</th><th>Notes</th></tr>");
+				for (int iter = 0; iter < 6; iter++) {
+					b.append("<tr><td>");
+					appendWords(b, r, 2);
+					b.append("</td><td>").append(r.nextInt(10000)).append("</td><td>");
+					appendWords(b, r, 5);
+					b.append("</td></tr>");
+				}
+				b.append("</table>\n");
+			}
+			b.append("</div>\n");
+			section++;
+		}
+		b.append("</body></html>\n");
+		return b.toString();
+	}
+
+	/**
+	 * Creates a JSON feed of entries with nested objects and arrays
+	 * 
+	 * @param length
+	 *            the approximate size of the feed in bytes
+	 * @return the UTF-8 bytes of the feed
+	 */
+	public static byte[] createJSONFeed(int length) throws IOException {
+		Random r = new Random(4);
+		StringBuffer b = new StringBuffer(length + 1000);
+		b.append("{\"feed\":{\"title\":\"Benchmark feed\",\"updated\":1288000000,\"entries\":[\n");
+		int id = 0;
+		while (b.length() < length) {
+			if (id > 0) {
+				b.append(",\n");
+			}
+			b.append("{\"id\":").append(id).append(",\"title\":\"");
+			appendWords(b, r, 6);
+			b.append("\",\"summary\":\"");
+			appendWords(b, r, 30);
+			b.append("\",\"price\":").append(r.nextInt(100000) / 100.0);
+			b.append(",\"published\":").append(1288000000 + r.nextInt(1000000));
+			b.append(",\"author\":{\"name\":\"");
+			appendWords(b, r, 2);
+			b.append("\",\"uri\":\"http://example.com/u/").append(r.nextInt(5000)).append("\"}");
+			b.append(",\"tags\":[");
+			int tags = 1 + r.nextInt(5);
+			for (int iter = 0; iter < tags; iter++) {
+				if (iter > 0) {
+					b.append(',');
+				}
+				b.append('"').append(WORDS[r.nextInt(WORDS.length)]).append('"');
+			}
+			b.append("],\"available\":").append(r.nextBoolean()).append('}');
+			id++;
+		}
+		b.append("\n]}}\n");
+		return b.toString().getBytes("UTF-8");
+	}
+
+	/**
+	 * Creates a PNG image with a gradient and noise so it doesn't compress to
+	 * nothing
+	 * 
+	 * @param width
+	 *            the width of the image
+	 * @param height
+	 *            the height of the image
+	 * @return the PNG file data
+	 */
+	public static byte[] createPNG(int width, int height) throws IOException {
+		Random r = new Random(5);
+		BufferedImage img = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				int red = x * 255 / width;
+				int green = y * 255 / height;
+				int blue = r.nextInt(64);
+				img.setRGB(x, y, (red << 16) | (green << 8) | blue);
+			}
+		}
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ImageIO.write(img, "png", out);
+		return out.toByteArray();
+	}
+
+	/**
+	 * Creates a resource file with a theme and images in the format read by
+	 * the Resources class. Every UIID of the theme has colors, transparency,
+	 * padding, margin, font and alignment entries for all four component
+	 * states.
+	 * 
+	 * @param uiids
+	 *            the number of UIIDs in the theme
+	 * @param images
+	 *            the number of images in the file
+	 * @return the resource file data
+	 */
+	public static byte[] createTheme(int uiids, int images) throws IOException {
+		Random r = new Random(6);
+		byte[] png = createPNG(32, 32);
+		ByteArrayOutputStream bo = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bo);
+		out.writeShort(images + 1);
+		for (int iter = 0; iter < images; iter++) {
+			out.writeByte(0xFD);
+			out.writeUTF("image" + iter);
+			out.writeInt(png.length);
+			out.write(png);
+		}
+		String[] states = { "", "sel#", "press#", "dis#" };
+		out.writeByte(0xF2);
+		out.writeUTF("Theme");
+		out.writeShort(uiids * states.length * 8);
+		for (int iter = 0; iter < uiids; iter++) {
+			for (int s = 0; s < states.length; s++) {
+				String prefix = "Cmp" + iter + "." + states[s];
+				out.writeUTF(prefix + "fgColor");
+				out.writeInt(r.nextInt(0xffffff));
+				out.writeUTF(prefix + "bgColor");
+				out.writeInt(r.nextInt(0xffffff));
+				out.writeUTF(prefix + "transparency");
+				out.writeByte(r.nextInt(256));
+				out.writeUTF(prefix + "padding");
+				out.write(new byte[] { (byte) r.nextInt(6), (byte) r.nextInt(6), (byte) r.nextInt(6), (byte) r.nextInt(6) });
+				out.writeUTF(prefix + "margin");
+				out.write(new byte[] { (byte) r.nextInt(4), (byte) r.nextInt(4), (byte) r.nextInt(4), (byte) r.nextInt(4) });
+				out.writeUTF(prefix + "font");
+				out.writeBoolean(false);
+				out.writeByte(0);
+				out.writeByte(r.nextInt(2));
+				out.writeByte(0);
+				out.writeUTF(prefix + "align");
+				out.writeShort(r.nextInt(3) == 0 ? 4 : 1);
+				out.writeUTF(prefix + "textDecoration");
+				out.writeShort(0);
+			}
+		}
+		out.close();
+		return bo.toByteArray();
+	}
+
+	/**
+	 * Creates a resource file containing a UI resource named "Main" in the
+	 * format written by the resource editor. The form contains tabs with the
+	 * given number of pages, every page has named labels.
+	 * 
+	 * @param pages
+	 *            the number of tab pages
+	 * @param labels
+	 *            the number of labels in every page
+	 * @return the resource file data
+	 */
+	public static byte[] createUI(int pages, int labels) throws IOException {
+		ByteArrayOutputStream ui = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(ui);
+
+		// property ids are the ones used by the UIBuilder
+		out.writeUTF("Form");
+		out.writeInt(23);
+		out.writeUTF("Main");
+		out.writeInt(24);
+		out.writeInt(1);
+		out.writeUTF("Tabs");
+		out.writeInt(21);
+		out.writeUTF("tabs");
+		out.writeInt(24);
+		out.writeInt(pages);
+		for (int page = 0; page < pages; page++) {
+			out.writeUTF("Tab " + page);
+			out.writeUTF("Container");
+			out.writeInt(24);
+			out.writeInt(labels);
+			for (int iter = 0; iter < labels; iter++) {
+				out.writeUTF("Label");
+				out.writeInt(21);
+				out.writeUTF("label" + page + "_" + iter);
+				out.writeInt(1);
+				out.writeUTF("Page " + page + " label " + iter);
+				out.writeInt(-1);
+			}
+			out.writeInt(-1);
+		}
+		out.writeInt(-1);
+		out.writeInt(-1);
+
+		// the first label of every page is the label for the second
+		for (int page = 0; page < pages; page++) {
+			out.writeUTF("label" + page + "_1");
+			out.writeInt(4);
+			out.writeUTF("label" + page + "_0");
+		}
+		out.writeUTF("");
+		out.close();
+
+		ByteArrayOutputStream bo = new ByteArrayOutputStream();
+		out = new DataOutputStream(bo);
+		out.writeShort(1);
+		out.writeByte(0xEE);
+		out.writeUTF("Main");
+		out.writeInt(ui.size());
+		out.write(ui.toByteArray());
+		out.close();
+		return bo.toByteArray();
+	}
+
+	/**
+	 * Creates the cookies of a session spread over the given number of
+	 * domains
+	 * 
+	 * @param domains
+	 *            the number of domains
+	 * @param perDomain
+	 *            cookies per domain
+	 * @return the cookies
+	 */
+	public static Cookie[] createCookies(int domains, int perDomain) {
+		Random r = new Random(7);
+		Cookie[] cookies = new Cookie[domains * perDomain];
+		for (int iter = 0; iter < cookies.length; iter++) {
+			Cookie c = new Cookie();
+			c.setDomain(getCookieDomain(iter / perDomain));
+			c.setName("c" + (iter % perDomain));
+			c.setValue(Long.toHexString(r.nextLong()) + Long.toHexString(r.nextLong()));
+			c.setExpires(1288000000000L + r.nextInt(1000000));
+			cookies[iter] = c;
+		}
+		return cookies;
+	}
+
+	/**
+	 * Returns the domain of the given index used by the cookie fixture
+	 * 
+	 * @param index
+	 *            the domain index
+	 * @return the domain name
+	 */
+	public static String getCookieDomain(int index) {
+		return "host" + index + ".example.com";
+	}
+
+	/**
+	 * Creates an object graph of the types supported by Util.writeObject
+	 * 
+	 * @param entries
+	 *            the number of entries in the root table
+	 * @return the root of the graph
+	 */
+	public static Hashtable createObjectGraph(int entries) {
+		Random r = new Random(8);
+		Hashtable root = new Hashtable();
+		for (int iter = 0; iter < entries; iter++) {
+			Hashtable entry = new Hashtable();
+			StringBuffer b = new StringBuffer();
+			appendWords(b, r, 8);
+			entry.put("title", b.toString());
+			entry.put("id", new Integer(iter));
+			entry.put("score", new Double(r.nextDouble()));
+			entry.put("time", new Long(1288000000000L + r.nextInt()));
+			Vector tags = new Vector();
+			for (int t = 0; t < 4; t++) {
+				tags.addElement(WORDS[r.nextInt(WORDS.length)]);
+			}
+			entry.put("tags", tags);
+			byte[] data = new byte[64];
+			r.nextBytes(data);
+			entry.put("data", data);
+			root.put("entry" + iter, entry);
+		}
+		return root;
+	}
+}
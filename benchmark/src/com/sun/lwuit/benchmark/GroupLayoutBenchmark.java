@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2008, 2010, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores
+ * CA 94065 USA or visit www.oracle.com if you need additional information or
+ * have any questions.
+ */
+package com.sun.lwuit.benchmark;
+
+import com.sun.lwuit.Container;
+import com.sun.lwuit.Label;
+import com.sun.lwuit.geom.Dimension;
+import com.sun.lwuit.layouts.GroupLayout;
+
+/**
+ * Lays out a container whose GroupLayout nests alternating sequential and
+ * parallel groups to the given depth. The steady variant revalidates without
+ * changes, the changed variant modifies the text of a single label before
+ * every layout.
+ */
+public class GroupLayoutBenchmark extends Benchmark {
+	private int depth;
+	private boolean change;
+	private Container container;
+	private Label changing;
+	private int counter;
+
+	/**
+	 * Creates the benchmark
+	 * 
+	 * @param depth
+	 *            the depth of the group tree
+	 * @param change
+	 *            true to change the preferred size of a label before every
+	 *            layout
+	 */
+	public GroupLayoutBenchmark(int depth, boolean change) {
+		super("grouplayout." + (change ? "changed" : "steady") + ".depth" + depth);
+		this.depth = depth;
+		this.change = change;
+		setParameter("depth", new Integer(depth));
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public void setup() {
+		container = new Container();
+		GroupLayout layout = new GroupLayout(container);
+		container.setLayout(layout);
+		layout.setAutocreateGaps(true);
+		GroupLayout.Group[] groups = createGroups(layout, depth, true);
+		layout.setHorizontalGroup(groups[0]);
+		layout.setVerticalGroup(groups[1]);
+		setParameter("components", new Integer(container.getComponentCount()));
+	}
+
+	/**
+	 * Builds the horizontal and the vertical group of a level, every component
+	 * is added to both so the vertical tree mirrors the horizontal one with
+	 * the group types swapped
+	 */
+	private GroupLayout.Group[] createGroups(GroupLayout layout, int level, boolean sequential) {
+		GroupLayout.Group horizontal;
+		GroupLayout.Group vertical;
+		if (sequential) {
+			horizontal = layout.createSequentialGroup();
+			vertical = layout.createParallelGroup();
+		} else {
+			horizontal = layout.createParallelGroup();
+			vertical = layout.createSequentialGroup();
+		}
+		Label l = new Label("Label " + level);
+		if (changing == null) {
+			changing = l;
+		}
+		add(horizontal, l);
+		add(vertical, l);
+		if (level > 0) {
+			for (int iter = 0; iter < 2; iter++) {
+				GroupLayout.Group[] child = createGroups(layout, level - 1, !sequential);
+				add(horizontal, child[0]);
+				add(vertical, child[1]);
+			}
+		} else {
+			Label leaf = new Label("Leaf");
+			add(horizontal, leaf);
+			add(vertical, leaf);
+		}
+		return new GroupLayout.Group[] { horizontal, vertical };
+	}
+
+	private void add(GroupLayout.Group parent, Object child) {
+		if (parent instanceof GroupLayout.SequentialGroup) {
+			if (child instanceof Label) {
+				((GroupLayout.SequentialGroup) parent).add((Label) child);
+			} else {
+				((GroupLayout.SequentialGroup) parent).add((GroupLayout.Group) child);
+			}
+		} else {
+			if (child instanceof Label) {
+				((GroupLayout.ParallelGroup) parent).add((Label) child);
+			} else {
+				((GroupLayout.ParallelGroup) parent).add((GroupLayout.Group) child);
+			}
+		}
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public void run() {
+		if (change) {
+			counter++;
+			changing.setText((counter & 1) == 0 ? "Label" : "Longer label");
+		}
+		container.setShouldCalcPreferredSize(true);
+		Dimension d = container.getPreferredSize();
+		container.setWidth(d.getWidth());
+		container.setHeight(d.getHeight());
+		container.layoutContainer();
+	}
+}
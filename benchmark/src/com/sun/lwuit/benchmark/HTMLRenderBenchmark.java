@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2008, 2010, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores
+ * CA 94065 USA or visit www.oracle.com if you need additional information or
+ * have any questions.
+ */
+package com.sun.lwuit.benchmark;
+
+import com.sun.lwuit.Display;
+import com.sun.lwuit.Form;
+import com.sun.lwuit.html.DefaultHTMLCallback;
+import com.sun.lwuit.html.HTMLCallback;
+import com.sun.lwuit.html.HTMLComponent;
+import com.sun.lwuit.layouts.BorderLayout;
+
+/**
+ * Parses the 50KB page and renders it in a showing HTMLComponent, the
+ * iteration ends when the component reports the page as completed. Comparing
+ * the CSS and the plain variants isolates the cost of applying the style
+ * sheet.
+ */
+public class HTMLRenderBenchmark extends Benchmark {
+	private boolean css;
+	private String page;
+	private HTMLComponent html;
+	private Object lock = new Object();
+	private boolean completed;
+
+	/**
+	 * Creates the benchmark
+	 * 
+	 * @param css
+	 *            false to ignore the style sheet of the page
+	 */
+	public HTMLRenderBenchmark(boolean css) {
+		super(css ? "html.render.css" : "html.render");
+		this.css = css;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public void setup() throws Exception {
+		page = Fixtures.createHTMLPage(50 * 1024);
+		setParameter("characters", new Integer(page.length()));
+		html = new HTMLComponent();
+		html.setShowImages(false);
+		html.setIgnoreCSS(!css);
+		html.setHTMLCallback(new DefaultHTMLCallback() {
+			public void pageStatusChanged(HTMLComponent htmlC, int status, String url) {
+				if (status == HTMLCallback.STATUS_COMPLETED || status == HTMLCallback.STATUS_ERROR) {
+					synchronized (lock) {
+						completed = true;
+						lock.notify();
+					}
+				}
+			}
+		});
+		final Form f = new Form();
+		f.setLayout(new BorderLayout());
+		f.addComponent(BorderLayout.CENTER, html);
+		Display.getInstance().callSeriallyAndWait(new Runnable() {
+			public void run() {
+				f.show();
+			}
+		});
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public void run() throws Exception {
+		completed = false;
+		html.setHTML(page, "UTF-8", null, true);
+		synchronized (lock) {
+			while (!completed) {
+				lock.wait();
+			}
+		}
+	}
+}
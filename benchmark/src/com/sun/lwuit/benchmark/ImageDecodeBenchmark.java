@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2008, 2010, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores
+ * CA 94065 USA or visit www.oracle.com if you need additional information or
+ * have any questions.
+ */
+package com.sun.lwuit.benchmark;
+
+import com.sun.lwuit.Image;
+
+/**
+ * Creates a thumbnail from a large PNG, either by decoding the full image
+ * and scaling it or by decoding directly at the target size. Peak heap usage
+ * is measured for both.
+ */
+public class ImageDecodeBenchmark extends Benchmark {
+	private static final int WIDTH = 2048;
+	private static final int HEIGHT = 1536;
+	private static final int TARGET_WIDTH = 128;
+
+	private boolean downsample;
+	private byte[] data;
+
+	/**
+	 * Creates the benchmark
+	 * 
+	 * @param downsample
+	 *            true to decode at the target size
+	 */
+	public ImageDecodeBenchmark(boolean downsample) {
+		super(downsample ? "image.decode.downsampled" : "image.decode.scaled");
+		this.downsample = downsample;
+		setMeasurePeakHeap(true);
+		setIterations(2, 10);
+		setParameter("sourceWidth", new Integer(WIDTH));
+		setParameter("sourceHeight", new Integer(HEIGHT));
+		setParameter("targetWidth", new Integer(TARGET_WIDTH));
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public void setup() throws Exception {
+		data = Fixtures.createPNG(WIDTH, HEIGHT);
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public void run() {
+		if (downsample) {
+			Image.createImage(data, 0, data.length, TARGET_WIDTH, -1);
+		} else {
+			Image.createImage(data, 0, data.length).scaledWidth(TARGET_WIDTH);
+		}
+	}
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2008, 2010, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores
+ * CA 94065 USA or visit www.oracle.com if you need additional information or
+ * have any questions.
+ */
+package com.sun.lwuit.benchmark;
+
+import com.sun.lwuit.Display;
+import com.sun.lwuit.Graphics;
+import com.sun.lwuit.Image;
+
+/**
+ * Draws an image faded and rotated through a short cycle of frames the way
+ * an animation object or a progress indicator does
+ */
+public class ImageTransformBenchmark extends Benchmark {
+	private static final int FRAMES = 8;
+
+	private boolean cache;
+	private int oldCacheSize;
+	private Image image;
+	private Graphics graphics;
+	private int frame;
+
+	/**
+	 * Creates the benchmark
+	 * 
+	 * @param cache
+	 *            false to disable the image transform cache
+	 */
+	public ImageTransformBenchmark(boolean cache) {
+		super(cache ? "image.transform.cached" : "image.transform");
+		this.cache = cache;
+		setParameter("frames", new Integer(FRAMES));
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public void setup() throws Exception {
+		byte[] png = Fixtures.createPNG(64, 64);
+		image = Image.createImage(png, 0, png.length);
+		graphics = Image.createImage(128, 128).getGraphics();
+		oldCacheSize = Display.getInstance().getImageTransformCacheSize();
+		if (!cache) {
+			Display.getInstance().setImageTransformCacheSize(0);
+		}
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public void run() {
+		frame = (frame + 1) % FRAMES;
+		Image i = image.modifyAlphaWithTranslucency((byte) (255 - frame * 16));
+		i = i.rotate(frame * 45);
+		graphics.drawImage(i, 0, 0);
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public void teardown() {
+		Display.getInstance().setImageTransformCacheSize(oldCacheSize);
+	}
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2008, 2010, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores
+ * CA 94065 USA or visit www.oracle.com if you need additional information or
+ * have any questions.
+ */
+package com.sun.lwuit.benchmark;
+
+import com.sun.lwuit.animations.ScrollPhysics;
+import java.util.Random;
+
+/**
+ * Replays recorded drag traces through the velocity estimation and the fling
+ * physics with simulated frame clocks of different rates and jitter. Every
+ * iteration verifies that a fling comes to rest in the same position
+ * regardless of the frame rate and fails the run otherwise.
+ */
+public class KineticScrollBenchmark extends Benchmark {
+	private static final int TRACES = 50;
+	private static final int PATH_TIME = 200;
+	private static final int[] FRAME_RATES = {15, 30, 60, 120};
+
+	private float[][] points;
+	private long[][] times;
+	private Random jitter;
+	private ScrollPhysics physics = new ScrollPhysics();
+
+	/**
+	 * Creates the benchmark
+	 */
+	public KineticScrollBenchmark() {
+		super("scroll.kinetic");
+		setParameter("traces", new Integer(TRACES));
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public void setup() throws Exception {
+		// synthetic traces of a decelerating finger sampled with the irregular
+		// event timing of a touch screen
+		Random r = new Random(47);
+		points = new float[TRACES][];
+		times = new long[TRACES][];
+		for (int iter = 0; iter < TRACES; iter++) {
+			int count = 5 + r.nextInt(20);
+			float velocity = (r.nextFloat() * 6 - 3);
+			float[] p = new float[count];
+			long[] t = new long[count];
+			float pos = 400;
+			long time = 1000;
+			for (int point = 0; point < count; point++) {
+				p[point] = pos;
+				t[point] = time;
+				int delta = 8 + r.nextInt(17);
+				time += delta;
+				pos += velocity * delta + r.nextInt(5) - 2;
+				velocity *= 0.97f;
+			}
+			points[iter] = p;
+			times[iter] = t;
+		}
+		jitter = new Random(1);
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public void run() throws Exception {
+		for (int iter = 0; iter < TRACES; iter++) {
+			long[] t = times[iter];
+			float velocity = ScrollPhysics.estimateVelocity(points[iter], t, 0, t.length, t[t.length - 1], PATH_TIME);
+			int rest = 0;
+			for (int rate = 0; rate < FRAME_RATES.length; rate++) {
+				int value = replay(velocity, 1000 / FRAME_RATES[rate]);
+				if (rate == 0) {
+					rest = value;
+				} else if (value != rest) {
+					throw new IllegalStateException("Trace " + iter + " rests at " + value + " at " + FRAME_RATES[rate] + "fps instead of " + rest);
+				}
+			}
+		}
+	}
+
+	private int replay(float velocity, int frame) {
+		physics.fling(0, velocity, -100000, 100000);
+		long clock = physics.getStartTime();
+		int value = 0;
+		int frames = 0;
+		while (!physics.isFinished()) {
+			clock += frame + jitter.nextInt(frame / 2 + 1) - frame / 4;
+			value = physics.getValue(clock);
+			frames++;
+			if (frames > 100000) {
+				throw new IllegalStateException("Fling didn't come to rest");
+			}
+		}
+		physics.stop();
+		return value;
+	}
+}
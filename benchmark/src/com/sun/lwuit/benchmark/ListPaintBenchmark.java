@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2008, 2010, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores
+ * CA 94065 USA or visit www.oracle.com if you need additional information or
+ * have any questions.
+ */
+package com.sun.lwuit.benchmark;
+
+import com.sun.lwuit.Graphics;
+import com.sun.lwuit.Image;
+import com.sun.lwuit.List;
+
+/**
+ * Paints a list of 10,000 items while moving the selection through it the
+ * way a user scrolling with the keys would
+ */
+public class ListPaintBenchmark extends Benchmark {
+	private static final int ITEMS = 10000;
+
+	private boolean rowCache;
+	private List list;
+	private Graphics graphics;
+	private int selection;
+
+	/**
+	 * Creates the benchmark
+	 * 
+	 * @param rowCache
+	 *            true to paint with the row image cache enabled
+	 */
+	public ListPaintBenchmark(boolean rowCache) {
+		super(rowCache ? "list.paint.rowcache" : "list.paint");
+		this.rowCache = rowCache;
+		setParameter("items", new Integer(ITEMS));
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public void setup() {
+		list = new List(Fixtures.createListItems(ITEMS));
+		list.setSmoothScrolling(false);
+		if (rowCache) {
+			list.setRowImageCacheSize(1024 * 1024);
+		}
+		list.setWidth(320);
+		list.setHeight(480);
+		graphics = Image.createImage(320, 480).getGraphics();
+		selection = 0;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public void run() {
+		// move down a few rows at a time and wrap around a window of the list
+		// so cached rows are revisited
+		selection = (selection + 3) % 600;
+		list.setSelectedIndex(selection, true);
+		list.paintComponent(graphics);
+	}
+}
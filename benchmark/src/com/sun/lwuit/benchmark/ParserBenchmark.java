@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2008, 2010, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores
+ * CA 94065 USA or visit www.oracle.com if you need additional information or
+ * have any questions.
+ */
+package com.sun.lwuit.benchmark;
+
+import com.sun.lwuit.html.HTMLParser;
+import com.sun.lwuit.io.util.JSONParser;
+import com.sun.lwuit.xml.XMLParser;
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+
+/**
+ * Parses a document with one of the LWUIT parsers
+ */
+public class ParserBenchmark extends Benchmark {
+	/**
+	 * Parses the 50KB page with the generic XML parser
+	 */
+	public static final int XML = 0;
+
+	/**
+	 * Parses the 50KB page with the HTML parser
+	 */
+	public static final int HTML = 1;
+
+	/**
+	 * Parses the 1MB feed with the JSON parser
+	 */
+	public static final int JSON = 2;
+
+	private int type;
+	private byte[] data;
+
+	/**
+	 * Creates the benchmark
+	 * 
+	 * @param type
+	 *            one of XML, HTML or JSON
+	 */
+	public ParserBenchmark(int type) {
+		super(type == XML ? "xml.parse" : type == HTML ? "html.parse" : "json.parse");
+		this.type = type;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public void setup() throws Exception {
+		if (type == JSON) {
+			data = Fixtures.createJSONFeed(1024 * 1024);
+		} else {
+			data = Fixtures.createHTMLPage(50 * 1024).getBytes("UTF-8");
+		}
+		setParameter("bytes", new Integer(data.length));
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public void run() throws Exception {
+		InputStreamReader r = new InputStreamReader(new ByteArrayInputStream(data), "UTF-8");
+		switch (type) {
+		case XML:
+			new XMLParser().parse(r);
+			break;
+		case HTML:
+			new HTMLParser().parseHTML(r);
+			break;
+		default:
+			new JSONParser().parse(r);
+			break;
+		}
+	}
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2008, 2010, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores
+ * CA 94065 USA or visit www.oracle.com if you need additional information or
+ * have any questions.
+ */
+package com.sun.lwuit.benchmark;
+
+import com.sun.lwuit.io.impl.RecordInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.util.Random;
+import java.util.Vector;
+
+/**
+ * Reads a large storage entry laid out in records the way the RMS storage
+ * writes it and measures the peak heap, either streamed by RecordInputStream
+ * as the RMS storage does or concatenated into a single array first as it did
+ * before. The records are held in memory and every fetch returns a copy just
+ * like RecordStore.getRecord so the measurement doesn't depend on a device.
+ */
+public class RecordStreamBenchmark extends Benchmark {
+	private static final int SIZE = 1024 * 1024;
+	private static final int RECORD_SIZE = 32536;
+
+	private boolean materialized;
+	private Vector records;
+	private byte[] buffer = new byte[4096];
+
+	/**
+	 * Creates the benchmark
+	 * 
+	 * @param materialized
+	 *            true to read the whole entry into memory before streaming it,
+	 *            false to stream it a record at a time
+	 */
+	public RecordStreamBenchmark(boolean materialized) {
+		super(materialized ? "storage.rms.materialized" : "storage.rms.stream");
+		this.materialized = materialized;
+		setMeasurePeakHeap(true);
+		setIterations(2, 10);
+		setParameter("bytes", new Integer(SIZE));
+		setParameter("recordSize", new Integer(RECORD_SIZE));
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public void setup() throws Exception {
+		Random r = new Random(9);
+		records = new Vector();
+		for (int offset = 0; offset < SIZE; offset += RECORD_SIZE) {
+			byte[] data = new byte[Math.min(RECORD_SIZE, SIZE - offset)];
+			r.nextBytes(data);
+			records.addElement(data);
+		}
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public void run() throws Exception {
+		InputStream in;
+		if (materialized) {
+			ByteArrayOutputStream os = new ByteArrayOutputStream();
+			for (int iter = 0; iter < records.size(); iter++) {
+				os.write(fetch(iter));
+			}
+			os.close();
+			in = new ByteArrayInputStream(os.toByteArray());
+		} else {
+			in = new Records();
+		}
+		while (in.read(buffer) > -1) {
+		}
+		in.close();
+	}
+
+	private byte[] fetch(int index) {
+		byte[] data = (byte[]) records.elementAt(index);
+		byte[] copy = new byte[data.length];
+		System.arraycopy(data, 0, copy, 0, data.length);
+		return copy;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public void teardown() {
+		records = null;
+	}
+
+	class Records extends RecordInputStream {
+		private int offset;
+
+		public Records() {
+			super(0);
+		}
+
+		protected boolean nextRecord() {
+			return offset < records.size();
+		}
+
+		protected int getRecordSize() {
+			return ((byte[]) records.elementAt(offset)).length;
+		}
+
+		protected byte[] readRecord() {
+			return fetch(offset++);
+		}
+
+		protected void skipRecord() {
+			offset++;
+		}
+
+		protected void closeRecords() {
+			offset = records.size();
+		}
+	}
+}
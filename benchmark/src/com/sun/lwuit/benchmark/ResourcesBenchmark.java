@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2008, 2010, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores
+ * CA 94065 USA or visit www.oracle.com if you need additional information or
+ * have any questions.
+ */
+package com.sun.lwuit.benchmark;
+
+import com.sun.lwuit.util.Resources;
+import java.io.ByteArrayInputStream;
+
+/**
+ * Loads a large resource file containing a theme and images
+ */
+public class ResourcesBenchmark extends Benchmark {
+	private static final int UIIDS = 250;
+	private static final int IMAGES = 40;
+
+	private byte[] data;
+
+	/**
+	 * Creates the benchmark
+	 */
+	public ResourcesBenchmark() {
+		super("resources.open");
+		setParameter("uiids", new Integer(UIIDS));
+		setParameter("images", new Integer(IMAGES));
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public void setup() throws Exception {
+		data = Fixtures.createTheme(UIIDS, IMAGES);
+		setParameter("bytes", new Integer(data.length));
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public void run() throws Exception {
+		Resources res = Resources.open(new ByteArrayInputStream(data));
+		res.getTheme("Theme");
+	}
+}
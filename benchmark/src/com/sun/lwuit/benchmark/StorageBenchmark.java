@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2008, 2010, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores
+ * CA 94065 USA or visit www.oracle.com if you need additional information or
+ * have any questions.
+ */
+package com.sun.lwuit.benchmark;
+
+import com.sun.lwuit.io.Storage;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Random;
+
+/**
+ * Streams a large storage entry through a small buffer and measures the peak
+ * heap needed to do so
+ */
+public class StorageBenchmark extends Benchmark {
+	private static final String ENTRY = "benchmarkEntry";
+	private static final int SIZE = 1024 * 1024;
+
+	private byte[] buffer = new byte[4096];
+
+	/**
+	 * Creates the benchmark
+	 */
+	public StorageBenchmark() {
+		super("storage.read");
+		setMeasurePeakHeap(true);
+		setIterations(2, 10);
+		setParameter("bytes", new Integer(SIZE));
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public void setup() throws Exception {
+		byte[] data = new byte[SIZE];
+		new Random(9).nextBytes(data);
+		OutputStream out = Storage.getInstance().createOutputStream(ENTRY);
+		out.write(data);
+		out.close();
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public void run() throws Exception {
+		InputStream in = Storage.getInstance().createInputStream(ENTRY);
+		while (in.read(buffer) > -1) {
+		}
+		in.close();
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public void teardown() {
+		Storage.getInstance().deleteStorageFile(ENTRY);
+	}
+}
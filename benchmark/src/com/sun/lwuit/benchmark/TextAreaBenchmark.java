@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2008, 2010, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores
+ * CA 94065 USA or visit www.oracle.com if you need additional information or
+ * have any questions.
+ */
+package com.sun.lwuit.benchmark;
+
+import com.sun.lwuit.TextArea;
+
+/**
+ * Breaks a long text into rows, this is the work TextArea performs whenever
+ * its text or width changes
+ */
+public class TextAreaBenchmark extends Benchmark {
+	private static final int LENGTH = 20 * 1024;
+
+	private TextArea textArea;
+	private String[] texts;
+	private int current;
+
+	/**
+	 * Creates the benchmark
+	 */
+	public TextAreaBenchmark() {
+		super("textarea.rows");
+		setParameter("characters", new Integer(LENGTH));
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public void setup() {
+		String text = Fixtures.createText(LENGTH);
+
+		// alternate between two texts so every setText is an actual change
+		texts = new String[] { text, text.substring(1) };
+		textArea = new TextArea(texts[0]);
+		textArea.setWidth(300);
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public void run() {
+		current = 1 - current;
+		textArea.setText(texts[current]);
+		textArea.getLines();
+	}
+}
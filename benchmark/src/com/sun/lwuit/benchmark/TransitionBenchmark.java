@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2008, 2010, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores
+ * CA 94065 USA or visit www.oracle.com if you need additional information or
+ * have any questions.
+ */
+package com.sun.lwuit.benchmark;
+
+import com.sun.lwuit.Display;
+import com.sun.lwuit.Form;
+import com.sun.lwuit.Graphics;
+import com.sun.lwuit.Image;
+import com.sun.lwuit.Label;
+import com.sun.lwuit.animations.CommonTransitions;
+import com.sun.lwuit.animations.Transition;
+
+/**
+ * Runs the setup, a frame and the cleanup of a full screen transition between
+ * two forms, this is dominated by the allocation of the transition buffers
+ */
+public class TransitionBenchmark extends Benchmark {
+	private int type;
+	private Form source;
+	private Form destination;
+	private Graphics graphics;
+
+	/**
+	 * Creates the benchmark
+	 * 
+	 * @param fade
+	 *            true for a fade transition, false for a slide
+	 */
+	public TransitionBenchmark(boolean fade) {
+		super(fade ? "transition.fade" : "transition.slide");
+		type = fade ? 0 : 1;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public void setup() throws Exception {
+		source = createForm("Source");
+		destination = createForm("Destination");
+		graphics = Image.createImage(Display.getInstance().getDisplayWidth(), Display.getInstance().getDisplayHeight()).getGraphics();
+		Display.getInstance().callSeriallyAndWait(new Runnable() {
+			public void run() {
+				source.show();
+			}
+		});
+	}
+
+	private Form createForm(String title) {
+		Form f = new Form(title);
+		for (int iter = 0; iter < 20; iter++) {
+			f.addComponent(new Label(title + " " + iter));
+		}
+		f.setWidth(Display.getInstance().getDisplayWidth());
+		f.setHeight(Display.getInstance().getDisplayHeight());
+		return f;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public void run() throws Exception {
+		Display.getInstance().callSeriallyAndWait(new Runnable() {
+			public void run() {
+				Transition t;
+				if (type == 0) {
+					t = CommonTransitions.createFade(200);
+				} else {
+					t = CommonTransitions.createSlide(CommonTransitions.SLIDE_HORIZONTAL, true, 200);
+				}
+				t.init(source, destination);
+				t.initTransition();
+				t.animate();
+				t.paint(graphics);
+				t.cleanup();
+			}
+		});
+	}
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2008, 2010, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores
+ * CA 94065 USA or visit www.oracle.com if you need additional information or
+ * have any questions.
+ */
+package com.sun.lwuit.benchmark;
+
+import com.sun.lwuit.util.Resources;
+import com.sun.lwuit.util.UIBuilder;
+import java.io.ByteArrayInputStream;
+
+/**
+ * Creates a form with multiple tab pages from a UI resource, this is the cost
+ * paid whenever navigating to a form including back navigation
+ */
+public class UIBuilderBenchmark extends Benchmark {
+	private static final int PAGES = 6;
+	private static final int LABELS = 40;
+
+	private boolean lazy;
+	private Resources res;
+	private UIBuilder builder;
+
+	/**
+	 * Creates the benchmark
+	 * 
+	 * @param lazy
+	 *            true to create the containers lazily
+	 */
+	public UIBuilderBenchmark(boolean lazy) {
+		super(lazy ? "uibuilder.create.lazy" : "uibuilder.create");
+		this.lazy = lazy;
+		setParameter("lazy", new Boolean(lazy));
+		setParameter("pages", new Integer(PAGES));
+		setParameter("labels", new Integer(LABELS));
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public void setup() throws Exception {
+		res = Resources.open(new ByteArrayInputStream(Fixtures.createUI(PAGES, LABELS)));
+		builder = new UIBuilder();
+		builder.setLazyContainers(lazy);
+
+		// the first creation indexes the description in lazy mode
+		builder.createContainer(res, "Main");
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public void run() throws Exception {
+		builder.createContainer(res, "Main");
+	}
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright (c) 2008, 2010, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores
+ * CA 94065 USA or visit www.oracle.com if you need additional information or
+ * have any questions.
+ */
+package com.sun.lwuit.impl.headless;
+
+import com.sun.lwuit.Font;
+
+/**
+ * Native font of the headless implementation. Glyphs come from a built in
+ * 5x7 bitmap font covering printable ASCII and are scaled up by an integer
+ * factor for the larger sizes, every character occupies the same cell so
+ * measurements are identical on every machine. Characters outside of the
+ * ASCII range are drawn as a hollow box.
+ */
+class HeadlessFont {
+	/**
+	 * Column bitmaps of the glyphs from 0x20 to 0x7e, 5 columns per glyph with
+	 * the top row in the least significant bit
+	 */
+	private static final byte[] GLYPHS = {
+			0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x5f, 0x00, 0x00,
+			0x00, 0x07, 0x00, 0x07, 0x00, 0x14, 0x7f, 0x14, 0x7f, 0x14,
+			0x24, 0x2a, 0x7f, 0x2a, 0x12, 0x23, 0x13, 0x08, 0x64, 0x62,
+			0x36, 0x49, 0x55, 0x22, 0x50, 0x00, 0x05, 0x03, 0x00, 0x00,
+			0x00, 0x1c, 0x22, 0x41, 0x00, 0x00, 0x41, 0x22, 0x1c, 0x00,
+			0x08, 0x2a, 0x1c, 0x2a, 0x08, 0x08, 0x08, 0x3e, 0x08, 0x08,
+			0x00, 0x50, 0x30, 0x00, 0x00, 0x08, 0x08, 0x08, 0x08, 0x08,
+			0x00, 0x60, 0x60, 0x00, 0x00, 0x20, 0x10, 0x08, 0x04, 0x02,
+			0x3e, 0x51, 0x49, 0x45, 0x3e, 0x00, 0x42, 0x7f, 0x40, 0x00,
+			0x42, 0x61, 0x51, 0x49, 0x46, 0x21, 0x41, 0x45, 0x4b, 0x31,
+			0x18, 0x14, 0x12, 0x7f, 0x10, 0x27, 0x45, 0x45, 0x45, 0x39,
+			0x3c, 0x4a, 0x49, 0x49, 0x30, 0x01, 0x71, 0x09, 0x05, 0x03,
+			0x36, 0x49, 0x49, 0x49, 0x36, 0x06, 0x49, 0x49, 0x29, 0x1e,
+			0x00, 0x36, 0x36, 0x00, 0x00, 0x00, 0x56, 0x36, 0x00, 0x00,
+			0x08, 0x14, 0x22, 0x41, 0x00, 0x14, 0x14, 0x14, 0x14, 0x14,
+			0x00, 0x41, 0x22, 0x14, 0x08, 0x02, 0x01, 0x51, 0x09, 0x06,
+			0x32, 0x49, 0x79, 0x41, 0x3e, 0x7e, 0x11, 0x11, 0x11, 0x7e,
+			0x7f, 0x49, 0x49, 0x49, 0x36, 0x3e, 0x41, 0x41, 0x41, 0x22,
+			0x7f, 0x41, 0x41, 0x22, 0x1c, 0x7f, 0x49, 0x49, 0x49, 0x41,
+			0x7f, 0x09, 0x09, 0x09, 0x01, 0x3e, 0x41, 0x49, 0x49, 0x7a,
+			0x7f, 0x08, 0x08, 0x08, 0x7f, 0x00, 0x41, 0x7f, 0x41, 0x00,
+			0x20, 0x40, 0x41, 0x3f, 0x01, 0x7f, 0x08, 0x14, 0x22, 0x41,
+			0x7f, 0x40, 0x40, 0x40, 0x40, 0x7f, 0x02, 0x0c, 0x02, 0x7f,
+			0x7f, 0x04, 0x08, 0x10, 0x7f, 0x3e, 0x41, 0x41, 0x41, 0x3e,
+			0x7f, 0x09, 0x09, 0x09, 0x06, 0x3e, 0x41, 0x51, 0x21, 0x5e,
+			0x7f, 0x09, 0x19, 0x29, 0x46, 0x46, 0x49, 0x49, 0x49, 0x31,
+			0x01, 0x01, 0x7f, 0x01, 0x01, 0x3f, 0x40, 0x40, 0x40, 0x3f,
+			0x1f, 0x20, 0x40, 0x20, 0x1f, 0x3f, 0x40, 0x38, 0x40, 0x3f,
+			0x63, 0x14, 0x08, 0x14, 0x63, 0x07, 0x08, 0x70, 0x08, 0x07,
+			0x61, 0x51, 0x49, 0x45, 0x43, 0x00, 0x7f, 0x41, 0x41, 0x00,
+			0x02, 0x04, 0x08, 0x10, 0x20, 0x00, 0x41, 0x41, 0x7f, 0x00,
+			0x04, 0x02, 0x01, 0x02, 0x04, 0x40, 0x40, 0x40, 0x40, 0x40,
+			0x00, 0x01, 0x02, 0x04, 0x00, 0x20, 0x54, 0x54, 0x54, 0x78,
+			0x7f, 0x48, 0x44, 0x44, 0x38, 0x38, 0x44, 0x44, 0x44, 0x20,
+			0x38, 0x44, 0x44, 0x48, 0x7f, 0x38, 0x54, 0x54, 0x54, 0x18,
+			0x08, 0x7e, 0x09, 0x01, 0x02, 0x0c, 0x52, 0x52, 0x52, 0x3e,
+			0x7f, 0x08, 0x04, 0x04, 0x78, 0x00, 0x44, 0x7d, 0x40, 0x00,
+			0x20, 0x40, 0x44, 0x3d, 0x00, 0x7f, 0x10, 0x28, 0x44, 0x00,
+			0x00, 0x41, 0x7f, 0x40, 0x00, 0x7c, 0x04, 0x18, 0x04, 0x78,
+			0x7c, 0x08, 0x04, 0x04, 0x78, 0x38, 0x44, 0x44, 0x44, 0x38,
+			0x7c, 0x14, 0x14, 0x14, 0x08, 0x08, 0x14, 0x14, 0x18, 0x7c,
+			0x7c, 0x08, 0x04, 0x04, 0x08, 0x48, 0x54, 0x54, 0x54, 0x20,
+			0x04, 0x3f, 0x44, 0x40, 0x20, 0x3c, 0x40, 0x40, 0x20, 0x7c,
+			0x1c, 0x20, 0x40, 0x20, 0x1c, 0x3c, 0x40, 0x30, 0x40, 0x3c,
+			0x44, 0x28, 0x10, 0x28, 0x44, 0x0c, 0x50, 0x50, 0x50, 0x3c,
+			0x44, 0x64, 0x54, 0x4c, 0x44, 0x00, 0x08, 0x36, 0x41, 0x00,
+			0x00, 0x00, 0x7f, 0x00, 0x00, 0x00, 0x41, 0x36, 0x08, 0x00,
+			0x02, 0x01, 0x02, 0x04, 0x02 };
+
+	private static final byte[] MISSING_GLYPH = { 0x7f, 0x41, 0x41, 0x41, 0x7f };
+
+	private static final int GLYPH_WIDTH = 5;
+	private static final int GLYPH_HEIGHT = 7;
+
+	private int face;
+	private int style;
+	private int size;
+	private int scale;
+
+	HeadlessFont(int face, int style, int size) {
+		this.face = face;
+		this.style = style;
+		this.size = size;
+		switch (size) {
+		case Font.SIZE_SMALL:
+			scale = 1;
+			break;
+		case Font.SIZE_LARGE:
+			scale = 3;
+			break;
+		default:
+			scale = 2;
+			break;
+		}
+	}
+
+	int getFace() {
+		return face;
+	}
+
+	int getStyle() {
+		return style;
+	}
+
+	int getSize() {
+		return size;
+	}
+
+	/**
+	 * Returns the height of a line of text, a glyph with a one pixel margin
+	 * above and below it
+	 */
+	int getHeight() {
+		return (GLYPH_HEIGHT + 1) * scale + 2;
+	}
+
+	int charWidth(char ch) {
+		int w = (GLYPH_WIDTH + 1) * scale;
+		if ((style & Font.STYLE_BOLD) != 0) {
+			w++;
+		}
+		return w;
+	}
+
+	int charsWidth(char[] ch, int offset, int length) {
+		return length * charWidth(' ');
+	}
+
+	int stringWidth(String str) {
+		return str.length() * charWidth(' ');
+	}
+
+	/**
+	 * Draws the string with its top left corner at the given surface
+	 * coordinates
+	 */
+	void drawString(HeadlessGraphics g, String str, int x, int y) {
+		int len = str.length();
+		int advance = charWidth(' ');
+		boolean bold = (style & Font.STYLE_BOLD) != 0;
+		boolean italic = (style & Font.STYLE_ITALIC) != 0;
+		int top = y + 1;
+		for (int iter = 0; iter < len; iter++) {
+			char c = str.charAt(iter);
+			int cx = x + iter * advance;
+			if (c == ' ') {
+				continue;
+			}
+			byte[] glyphs = GLYPHS;
+			int glyphOffset = (c - 0x20) * GLYPH_WIDTH;
+			if (c < 0x20 || c > 0x7e) {
+				glyphs = MISSING_GLYPH;
+				glyphOffset = 0;
+			}
+			for (int col = 0; col < GLYPH_WIDTH; col++) {
+				int bits = glyphs[glyphOffset + col];
+				for (int row = 0; row < GLYPH_HEIGHT; row++) {
+					if ((bits & (1 << row)) != 0) {
+						int px = cx + col * scale;
+						int py = top + row * scale;
+
+						// slant the upper part of the glyph to the right
+						if (italic && row < GLYPH_HEIGHT / 2) {
+							px += scale;
+						}
+						g.fillRectAbsolute(px, py, bold ? scale + 1 : scale, scale);
+					}
+				}
+			}
+		}
+		if ((style & Font.STYLE_UNDERLINED) != 0) {
+			g.fillRectAbsolute(x, top + GLYPH_HEIGHT * scale, len * advance, 1);
+		}
+	}
+}
@@ -0,0 +1,415 @@
+/*
+ * Copyright (c) 2008, 2010, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores
+ * CA 94065 USA or visit www.oracle.com if you need additional information or
+ * have any questions.
+ */
+package com.sun.lwuit.impl.headless;
+
+/**
+ * Native graphics of the headless implementation, rasterizes directly into the
+ * pixel array of a {@link HeadlessImage}. The clip is kept in surface
+ * coordinates and always lies within the surface, the translation is applied
+ * to every drawing operation before clipping.
+ */
+class HeadlessGraphics {
+	private HeadlessImage surface;
+	private int color;
+	private int alpha = 0xff;
+	private HeadlessFont font;
+	private int translateX;
+	private int translateY;
+	private int clipX;
+	private int clipY;
+	private int clipWidth;
+	private int clipHeight;
+
+	HeadlessGraphics(HeadlessImage surface, HeadlessFont font) {
+		this.font = font;
+		setSurface(surface);
+	}
+
+	/**
+	 * Binds the graphics to a new surface, this resets the translation and the
+	 * clip
+	 */
+	void setSurface(HeadlessImage surface) {
+		this.surface = surface;
+		translateX = 0;
+		translateY = 0;
+		clipX = 0;
+		clipY = 0;
+		clipWidth = surface.width;
+		clipHeight = surface.height;
+	}
+
+	HeadlessImage getSurface() {
+		return surface;
+	}
+
+	int getColor() {
+		return color;
+	}
+
+	void setColor(int color) {
+		this.color = color & 0xffffff;
+	}
+
+	int getAlpha() {
+		return alpha;
+	}
+
+	void setAlpha(int alpha) {
+		this.alpha = alpha & 0xff;
+	}
+
+	HeadlessFont getFont() {
+		return font;
+	}
+
+	void setFont(HeadlessFont font) {
+		this.font = font;
+	}
+
+	void translate(int x, int y) {
+		translateX += x;
+		translateY += y;
+	}
+
+	int getTranslateX() {
+		return translateX;
+	}
+
+	int getTranslateY() {
+		return translateY;
+	}
+
+	int getClipX() {
+		return clipX - translateX;
+	}
+
+	int getClipY() {
+		return clipY - translateY;
+	}
+
+	int getClipWidth() {
+		return clipWidth;
+	}
+
+	int getClipHeight() {
+		return clipHeight;
+	}
+
+	void setClip(int x, int y, int width, int height) {
+		clipX = 0;
+		clipY = 0;
+		clipWidth = surface.width;
+		clipHeight = surface.height;
+		clipRect(x, y, width, height);
+	}
+
+	void clipRect(int x, int y, int width, int height) {
+		x += translateX;
+		y += translateY;
+		int x2 = Math.min(x + width, clipX + clipWidth);
+		int y2 = Math.min(y + height, clipY + clipHeight);
+		clipX = Math.max(x, clipX);
+		clipY = Math.max(y, clipY);
+		clipWidth = Math.max(0, x2 - clipX);
+		clipHeight = Math.max(0, y2 - clipY);
+	}
+
+	void fillRect(int x, int y, int width, int height) {
+		fillRectAbsolute(x + translateX, y + translateY, width, height);
+	}
+
+	/**
+	 * Fills a rectangle given in surface coordinates with the current color
+	 * and alpha
+	 */
+	void fillRectAbsolute(int x, int y, int width, int height) {
+		int x1 = Math.max(x, clipX);
+		int y1 = Math.max(y, clipY);
+		int x2 = Math.min(x + width, clipX + clipWidth);
+		int y2 = Math.min(y + height, clipY + clipHeight);
+		if (x2 <= x1 || y2 <= y1 || alpha == 0) {
+			return;
+		}
+		int argb = (alpha << 24) | color;
+		int[] data = surface.data;
+		int scan = surface.width;
+		for (int row = y1; row < y2; row++) {
+			int offset = row * scan;
+			if (alpha == 0xff) {
+				for (int col = x1; col < x2; col++) {
+					data[offset + col] = argb;
+				}
+			} else {
+				for (int col = x1; col < x2; col++) {
+					blend(data, offset + col, argb);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Composites the pixel over the destination pixel in the array
+	 */
+	private static void blend(int[] data, int offset, int argb) {
+		int a = argb >>> 24;
+		if (a == 0xff) {
+			data[offset] = argb;
+			return;
+		}
+		if (a == 0) {
+			return;
+		}
+		int dst = data[offset];
+		int inverse = 0xff - a;
+		int r = (((argb >> 16) & 0xff) * a + ((dst >> 16) & 0xff) * inverse) / 0xff;
+		int g = (((argb >> 8) & 0xff) * a + ((dst >> 8) & 0xff) * inverse) / 0xff;
+		int b = ((argb & 0xff) * a + (dst & 0xff) * inverse) / 0xff;
+		int outAlpha = a + (dst >>> 24) * inverse / 0xff;
+		data[offset] = (outAlpha << 24) | (r << 16) | (g << 8) | b;
+	}
+
+	private void plot(int x, int y) {
+		if (x >= clipX && y >= clipY && x < clipX + clipWidth && y < clipY + clipHeight) {
+			blend(surface.data, y * surface.width + x, (alpha << 24) | color);
+		}
+	}
+
+	void drawLine(int x1, int y1, int x2, int y2) {
+		drawLineAbsolute(x1 + translateX, y1 + translateY, x2 + translateX, y2 + translateY);
+	}
+
+	private void drawLineAbsolute(int x1, int y1, int x2, int y2) {
+		if (y1 == y2) {
+			fillRectAbsolute(Math.min(x1, x2), y1, Math.abs(x2 - x1) + 1, 1);
+			return;
+		}
+		if (x1 == x2) {
+			fillRectAbsolute(x1, Math.min(y1, y2), 1, Math.abs(y2 - y1) + 1);
+			return;
+		}
+		int dx = Math.abs(x2 - x1);
+		int dy = -Math.abs(y2 - y1);
+		int sx = x1 < x2 ? 1 : -1;
+		int sy = y1 < y2 ? 1 : -1;
+		int err = dx + dy;
+		while (true) {
+			plot(x1, y1);
+			if (x1 == x2 && y1 == y2) {
+				return;
+			}
+			int e2 = 2 * err;
+			if (e2 >= dy) {
+				err += dy;
+				x1 += sx;
+			}
+			if (e2 <= dx) {
+				err += dx;
+				y1 += sy;
+			}
+		}
+	}
+
+	void drawRect(int x, int y, int width, int height) {
+		if (width < 0 || height < 0) {
+			return;
+		}
+		x += translateX;
+		y += translateY;
+		fillRectAbsolute(x, y, width + 1, 1);
+		if (height > 0) {
+			fillRectAbsolute(x, y + height, width + 1, 1);
+			fillRectAbsolute(x, y + 1, 1, height - 1);
+			if (width > 0) {
+				fillRectAbsolute(x + width, y + 1, 1, height - 1);
+			}
+		}
+	}
+
+	void fillRoundRect(int x, int y, int width, int height, int arcWidth, int arcHeight) {
+		x += translateX;
+		y += translateY;
+		double rx = Math.min(arcWidth, width) / 2.0;
+		double ry = Math.min(arcHeight, height) / 2.0;
+		if (rx <= 0 || ry <= 0) {
+			fillRectAbsolute(x, y, width, height);
+			return;
+		}
+		for (int row = 0; row < height; row++) {
+			double center = row + 0.5;
+			double dy = 0;
+			if (center < ry) {
+				dy = ry - center;
+			} else {
+				if (center > height - ry) {
+					dy = center - (height - ry);
+				}
+			}
+			int inset = 0;
+			if (dy > 0) {
+				double ratio = dy / ry;
+				inset = (int) Math.round(rx - rx * Math.sqrt(Math.max(0, 1 - ratio * ratio)));
+			}
+			fillRectAbsolute(x + inset, y + row, width - inset * 2, 1);
+		}
+	}
+
+	void drawRoundRect(int x, int y, int width, int height, int arcWidth, int arcHeight) {
+		arcWidth = Math.min(arcWidth, width);
+		arcHeight = Math.min(arcHeight, height);
+		int halfWidth = arcWidth / 2;
+		int halfHeight = arcHeight / 2;
+		drawLine(x + halfWidth, y, x + width - halfWidth, y);
+		drawLine(x + halfWidth, y + height, x + width - halfWidth, y + height);
+		drawLine(x, y + halfHeight, x, y + height - halfHeight);
+		drawLine(x + width, y + halfHeight, x + width, y + height - halfHeight);
+		if (arcWidth > 0 && arcHeight > 0) {
+			drawArc(x, y, arcWidth, arcHeight, 90, 90);
+			drawArc(x + width - arcWidth, y, arcWidth, arcHeight, 0, 90);
+			drawArc(x, y + height - arcHeight, arcWidth, arcHeight, 180, 90);
+			drawArc(x + width - arcWidth, y + height - arcHeight, arcWidth, arcHeight, 270, 90);
+		}
+	}
+
+	void fillArc(int x, int y, int width, int height, int startAngle, int arcAngle) {
+		if (width <= 0 || height <= 0 || arcAngle == 0) {
+			return;
+		}
+		x += translateX;
+		y += translateY;
+		if (arcAngle < 0) {
+			startAngle += arcAngle;
+			arcAngle = -arcAngle;
+		}
+		startAngle = ((startAngle % 360) + 360) % 360;
+		boolean full = arcAngle >= 360;
+		double rx = width / 2.0;
+		double ry = height / 2.0;
+		int y1 = Math.max(y, clipY);
+		int y2 = Math.min(y + height, clipY + clipHeight);
+		int x1 = Math.max(x, clipX);
+		int x2 = Math.min(x + width, clipX + clipWidth);
+		for (int row = y1; row < y2; row++) {
+			double dy = (row + 0.5 - y - ry) / ry;
+			for (int col = x1; col < x2; col++) {
+				double dx = (col + 0.5 - x - rx) / rx;
+				if (dx * dx + dy * dy > 1) {
+					continue;
+				}
+				if (!full) {
+					double angle = Math.toDegrees(Math.atan2(-dy, dx));
+					if (angle < 0) {
+						angle += 360;
+					}
+					double relative = angle - startAngle;
+					if (relative < 0) {
+						relative += 360;
+					}
+					if (relative > arcAngle) {
+						continue;
+					}
+				}
+				blend(surface.data, row * surface.width + col, (alpha << 24) | color);
+			}
+		}
+	}
+
+	void drawArc(int x, int y, int width, int height, int startAngle, int arcAngle) {
+		if (width < 0 || height < 0 || arcAngle == 0) {
+			return;
+		}
+		x += translateX;
+		y += translateY;
+		if (arcAngle > 360) {
+			arcAngle = 360;
+		} else {
+			if (arcAngle < -360) {
+				arcAngle = -360;
+			}
+		}
+		double rx = width / 2.0;
+		double ry = height / 2.0;
+		double cx = x + rx;
+		double cy = y + ry;
+
+		// enough segments for neighboring points to be about a pixel apart
+		int steps = Math.max(4, (int) (Math.abs(arcAngle) * (rx + ry) / 180.0));
+		int lastX = (int) Math.round(cx + rx * Math.cos(Math.toRadians(startAngle)));
+		int lastY = (int) Math.round(cy - ry * Math.sin(Math.toRadians(startAngle)));
+		for (int iter = 1; iter <= steps; iter++) {
+			double angle = Math.toRadians(startAngle + arcAngle * (double) iter / steps);
+			int px = (int) Math.round(cx + rx * Math.cos(angle));
+			int py = (int) Math.round(cy - ry * Math.sin(angle));
+			if (px != lastX || py != lastY) {
+				drawLineAbsolute(lastX, lastY, px, py);
+				lastX = px;
+				lastY = py;
+			}
+		}
+	}
+
+	void drawString(String str, int x, int y) {
+		font.drawString(this, str, x + translateX, y + translateY);
+	}
+
+	/**
+	 * Draws ARGB pixels, the pixels are composited using their own alpha when
+	 * processAlpha is true and are treated as opaque otherwise. In both cases
+	 * the alpha of the graphics is applied on top.
+	 */
+	void drawRGB(int[] rgb, int offset, int scanLength, int x, int y, int width, int height, boolean processAlpha) {
+		x += translateX;
+		y += translateY;
+		int x1 = Math.max(x, clipX);
+		int y1 = Math.max(y, clipY);
+		int x2 = Math.min(x + width, clipX + clipWidth);
+		int y2 = Math.min(y + height, clipY + clipHeight);
+		if (x2 <= x1 || y2 <= y1 || alpha == 0) {
+			return;
+		}
+		int[] data = surface.data;
+		int scan = surface.width;
+		for (int row = y1; row < y2; row++) {
+			int source = offset + (row - y) * scanLength + (x1 - x);
+			int dest = row * scan + x1;
+			for (int col = x1; col < x2; col++) {
+				int pixel = rgb[source];
+				if (!processAlpha) {
+					pixel |= 0xff000000;
+				}
+				if (alpha != 0xff) {
+					int a = (pixel >>> 24) * alpha / 0xff;
+					pixel = (a << 24) | (pixel & 0xffffff);
+				}
+				blend(data, dest, pixel);
+				source++;
+				dest++;
+			}
+		}
+	}
+
+	void drawImage(HeadlessImage img, int x, int y) {
+		drawRGB(img.data, 0, img.width, x, y, img.width, img.height, true);
+	}
+}
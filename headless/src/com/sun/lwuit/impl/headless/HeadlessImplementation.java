@@ -0,0 +1,845 @@
+/*
+ * Copyright (c) 2008, 2010, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores
+ * CA 94065 USA or visit www.oracle.com if you need additional information or
+ * have any questions.
+ */
+package com.sun.lwuit.impl.headless;
+
+import com.sun.lwuit.Component;
+import com.sun.lwuit.Display;
+import com.sun.lwuit.Font;
+import com.sun.lwuit.impl.LWUITImplementation;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+/**
+ * Software rendered implementation that runs on any desktop JVM without a
+ * display. The screen is an ARGB framebuffer in memory, fonts are measured and
+ * drawn using a fixed bitmap font and input events are injected by the
+ * application, which makes paint and layout timings repeatable across
+ * machines.
+ * <p>
+ * The initial screen size and touch support can be configured using the
+ * <code>lwuit.headless.width</code>, <code>lwuit.headless.height</code> and
+ * <code>lwuit.headless.touch</code> system properties.
+ */
+public class HeadlessImplementation extends LWUITImplementation {
+	/**
+	 * Key codes used for the soft buttons and navigation, these match the
+	 * common MIDP values
+	 */
+	public static final int KEY_SOFT_LEFT = -6;
+	public static final int KEY_SOFT_RIGHT = -7;
+	public static final int KEY_CLEAR = -8;
+	public static final int KEY_BACK = -11;
+	public static final int KEY_UP = -1;
+	public static final int KEY_DOWN = -2;
+	public static final int KEY_LEFT = -3;
+	public static final int KEY_RIGHT = -4;
+	public static final int KEY_FIRE = -5;
+
+	private static HeadlessImplementation instance;
+
+	private HeadlessImage screen;
+	private HeadlessGraphics screenGraphics;
+	private HeadlessFont defaultFont = new HeadlessFont(Font.FACE_SYSTEM, Font.STYLE_PLAIN, Font.SIZE_MEDIUM);
+	private boolean touch;
+	private int flushCount;
+	private long flushedPixels;
+
+	/**
+	 * Creates the implementation with the screen size configured in the
+	 * system properties, 320x480 by default
+	 */
+	public HeadlessImplementation() {
+		int width = Integer.getInteger("lwuit.headless.width", 320).intValue();
+		int height = Integer.getInteger("lwuit.headless.height", 480).intValue();
+		touch = !"false".equals(System.getProperty("lwuit.headless.touch"));
+		screen = new HeadlessImage(width, height);
+		screenGraphics = new HeadlessGraphics(screen, defaultFont);
+		instance = this;
+	}
+
+	/**
+	 * Returns the implementation instance created by Display.init(), allowing
+	 * benchmarks and tests to inject events and inspect the screen
+	 * 
+	 * @return the headless implementation or null if LWUIT wasn't initialized
+	 */
+	public static HeadlessImplementation getInstance() {
+		return instance;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public void init(Object m) {
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public int getDisplayWidth() {
+		return screen.width;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public int getDisplayHeight() {
+		return screen.height;
+	}
+
+	/**
+	 * Resizes the screen, the framebuffer is reallocated and LWUIT is notified
+	 * of the new size
+	 * 
+	 * @param width
+	 *            the new width of the screen
+	 * @param height
+	 *            the new height of the screen
+	 */
+	public void setDisplaySize(int width, int height) {
+		synchronized (getDisplayLock()) {
+			screen = new HeadlessImage(width, height);
+			screenGraphics.setSurface(screen);
+		}
+		sizeChanged(width, height);
+	}
+
+	/**
+	 * Returns the framebuffer of the screen, the array is ARGB with a scan
+	 * length of the display width. The array is updated in place by the EDT
+	 * and is replaced when the display is resized.
+	 * 
+	 * @return the screen pixels
+	 */
+	public int[] getFramebuffer() {
+		return screen.data;
+	}
+
+	/**
+	 * Indicates whether the implementation claims to be a touch device
+	 * 
+	 * @param touch
+	 *            true for a touch device, this must be set before
+	 *            Display.init() to take effect
+	 */
+	public void setTouchDevice(boolean touch) {
+		this.touch = touch;
+	}
+
+	/**
+	 * Returns the number of times the screen was flushed since the counters
+	 * were last reset
+	 * 
+	 * @return the number of flush calls
+	 */
+	public int getFlushCount() {
+		return flushCount;
+	}
+
+	/**
+	 * Returns the total area flushed to the screen since the counters were
+	 * last reset
+	 * 
+	 * @return the number of pixels flushed
+	 */
+	public long getFlushedPixels() {
+		return flushedPixels;
+	}
+
+	/**
+	 * Resets the flush counters
+	 */
+	public void resetFlushCounters() {
+		flushCount = 0;
+		flushedPixels = 0;
+	}
+
+	/**
+	 * Injects a key press event as if it arrived from the device
+	 * 
+	 * @param keyCode
+	 *            the key code
+	 */
+	public void injectKeyPressed(int keyCode) {
+		keyPressed(keyCode);
+	}
+
+	/**
+	 * Injects a key release event as if it arrived from the device
+	 * 
+	 * @param keyCode
+	 *            the key code
+	 */
+	public void injectKeyReleased(int keyCode) {
+		keyReleased(keyCode);
+	}
+
+	/**
+	 * Injects a key press followed by a key release
+	 * 
+	 * @param keyCode
+	 *            the key code
+	 */
+	public void injectKey(int keyCode) {
+		keyPressed(keyCode);
+		keyReleased(keyCode);
+	}
+
+	/**
+	 * Injects a pointer press event as if it arrived from the device
+	 * 
+	 * @param x
+	 *            the position of the event
+	 * @param y
+	 *            the position of the event
+	 */
+	public void injectPointerPressed(int x, int y) {
+		pointerPressed(x, y);
+	}
+
+	/**
+	 * Injects a pointer drag event as if it arrived from the device
+	 * 
+	 * @param x
+	 *            the position of the event
+	 * @param y
+	 *            the position of the event
+	 */
+	public void injectPointerDragged(int x, int y) {
+		pointerDragged(x, y);
+	}
+
+	/**
+	 * Injects a pointer release event as if it arrived from the device
+	 * 
+	 * @param x
+	 *            the position of the event
+	 * @param y
+	 *            the position of the event
+	 */
+	public void injectPointerReleased(int x, int y) {
+		pointerReleased(x, y);
+	}
+
+	/**
+	 * Injects a press and release at the given position
+	 * 
+	 * @param x
+	 *            the position of the event
+	 * @param y
+	 *            the position of the event
+	 */
+	public void injectTap(int x, int y) {
+		pointerPressed(x, y);
+		pointerReleased(x, y);
+	}
+
+	/**
+	 * Injects a drag gesture from one point to another, the gesture is made
+	 * of a press, the given number of drag events along the line and a
+	 * release
+	 * 
+	 * @param x1
+	 *            the start position of the gesture
+	 * @param y1
+	 *            the start position of the gesture
+	 * @param x2
+	 *            the end position of the gesture
+	 * @param y2
+	 *            the end position of the gesture
+	 * @param steps
+	 *            the number of drag events
+	 */
+	public void injectDrag(int x1, int y1, int x2, int y2, int steps) {
+		pointerPressed(x1, y1);
+		for (int iter = 1; iter <= steps; iter++) {
+			pointerDragged(x1 + (x2 - x1) * iter / steps, y1 + (y2 - y1) * iter / steps);
+		}
+		pointerReleased(x2, y2);
+	}
+
+	/**
+	 * Blocks the calling thread until the EDT processed all the events that
+	 * were injected before this call and painted the results. Must not be
+	 * invoked on the EDT.
+	 */
+	public void waitForEDT() {
+		// serial calls are processed after the input events and the paint
+		// of the same EDT cycle
+		Display.getInstance().callSeriallyAndWait(new Runnable() {
+			public void run() {
+			}
+		});
+	}
+
+	/**
+	 * There is no native text editor, text components are edited in place
+	 * using injected key events
+	 * 
+	 * @inheritDoc
+	 */
+	public void editString(Component cmp, int maxSize, int constraint, String text, int initiatingKeycode) {
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public void flushGraphics(int x, int y, int width, int height) {
+		flushCount++;
+		flushedPixels += (long) Math.max(0, width) * Math.max(0, height);
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public void flushGraphics() {
+		flushGraphics(0, 0, screen.width, screen.height);
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public void getRGB(Object nativeImage, int[] arr, int offset, int x, int y, int width, int height) {
+		HeadlessImage img = (HeadlessImage) nativeImage;
+		for (int row = 0; row < height; row++) {
+			System.arraycopy(img.data, (y + row) * img.width + x, arr, offset + row * width, width);
+		}
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public Object createImage(int[] rgb, int width, int height) {
+		int[] data = new int[width * height];
+		System.arraycopy(rgb, 0, data, 0, data.length);
+		return new HeadlessImage(data, width, height);
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public Object createImage(String path) throws IOException {
+		InputStream i = getClass().getResourceAsStream(path);
+		if (i == null) {
+			i = new FileInputStream(path);
+		}
+		try {
+			return createImage(i);
+		} finally {
+			i.close();
+		}
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public Object createImage(InputStream i) throws IOException {
+		BufferedImage b = ImageIO.read(i);
+		if (b == null) {
+			throw new IOException("Unsupported image format");
+		}
+		return toImage(b);
+	}
+
+	private HeadlessImage toImage(BufferedImage b) {
+		int width = b.getWidth();
+		int height = b.getHeight();
+		int[] data = new int[width * height];
+		b.getRGB(0, 0, width, height, data, 0, width);
+		return new HeadlessImage(data, width, height);
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public Object createMutableImage(int width, int height, int fillColor) {
+		HeadlessImage img = new HeadlessImage(width, height);
+		if (fillColor != 0) {
+			int[] data = img.data;
+			for (int iter = 0; iter < data.length; iter++) {
+				data[iter] = fillColor;
+			}
+		}
+		return img;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public boolean isAlphaMutableImageSupported() {
+		return true;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public Object createImage(byte[] bytes, int offset, int len) {
+		try {
+			return createImage(new ByteArrayInputStream(bytes, offset, len));
+		} catch (IOException err) {
+			err.printStackTrace();
+			return null;
+		}
+	}
+
+	/**
+	 * Decodes with source subsampling at the largest power of two reduction
+	 * that still covers the target size so the full size image is never held
+	 * in memory
+	 * 
+	 * @inheritDoc
+	 */
+	public Object createImage(byte[] bytes, int offset, int len, int width, int height) {
+		try {
+			ImageInputStream in = ImageIO.createImageInputStream(new ByteArrayInputStream(bytes, offset, len));
+			Iterator readers = ImageIO.getImageReaders(in);
+			if (!readers.hasNext()) {
+				return null;
+			}
+			ImageReader reader = (ImageReader) readers.next();
+			try {
+				reader.setInput(in);
+				int srcWidth = reader.getWidth(0);
+				int srcHeight = reader.getHeight(0);
+				if (width == -1) {
+					width = Math.max(1, srcWidth * height / srcHeight);
+				} else if (height == -1) {
+					height = Math.max(1, srcHeight * width / srcWidth);
+				}
+				int factor = 1;
+				while (srcWidth / (factor * 2) >= width && srcHeight / (factor * 2) >= height) {
+					factor *= 2;
+				}
+				ImageReadParam param = reader.getDefaultReadParam();
+				param.setSourceSubsampling(factor, factor, 0, 0);
+				HeadlessImage img = toImage(reader.read(0, param));
+				if (img.width == width && img.height == height) {
+					return img;
+				}
+				return scale(img, width, height);
+			} finally {
+				reader.dispose();
+				in.close();
+			}
+		} catch (IOException err) {
+			err.printStackTrace();
+			return null;
+		}
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public int getImageWidth(Object i) {
+		return ((HeadlessImage) i).width;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public int getImageHeight(Object i) {
+		return ((HeadlessImage) i).height;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public Object scale(Object nativeImage, int width, int height) {
+		HeadlessImage source = (HeadlessImage) nativeImage;
+		HeadlessImage dest = new HeadlessImage(width, height);
+		for (int y = 0; y < height; y++) {
+			int sourceRow = (y * source.height / height) * source.width;
+			int destRow = y * width;
+			for (int x = 0; x < width; x++) {
+				dest.data[destRow + x] = source.data[sourceRow + x * source.width / width];
+			}
+		}
+		return dest;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public int getSoftkeyCount() {
+		return 2;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public int[] getSoftkeyCode(int index) {
+		if (index == 0) {
+			return new int[] { KEY_SOFT_LEFT };
+		}
+		return new int[] { KEY_SOFT_RIGHT };
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public int getClearKeyCode() {
+		return KEY_CLEAR;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public int getBackspaceKeyCode() {
+		return KEY_CLEAR;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public int getBackKeyCode() {
+		return KEY_BACK;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public int getGameAction(int keyCode) {
+		switch (keyCode) {
+		case KEY_UP:
+			return Display.GAME_UP;
+		case KEY_DOWN:
+			return Display.GAME_DOWN;
+		case KEY_LEFT:
+			return Display.GAME_LEFT;
+		case KEY_RIGHT:
+			return Display.GAME_RIGHT;
+		case '\n':
+		case KEY_FIRE:
+			return Display.GAME_FIRE;
+		}
+		return 0;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public int getKeyCode(int gameAction) {
+		switch (gameAction) {
+		case Display.GAME_UP:
+			return KEY_UP;
+		case Display.GAME_DOWN:
+			return KEY_DOWN;
+		case Display.GAME_LEFT:
+			return KEY_LEFT;
+		case Display.GAME_RIGHT:
+			return KEY_RIGHT;
+		case Display.GAME_FIRE:
+			return KEY_FIRE;
+		}
+		return 0;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public boolean isTouchDevice() {
+		return touch;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public boolean isTranslationSupported() {
+		return true;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public void translate(Object graphics, int x, int y) {
+		((HeadlessGraphics) graphics).translate(x, y);
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public int getTranslateX(Object graphics) {
+		return ((HeadlessGraphics) graphics).getTranslateX();
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public int getTranslateY(Object graphics) {
+		return ((HeadlessGraphics) graphics).getTranslateY();
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public int getColor(Object graphics) {
+		return ((HeadlessGraphics) graphics).getColor();
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public void setColor(Object graphics, int RGB) {
+		((HeadlessGraphics) graphics).setColor(RGB);
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public void setAlpha(Object graphics, int alpha) {
+		((HeadlessGraphics) graphics).setAlpha(alpha);
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public int getAlpha(Object graphics) {
+		return ((HeadlessGraphics) graphics).getAlpha();
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public boolean isAlphaGlobal() {
+		return true;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public void setNativeFont(Object graphics, Object font) {
+		((HeadlessGraphics) graphics).setFont(font(font));
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public int getClipX(Object graphics) {
+		return ((HeadlessGraphics) graphics).getClipX();
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public int getClipY(Object graphics) {
+		return ((HeadlessGraphics) graphics).getClipY();
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public int getClipWidth(Object graphics) {
+		return ((HeadlessGraphics) graphics).getClipWidth();
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public int getClipHeight(Object graphics) {
+		return ((HeadlessGraphics) graphics).getClipHeight();
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public void setClip(Object graphics, int x, int y, int width, int height) {
+		((HeadlessGraphics) graphics).setClip(x, y, width, height);
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public void clipRect(Object graphics, int x, int y, int width, int height) {
+		((HeadlessGraphics) graphics).clipRect(x, y, width, height);
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public void drawLine(Object graphics, int x1, int y1, int x2, int y2) {
+		((HeadlessGraphics) graphics).drawLine(x1, y1, x2, y2);
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public void fillRect(Object graphics, int x, int y, int width, int height) {
+		((HeadlessGraphics) graphics).fillRect(x, y, width, height);
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public void drawRect(Object graphics, int x, int y, int width, int height) {
+		((HeadlessGraphics) graphics).drawRect(x, y, width, height);
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public void drawRoundRect(Object graphics, int x, int y, int width, int height, int arcWidth, int arcHeight) {
+		((HeadlessGraphics) graphics).drawRoundRect(x, y, width, height, arcWidth, arcHeight);
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public void fillRoundRect(Object graphics, int x, int y, int width, int height, int arcWidth, int arcHeight) {
+		((HeadlessGraphics) graphics).fillRoundRect(x, y, width, height, arcWidth, arcHeight);
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public void fillArc(Object graphics, int x, int y, int width, int height, int startAngle, int arcAngle) {
+		((HeadlessGraphics) graphics).fillArc(x, y, width, height, startAngle, arcAngle);
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public void drawArc(Object graphics, int x, int y, int width, int height, int startAngle, int arcAngle) {
+		((HeadlessGraphics) graphics).drawArc(x, y, width, height, startAngle, arcAngle);
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public void drawString(Object graphics, String str, int x, int y) {
+		((HeadlessGraphics) graphics).drawString(str, x, y);
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public void drawImage(Object graphics, Object img, int x, int y) {
+		((HeadlessGraphics) graphics).drawImage((HeadlessImage) img, x, y);
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public void drawRGB(Object graphics, int[] rgbData, int offset, int x, int y, int w, int h, boolean processAlpha) {
+		((HeadlessGraphics) graphics).drawRGB(rgbData, offset, w, x, y, w, h, processAlpha);
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public Object getNativeGraphics() {
+		return screenGraphics;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public Object getNativeGraphics(Object image) {
+		return new HeadlessGraphics((HeadlessImage) image, defaultFont);
+	}
+
+	private HeadlessFont font(Object nativeFont) {
+		if (nativeFont == null) {
+			return defaultFont;
+		}
+		return (HeadlessFont) nativeFont;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public int charsWidth(Object nativeFont, char[] ch, int offset, int length) {
+		return font(nativeFont).charsWidth(ch, offset, length);
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public int stringWidth(Object nativeFont, String str) {
+		return font(nativeFont).stringWidth(str);
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public int charWidth(Object nativeFont, char ch) {
+		return font(nativeFont).charWidth(ch);
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public int getHeight(Object nativeFont) {
+		return font(nativeFont).getHeight();
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public Object getDefaultFont() {
+		return defaultFont;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public int getFace(Object nativeFont) {
+		return font(nativeFont).getFace();
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public int getSize(Object nativeFont) {
+		return font(nativeFont).getSize();
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public int getStyle(Object nativeFont) {
+		return font(nativeFont).getStyle();
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public Object createFont(int face, int style, int size) {
+		return new HeadlessFont(face, style, size);
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public String getProperty(String key, String defaultValue) {
+		return System.getProperty(key, defaultValue);
+	}
+}
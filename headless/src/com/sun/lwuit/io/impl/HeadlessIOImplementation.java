@@ -0,0 +1,452 @@
+/*
+ * Copyright (c) 2008, 2010, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores
+ * CA 94065 USA or visit www.oracle.com if you need additional information or
+ * have any questions.
+ */
+package com.sun.lwuit.io.impl;
+
+import com.sun.lwuit.io.util.BufferedInputStream;
+import com.sun.lwuit.io.util.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.net.HttpURLConnection;
+import java.net.ProtocolException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.Vector;
+
+/**
+ * Implementation of the IO framework on top of the desktop java.io and
+ * java.net APIs used by the headless build. Storage entries are plain files
+ * within a directory named after the storage data (see
+ * {@link #setStorageData(Object)}) under <code>~/.lwuit</code>, the
+ * <code>lwuit.headless.storage</code> system property overrides the
+ * location.
+ */
+public class HeadlessIOImplementation extends IOImplementation {
+	private int timeout = -1;
+
+	/**
+	 * @inheritDoc
+	 */
+	public Object connect(String url, boolean read, boolean write) throws IOException {
+		URLConnection c = new URL(url).openConnection();
+		c.setDoInput(read);
+		c.setDoOutput(write);
+		if (timeout > -1) {
+			c.setConnectTimeout(timeout);
+			c.setReadTimeout(timeout);
+		}
+		return c;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public void setHeader(Object connection, String key, String val) {
+		((URLConnection) connection).setRequestProperty(key, val);
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public int getContentLength(Object connection) {
+		return ((URLConnection) connection).getContentLength();
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public void cleanup(Object o) {
+		if (o instanceof HttpURLConnection) {
+			((HttpURLConnection) o).disconnect();
+			return;
+		}
+		if (o instanceof RandomAccessFile) {
+			try {
+				((RandomAccessFile) o).close();
+			} catch (IOException err) {
+				err.printStackTrace();
+			}
+			return;
+		}
+		super.cleanup(o);
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public OutputStream openOutputStream(Object connection) throws IOException {
+		if (connection instanceof String) {
+			return new BufferedOutputStream(new FileOutputStream(toFile((String) connection)), (String) connection);
+		}
+		URLConnection c = (URLConnection) connection;
+		return new BufferedOutputStream(c.getOutputStream(), c.getURL().toString());
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public OutputStream openOutputStream(Object connection, int offset) throws IOException {
+		final RandomAccessFile file = new RandomAccessFile(toFile((String) connection), "rw");
+		file.seek(offset);
+		OutputStream o = new OutputStream() {
+			public void write(int b) throws IOException {
+				file.write(b);
+			}
+
+			public void write(byte[] b, int off, int len) throws IOException {
+				file.write(b, off, len);
+			}
+
+			public void close() throws IOException {
+				file.close();
+			}
+		};
+		return new BufferedOutputStream(o, (String) connection);
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public InputStream openInputStream(Object connection) throws IOException {
+		if (connection instanceof String) {
+			return new BufferedInputStream(new FileInputStream(toFile((String) connection)), (String) connection);
+		}
+		URLConnection c = (URLConnection) connection;
+		return new BufferedInputStream(c.getInputStream(), c.getURL().toString());
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public void setPostRequest(Object connection, boolean p) {
+		try {
+			if (p) {
+				((HttpURLConnection) connection).setRequestMethod("POST");
+			} else {
+				((HttpURLConnection) connection).setRequestMethod("GET");
+			}
+		} catch (ProtocolException err) {
+			// an exception here doesn't make sense
+			err.printStackTrace();
+		}
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public int getResponseCode(Object connection) throws IOException {
+		return ((HttpURLConnection) connection).getResponseCode();
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public String getResponseMessage(Object connection) throws IOException {
+		return ((HttpURLConnection) connection).getResponseMessage();
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public String getHeaderField(String name, Object connection) throws IOException {
+		return ((URLConnection) connection).getHeaderField(name);
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public String[] getHeaderFields(String name, Object connection) throws IOException {
+		URLConnection c = (URLConnection) connection;
+		Vector r = new Vector();
+
+		// the status line is returned with a null key so we can't stop on
+		// the first null key like MIDP does
+		for (int i = 0; c.getHeaderField(i) != null; i++) {
+			String key = c.getHeaderFieldKey(i);
+			if (key != null && key.equalsIgnoreCase(name)) {
+				r.addElement(c.getHeaderField(i));
+			}
+		}
+
+		if (r.size() == 0) {
+			return null;
+		}
+		String[] response = new String[r.size()];
+		r.copyInto(response);
+		return response;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public boolean isTimeoutSupported() {
+		return true;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public void setTimeout(int t) {
+		timeout = t;
+	}
+
+	/**
+	 * Returns the directory in which storage entries are kept, creating it if
+	 * necessary
+	 */
+	private File getStorageDirectory() {
+		String path = System.getProperty("lwuit.headless.storage");
+		File dir;
+		if (path != null) {
+			dir = new File(path);
+		} else {
+			String name = "default";
+			if (getStorageData() != null) {
+				name = getStorageData().toString();
+			}
+			dir = new File(new File(System.getProperty("user.home"), ".lwuit"), name);
+		}
+		if (!dir.exists()) {
+			dir.mkdirs();
+		}
+		return dir;
+	}
+
+	/**
+	 * Storage names are arbitrary strings, characters that aren't safe in a
+	 * file name are escaped as %XXXX
+	 */
+	private File storageFile(String name) {
+		StringBuffer b = new StringBuffer();
+		for (int iter = 0; iter < name.length(); iter++) {
+			char c = name.charAt(iter);
+			if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_' || c == '-' || (c == '.' && iter > 0)) {
+				b.append(c);
+			} else {
+				String hex = Integer.toHexString(c);
+				b.append('%');
+				for (int pad = hex.length(); pad < 4; pad++) {
+					b.append('0');
+				}
+				b.append(hex);
+			}
+		}
+		return new File(getStorageDirectory(), b.toString());
+	}
+
+	private String storageName(String fileName) {
+		StringBuffer b = new StringBuffer();
+		int iter = 0;
+		while (iter < fileName.length()) {
+			char c = fileName.charAt(iter);
+			if (c == '%' && iter + 4 < fileName.length()) {
+				b.append((char) Integer.parseInt(fileName.substring(iter + 1, iter + 5), 16));
+				iter += 5;
+			} else {
+				b.append(c);
+				iter++;
+			}
+		}
+		return b.toString();
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public void deleteStorageFile(String name) {
+		storageFile(name).delete();
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public OutputStream createStorageOutputStream(String name) throws IOException {
+		return new FileOutputStream(storageFile(name));
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public InputStream createStorageInputStream(String name) throws IOException {
+		File f = storageFile(name);
+		if (!f.exists()) {
+			return null;
+		}
+		return new FileInputStream(f);
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public boolean storageFileExists(String name) {
+		if (name == null) {
+			return false;
+		}
+		return storageFile(name).exists();
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public String[] listStorageEntries() {
+		String[] files = getStorageDirectory().list();
+		if (files == null) {
+			return new String[0];
+		}
+		for (int iter = 0; iter < files.length; iter++) {
+			files[iter] = storageName(files[iter]);
+		}
+		return files;
+	}
+
+	/**
+	 * Converts a file URL as used by the file system API to a file
+	 */
+	private File toFile(String file) {
+		if (file.startsWith("file://")) {
+			file = file.substring(7);
+		}
+		return new File(file);
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public String[] listFilesystemRoots() {
+		File[] roots = File.listRoots();
+		String[] res = new String[roots.length];
+		for (int iter = 0; iter < res.length; iter++) {
+			String path = roots[iter].getAbsolutePath().replace(File.separatorChar, '/');
+			if (!path.startsWith("/")) {
+				path = "/" + path;
+			}
+			res[iter] = "file://" + path;
+		}
+		return res;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public String[] listFiles(String directory) throws IOException {
+		File[] files = toFile(directory).listFiles();
+		if (files == null) {
+			throw new IOException("Can't list " + directory);
+		}
+
+		// directories are marked with a trailing slash like FileConnection.list()
+		String[] response = new String[files.length];
+		for (int iter = 0; iter < files.length; iter++) {
+			response[iter] = files[iter].getName();
+			if (files[iter].isDirectory()) {
+				response[iter] += "/";
+			}
+		}
+		return response;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public long getRootSizeBytes(String root) {
+		return toFile(root).getTotalSpace();
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public long getRootAvailableSpace(String root) {
+		return toFile(root).getUsableSpace();
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public void mkdir(String directory) {
+		toFile(directory).mkdir();
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public void deleteFile(String file) {
+		toFile(file).delete();
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public boolean isHidden(String file) {
+		return toFile(file).isHidden();
+	}
+
+	/**
+	 * The hidden state is determined by the file name on Unix file systems
+	 * so this method has no effect
+	 * 
+	 * @inheritDoc
+	 */
+	public void setHidden(String file, boolean h) {
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public long getFileLength(String file) {
+		return toFile(file).length();
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public boolean isDirectory(String file) {
+		return toFile(file).isDirectory();
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public boolean exists(String file) {
+		return toFile(file).exists();
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public void rename(String file, String newName) {
+		File f = toFile(file);
+		f.renameTo(new File(f.getParentFile(), newName));
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public char getFileSystemSeparator() {
+		return '/';
+	}
+}
@@ -29,6 +29,7 @@ import com.sun.lwuit.geom.Dimension;
 import com.sun.lwuit.plaf.Style;
 import com.sun.lwuit.animations.Animation;
 import com.sun.lwuit.animations.Motion;
+import com.sun.lwuit.animations.ScrollPhysics;
 import com.sun.lwuit.events.FocusListener;
 import com.sun.lwuit.events.StyleListener;
 import com.sun.lwuit.plaf.Border;
@@ -172,7 +173,12 @@ public class Component implements Animation, StyleListener {
 	 */
 	private int animationSpeed;
 	private Motion animationMotion;
-	private Motion draggedMotion;
+
+	/**
+	 * Created on the first drag and reused for every fling and tensile motion
+	 * afterwards
+	 */
+	private ScrollPhysics draggedMotion;
 
 	/**
 	 * Allows us to flag a drag operation in action thus preventing the mouse
@@ -463,6 +469,7 @@ public class Component implements Animation, StyleListener {
 	 *            the component dimension
 	 */
 	public void setPreferredSize(Dimension d) {
+		Form.checkLayoutThread(this);
 		if (d == null) {
 			sizeRequestedByUser = false;
 			preferredSize = null;
@@ -923,7 +930,7 @@ public class Component implements Animation, StyleListener {
 			} else {
 				Image i = (Image) Display.getInstance().extractHardRef(paintLockImage);
 				if (i == null) {
-					i = Image.createImage(getWidth(), getHeight());
+					i = Display.getInstance().leaseMutableImage(getWidth(), getHeight());
 					int x = getX();
 					int y = getY();
 					setX(0);
@@ -1183,7 +1190,8 @@ public class Component implements Animation, StyleListener {
 			int absX = getAbsoluteX() + getScrollX();
 			int absY = getAbsoluteY() + getScrollY();
 			if (i == null || i.getWidth() != getWidth() || i.getHeight() != getHeight()) {
-				i = Image.createImage(getWidth(), getHeight());
+				Display.getInstance().releaseMutableImage(i);
+				i = Display.getInstance().leaseMutableImage(getWidth(), getHeight());
 				Graphics tg = i.getGraphics();
 				// tg.translate(g.getTranslateX(), g.getTranslateY());
 				drawPaintersImpl(tg, par, c, x, y, w, h);
@@ -1465,6 +1473,14 @@ public class Component implements Animation, StyleListener {
 		return d;
 	}
 
+	/**
+	 * Returns the last calculated preferred size without recalculating it even
+	 * if it is flagged as stale
+	 */
+	Dimension getCachedPreferredSize() {
+		return preferredSize;
+	}
+
 	private Dimension preferredSize() {
 
 		if (!sizeRequestedByUser && (shouldCalcPreferredSize || preferredSize == null)) {
@@ -1532,6 +1548,7 @@ public class Component implements Animation, StyleListener {
 	 *            preferred size
 	 */
 	public void setShouldCalcPreferredSize(boolean shouldCalcPreferredSize) {
+		Form.checkLayoutThread(this);
 		if (!shouldCalcScrollSize) {
 			this.shouldCalcScrollSize = shouldCalcPreferredSize;
 		}
@@ -1806,7 +1823,9 @@ public class Component implements Animation, StyleListener {
 	}
 
 	void clearDrag() {
-		draggedMotion = null;
+		if (draggedMotion != null) {
+			draggedMotion.stop();
+		}
 		Component parent = getParent();
 		if (parent != null) {
 			parent.clearDrag();
@@ -1863,8 +1882,8 @@ public class Component implements Animation, StyleListener {
 	 * @return an image
 	 */
 	protected Image getDragImage() {
-		Image draggedImage = Image.createImage(getWidth(), getHeight());
-		Graphics g = draggedImage.getGraphics();
+		Image buffer = Display.getInstance().leaseMutableImage(getWidth(), getHeight());
+		Graphics g = buffer.getGraphics();
 
 		// choose a rare color
 		g.setColor(0xff7777);
@@ -1874,7 +1893,8 @@ public class Component implements Animation, StyleListener {
 		g.translate(getX(), getY());
 
 		// remove all occurences of the rare color
-		draggedImage = draggedImage.modifyAlpha((byte) 0x55, 0xff7777);
+		Image draggedImage = buffer.modifyAlpha((byte) 0x55, 0xff7777);
+		Display.getInstance().releaseMutableImage(buffer);
 		return draggedImage;
 	}
 
@@ -2210,13 +2230,22 @@ public class Component implements Animation, StyleListener {
 		return tensileDragEnabled;
 	}
 
+	private ScrollPhysics getDraggedMotion() {
+		if (draggedMotion == null) {
+			draggedMotion = new ScrollPhysics();
+		}
+		return draggedMotion;
+	}
+
+	private boolean isDraggedMotionActive() {
+		return draggedMotion != null && draggedMotion.isActive();
+	}
+
 	void startTensile(int offset, int dest) {
 		if (tensileDragEnabled) {
-			draggedMotion = Motion.createSplineMotion(offset, dest, 100);
-			draggedMotion.start();
+			getDraggedMotion().settle(offset, dest, 100);
 		} else {
-			draggedMotion = Motion.createLinearMotion(offset, dest, 0);
-			draggedMotion.start();
+			getDraggedMotion().settle(offset, dest, 0);
 		}
 		// just to be sure, there are some cases where this doesn't work as
 		// expected
@@ -2299,7 +2328,7 @@ public class Component implements Animation, StyleListener {
 					}
 				}
 			}
-			float speed = Display.getInstance().getDragSpeed(!shouldScrollX);
+			float velocity = Display.getInstance().getDragVelocity(!shouldScrollX);
 			int tl;
 			if (getTensileLength() > -1) {
 				tl = getTensileLength();
@@ -2310,22 +2339,10 @@ public class Component implements Animation, StyleListener {
 				tl = 0;
 			}
 			if (!shouldScrollX) {
-				if (speed < 0) {
-					draggedMotion = Motion.createFrictionMotion(scroll, -tl, speed, 0.0004f);
-				} else {
-					draggedMotion = Motion.createFrictionMotion(scroll, getScrollDimension().getHeight() -
-							getHeight() + tl, speed, 0.0004f);
-				}
+				getDraggedMotion().fling(scroll, velocity, -tl, getScrollDimension().getHeight() - getHeight() + tl);
 			} else {
-				if (speed < 0) {
-					draggedMotion = Motion.createFrictionMotion(scroll, -tl, speed, 0.0004f);
-				} else {
-					draggedMotion = Motion.createFrictionMotion(scroll, getScrollDimension().getWidth() -
-							getWidth() + tl, speed, 0.0004f);
-				}
+				getDraggedMotion().fling(scroll, velocity, -tl, getScrollDimension().getWidth() - getWidth() + tl);
 			}
-
-			draggedMotion.start();
 		}
 	}
 
@@ -2712,7 +2729,7 @@ public class Component implements Animation, StyleListener {
 		}
 
 		// perform the dragging motion if exists
-		if (draggedMotion != null) {
+		if (isDraggedMotionActive()) {
 			// change the variable directly for efficiency both in removing
 			// redundant
 			// repaints and scroll checks
@@ -2735,10 +2752,10 @@ public class Component implements Animation, StyleListener {
 								if (dest != scroll) {
 									startTensile(scroll, dest);
 								} else {
-									draggedMotion = null;
+									draggedMotion.stop();
 								}
 							} else {
-								draggedMotion = null;
+								draggedMotion.stop();
 							}
 						}
 					} else {
@@ -2752,10 +2769,10 @@ public class Component implements Animation, StyleListener {
 								if (dest != scroll) {
 									startTensile(scroll, dest);
 								} else {
-									draggedMotion = null;
+									draggedMotion.stop();
 								}
 							} else {
-								draggedMotion = null;
+								draggedMotion.stop();
 							}
 						}
 					}
@@ -2797,7 +2814,7 @@ public class Component implements Animation, StyleListener {
 		}
 
 		if (!animateBackground && (destScrollY == -1 || destScrollY == scrollY) &&
-				!animateBackground && m == null && draggedMotion == null &&
+				!animateBackground && m == null && !isDraggedMotionActive() &&
 				!dragActivated) {
 			tryDeregisterAnimated();
 		}
@@ -3424,6 +3441,11 @@ public class Component implements Animation, StyleListener {
 	 * paintLock(boolean) for details
 	 */
 	public void paintLockRelease() {
+		// an image of a hard lock was handed out and might still be in use so
+		// only the image of a soft lock is returned to the pool
+		if (paintLockImage != null && !(paintLockImage instanceof Image)) {
+			Display.getInstance().releaseMutableImage((Image) Display.getInstance().extractHardRef(paintLockImage));
+		}
 		paintLockImage = null;
 	}
 
@@ -3449,7 +3471,7 @@ public class Component implements Animation, StyleListener {
 			return null;
 		}
 		if (paintLockImage == null) {
-			paintLockImage = Image.createImage(getWidth(), getHeight());
+			paintLockImage = Display.getInstance().leaseMutableImage(getWidth(), getHeight());
 			int x = getX();
 			int y = getY();
 			setX(0);
@@ -47,6 +47,21 @@ import java.util.Vector;
  */
 public class Container extends Component {
 	private static boolean enableLayoutOnPaint = true;
+
+	/**
+	 * Number of layout passes performed since the application started
+	 */
+	private static int layoutCount;
+
+	/**
+	 * Value of the layout counter when the current EDT frame started
+	 */
+	private static int frameStartLayoutCount;
+
+	/**
+	 * Number of layout passes performed during the last EDT frame
+	 */
+	private static int lastFrameLayoutCount;
 	private Component leadComponent;
 	private Layout layout;
 	private java.util.Vector components = new java.util.Vector();
@@ -379,6 +394,7 @@ public class Container extends Component {
 	}
 
 	void insertComponentAt(int index, Component cmp) {
+		Form.checkLayoutThread(this);
 		if (cmp.getParent() != null) {
 			throw new IllegalArgumentException("Component is already contained in Container: " + cmp.getParent());
 		}
@@ -673,6 +689,7 @@ public class Container extends Component {
 	 *            the removed component
 	 */
 	void removeComponentImpl(Component cmp) {
+		Form.checkLayoutThread(this);
 		Form parentForm = cmp.getComponentForm();
 		layout.removeLayoutComponent(cmp);
 		cmp.deinitializeImpl();
@@ -747,6 +764,7 @@ public class Container extends Component {
 	 * hierarchy and need to redo the layout
 	 */
 	public void revalidate() {
+		Form.checkLayoutThread(this);
 		setShouldCalcPreferredSize(true);
 		Form root = getComponentForm();
 
@@ -759,6 +777,105 @@ public class Container extends Component {
 		}
 	}
 
+	/**
+	 * Deferred version of {@link #revalidate()}, the layout is performed once
+	 * before the next paint regardless of how many times this method was
+	 * invoked on containers of the form during the current EDT cycle. Only the
+	 * nearest ancestor whose preferred size isn't affected by the change is
+	 * laid out and repainted rather than the whole form.
+	 * <p>
+	 * Notice that unlike revalidate the bounds of the components are not
+	 * updated when this method returns.
+	 */
+	public void revalidateLater() {
+		setShouldCalcPreferredSize(true);
+		Form root = getComponentForm();
+		if (root != null) {
+			root.addPendingRevalidate(this);
+		} else {
+			layoutContainer();
+			repaint();
+		}
+	}
+
+	/**
+	 * Returns the container from which layout should start after the
+	 * preferred size of this container was invalidated, this is the nearest
+	 * container that was already laid out and whose preferred size remains the
+	 * same so its parent layout isn't affected
+	 */
+	Container getLayoutRoot() {
+		Container scope = this;
+		Form root = getComponentForm();
+		while (scope != root) {
+			Container parent = scope.getParent();
+			if (parent == null) {
+				break;
+			}
+			// the cached value is replaced by getPreferredSize so it must be
+			// fetched first
+			Dimension old = scope.getCachedPreferredSize();
+			Dimension current = scope.getPreferredSize();
+			if (old != null && old.equals(current) && scope.getWidth() > 0 && scope.getHeight() > 0) {
+				break;
+			}
+			scope = parent;
+		}
+		return scope;
+	}
+
+	/**
+	 * Clears the layout flags set on the ancestors of this container when it
+	 * was invalidated, once this container was laid out in place and its
+	 * preferred size didn't change. An ancestor keeps its flags if any of its
+	 * other children still needs layout.
+	 */
+	void validateAncestors() {
+		Container parent = getParent();
+		while (parent != null && parent.shouldLayout) {
+			int count = parent.getComponentCount();
+			for (int iter = 0; iter < count; iter++) {
+				Component c = parent.getComponentAt(iter);
+				if (c.shouldCalcPreferredSize || (c instanceof Container && ((Container) c).shouldLayout)) {
+					return;
+				}
+			}
+			parent.shouldLayout = false;
+			parent.shouldCalcPreferredSize = false;
+			parent = parent.getParent();
+		}
+	}
+
+	/**
+	 * Returns the number of layout passes performed on containers since the
+	 * application started, a pass is counted for every container laid out.
+	 * This is useful for detecting redundant layouts during development.
+	 * 
+	 * @return the number of layout passes
+	 */
+	public static int getLayoutCount() {
+		return layoutCount;
+	}
+
+	/**
+	 * Returns the number of layout passes performed on containers during the
+	 * last completed cycle of the EDT
+	 * 
+	 * @return the number of layout passes in the last frame
+	 */
+	public static int getLastFrameLayoutCount() {
+		return lastFrameLayoutCount;
+	}
+
+	/**
+	 * Invoked by the EDT at the end of every cycle to update the frame layout
+	 * counter
+	 */
+	static void frameCompleted() {
+		lastFrameLayoutCount = layoutCount - frameStartLayoutCount;
+		frameStartLayoutCount = layoutCount;
+	}
+
 	/**
 	 * @inheritDoc
 	 */
@@ -853,6 +970,7 @@ public class Container extends Component {
 	 * Lays out the container
 	 */
 	void doLayout() {
+		layoutCount++;
 		layout.layoutContainer(this);
 		int count = getComponentCount();
 		for (int i = 0; i < count; i++) {
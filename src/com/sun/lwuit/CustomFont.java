@@ -233,7 +233,7 @@ class CustomFont extends Font {
 	 */
 	void drawChars(Graphics g, char[] data, int offset, int length, int x, int y) {
 		if (Display.getInstance().isBidiAlgorithm()) {
-			for (int i = offset; i < length; i++) {
+			for (int i = offset; i < offset + length; i++) {
 				if (Display.getInstance().isRTL(data[i])) {
 					String s = Display.getInstance().convertBidiLogicalToVisual(new String(data, offset, length));
 					data = s.toCharArray();
@@ -243,6 +243,22 @@ class CustomFont extends Font {
 				}
 			}
 		}
+		drawVisualChars(g, data, offset, length, x, y);
+	}
+
+	/**
+	 * Draws the string, the visual form of RTL strings is taken from the bidi
+	 * cache so it isn't recalculated every time the string is painted
+	 */
+	void drawString(Graphics g, String str, int x, int y) {
+		if (Display.getInstance().isBidiAlgorithm()) {
+			str = Display.getInstance().convertBidiLogicalToVisual(str);
+		}
+		char[] data = str.toCharArray();
+		drawVisualChars(g, data, 0, data.length, x, y);
+	}
+
+	private void drawVisualChars(Graphics g, char[] data, int offset, int length, int x, int y) {
 		initColor(g);
 		int clipX = g.getClipX();
 		int clipY = g.getClipY();
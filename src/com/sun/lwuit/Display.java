@@ -25,6 +25,7 @@ package com.sun.lwuit;
 
 import com.sun.lwuit.animations.Animation;
 import com.sun.lwuit.animations.CommonTransitions;
+import com.sun.lwuit.animations.ScrollPhysics;
 import com.sun.lwuit.animations.Transition;
 import com.sun.lwuit.events.ActionEvent;
 import com.sun.lwuit.events.ActionListener;
@@ -327,6 +328,12 @@ public final class Display {
 	private int dragPathOffset = 0;
 	private int dragPathLength = 0;
 
+	/**
+	 * The time of the latest pointer press, drag or release event, on release
+	 * this is the time the drag velocity is measured at
+	 */
+	private long pointerEventTime;
+
 	/**
 	 * Internally track display initialization time as a fixed point to allow
 	 * tagging of pointer events with an integer timestamp
@@ -523,6 +530,186 @@ public final class Display {
 		return impl;
 	}
 
+	/**
+	 * Sets the maximum memory used by cached gradient images, gradients are
+	 * cached regardless of their position so a gradient background is
+	 * rendered once even when its component scrolls
+	 * 
+	 * @param bytes
+	 *            the maximum size of the cache estimated as 4 bytes per pixel,
+	 *            0 disables the cache
+	 */
+	public void setGradientCacheSize(int bytes) {
+		impl.setGradientCacheSize(bytes);
+	}
+
+	/**
+	 * Returns the maximum memory used by cached gradient images
+	 * 
+	 * @return the maximum size of the gradient cache in bytes
+	 */
+	public int getGradientCacheSize() {
+		return impl.getGradientCacheSize();
+	}
+
+	/**
+	 * Returns the number of gradients drawn from the gradient cache, this is
+	 * useful for tuning the cache size
+	 * 
+	 * @return the number of gradient cache hits
+	 */
+	public int getGradientCacheHits() {
+		return impl.getGradientCacheHits();
+	}
+
+	/**
+	 * Returns the number of gradients that had to be rendered since they
+	 * weren't in the gradient cache
+	 * 
+	 * @return the number of gradient cache misses
+	 */
+	public int getGradientCacheMisses() {
+		return impl.getGradientCacheMisses();
+	}
+
+	/**
+	 * Discards all the cached gradient images, e.g. to free memory before a
+	 * memory intensive operation
+	 */
+	public void clearGradientCache() {
+		impl.clearGradientCache();
+	}
+
+	/**
+	 * Sets the maximum memory used by cached image transformations, scaled,
+	 * rotated, translucent and masked versions of an image are cached so
+	 * animations transforming an image on every frame don't recreate it
+	 * 
+	 * @param bytes
+	 *            the maximum size of the cache estimated as 4 bytes per pixel,
+	 *            0 disables the cache
+	 */
+	public void setImageTransformCacheSize(int bytes) {
+		ImageTransformCache.setMaxSize(bytes);
+	}
+
+	/**
+	 * Returns the maximum memory used by cached image transformations
+	 * 
+	 * @return the maximum size of the image transform cache in bytes
+	 */
+	public int getImageTransformCacheSize() {
+		return ImageTransformCache.getMaxSize();
+	}
+
+	/**
+	 * Returns the number of image transformations taken from the cache
+	 * 
+	 * @return the number of image transform cache hits
+	 */
+	public int getImageTransformCacheHits() {
+		return ImageTransformCache.getHits();
+	}
+
+	/**
+	 * Returns the number of image transformations that had to be performed
+	 * since they weren't in the cache
+	 * 
+	 * @return the number of image transform cache misses
+	 */
+	public int getImageTransformCacheMisses() {
+		return ImageTransformCache.getMisses();
+	}
+
+	/**
+	 * Returns the number of transformed images discarded to keep the cache
+	 * within its size, a high number indicates the cache is too small for the
+	 * working set
+	 * 
+	 * @return the number of image transform cache evictions
+	 */
+	public int getImageTransformCacheEvictions() {
+		return ImageTransformCache.getEvictions();
+	}
+
+	/**
+	 * Returns a mutable image of the given size filled with white, the image
+	 * is taken from the pool of released images when possible and should be
+	 * returned with releaseMutableImage once it is no longer used. This is
+	 * useful for transitions and other temporary full screen buffers.
+	 * 
+	 * @param width
+	 *            the image width
+	 * @param height
+	 *            the image height
+	 * @return a mutable image
+	 */
+	public Image leaseMutableImage(int width, int height) {
+		Object img = impl.leasePooledImage(width, height, 0xffffffff);
+		if (img == null) {
+			return Image.createImage(width, height);
+		}
+		Image i = new Image(img);
+		i.mutable = true;
+		return i;
+	}
+
+	/**
+	 * Returns a mutable image to the pool so it can be leased again, the image
+	 * must not be used after it is released. Immutable images are ignored.
+	 * 
+	 * @param img
+	 *            an image returned by leaseMutableImage or createImage(int,
+	 *            int)
+	 */
+	public void releaseMutableImage(Image img) {
+		if (img != null && img.mutable) {
+			impl.releasePooledImage(img.getImage());
+		}
+	}
+
+	/**
+	 * Sets the maximum memory used by pooled mutable images, by default the
+	 * pool holds up to two screens worth of images
+	 * 
+	 * @param bytes
+	 *            the maximum size of the pool estimated as 4 bytes per pixel,
+	 *            0 disables the pool
+	 */
+	public void setImagePoolSize(int bytes) {
+		impl.setImagePoolSize(bytes);
+	}
+
+	/**
+	 * Returns the maximum memory used by pooled mutable images
+	 * 
+	 * @return the maximum size of the pool in bytes or -1 if it defaults to the
+	 *         size of two screens
+	 */
+	public int getImagePoolSize() {
+		return impl.getImagePoolSize();
+	}
+
+	/**
+	 * Returns the number of mutable images leased from the pool, this is
+	 * useful for tuning the pool size
+	 * 
+	 * @return the number of pool hits
+	 */
+	public int getImagePoolHits() {
+		return impl.getImagePoolHits();
+	}
+
+	/**
+	 * Returns the number of mutable images that had to be allocated since the
+	 * pool had no image of the requested size
+	 * 
+	 * @return the number of pool misses
+	 */
+	public int getImagePoolMisses() {
+		return impl.getImagePoolMisses();
+	}
+
 	/**
 	 * Indicates the maximum frames the API will try to draw every second by
 	 * default this is set to 10. The advantage of limiting framerate is to
@@ -857,11 +1044,16 @@ public final class Display {
 			handleEvent(i);
 		}
 
+		Form current = impl.getCurrentForm();
+		if (current != null) {
+			current.flushPendingRevalidate();
+		}
+
 		lwuitGraphics.setGraphics(impl.getNativeGraphics());
 		impl.paintDirty();
 
 		// draw the animations
-		Form current = impl.getCurrentForm();
+		current = impl.getCurrentForm();
 		if (current != null) {
 			current.repaintAnimations();
 			// check key repeat events
@@ -880,6 +1072,7 @@ public final class Display {
 			}
 			processSerialCalls();
 		}
+		Container.frameCompleted();
 		time = System.currentTimeMillis() - currentTime;
 	}
 
@@ -1583,6 +1776,7 @@ public final class Display {
 		dragPathX[dragPathOffset] = pointerEvent(1, ev)[0];
 		dragPathY[dragPathOffset] = pointerEvent(2, ev)[0];
 		dragPathTime[dragPathOffset] = displayInitTime + (long) ev[ev.length - 1];
+		pointerEventTime = dragPathTime[dragPathOffset];
 		if (dragPathLength < PATHLENGTH) {
 			dragPathLength++;
 		}
@@ -1613,10 +1807,12 @@ public final class Display {
 		case POINTER_PRESSED:
 			dragOccured = false;
 			dragPathLength = 0;
+			pointerEventTime = displayInitTime + (long) ev[ev.length - 1];
 			pointerPressedAndNotReleasedOrDragged = true;
 			f.pointerPressed(pointerEvent(1, ev), pointerEvent(2, ev));
 			break;
 		case POINTER_RELEASED:
+			pointerEventTime = displayInitTime + (long) ev[ev.length - 1];
 			pointerPressedAndNotReleasedOrDragged = false;
 			f.pointerReleased(pointerEvent(1, ev), pointerEvent(2, ev));
 			break;
@@ -2031,6 +2227,28 @@ public final class Display {
 		return speed;
 	}
 
+	/**
+	 * Returns the velocity of the latest drag in pixels per millisecond, the
+	 * velocity is fitted to the recorded pointer positions and their event
+	 * times and is measured at the time of the latest pointer event (the
+	 * release when invoked from pointerReleased) so it isn't affected by the
+	 * time at which the events are processed. The sign matches getDragSpeed.
+	 * 
+	 * @param yAxis
+	 *            indicates what axis velocity is required
+	 * @return the dragging velocity
+	 */
+	public float getDragVelocity(boolean yAxis) {
+		float[] points;
+		if (yAxis) {
+			points = dragPathY;
+		} else {
+			points = dragPathX;
+		}
+		return ScrollPhysics.estimateVelocity(points, dragPathTime, dragPathOffset, dragPathLength,
+				pointerEventTime, impl.getDragPathTime());
+	}
+
 	/**
 	 * Indicates whether LWUIT should consider the bidi RTL algorithm when
 	 * drawing text or navigating with the text field cursor.
@@ -2086,6 +2304,61 @@ public final class Display {
 		return impl.getCharLocation(source, index);
 	}
 
+	/**
+	 * Returns the logical index of the character at the given location of the
+	 * visual string, this is the reverse of convertBidiLogicalToVisual
+	 * 
+	 * @param source
+	 *            the "logical" string
+	 * @param index
+	 *            the location of the character in the "visual" string
+	 * @return the "logical" location of the character
+	 */
+	public int getLogicalCharLocation(String source, int index) {
+		return impl.getLogicalCharLocation(source, index);
+	}
+
+	/**
+	 * Sets the maximum number of strings whose visual bidi layout is cached,
+	 * RTL text is reordered once rather than whenever it is painted or the
+	 * cursor moves
+	 * 
+	 * @param count
+	 *            the maximum number of strings, 0 disables the cache
+	 */
+	public void setBidiCacheSize(int count) {
+		impl.setBidiCacheSize(count);
+	}
+
+	/**
+	 * Returns the maximum number of strings whose visual bidi layout is cached
+	 * 
+	 * @return the maximum number of strings in the bidi cache
+	 */
+	public int getBidiCacheSize() {
+		return impl.getBidiCacheSize();
+	}
+
+	/**
+	 * Returns the number of bidi layouts taken from the bidi cache, this is
+	 * useful for tuning the cache size
+	 * 
+	 * @return the number of bidi cache hits
+	 */
+	public int getBidiCacheHits() {
+		return impl.getBidiCacheHits();
+	}
+
+	/**
+	 * Returns the number of bidi layouts that had to be calculated since they
+	 * weren't in the bidi cache
+	 * 
+	 * @return the number of bidi cache misses
+	 */
+	public int getBidiCacheMisses() {
+		return impl.getBidiCacheMisses();
+	}
+
 	/**
 	 * Returns true if the given character is an RTL character
 	 * 
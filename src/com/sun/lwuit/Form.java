@@ -95,6 +95,11 @@ public class Form extends Container {
 	// private FormSwitcher formSwitcher;
 	private Component focused;
 	private Vector mediaComponents;
+
+	/**
+	 * Containers whose revalidation was deferred to the next paint
+	 */
+	private Vector pendingRevalidate;
 	/**
 	 * This member allows us to define an animation that will draw the
 	 * transition for entering this form. A transition is an animation that
@@ -153,6 +158,20 @@ public class Form extends Container {
 
 	private EventDispatcher orientationListener;
 
+	/**
+	 * The thread computing the layout of this form in the background, while
+	 * it is set the component hierarchy is confined to that thread
+	 */
+	private Thread layoutThread;
+
+	/**
+	 * The number of forms whose layout is prepared in the background, allows
+	 * skipping the confinement checks when no preparation is in progress. It
+	 * is only modified under LAYOUT_LOCK but read without it, hence volatile
+	 */
+	private static volatile int layoutPreparations;
+	private static final Object LAYOUT_LOCK = new Object();
+
 	/**
 	 * Default constructor creates a simple form
 	 */
@@ -880,6 +899,67 @@ public class Form extends Container {
 		mediaComponents.removeElement(mediaCmp);
 	}
 
+	/**
+	 * Queues a container for layout before the next paint
+	 *
+	 * @param cmp
+	 *            container whose preferred size was invalidated
+	 */
+	void addPendingRevalidate(Container cmp) {
+		if (pendingRevalidate == null) {
+			pendingRevalidate = new Vector();
+		}
+		if (!pendingRevalidate.contains(cmp)) {
+			pendingRevalidate.addElement(cmp);
+		}
+		Display.getInstance().notifyDisplay();
+	}
+
+	/**
+	 * Lays out the containers queued by revalidateLater, each container is laid
+	 * out from its layout root and roots nested within other roots are skipped
+	 * since their layout is performed as part of the enclosing root
+	 */
+	void flushPendingRevalidate() {
+		if (pendingRevalidate == null || pendingRevalidate.size() == 0) {
+			return;
+		}
+		Container[] pending = new Container[pendingRevalidate.size()];
+		pendingRevalidate.copyInto(pending);
+		pendingRevalidate.removeAllElements();
+
+		Vector roots = new Vector();
+		for (int iter = 0; iter < pending.length; iter++) {
+			// the container might have been removed from the form since
+			if (pending[iter].getComponentForm() == this) {
+				Container root = pending[iter].getLayoutRoot();
+				if (!roots.contains(root)) {
+					roots.addElement(root);
+				}
+			}
+		}
+		int size = roots.size();
+		for (int iter = 0; iter < size; iter++) {
+			Container root = (Container) roots.elementAt(iter);
+			if (!isNestedIn(root, roots)) {
+				root.layoutContainer();
+				root.validateAncestors();
+				root.repaint();
+			}
+		}
+	}
+
+	private static boolean isNestedIn(Container cmp, Vector roots) {
+		Container parent = cmp.getParent();
+		while (parent != null) {
+			if (roots.contains(parent)) {
+				return true;
+			}
+			parent = parent.getParent();
+		}
+		return false;
+	}
+
 	/**
 	 * The given component is interested in animating its appearance and will
 	 * start receiving callbacks when it is visible in the form allowing it to
@@ -1195,6 +1275,104 @@ public class Form extends Container {
 		}
 	}
 
+	/**
+	 * Computes the preferred sizes and the layout of this form on a background
+	 * thread so the layout of a heavy form isn't performed on the EDT when it
+	 * is shown. Until the layout is complete the form is confined to the
+	 * background thread. Adding, inserting or removing components,
+	 * revalidating, showing the form, setting a preferred size or flagging a
+	 * component for a preferred size calculation (which setText, setIcon and
+	 * font, margin or padding style changes do) from another thread throws an
+	 * IllegalStateException. Other mutations aren't checked and must not be
+	 * made from another thread either. Once the layout is
+	 * complete the form is handed over to the EDT and onReady is invoked on the
+	 * EDT, showing the form from there won't lay it out again unless the
+	 * display size changed in the meantime.
+	 * 
+	 * @param onReady
+	 *            invoked on the EDT when the layout is complete, may be null
+	 * @throws IllegalStateException
+	 *             if the form is showing or its layout is already being
+	 *             prepared
+	 */
+	public void prepareLayout(final Runnable onReady) {
+		if (isInitialized() || Display.getInstance().getCurrent() == this) {
+			throw new IllegalStateException("Form is already showing");
+		}
+		final int width = Display.getInstance().getDisplayWidth();
+		final int height = Display.getInstance().getDisplayHeight();
+		Thread t = new Thread(new Runnable() {
+			public void run() {
+				boolean failed = false;
+				try {
+					setSize(new Dimension(width, height));
+					setShouldCalcPreferredSize(true);
+					layoutContainer();
+				} catch (RuntimeException err) {
+					err.printStackTrace();
+					failed = true;
+				}
+				final boolean layoutFailed = failed;
+				Display.getInstance().callSerially(new Runnable() {
+					public void run() {
+						synchronized (LAYOUT_LOCK) {
+							layoutThread = null;
+							layoutPreparations--;
+						}
+						if (layoutFailed) {
+							// forces the layout to be performed on the EDT
+							// when the form is shown
+							setWidth(0);
+							setShouldCalcPreferredSize(true);
+						}
+						if (onReady != null) {
+							onReady.run();
+						}
+					}
+				});
+			}
+		}, "LayoutPreparation");
+		synchronized (LAYOUT_LOCK) {
+			if (layoutThread != null) {
+				throw new IllegalStateException("Form layout is already being prepared");
+			}
+			layoutThread = t;
+			layoutPreparations++;
+		}
+		t.start();
+	}
+
+	/**
+	 * Indicates whether the layout of this form is being computed in the
+	 * background by prepareLayout
+	 * 
+	 * @return true until the layout is handed over to the EDT
+	 */
+	public boolean isLayoutPending() {
+		synchronized (LAYOUT_LOCK) {
+			return layoutThread != null;
+		}
+	}
+
+	/**
+	 * Fails if the form of the given component is confined to a background
+	 * layout thread other than the current thread, invoked by component
+	 * insertion and removal, revalidate, show, setPreferredSize and
+	 * setShouldCalcPreferredSize
+	 */
+	static void checkLayoutThread(Component cmp) {
+		if (layoutPreparations > 0) {
+			Form f = cmp.getComponentForm();
+			if (f != null) {
+				synchronized (LAYOUT_LOCK) {
+					if (f.layoutThread != null && f.layoutThread != Thread.currentThread()) {
+						throw new IllegalStateException("Form layout is being prepared on another thread");
+					}
+				}
+			}
+		}
+	}
+
 	/**
 	 * Displays the current form on the screen
 	 */
@@ -1215,6 +1393,7 @@ public class Form extends Container {
 	 * Displays the current form on the screen
 	 */
 	private void show(boolean reverse) {
+		checkLayoutThread(this);
 		if (transitionOutAnimator == null && transitionInAnimator == null) {
 			initLaf(UIManager.getInstance().getLookAndFeel());
 		}
@@ -1324,6 +1503,7 @@ public class Form extends Container {
 	 *            dialogs
 	 */
 	void showModal(int top, int bottom, int left, int right, boolean includeTitle, boolean modal, boolean reverse) {
+		checkLayoutThread(this);
 		Display.getInstance().flushEdt();
 		if (previousForm == null) {
 			previousForm = Display.getInstance().getCurrent();
@@ -23,8 +23,8 @@
  */
 package com.sun.lwuit;
 
-import com.sun.lwuit.geom.Dimension;
 import com.sun.lwuit.impl.LWUITImplementation;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Hashtable;
@@ -42,7 +42,8 @@ public class Image {
 
 	private boolean opaqueTested = false;
 	private boolean opaque;
-	private Object scaleCache;
+	private Hashtable transformCache;
+	boolean mutable;
 	private boolean animated;
 	private long imageTime = -1;
 	private String svgBaseURL;
@@ -65,42 +66,64 @@ public class Image {
 		this(Display.getInstance().getImplementation().createImage(imageArray, w, h));
 	}
 
-	private Hashtable getScaleCache() {
-		if (scaleCache == null) {
-			Hashtable h = new Hashtable();
-			scaleCache = Display.getInstance().createSoftWeakRef(h);
-			return h;
+	/**
+	 * Returns the key of a transformation of this image in the transform cache
+	 * 
+	 * @return the key or null if the image is mutable and its transformations
+	 *         shouldn't be cached
+	 */
+	Long getTransformKey(int type, int a, int b) {
+		if (mutable) {
+			return null;
 		}
-		Hashtable h = (Hashtable) Display.getInstance().extractHardRef(scaleCache);
-		if (h == null) {
-			h = new Hashtable();
-			scaleCache = Display.getInstance().createSoftWeakRef(h);
+		return ImageTransformCache.key(type, a, b);
+	}
+
+	/**
+	 * Drops the cached transformations of this image, invoked when its content
+	 * changes
+	 */
+	private void clearTransformCache() {
+		if (transformCache != null) {
+			ImageTransformCache.remove(transformCache);
+			transformCache = null;
 		}
-		return h;
 	}
 
 	/**
-	 * Returns a cached scaled image
+	 * Returns a cached transformed image
 	 * 
-	 * @param size
-	 *            the size of the cached image
+	 * @param key
+	 *            the key returned by getTransformKey
+	 * @param argument
+	 *            an additional argument of the transformation or null
 	 * @return cached image
 	 */
-	Image getCachedImage(Dimension size) {
-		Object w = getScaleCache().get(size);
-		return (Image) Display.getInstance().extractHardRef(w);
+	Image getCachedImage(Long key, Object argument) {
+		if (key == null || transformCache == null) {
+			return null;
+		}
+		return ImageTransformCache.get(transformCache, key, argument);
 	}
 
 	/**
-	 * Returns a cached scaled image
+	 * Caches a transformed image
 	 * 
-	 * @param size
-	 *            the size of the cached image
-	 * @return cached image
+	 * @param key
+	 *            the key returned by getTransformKey
+	 * @param argument
+	 *            an additional argument of the transformation or null
+	 * @param i
+	 *            the transformed image
 	 */
-	void cacheImage(Dimension size, Image i) {
-		Object w = Display.getInstance().createSoftWeakRef(i);
-		getScaleCache().put(size, w);
+	void cacheImage(Long key, Object argument, Image i) {
+		if (key == null || i == this) {
+			return;
+		}
+		if (transformCache == null) {
+			transformCache = new Hashtable();
+		}
+		ImageTransformCache.put(transformCache, key, argument, i);
 	}
 
 	/**
@@ -202,6 +225,10 @@ public class Image {
 	 * Applies the given alpha mask onto this image and returns the resulting
 	 * image see the createMask method for indication on how to convert an image
 	 * into an alpha mask.
+	 * <p>
+	 * The result is cached with this image (unless it is mutable) so later
+	 * calls with the same mask may return the same instance, it is shared and
+	 * must not be modified e.g. via getGraphics.
 	 * 
 	 * @param mask
 	 *            mask object created by the createMask() method.
@@ -212,6 +239,11 @@ public class Image {
 	 * @return image masked based on the given object
 	 */
 	public Image applyMask(Object mask, int x, int y) {
+		Long key = getTransformKey(ImageTransformCache.MASK, x, y);
+		Image cached = getCachedImage(key, mask);
+		if (cached != null) {
+			return cached;
+		}
 		int[] rgb = getRGB();
 		byte[] maskData = ((IndexedImage) mask).getImageDataByte();
 		int mWidth = ((IndexedImage) mask).getWidth();
@@ -237,13 +269,19 @@ public class Image {
 
 			}
 		}
-		return createImage(rgb, imgWidth, getHeight());
+		Image i = createImage(rgb, imgWidth, getHeight());
+		cacheImage(key, mask, i);
+		return i;
 	}
 
 	/**
 	 * Applies the given alpha mask onto this image and returns the resulting
 	 * image see the createMask method for indication on how to convert an image
 	 * into an alpha mask.
+	 * <p>
+	 * The result is cached with this image (unless it is mutable) so later
+	 * calls with the same mask may return the same instance, it is shared and
+	 * must not be modified e.g. via getGraphics.
 	 * 
 	 * @param mask
 	 *            mask object created by the createMask() method.
@@ -252,19 +290,28 @@ public class Image {
 	 *             if the image size doesn't match the mask size
 	 */
 	public Image applyMask(Object mask) {
-		int[] rgb = getRGB();
-		byte[] maskData = ((IndexedImage) mask).getImageDataByte();
 		int mWidth = ((IndexedImage) mask).getWidth();
 		int mHeight = ((IndexedImage) mask).getHeight();
 		if (mWidth != getWidth() || mHeight != getHeight()) {
 			throw new IllegalArgumentException("Mask and image sizes don't match");
 		}
+
+		// with matching sizes this is the same as masking at 0, 0
+		Long key = getTransformKey(ImageTransformCache.MASK, 0, 0);
+		Image cached = getCachedImage(key, mask);
+		if (cached != null) {
+			return cached;
+		}
+		int[] rgb = getRGB();
+		byte[] maskData = ((IndexedImage) mask).getImageDataByte();
 		for (int iter = 0; iter < maskData.length; iter++) {
 			int maskAlpha = maskData[iter] & 0xff;
 			maskAlpha = (maskAlpha << 24) & 0xff000000;
 			rgb[iter] = (rgb[iter] & 0xffffff) | maskAlpha;
 		}
-		return createImage(rgb, mWidth, mHeight);
+		Image i = createImage(rgb, mWidth, mHeight);
+		cacheImage(key, mask, i);
+		return i;
 	}
 
 	/**
@@ -309,13 +356,28 @@ public class Image {
 	 * E.g. rotating an image to 45, 90 and 135 degrees is inefficient. Use
 	 * rotatate to 45, 90 and then rotate the 45 to another 90 degrees to
 	 * achieve the same effect with less memory.
+	 * <p>
+	 * The result is cached with this image (unless it is mutable) so later
+	 * calls may return the same instance, it is shared and must not be
+	 * modified e.g. via getGraphics.
 	 * 
 	 * @param degrees
 	 *            A degree in right angle must be larger than 0 and up to 359
 	 *            degrees
-	 * @return new image instance with the closest possible rotation
+	 * @return image instance with the closest possible rotation
 	 */
 	public Image rotate(int degrees) {
+		Long key = getTransformKey(ImageTransformCache.ROTATE, degrees, 0);
+		Image cached = getCachedImage(key, null);
+		if (cached != null) {
+			return cached;
+		}
+		Image rotated = rotateImpl(degrees);
+		cacheImage(key, null, rotated);
+		return rotated;
+	}
+
+	private Image rotateImpl(int degrees) {
 		LWUITImplementation i = Display.getInstance().getImplementation();
 		if (i.isRotationDrawingSupported()) {
 			if (degrees >= 90) {
@@ -369,10 +431,14 @@ public class Image {
 	}
 
 	/**
-	 * Creates a new image instance with the alpha channel of opaque/translucent
+	 * Returns an image instance with the alpha channel of opaque/translucent
 	 * pixels within the image using the new alpha value. Transparent (alpha ==
 	 * 0) pixels remain transparent. All other pixels will have the new alpha
 	 * value.
+	 * <p>
+	 * The result is cached with this image (unless it is mutable) so later
+	 * calls may return the same instance, it is shared and must not be
+	 * modified e.g. via getGraphics.
 	 * 
 	 * @param alpha
 	 *            New value for the entire alpha channel
@@ -380,6 +446,11 @@ public class Image {
 	 *         of this image
 	 */
 	public Image modifyAlpha(byte alpha) {
+		Long key = getTransformKey(ImageTransformCache.ALPHA, alpha & 0xff, 0);
+		Image cached = getCachedImage(key, null);
+		if (cached != null) {
+			return cached;
+		}
 		int w = getWidth();
 		int h = getHeight();
 		int size = w * h;
@@ -394,14 +465,19 @@ public class Image {
 		Image i = new Image(arr, w, h);
 		i.opaqueTested = true;
 		i.opaque = false;
+		cacheImage(key, null, i);
 		return i;
 	}
 
 	/**
-	 * Creates a new image instance with the alpha channel of opaque pixels
-	 * within the image using the new alpha value. Transparent (alpha == 0)
-	 * pixels remain transparent. Semi translucent pixels will be multiplied by
-	 * the ratio difference and their translucency reduced appropriately.
+	 * Returns an image instance with the alpha channel of opaque pixels within
+	 * the image using the new alpha value. Transparent (alpha == 0) pixels
+	 * remain transparent. Semi translucent pixels will be multiplied by the
+	 * ratio difference and their translucency reduced appropriately.
+	 * <p>
+	 * The result is cached with this image (unless it is mutable) so later
+	 * calls may return the same instance, it is shared and must not be
+	 * modified e.g. via getGraphics.
 	 * 
 	 * @param alpha
 	 *            New value for the entire alpha channel
@@ -409,6 +485,11 @@ public class Image {
 	 *         of this image
 	 */
 	public Image modifyAlphaWithTranslucency(byte alpha) {
+		Long key = getTransformKey(ImageTransformCache.ALPHA_TRANSLUCENCY, alpha & 0xff, 0);
+		Image cached = getCachedImage(key, null);
+		if (cached != null) {
+			return cached;
+		}
 		int w = getWidth();
 		int h = getHeight();
 		int size = w * h;
@@ -431,14 +512,19 @@ public class Image {
 		Image i = new Image(arr, w, h);
 		i.opaqueTested = true;
 		i.opaque = false;
+		cacheImage(key, null, i);
 		return i;
 	}
 
 	/**
-	 * Creates a new image instance with the alpha channel of opaque/translucent
+	 * Returns an image instance with the alpha channel of opaque/translucent
 	 * pixels within the image using the new alpha value. Transparent (alpha ==
 	 * 0) pixels remain transparent. All other pixels will have the new alpha
 	 * value.
+	 * <p>
+	 * The result is cached with this image (unless it is mutable) so later
+	 * calls may return the same instance, it is shared and must not be
+	 * modified e.g. via getGraphics.
 	 * 
 	 * @param alpha
 	 *            New value for the entire alpha channel
@@ -450,6 +536,11 @@ public class Image {
 	 */
 	public Image modifyAlpha(byte alpha, int removeColor) {
 		removeColor = removeColor & 0xffffff;
+		Long key = getTransformKey(ImageTransformCache.ALPHA_REMOVE_COLOR, alpha & 0xff, removeColor);
+		Image cached = getCachedImage(key, null);
+		if (cached != null) {
+			return cached;
+		}
 		int w = getWidth();
 		int h = getHeight();
 		int size = w * h;
@@ -467,6 +558,7 @@ public class Image {
 		Image i = new Image(arr, w, h);
 		i.opaqueTested = true;
 		i.opaque = false;
+		cacheImage(key, null, i);
 		return i;
 	}
 
@@ -583,8 +675,9 @@ public class Image {
 	 * @return an image in a given width and height dimension
 	 */
 	public static Image createImage(int width, int height, int fillColor) {
+		Image i;
 		try {
-			return new Image(Display.getInstance().getImplementation().createMutableImage(width, height, fillColor));
+			i = new Image(Display.getInstance().getImplementation().createMutableImage(width, height, fillColor));
 		} catch (OutOfMemoryError err) {
 			// Images have a major bug on many phones where they sometimes throw
 			// an OOM with no reason. A system.gc followed by the same call over
@@ -592,8 +685,10 @@ public class Image {
 			// there is no Image.dispose method in existance.
 			System.gc();
 			System.gc();
-			return new Image(Display.getInstance().getImplementation().createMutableImage(width, height, fillColor));
+			i = new Image(Display.getInstance().getImplementation().createMutableImage(width, height, fillColor));
 		}
+		i.mutable = true;
+		return i;
 	}
 
 	/**
@@ -625,6 +720,80 @@ public class Image {
 		}
 	}
 
+	/**
+	 * Creates an image from the given byte array data at the given size. On
+	 * platforms that support it the image is decoded directly at a reduced
+	 * resolution, which is considerably cheaper in memory than creating the
+	 * full size image and scaling it.
+	 * 
+	 * @param bytes
+	 *            the array of image data in a supported image format
+	 * @param offset
+	 *            the offset of the start of the data in the array
+	 * @param len
+	 *            the length of the data in the array
+	 * @param width
+	 *            the width of the resulting image, or -1 to keep the aspect
+	 *            ratio of the height
+	 * @param height
+	 *            the height of the resulting image, or -1 to keep the aspect
+	 *            ratio of the width
+	 * @return the newly created image
+	 */
+	public static Image createImage(byte[] bytes, int offset, int len, int width, int height) {
+		if (width == -1 && height == -1) {
+			return createImage(bytes, offset, len);
+		}
+		try {
+			Object o = Display.getInstance().getImplementation().createImage(bytes, offset, len, width, height);
+			if (o == null) {
+				throw new IllegalArgumentException("create image failed for the given image data of length: " + len);
+			}
+			return new Image(o);
+		} catch (OutOfMemoryError err) {
+			// Images have a major bug on many phones where they sometimes throw
+			// an OOM with no reason. A system.gc followed by the same call over
+			// solves the problem. This has something to do with the fact that
+			// there is no Image.dispose method in existance.
+			System.gc();
+			System.gc();
+			return new Image(Display.getInstance().getImplementation().createImage(bytes, offset, len, width, height));
+		}
+	}
+
+	/**
+	 * Creates an image from an InputStream at the given size, see
+	 * createImage(byte[], int, int, int, int)
+	 * 
+	 * @param stream
+	 *            a given InputStream
+	 * @param width
+	 *            the width of the resulting image, or -1 to keep the aspect
+	 *            ratio of the height
+	 * @param height
+	 *            the height of the resulting image, or -1 to keep the aspect
+	 *            ratio of the width
+	 * @throws java.io.IOException
+	 * @return the newly created image
+	 */
+	public static Image createImage(InputStream stream, int width, int height) throws IOException {
+		if (width == -1 && height == -1) {
+			return createImage(stream);
+		}
+		ByteArrayOutputStream bo = new ByteArrayOutputStream();
+		byte[] buffer = new byte[4096];
+		int size = stream.read(buffer);
+		while (size > -1) {
+			bo.write(buffer, 0, size);
+			size = stream.read(buffer);
+		}
+		bo.close();
+		stream.close();
+		byte[] data = bo.toByteArray();
+		bo = null;
+		return createImage(data, 0, data.length, width, height);
+	}
+
 	/**
 	 * If this is a mutable image a graphics object allowing us to draw on it is
 	 * returned.
@@ -633,6 +802,9 @@ public class Image {
 	 *         mutable image
 	 */
 	public Graphics getGraphics() {
+		// the content can now change so cached transformations become stale
+		mutable = true;
+		clearTransformCache();
 		return new Graphics(Display.getInstance().getImplementation().getNativeGraphics(image));
 	}
 
@@ -905,8 +1077,8 @@ public class Image {
 		if (height == -1) {
 			return scaledWidth(width);
 		}
-		Dimension d = new Dimension(width, height);
-		Image i = getCachedImage(d);
+		Long key = getTransformKey(ImageTransformCache.SCALE, width, height);
+		Image i = getCachedImage(key, null);
 		if (i != null) {
 			return i;
 		}
@@ -920,13 +1092,12 @@ public class Image {
 		} else {
 			i = new Image(this.image);
 		}
-		i.scaleCache = scaleCache;
 		i.scale(width, height);
 		i.transform = this.transform;
 		i.animated = animated;
 		i.svgBaseURL = svgBaseURL;
 		i.svgData = svgData;
-		cacheImage(new Dimension(width, height), i);
+		cacheImage(key, null, i);
 		return i;
 	}
 
@@ -955,6 +1126,8 @@ public class Image {
 	 */
 	public void scale(int width, int height) {
 		image = Display.getInstance().getImplementation().scale(image, width, height);
+		rgbCache = null;
+		clearTransformCache();
 	}// resize image
 
 	boolean scaleArray(int srcWidth, int srcHeight, int height, int width, int[] currentArray, int[] destinationArray) {
@@ -0,0 +1,193 @@
+/*
+ * Copyright (c) 2008, 2010, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores
+ * CA 94065 USA or visit www.oracle.com if you need additional information or
+ * have any questions.
+ */
+package com.sun.lwuit;
+
+import java.util.Hashtable;
+import java.util.Vector;
+
+/**
+ * Caches the results of image transformations (scaling, rotation, alpha and
+ * masking) so animations that transform the same image on every frame don't
+ * recreate it. Every image holds its own table of transformed versions keyed
+ * by a long encoding the transformation and its arguments, the transformed
+ * images are held by soft references and the total estimated memory (4 bytes
+ * per pixel) of all the tables is bounded by a single budget that evicts the
+ * least recently used images first.
+ */
+class ImageTransformCache {
+
+	/**
+	 * The default size of the cache in bytes
+	 */
+	static final int DEFAULT_CACHE_SIZE = 512 * 1024;
+
+	static final int SCALE = 1;
+	static final int ROTATE = 2;
+	static final int ALPHA = 3;
+	static final int ALPHA_TRANSLUCENCY = 4;
+	static final int ALPHA_REMOVE_COLOR = 5;
+	static final int MASK = 6;
+
+	// least recently used entry first
+	private static Vector lru = new Vector();
+	private static int maxSize = DEFAULT_CACHE_SIZE;
+	private static int size;
+	private static int hits;
+	private static int misses;
+	private static int evictions;
+
+	private ImageTransformCache() {
+	}
+
+	/**
+	 * Builds the key of a transformation, the arguments are truncated to 28
+	 * bits which is more than enough for sizes, angles and colors
+	 */
+	static Long key(int type, int a, int b) {
+		return new Long((((long) type) << 56) | (((long) (a & 0xfffffff)) << 28) | (b & 0xfffffff));
+	}
+
+	/**
+	 * Returns the cached result of a transformation
+	 * 
+	 * @param table
+	 *            the transform table of the source image
+	 * @param key
+	 *            key returned by the key method
+	 * @param argument
+	 *            an argument that can't be encoded in the key (e.g. the mask)
+	 *            or null, it is compared by reference
+	 * @return the transformed image or null if it isn't cached
+	 */
+	static synchronized Image get(Hashtable table, Long key, Object argument) {
+		Entry e = (Entry) table.get(key);
+		if (e == null || e.argument != argument) {
+			misses++;
+			return null;
+		}
+		Image img = (Image) Display.getInstance().extractHardRef(e.image);
+		if (img == null) {
+			// collected by the GC
+			remove(e);
+			misses++;
+			return null;
+		}
+		hits++;
+		int index = lru.lastIndexOf(e);
+		if (index < lru.size() - 1) {
+			lru.removeElementAt(index);
+			lru.addElement(e);
+		}
+		return img;
+	}
+
+	/**
+	 * Adds the result of a transformation to the cache evicting the least
+	 * recently used images as needed, images larger than the entire cache
+	 * aren't cached
+	 */
+	static synchronized void put(Hashtable table, Long key, Object argument, Image img) {
+		int bytes = img.getWidth() * img.getHeight() * 4;
+		if (bytes > maxSize) {
+			return;
+		}
+		Entry old = (Entry) table.get(key);
+		if (old != null) {
+			remove(old);
+		}
+		trim(bytes);
+		Entry e = new Entry();
+		e.table = table;
+		e.key = key;
+		e.argument = argument;
+		e.image = Display.getInstance().createSoftWeakRef(img);
+		e.bytes = bytes;
+		table.put(key, e);
+		lru.addElement(e);
+		size += bytes;
+	}
+
+	private static void remove(Entry e) {
+		e.table.remove(e.key);
+		lru.removeElement(e);
+		size -= e.bytes;
+	}
+
+	private static void trim(int bytes) {
+		while (lru.size() > 0 && size + bytes > maxSize) {
+			Entry e = (Entry) lru.firstElement();
+			lru.removeElementAt(0);
+			e.table.remove(e.key);
+			size -= e.bytes;
+			evictions++;
+		}
+	}
+
+	/**
+	 * Removes the images of the given transform table, this is invoked when
+	 * the source image might change
+	 */
+	static synchronized void remove(Hashtable table) {
+		for (int iter = lru.size() - 1; iter >= 0; iter--) {
+			Entry e = (Entry) lru.elementAt(iter);
+			if (e.table == table) {
+				lru.removeElementAt(iter);
+				size -= e.bytes;
+			}
+		}
+		table.clear();
+	}
+
+	static synchronized void setMaxSize(int bytes) {
+		maxSize = bytes;
+		trim(0);
+	}
+
+	static int getMaxSize() {
+		return maxSize;
+	}
+
+	static int getHits() {
+		return hits;
+	}
+
+	static int getMisses() {
+		return misses;
+	}
+
+	static int getEvictions() {
+		return evictions;
+	}
+
+	/**
+	 * A transformed image within the transform table of its source
+	 */
+	static final class Entry {
+		Hashtable table;
+		Long key;
+		Object argument;
+		Object image;
+		int bytes;
+	}
+}
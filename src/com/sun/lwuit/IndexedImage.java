@@ -23,7 +23,6 @@
  */
 package com.sun.lwuit;
 
-import com.sun.lwuit.geom.Dimension;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
@@ -345,11 +344,14 @@ public class IndexedImage extends Image {
 		if (srcWidth == width && srcHeight == height) {
 			return this;
 		}
-		Dimension d = new Dimension(width, height);
-		Image i = getCachedImage(d);
+		Long key = getTransformKey(ImageTransformCache.SCALE, width, height);
+		Image i = getCachedImage(key, null);
+		if (i != null) {
+			return i;
+		}
 		// currently we only support byte data...
 		i = new IndexedImage(width, height, palette, scaleArray(imageDataByte, width, height));
-		cacheImage(d, i);
+		cacheImage(key, null, i);
 		return i;
 	}
 
@@ -24,17 +24,19 @@
 package com.sun.lwuit;
 
 import com.sun.lwuit.util.EventDispatcher;
-import com.sun.lwuit.animations.Motion;
+import com.sun.lwuit.animations.ScrollPhysics;
 import com.sun.lwuit.geom.Dimension;
 import com.sun.lwuit.geom.Rectangle;
 import com.sun.lwuit.events.ActionEvent;
 import com.sun.lwuit.events.ActionListener;
 import com.sun.lwuit.events.DataChangedListener;
+import com.sun.lwuit.events.DataRangeChangedListener;
 import com.sun.lwuit.events.SelectionListener;
 import com.sun.lwuit.list.DefaultListCellRenderer;
 import com.sun.lwuit.list.DefaultListModel;
 import com.sun.lwuit.list.ListCellRenderer;
 import com.sun.lwuit.list.ListModel;
+import com.sun.lwuit.list.RowImageCache;
 import com.sun.lwuit.plaf.Border;
 import com.sun.lwuit.plaf.LookAndFeel;
 import com.sun.lwuit.plaf.Style;
@@ -191,10 +193,10 @@ public class List extends Component {
 	private int animationPosition;
 	private int fixedDraggedAnimationPosition;
 	private int fixedDraggedPosition;
-	private Motion fixedDraggedMotion;
+	private ScrollPhysics fixedDraggedMotion;
 
 	private int destination;
-	private Motion listMotion;
+	private ScrollPhysics listMotion;
 	private static boolean defaultFireOnClick = true;
 	private boolean fireOnClick = defaultFireOnClick;
 	private boolean fireOnRelease;
@@ -236,6 +238,24 @@ public class List extends Component {
 	 */
 	private boolean scrollToSelected = true;
 
+	/**
+	 * Indicates that the rows of a vertical list may differ in height, in which
+	 * case each row is measured through the renderer when it becomes visible
+	 */
+	private boolean variableRowHeight;
+
+	/**
+	 * The offsets of the rows in variable row height mode, created lazily
+	 */
+	private RowOffsets rowOffsets;
+	private int rowOffsetsWidth;
+	private boolean rowRevalidatePending;
+
+	/**
+	 * Images of rendered rows, null unless row caching was enabled
+	 */
+	private RowImageCache rowImageCache;
+
 	private Label hintLabel;
 
 	/**
@@ -542,6 +562,28 @@ public class List extends Component {
 	}
 
 	void dataChanged(int status, int index) {
+		if (rowOffsets != null) {
+			int size = model.getSize();
+			if (index < 0) {
+				// the entire model changed
+				rowOffsets = null;
+			} else if (status == DataChangedListener.CHANGED && index < rowOffsets.size()) {
+				rowOffsets.invalidate(index);
+			} else if (status == DataChangedListener.ADDED && rowOffsets.size() + 1 == size && index >= 0 && index < size) {
+				rowOffsets.insert(index);
+			} else if (status == DataChangedListener.REMOVED && rowOffsets.size() - 1 == size && index >= 0 && index <= size) {
+				rowOffsets.remove(index);
+			} else if (rowOffsets.size() != size) {
+				rowOffsets = null;
+			}
+		}
+		if (rowImageCache != null) {
+			if (status == DataChangedListener.CHANGED) {
+				rowImageCache.invalidate(index);
+			} else {
+				rowImageCache.clear();
+			}
+		}
 		setShouldCalcPreferredSize(true);
 		if (getSelectedIndex() >= model.getSize()) {
 			setSelectedIndex(Math.max(model.getSize() - 1, 0));
@@ -551,6 +593,29 @@ public class List extends Component {
 		repaint();
 	}
 
+	void dataRangeChanged(int index, int count) {
+		int end = index + count;
+		if (rowOffsets != null) {
+			if (rowOffsets.size() != model.getSize() || end > rowOffsets.size()) {
+				rowOffsets = null;
+			} else {
+				for (int iter = index; iter < end; iter++) {
+					rowOffsets.invalidate(iter);
+				}
+			}
+		}
+		if (rowImageCache != null) {
+			for (int iter = index; iter < end; iter++) {
+				rowImageCache.invalidate(iter);
+			}
+		}
+		setShouldCalcPreferredSize(true);
+		for (int iter = index; iter < end; iter++) {
+			modelChanged(DataChangedListener.CHANGED, iter);
+		}
+		repaint();
+	}
+
 	private void bindListeners() {
 		if (listener == null) {
 			listener = new Listeners();
@@ -566,6 +631,10 @@ public class List extends Component {
 	 *            the new model underlying the list
 	 */
 	public void setModel(ListModel model) {
+		rowOffsets = null;
+		if (rowImageCache != null) {
+			rowImageCache.clear();
+		}
 		if (this.model != null) {
 			setShouldCalcPreferredSize(true);
 			this.model.removeDataChangedListener(listener);
@@ -696,12 +765,16 @@ public class List extends Component {
 		this.listSizeCalculationSampleCount = listSizeCalculationSampleCount;
 	}
 
-	private class Listeners implements DataChangedListener, SelectionListener {
+	private class Listeners implements DataRangeChangedListener, SelectionListener {
 
 		public void dataChanged(int status, int index) {
 			List.this.dataChanged(status, index);
 		}
 
+		public void dataRangeChanged(int index, int count) {
+			List.this.dataRangeChanged(index, count);
+		}
+
 		public void selectionChanged(int oldSelected, int newSelected) {
 			repaint();
 			List.this.listSelectionChanged(oldSelected, newSelected);
@@ -728,6 +801,10 @@ public class List extends Component {
 	 *             getter/setter with the same name
 	 */
 	public void setListCellRenderer(ListCellRenderer renderer) {
+		rowOffsets = null;
+		if (rowImageCache != null) {
+			rowImageCache.clear();
+		}
 		if (this.renderer != null) {
 			// calculate the item list size and the list size.
 			elemSize = null;
@@ -761,6 +838,10 @@ public class List extends Component {
 	 * @inheritDoc
 	 */
 	public void refreshTheme() {
+		rowOffsets = null;
+		if (rowImageCache != null) {
+			rowImageCache.clear();
+		}
 		fixedSelection = UIManager.getInstance().getThemeConstant("fixedSelectionInt", fixedSelection);
 		itemGap = UIManager.getInstance().getThemeConstant("listItemGapInt", itemGap);
 		ListCellRenderer r = getRenderer();
@@ -958,7 +1039,11 @@ public class List extends Component {
 	void selectElement(int selectedIndex) {
 		Dimension size = getElementSize(false, true);
 		Rectangle rect;
-		if (getOrientation() != HORIZONTAL) {
+		if (isVariableRowHeightMode() && selectedIndex < model.getSize()) {
+			RowOffsets rows = getRowOffsets(getContentWidth());
+			measureRow(rows, selectedIndex);
+			rect = new Rectangle(getX(), rows.getOffset(selectedIndex), getElementSize(true, true).getWidth(), rows.getHeight(selectedIndex) - itemGap);
+		} else if (getOrientation() != HORIZONTAL) {
 			rect = new Rectangle(getX(), (size.getHeight() + itemGap) * selectedIndex, getElementSize(true, true));
 		} else {
 			int x = (size.getWidth() + itemGap) * selectedIndex;
@@ -1014,8 +1099,10 @@ public class List extends Component {
 		if (p != null) {
 			p.registerAnimatedInternal(this);
 		}
-		listMotion = Motion.createSplineMotion(0, destination, getScrollAnimationSpeed());
-		listMotion.start();
+		if (listMotion == null) {
+			listMotion = new ScrollPhysics();
+		}
+		listMotion.settle(0, destination, getScrollAnimationSpeed());
 	}
 
 	/**
@@ -1045,7 +1132,18 @@ public class List extends Component {
 		// In order to cause the list to be cyclic we just subtract the list
 		// size
 		// which will cause the bottom elements to "return" from the top.
-		if (orientation != HORIZONTAL) {
+		if (isVariableRowHeightMode()) {
+			RowOffsets rows = getRowOffsets(defaultWidth);
+			rect.setX(initialX);
+			d.setWidth(defaultWidth);
+			if (index >= 0 && index < rows.size()) {
+				rect.setY(initialY + rows.getOffset(index));
+				d.setHeight(rows.getHeight(index) - itemGap);
+			} else {
+				rect.setY(initialY);
+				d.setHeight(rendererSize.getHeight());
+			}
+		} else if (orientation != HORIZONTAL) {
 			int height = rendererSize.getHeight();
 			selectedDiff = selectedSize.getHeight() - height;
 			rect.setX(initialX);
@@ -1208,6 +1306,10 @@ public class List extends Component {
 		int clipWidth = g.getClipWidth();
 		int clipHeight = g.getClipHeight();
 
+		if (isVariableRowHeightMode()) {
+			measureRows(clipY, clipY + clipHeight, width);
+		}
+
 		// this flag is for preformance improvements
 		// if we figured out that the list items are not visible anymore
 		// we should break from the List loop
@@ -1247,9 +1349,12 @@ public class List extends Component {
 						startOffset = i;
 					}
 					endOffset = i;
-					Dimension size = pos.getSize();
-					Component selectionCmp = renderer.getListCellRendererComponent(this, getModel().getItemAt(i), i, i == getCurrentSelected());
-					renderComponentBackground(g, selectionCmp, pos.getX(), pos.getY(), size.getWidth(), size.getHeight());
+					// cached rows include their background
+					if (rowImageCache == null || i == getCurrentSelected()) {
+						Dimension size = pos.getSize();
+						Component selectionCmp = renderer.getListCellRendererComponent(this, getModel().getItemAt(i), i, i == getCurrentSelected());
+						renderComponentBackground(g, selectionCmp, pos.getX(), pos.getY(), size.getWidth(), size.getHeight());
+					}
 					shouldBreak = true;
 				} else {
 					// this is relevant only if the List is not fixed.
@@ -1291,7 +1396,7 @@ public class List extends Component {
 					if (i == getCurrentSelected()) {
 						Dimension size = pos.getSize();
 						renderComponentBackground(g, selectionCmp, pos.getX(), pos.getY(), size.getWidth(), size.getHeight());
-					} else {
+					} else if (rowImageCache == null) {
 						Dimension size = pos.getSize();
 						renderComponentBackground(g, unselectedCmp, pos.getX(), pos.getY(), size.getWidth(), size.getHeight());
 					}
@@ -1325,9 +1430,13 @@ public class List extends Component {
 			calculateComponentPosition(i, width, pos, rendererSize, getElementSize(true, true), i <= getCurrentSelected());
 
 			Object value = model.getItemAt(i);
+			Dimension sizeC = pos.getSize();
+			if (rowImageCache != null) {
+				paintCachedRow(g, i, value, pos.getX(), pos.getY(), sizeC.getWidth(), sizeC.getHeight());
+				continue;
+			}
 			Component cmp = renderer.getListCellRendererComponent(this, value, i, false);
 			cmp.setCellRenderer(true);
-			Dimension sizeC = pos.getSize();
 			renderComponent(g, cmp, pos.getX(), pos.getY(), sizeC.getWidth(), sizeC.getHeight());
 		}
 		// if the animation has finished draw the selected element
@@ -1406,6 +1515,29 @@ public class List extends Component {
 		g.setClip(oX, oY, oWidth, oHeight);
 	}
 
+	/**
+	 * Draws an unselected row from the row image cache, rendering it into the
+	 * cache first if necessary
+	 */
+	private void paintCachedRow(Graphics g, int index, Object value, int x, int y, int width, int height) {
+		Image img = rowImageCache.get(index, value, false, width, height);
+		if (img == null) {
+			Component cmp = renderer.getListCellRendererComponent(this, value, index, false);
+			cmp.setCellRenderer(true);
+			if (width <= 0 || height <= 0 || width * height * 4 > rowImageCache.getMaxSize()) {
+				renderComponentBackground(g, cmp, x, y, width, height);
+				renderComponent(g, cmp, x, y, width, height);
+				return;
+			}
+			img = RowImageCache.createRowImage(width, height);
+			Graphics ig = img.getGraphics();
+			renderComponentBackground(ig, cmp, 0, 0, width, height);
+			renderComponent(ig, cmp, 0, 0, width, height);
+			rowImageCache.put(index, value, false, img);
+		}
+		g.drawImage(img, x, y);
+	}
+
 	private void renderComponentBackground(Graphics g, Component cmp, int x, int y, int width, int height) {
 		Style s = cmp.getStyle();
 		int left = s.getMargin(isRTL(), LEFT);
@@ -1560,6 +1692,7 @@ public class List extends Component {
 	 */
 	public void setItemGap(int itemGap) {
 		this.itemGap = itemGap;
+		rowOffsets = null;
 	}
 
 	/**
@@ -1594,6 +1727,156 @@ public class List extends Component {
 		return renderingPrototype;
 	}
 
+	/**
+	 * Returns the size of the row image cache in bytes
+	 * 
+	 * @return the size of the row image cache in bytes, 0 if rows aren't
+	 *         cached
+	 */
+	public int getRowImageCacheSize() {
+		if (rowImageCache == null) {
+			return 0;
+		}
+		return rowImageCache.getMaxSize();
+	}
+
+	/**
+	 * Enables caching the images of rendered rows, so unchanged rows are drawn
+	 * as a single image rather than painting the renderer component tree on
+	 * every repaint. This is useful for renderers with nested containers, such
+	 * as the GenericListCellRenderer, where painting a row involves many styles
+	 * and borders. The selected row is always rendered so tickers and focus
+	 * animations keep working, and a row is rendered again when the model
+	 * fires a data change event for it.
+	 * <p>
+	 * Notice that a row is reused as long as the same item instance is at the
+	 * same index, a model whose items mutate must fire a data change event
+	 * when an item changes. Caching requires mutable images with alpha and is
+	 * ignored on platforms that don't support them.
+	 * 
+	 * @param bytes
+	 *            the maximum memory used by cached rows (estimated as 4 bytes
+	 *            per pixel), 0 to disable caching which is the default
+	 */
+	public void setRowImageCacheSize(int bytes) {
+		if (bytes <= 0 || !RowImageCache.isSupported()) {
+			rowImageCache = null;
+		} else {
+			rowImageCache = new RowImageCache(bytes);
+		}
+		repaint();
+	}
+
+	/**
+	 * Indicates whether the rows of this list may differ in height
+	 * 
+	 * @return true if each row is measured separately
+	 */
+	public boolean isVariableRowHeight() {
+		return variableRowHeight;
+	}
+
+	/**
+	 * Allows the rows of a vertical list to differ in height, e.g. posts with
+	 * and without images in a feed. By default all the rows have the size
+	 * returned by the renderer for the first few items (or for the rendering
+	 * prototype), in this mode each row is measured through the renderer when
+	 * it first becomes visible and rows that weren't measured yet are assumed
+	 * to have the default size. Row offsets are kept in a prefix sum tree so
+	 * painting and pointer events only touch the visible rows, regardless of
+	 * the size of the model.
+	 * <p>
+	 * This applies only to vertical lists without a fixed selection, and the
+	 * selected row has the same height as the unselected rendering of its item.
+	 * 
+	 * @param variableRowHeight
+	 *            true to measure each row separately
+	 */
+	public void setVariableRowHeight(boolean variableRowHeight) {
+		this.variableRowHeight = variableRowHeight;
+		rowOffsets = null;
+		setShouldCalcPreferredSize(true);
+	}
+
+	private boolean isVariableRowHeightMode() {
+		return variableRowHeight && orientation == VERTICAL && fixedSelection < FIXED_NONE_BOUNDRY;
+	}
+
+	/**
+	 * Returns the width available for the rows
+	 */
+	private int getContentWidth() {
+		Style style = getStyle();
+		return getWidth() - style.getPadding(false, RIGHT) - style.getPadding(false, LEFT) - getSideGap();
+	}
+
+	/**
+	 * Returns the row offsets, rows are measured again when the width of the
+	 * list changes since their height usually depends on it
+	 */
+	private RowOffsets getRowOffsets(int width) {
+		if (rowOffsets == null || rowOffsets.size() != model.getSize() || rowOffsetsWidth != width) {
+			rowOffsets = new RowOffsets(model.getSize(), getElementSize(false, true).getHeight() + itemGap);
+			rowOffsetsWidth = width;
+		}
+		return rowOffsets;
+	}
+
+	/**
+	 * Measures the rows that weren't measured yet between the given offsets,
+	 * starting from the first row in the range so the rows above it don't
+	 * move
+	 */
+	private void measureRows(int top, int bottom, int width) {
+		RowOffsets rows = getRowOffsets(width);
+		int initialY = getStyle().getPadding(false, TOP);
+		boolean changed = false;
+		int size = rows.size();
+		for (int iter = rows.getIndexAt(top - initialY); iter < size && rows.getOffset(iter) + initialY < bottom; iter++) {
+			changed |= measureRow(rows, iter);
+		}
+		if (changed) {
+			rowHeightsChanged();
+		}
+	}
+
+	/**
+	 * Measures the given row through the renderer if it wasn't measured yet
+	 * 
+	 * @return true if the row was measured
+	 */
+	private boolean measureRow(RowOffsets rows, int index) {
+		if (rows.isMeasured(index) || rowOffsetsWidth <= 0) {
+			return false;
+		}
+		Component cmp = renderer.getListCellRendererComponent(this, model.getItemAt(index), index, false);
+		cmp.setShouldCalcPreferredSize(true);
+		Style s = cmp.getStyle();
+		cmp.setWidth(rowOffsetsWidth - s.getMargin(false, LEFT) - s.getMargin(false, RIGHT));
+		rows.setHeight(index, cmp.getPreferredH() + s.getMargin(false, TOP) + s.getMargin(false, BOTTOM) + itemGap);
+		return true;
+	}
+
+	/**
+	 * Invoked when measuring rows changed the height of the list, if the list
+	 * is placed within a scrolling parent the parent is laid out again
+	 */
+	private void rowHeightsChanged() {
+		super.setShouldCalcPreferredSize(true);
+		if (!rowRevalidatePending && getParent() != null && hasScrollableParent(getParent())) {
+			rowRevalidatePending = true;
+			Display.getInstance().callSerially(new Runnable() {
+				public void run() {
+					rowRevalidatePending = false;
+					Form f = getComponentForm();
+					if (f != null) {
+						f.revalidate();
+					}
+				}
+			});
+		}
+	}
+
 	/**
 	 * Calculates the default size for elements on the list
 	 * 
@@ -1699,7 +1982,9 @@ public class List extends Component {
 				if (isDragActivated()) {
 					int selected = getCurrentSelected();
 					model.setSelectedIndex(selected);
-					fixedDraggedMotion = null;
+					if (fixedDraggedMotion != null) {
+						fixedDraggedMotion.stop();
+					}
 					fixedDraggedAnimationPosition = 0;
 				}
 				fixedDraggedSelection = getModel().getSelectedIndex();
@@ -1813,7 +2098,13 @@ public class List extends Component {
 		y = y - getAbsoluteY();
 		x = x - getAbsoluteX();
 
-		if (fixedSelection < FIXED_NONE_BOUNDRY) {
+		if (isVariableRowHeightMode()) {
+			RowOffsets rows = getRowOffsets(width);
+			int offset = y - style.getPadding(false, TOP);
+			if (offset >= 0 && offset < rows.getTotal()) {
+				selectedIndex = rows.getIndexAt(offset);
+			}
+		} else if (fixedSelection < FIXED_NONE_BOUNDRY) {
 			calculateComponentPosition(getSelectedIndex(), width, pos, rendererSize, getElementSize(true, true), true);
 
 			if (orientation != HORIZONTAL) {
@@ -1899,20 +2190,25 @@ public class List extends Component {
 				super.pointerReleased(x, y);
 			} else {
 				boolean vertical = getOrientation() == VERTICAL;
-				float speed = Display.getInstance().getDragSpeed(vertical);
+				float velocity = Display.getInstance().getDragVelocity(vertical);
+				int max;
 				if (vertical) {
-					fixedDraggedMotion = Motion.createFrictionMotion(-fixedDraggedAnimationPosition,
-							getElementSize(false, true).getHeight() * getModel().getSize(), speed, 0.0004f);
+					max = getElementSize(false, true).getHeight() * getModel().getSize();
 				} else {
-					fixedDraggedMotion = Motion.createFrictionMotion(-fixedDraggedAnimationPosition,
-							getElementSize(false, true).getWidth() * getModel().getSize(), speed, 0.0004f);
+					max = getElementSize(false, true).getWidth() * getModel().getSize();
 				}
+				if (fixedDraggedMotion == null) {
+					fixedDraggedMotion = new ScrollPhysics();
+				}
+
+				// the selection wraps around so the limits only bound the
+				// distance of the fling
+				fixedDraggedMotion.fling(-fixedDraggedAnimationPosition, velocity, -max, max);
 				fixedDraggedPosition = fixedDraggedAnimationPosition;
 				Form p = getComponentForm();
 				if (p != null) {
 					p.registerAnimatedInternal(this);
 				}
-				fixedDraggedMotion.start();
 			}
 			return;
 		}
@@ -1970,6 +2266,14 @@ public class List extends Component {
 			}
 		}
 		Dimension d = UIManager.getInstance().getLookAndFeel().getListPreferredSize(this);
+		if (isVariableRowHeightMode() && model.getSize() > 0) {
+			Style style = getStyle();
+			int height = getRowOffsets(getContentWidth()).getTotal() + style.getPadding(false, TOP) + style.getPadding(false, BOTTOM);
+			if (style.getBorder() != null) {
+				height = Math.max(style.getBorder().getMinimumHeight(), height);
+			}
+			d.setHeight(height);
+		}
 		if (spinnerOverlay != null) {
 			if (spinnerOverlay.getBorder() != null) {
 				d.setWidth(Math.max(spinnerOverlay.getBorder().getMinimumWidth(), d.getWidth()));
@@ -2029,19 +2333,19 @@ public class List extends Component {
 		// case
 		// this is the scrolling animation which we don't want to interfear with
 		boolean parentFinished = super.animate();
-		if ((animationPosition != 0) && listMotion != null && !isDragActivated()) {
+		if ((animationPosition != 0) && listMotion != null && listMotion.isActive() && !isDragActivated()) {
 			if (animationPosition < 0) {
 				animationPosition = Math.min(listMotion.getValue() - destination, 0);
 			} else {
 				animationPosition = Math.max(destination - listMotion.getValue(), 0);
 			}
 			if (animationPosition == 0) {
-				listMotion = null;
+				listMotion.stop();
 				deregisterAnimatedInternal();
 			}
 			return true;
 		}
-		if (fixedDraggedMotion != null) {
+		if (fixedDraggedMotion != null && fixedDraggedMotion.isActive()) {
 			int val = -fixedDraggedMotion.getValue();
 			fixedDraggedAnimationPosition = fixedDraggedAnimationPosition - (fixedDraggedPosition - val);
 			fixedDraggedPosition = val;
@@ -2081,7 +2385,7 @@ public class List extends Component {
 				}
 				setSelectedIndex(fixedDraggedSelection);
 				setDragActivated(false);
-				fixedDraggedMotion = null;
+				fixedDraggedMotion.stop();
 			}
 			return true;
 		}
@@ -2119,8 +2423,19 @@ public class List extends Component {
 	 * @inheritDoc
 	 */
 	protected int getGridPosY() {
-		int gridSize = getElementSize(false, true).getHeight() + itemGap;
 		int scroll = getScrollY();
+		if (isVariableRowHeightMode() && model.getSize() > 0) {
+			// snap to the start of the nearest row
+			RowOffsets rows = getRowOffsets(getContentWidth());
+			int offset = scroll - getStyle().getPadding(false, TOP);
+			int row = rows.getIndexAt(offset);
+			int start = rows.getOffset(row);
+			if (offset - start > rows.getHeight(row) / 2) {
+				start += rows.getHeight(row);
+			}
+			return start + getStyle().getPadding(false, TOP);
+		}
+		int gridSize = getElementSize(false, true).getHeight() + itemGap;
 		return calcGrid(scroll, gridSize);
 	}
 
@@ -0,0 +1,231 @@
+/*
+ * Copyright (c) 2008, 2010, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores
+ * CA 94065 USA or visit www.oracle.com if you need additional information or
+ * have any questions.
+ */
+package com.sun.lwuit;
+
+/**
+ * Keeps the heights of the rows of a variable height list in a binary
+ * indexed (Fenwick) tree, so the offset of a row and the row at a given offset
+ * are both found in O(log n) and a row height is updated in O(log n). Rows
+ * that weren't measured yet hold an estimated height.
+ */
+class RowOffsets {
+	private int[] tree;
+	private int[] heights;
+	private boolean[] measured;
+	private int count;
+	private int estimate;
+	private int total;
+
+	/**
+	 * Creates the offsets for the given number of rows, all of them holding the
+	 * estimated height
+	 * 
+	 * @param count
+	 *            the number of rows
+	 * @param estimate
+	 *            the height of a row that wasn't measured yet
+	 */
+	RowOffsets(int count, int estimate) {
+		this.count = count;
+		this.estimate = estimate;
+		heights = new int[count];
+		measured = new boolean[count];
+		for (int iter = 0; iter < count; iter++) {
+			heights[iter] = estimate;
+		}
+		build();
+	}
+
+	/**
+	 * Builds the tree from the heights array in O(n)
+	 */
+	private void build() {
+		tree = new int[count + 1];
+		total = 0;
+		for (int iter = 1; iter <= count; iter++) {
+			tree[iter] += heights[iter - 1];
+			total += heights[iter - 1];
+			int parent = iter + (iter & -iter);
+			if (parent <= count) {
+				tree[parent] += tree[iter];
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of rows
+	 * 
+	 * @return the number of rows
+	 */
+	int size() {
+		return count;
+	}
+
+	/**
+	 * Returns the sum of all the row heights
+	 * 
+	 * @return the sum of all the row heights
+	 */
+	int getTotal() {
+		return total;
+	}
+
+	/**
+	 * Returns the height of the given row
+	 * 
+	 * @param index
+	 *            the row
+	 * @return the measured or estimated height of the row
+	 */
+	int getHeight(int index) {
+		return heights[index];
+	}
+
+	/**
+	 * Indicates whether the given row was measured
+	 * 
+	 * @param index
+	 *            the row
+	 * @return true if the row height was measured, false if it is estimated
+	 */
+	boolean isMeasured(int index) {
+		return measured[index];
+	}
+
+	/**
+	 * Sets the measured height of the given row
+	 * 
+	 * @param index
+	 *            the row
+	 * @param height
+	 *            the row height
+	 */
+	void setHeight(int index, int height) {
+		measured[index] = true;
+		update(index, height);
+	}
+
+	/**
+	 * Marks the given row as not measured, e.g. when its item changed
+	 * 
+	 * @param index
+	 *            the row
+	 */
+	void invalidate(int index) {
+		measured[index] = false;
+	}
+
+	private void update(int index, int height) {
+		int delta = height - heights[index];
+		if (delta == 0) {
+			return;
+		}
+		heights[index] = height;
+		total += delta;
+		for (int iter = index + 1; iter <= count; iter += iter & -iter) {
+			tree[iter] += delta;
+		}
+	}
+
+	/**
+	 * Returns the offset of the given row, which is the sum of the heights of
+	 * all the rows before it
+	 * 
+	 * @param index
+	 *            the row, may be equal to the number of rows
+	 * @return the offset of the row
+	 */
+	int getOffset(int index) {
+		int sum = 0;
+		for (int iter = index; iter > 0; iter -= iter & -iter) {
+			sum += tree[iter];
+		}
+		return sum;
+	}
+
+	/**
+	 * Returns the row containing the given offset
+	 * 
+	 * @param offset
+	 *            an offset from the top of the first row
+	 * @return the row containing the offset, offsets before the first row
+	 *         return 0 and offsets after the last row return the last row
+	 */
+	int getIndexAt(int offset) {
+		if (offset <= 0 || count == 0) {
+			return 0;
+		}
+		int pos = 0;
+		int step = 1;
+		while (step * 2 <= count) {
+			step *= 2;
+		}
+		for (; step > 0; step /= 2) {
+			if (pos + step <= count && tree[pos + step] <= offset) {
+				pos += step;
+				offset -= tree[pos];
+			}
+		}
+		return Math.min(pos, count - 1);
+	}
+
+	/**
+	 * Inserts a row that wasn't measured yet, this is O(n)
+	 * 
+	 * @param index
+	 *            the index of the new row
+	 */
+	void insert(int index) {
+		int[] newHeights = new int[count + 1];
+		boolean[] newMeasured = new boolean[count + 1];
+		System.arraycopy(heights, 0, newHeights, 0, index);
+		System.arraycopy(measured, 0, newMeasured, 0, index);
+		System.arraycopy(heights, index, newHeights, index + 1, count - index);
+		System.arraycopy(measured, index, newMeasured, index + 1, count - index);
+		newHeights[index] = estimate;
+		heights = newHeights;
+		measured = newMeasured;
+		count++;
+		build();
+	}
+
+	/**
+	 * Removes a row, this is O(n)
+	 * 
+	 * @param index
+	 *            the index of the removed row
+	 */
+	void remove(int index) {
+		int[] newHeights = new int[count - 1];
+		boolean[] newMeasured = new boolean[count - 1];
+		System.arraycopy(heights, 0, newHeights, 0, index);
+		System.arraycopy(measured, 0, newMeasured, 0, index);
+		System.arraycopy(heights, index + 1, newHeights, index, count - index - 1);
+		System.arraycopy(measured, index + 1, newMeasured, index, count - index - 1);
+		heights = newHeights;
+		measured = newMeasured;
+		count--;
+		build();
+	}
+}
@@ -23,7 +23,7 @@
  */
 package com.sun.lwuit;
 
-import com.sun.lwuit.animations.Motion;
+import com.sun.lwuit.animations.ScrollPhysics;
 import com.sun.lwuit.events.ActionEvent;
 import com.sun.lwuit.events.ActionListener;
 import com.sun.lwuit.events.FocusListener;
@@ -70,7 +70,13 @@ public class Tabs extends Container {
 	private boolean swipeActivated = true;
 
 	private ActionListener press, drag, release;
-	private Motion slideToDestMotion;
+	private ScrollPhysics slideToDestMotion;
+
+	/**
+	 * A swipe released faster than this (in pixels per millisecond) moves to
+	 * the next tab even if it covered less than half the width
+	 */
+	private static final float FLING_VELOCITY = 0.5f;
 	private int initialX = -1;
 	private int initialY = -1;
 	private int lastX = -1;
@@ -179,7 +185,7 @@ public class Tabs extends Container {
 	 */
 	public boolean animate() {
 		boolean b = super.animate();
-		if (slideToDestMotion != null && swipeActivated) {
+		if (slideToDestMotion != null && slideToDestMotion.isActive() && swipeActivated) {
 			int motionX = slideToDestMotion.getValue();
 			final int size = contentPane.getComponentCount();
 			for (int i = 0; i < size; i++) {
@@ -200,7 +206,7 @@ public class Tabs extends Container {
 					Component component = contentPane.getComponentAt(i);
 					component.paintLockRelease();
 				}
-				slideToDestMotion = null;
+				slideToDestMotion.stop();
 				deregisterAnimatedInternal();
 				setSelectedIndex(activeComponent);
 			}
@@ -210,7 +216,7 @@ public class Tabs extends Container {
 	}
 
 	void deregisterAnimatedInternal() {
-		if (slideToDestMotion == null || (slideToDestMotion.isFinished())) {
+		if (slideToDestMotion == null || !slideToDestMotion.isActive() || slideToDestMotion.isFinished()) {
 			Form f = getComponentForm();
 			if (f != null) {
 				f.deregisterAnimatedInternal(this);
@@ -1021,7 +1027,10 @@ public class Tabs extends Container {
 				if (initialX != -1) {
 					int diff = x - initialX;
 					if (diff != 0 && dragStarted) {
-						if (Math.abs(diff) > contentPane.getWidth() / 2) {
+						// the velocity is reversed relative to the pointer
+						float velocity = Display.getInstance().getDragVelocity(false);
+						boolean fling = Math.abs(velocity) > FLING_VELOCITY && (velocity < 0) == (diff > 0);
+						if (fling || Math.abs(diff) > contentPane.getWidth() / 2) {
 							if (isRTL()) {
 								diff *= -1;
 							}
@@ -1039,8 +1048,10 @@ public class Tabs extends Container {
 						}
 						int start = contentPane.getComponentAt(activeComponent).getX();
 						int end = 0;
-						slideToDestMotion = Motion.createSplineMotion(start, end, 250);
-						slideToDestMotion.start();
+						if (slideToDestMotion == null) {
+							slideToDestMotion = new ScrollPhysics();
+						}
+						slideToDestMotion.settle(start, end, 250);
 						Form form = getComponentForm();
 						if (form != null) {
 							form.registerAnimatedInternal(Tabs.this);
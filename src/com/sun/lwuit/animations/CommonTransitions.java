@@ -344,6 +344,7 @@ public final class CommonTransitions extends Transition {
 			// moves
 			// to an external screen
 			if (buffer.getWidth() != w || buffer.getHeight() != h) {
+				Display.getInstance().releaseMutableImage(buffer);
 				buffer = createMutableImage(w, h);
 				rgbBuffer = null;
 
@@ -515,7 +516,7 @@ public final class CommonTransitions extends Transition {
 
 	private Image createMutableImage(int w, int h) {
 		Display d = Display.getInstance();
-		return Image.createImage(Math.min(d.getDisplayWidth(), w), Math.min(d.getDisplayHeight(), h));
+		return d.leaseMutableImage(Math.min(d.getDisplayWidth(), w), Math.min(d.getDisplayHeight(), h));
 	}
 
 	/**
@@ -769,6 +770,8 @@ public final class CommonTransitions extends Transition {
 			removeConstant((Container) getDestination());
 		}
 		super.cleanup();
+		Display.getInstance().releaseMutableImage(buffer);
+		Display.getInstance().releaseMutableImage(secondaryBuffer);
 		buffer = null;
 		rgbBuffer = null;
 		secondaryBuffer = null;
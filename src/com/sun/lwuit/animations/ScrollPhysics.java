@@ -0,0 +1,357 @@
+/*
+ * Copyright (c) 2008, 2010, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores
+ * CA 94065 USA or visit www.oracle.com if you need additional information or
+ * have any questions.
+ */
+package com.sun.lwuit.animations;
+
+/**
+ * Kinetic scrolling physics shared by the scrollable components. Unlike
+ * {@link Motion} a single instance is reused for every fling and settle of a
+ * component so scrolling doesn't allocate. The position is calculated in
+ * fixed point from the start of the motion so the path doesn't depend on the
+ * frames in which it is sampled, and the time at which it is sampled is
+ * predicted from the frame cadence so late frames don't show up as uneven
+ * steps.
+ * <p>
+ * A fling decelerates with constant friction from the initial velocity until
+ * it stops or reaches one of its limits, a settle moves between two values
+ * with an ease in/out curve (e.g. snapping back from a tensile drag).
+ */
+public class ScrollPhysics {
+	/**
+	 * The default friction of a fling in pixels per millisecond squared
+	 */
+	public static final float DEFAULT_FRICTION = 0.0004f;
+
+	private static final int SHIFT = 20;
+	private static final long ONE = 1L << SHIFT;
+	private static final long HALF = ONE >> 1;
+
+	private static final int IDLE = 0;
+	private static final int FLING = 1;
+	private static final int SETTLE = 2;
+
+	private int mode = IDLE;
+	private boolean finished = true;
+	private int value;
+	private long startTime;
+
+	// fling state in fixed point, velocity and deceleration are in pixels per
+	// millisecond (squared)
+	private long origin;
+	private long speed;
+	private long deceleration;
+	private boolean negative;
+	private long stopTime;
+	private int minValue;
+	private int maxValue;
+
+	// settle state
+	private int sourceValue;
+	private int destinationValue;
+	private int duration;
+
+	// frame prediction
+	private long lastFrameTime;
+	private long lastCallTime;
+	private int frameInterval;
+
+	/**
+	 * Starts a fling from the given position with the default friction
+	 * 
+	 * @param position
+	 *            the starting position
+	 * @param velocity
+	 *            the initial velocity in pixels per millisecond
+	 * @param min
+	 *            the fling stops if it reaches this value
+	 * @param max
+	 *            the fling stops if it reaches this value
+	 */
+	public void fling(int position, float velocity, int min, int max) {
+		fling(position, velocity, DEFAULT_FRICTION, min, max);
+	}
+
+	/**
+	 * Starts a fling from the given position
+	 * 
+	 * @param position
+	 *            the starting position
+	 * @param velocity
+	 *            the initial velocity in pixels per millisecond
+	 * @param friction
+	 *            the deceleration in pixels per millisecond squared
+	 * @param min
+	 *            the fling stops if it reaches this value
+	 * @param max
+	 *            the fling stops if it reaches this value
+	 */
+	public void fling(int position, float velocity, float friction, int min, int max) {
+		mode = FLING;
+		origin = ((long) position) << SHIFT;
+		negative = velocity < 0;
+		speed = (long) (Math.abs(velocity) * ONE);
+		deceleration = Math.max(1, (long) (friction * ONE));
+		stopTime = speed / deceleration;
+		minValue = min;
+		maxValue = max;
+		start(position);
+	}
+
+	/**
+	 * Starts moving from the given position to the destination
+	 * 
+	 * @param position
+	 *            the starting position
+	 * @param destination
+	 *            the final position
+	 * @param duration
+	 *            the duration of the motion in milliseconds, 0 moves to the
+	 *            destination on the next frame
+	 */
+	public void settle(int position, int destination, int duration) {
+		mode = SETTLE;
+		sourceValue = position;
+		destinationValue = destination;
+		this.duration = duration;
+		start(position);
+	}
+
+	private void start(int position) {
+		value = position;
+		finished = false;
+		startTime = System.currentTimeMillis();
+		lastFrameTime = startTime;
+		lastCallTime = startTime;
+		frameInterval = 0;
+	}
+
+	/**
+	 * Stops the motion at its current position
+	 */
+	public void stop() {
+		mode = IDLE;
+		finished = true;
+	}
+
+	/**
+	 * Indicates whether a fling or a settle is in progress or has finished but
+	 * wasn't stopped yet
+	 * 
+	 * @return true if the motion wasn't stopped
+	 */
+	public boolean isActive() {
+		return mode != IDLE;
+	}
+
+	/**
+	 * Indicates whether a fling is in progress
+	 * 
+	 * @return true for a fling, false for a settle or when stopped
+	 */
+	public boolean isFling() {
+		return mode == FLING;
+	}
+
+	/**
+	 * Returns true if the last value returned by getValue is the final value
+	 * of the motion
+	 * 
+	 * @return true if the motion has run its course
+	 */
+	public boolean isFinished() {
+		return finished;
+	}
+
+	/**
+	 * Returns the time in which the current motion started, positions are
+	 * computed relative to this time
+	 * 
+	 * @return the start time in milliseconds
+	 */
+	public long getStartTime() {
+		return startTime;
+	}
+
+	/**
+	 * Returns the position for the current frame
+	 * 
+	 * @return the position
+	 */
+	public int getValue() {
+		return getValue(System.currentTimeMillis());
+	}
+
+	/**
+	 * Returns the position for a frame drawn at the given time, this allows
+	 * replaying a motion with a simulated clock
+	 * 
+	 * @param now
+	 *            the current time in milliseconds
+	 * @return the position
+	 */
+	public int getValue(long now) {
+		if (finished) {
+			return value;
+		}
+		long time = getFrameTime(now) - startTime;
+		if (mode == FLING) {
+			long t = Math.min(time, stopTime);
+			long distance = speed * t - deceleration * t * t / 2;
+			long pos;
+			if (negative) {
+				pos = origin - distance;
+			} else {
+				pos = origin + distance;
+			}
+			value = (int) ((pos + HALF) >> SHIFT);
+			if (value <= minValue) {
+				value = minValue;
+				finished = true;
+			} else if (value >= maxValue) {
+				value = maxValue;
+				finished = true;
+			} else if (time >= stopTime) {
+				finished = true;
+			}
+		} else {
+			if (time >= duration) {
+				value = destinationValue;
+				finished = true;
+			} else {
+				long s = (time << SHIFT) / duration;
+				long s2 = (s * s) >> SHIFT;
+				long s3 = (s2 * s) >> SHIFT;
+				long ease = 3 * s2 - 2 * s3;
+				value = sourceValue + (int) (((destinationValue - sourceValue) * ease + HALF) >> SHIFT);
+			}
+		}
+		return value;
+	}
+
+	/**
+	 * Frames are drawn at a fixed rate but the animate calls that produce them
+	 * arrive with jitter, when the call is within half a frame of the expected
+	 * frame time the expected time is used so the steps between frames remain
+	 * even. A frame that is later than that resynchronizes with the clock.
+	 */
+	private long getFrameTime(long now) {
+		long frame = now;
+		if (frameInterval > 0) {
+			long error = now - (lastFrameTime + frameInterval);
+			if (error > -frameInterval / 2 && error < frameInterval / 2) {
+				frame = lastFrameTime + frameInterval;
+			}
+		}
+		int elapsed = (int) (now - lastCallTime);
+		if (elapsed > 0) {
+			if (frameInterval == 0) {
+				frameInterval = elapsed;
+			} else {
+				frameInterval = (frameInterval * 3 + elapsed) / 4;
+			}
+		}
+		lastCallTime = now;
+		if (frame < lastFrameTime) {
+			frame = lastFrameTime;
+		}
+		lastFrameTime = frame;
+		return frame;
+	}
+
+	/**
+	 * Estimates the scrolling velocity at the time of release from recorded
+	 * pointer positions using a least squares fit of the recent points. Only
+	 * points recorded within the given time of the last point are used and if
+	 * the pointer rested for longer than that before the release the velocity
+	 * is 0.
+	 * 
+	 * @param points
+	 *            cyclic array of pointer positions
+	 * @param times
+	 *            the times in which the positions were recorded
+	 * @param offset
+	 *            the offset in the arrays following the last point
+	 * @param length
+	 *            the number of valid points in the arrays
+	 * @param now
+	 *            the time of the release
+	 * @param pathTime
+	 *            the time in milliseconds during which points are relevant
+	 * @return the velocity in pixels per millisecond, its sign is reversed
+	 *         relative to the pointer movement to match the scrolling
+	 *         direction
+	 */
+	public static float estimateVelocity(float[] points, long[] times, int offset, int length, long now, int pathTime) {
+		if (length < 2) {
+			return 0;
+		}
+		int last = offset - 1;
+		if (last < 0) {
+			last += points.length;
+		}
+		long lastTime = times[last];
+		if (now - lastTime > pathTime) {
+			return 0;
+		}
+
+		// means relative to the last point to keep the numbers small
+		int count = 0;
+		float sumT = 0;
+		float sumP = 0;
+		int index = last;
+		for (int iter = 0; iter < length; iter++) {
+			long t = times[index] - lastTime;
+			if (t < -pathTime) {
+				break;
+			}
+			sumT += t;
+			sumP += points[index] - points[last];
+			count++;
+			index--;
+			if (index < 0) {
+				index += points.length;
+			}
+		}
+		if (count < 2) {
+			return 0;
+		}
+		float meanT = sumT / count;
+		float meanP = sumP / count;
+		float covariance = 0;
+		float variance = 0;
+		index = last;
+		for (int iter = 0; iter < count; iter++) {
+			float t = (times[index] - lastTime) - meanT;
+			covariance += t * ((points[index] - points[last]) - meanP);
+			variance += t * t;
+			index--;
+			if (index < 0) {
+				index += points.length;
+			}
+		}
+		if (variance == 0) {
+			return 0;
+		}
+		return -covariance / variance;
+	}
+}
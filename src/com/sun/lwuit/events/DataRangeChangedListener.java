@@ -0,0 +1,45 @@
+/*
+ * Copyright (c) 2008, 2010, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores
+ * CA 94065 USA or visit www.oracle.com if you need additional information or
+ * have any questions.
+ */
+package com.sun.lwuit.events;
+
+/**
+ * An optional extension of {@link DataChangedListener} for listeners that can
+ * handle a change of several consecutive items in a single call. Models that
+ * update items in blocks (e.g. {@link com.sun.lwuit.list.PagedListModel})
+ * invoke dataRangeChanged on listeners that implement this interface and fire
+ * a {@link DataChangedListener#CHANGED} event per item for other listeners.
+ */
+public interface DataRangeChangedListener extends DataChangedListener {
+
+	/**
+	 * Invoked when consecutive items in the underlying model changed
+	 * 
+	 * @param index
+	 *            index of the first changed item in the list model
+	 * @param count
+	 *            the number of changed items
+	 */
+	public void dataRangeChanged(int index, int count);
+
+}
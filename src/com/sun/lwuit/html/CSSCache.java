@@ -0,0 +1,317 @@
+/*
+ * Copyright (c) 2008, 2010, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores
+ * CA 94065 USA or visit www.oracle.com if you need additional information or
+ * have any questions.
+ */
+package com.sun.lwuit.html;
+
+import com.sun.lwuit.io.Storage;
+import java.util.Hashtable;
+import java.util.Vector;
+
+/**
+ * A cache of external stylesheets shared by all pages and HTMLComponents.
+ * Parsed stylesheets are kept in memory in a least recently used list, so a
+ * stylesheet used across a site is fetched, parsed and sorted once. The
+ * stylesheet source is also persisted to Storage (when initialized), so it
+ * isn't fetched again in later sessions.
+ * 
+ * A cached stylesheet is used without fetching while it is younger than the
+ * expiry time. After that it is fetched again, and if the request handler
+ * reported the same validator (See DocumentInfo.setValidator) the parsed copy
+ * is reused.
+ * 
+ * Stylesheets with an @import rule aren't cached, since the imported files are
+ * requested while parsing.
+ * 
+ * A parsed stylesheet is shared by all pages that use it, so entries are kept
+ * per URL and encoding (the encoding of the referring page, which the parser
+ * uses for @media segments). Parsing errors are reported only to the callback
+ * of the HTMLComponent that parsed the stylesheet.
+ */
+class CSSCache {
+
+	/**
+	 * The default number of stylesheets kept in memory
+	 */
+	static final int DEFAULT_CACHE_SIZE = 10;
+
+	/**
+	 * The default time in milliseconds in which a cached stylesheet is used
+	 * without fetching it again
+	 */
+	static final long DEFAULT_EXPIRY = 10 * 60 * 1000;
+
+	private static final String STORAGE_PREFIX = "CSSCache-";
+
+	private static Hashtable entries = new Hashtable();
+	private static Vector lru = new Vector(); // least recently used key first
+	private static int maxSize = DEFAULT_CACHE_SIZE;
+	private static long expiry = DEFAULT_EXPIRY;
+	private static boolean persistent = true;
+
+	private CSSCache() {
+	}
+
+	/**
+	 * Sets the number of stylesheets kept in memory, 0 disables the cache
+	 * 
+	 * @param size
+	 *            the number of stylesheets kept in memory
+	 */
+	static synchronized void setMaxSize(int size) {
+		maxSize = size;
+		trim(0);
+	}
+
+	/**
+	 * Sets the time in which a cached stylesheet is used without fetching it
+	 * again
+	 * 
+	 * @param millis
+	 *            the expiry time in milliseconds, 0 to always fetch the
+	 *            stylesheet and rely only on validators
+	 */
+	static void setExpiry(long millis) {
+		expiry = millis;
+	}
+
+	/**
+	 * Sets whether stylesheets are persisted to Storage
+	 * 
+	 * @param persist
+	 *            true to persist stylesheets to Storage, false otherwise
+	 */
+	static void setPersistent(boolean persist) {
+		persistent = persist;
+	}
+
+	/**
+	 * Returns the cached entry of the given URL if it hasn't expired yet
+	 * 
+	 * @param url
+	 *            The stylesheet URL
+	 * @param encoding
+	 *            The encoding the stylesheet is parsed with or null if none
+	 * @return the cached entry, or null if there's no fresh entry
+	 */
+	static synchronized Entry getFresh(String url, String encoding) {
+		Entry entry = getEntry(url, encoding);
+		if ((entry != null) && (System.currentTimeMillis() - entry.time < expiry)) {
+			return entry;
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the cached entry of the given URL if it has the given validator,
+	 * and renews its expiry time
+	 * 
+	 * @param url
+	 *            The stylesheet URL
+	 * @param encoding
+	 *            The encoding the stylesheet is parsed with or null if none
+	 * @param validator
+	 *            The validator the request handler reported for the fetched
+	 *            stylesheet
+	 * @return the cached entry, or null if there's no entry with this
+	 *         validator
+	 */
+	static synchronized Entry getValidated(String url, String encoding, String validator) {
+		if (validator == null) {
+			return null;
+		}
+		Entry entry = getEntry(url, encoding);
+		if ((entry != null) && (validator.equals(entry.validator))) {
+			entry.time = System.currentTimeMillis();
+			return entry;
+		}
+		return null;
+	}
+
+	/**
+	 * Adds a parsed stylesheet to the cache
+	 * 
+	 * @param url
+	 *            The stylesheet URL
+	 * @param encoding
+	 *            The encoding the stylesheet was parsed with or null if none
+	 * @param validator
+	 *            The validator of the stylesheet or null if unknown
+	 * @param source
+	 *            The stylesheet source
+	 * @param css
+	 *            The parsed stylesheet
+	 */
+	static synchronized void put(String url, String encoding, String validator, byte[] source, CSSElement css) {
+		if (maxSize <= 0) {
+			return;
+		}
+		Entry entry = new Entry();
+		entry.url = url;
+		entry.validator = validator;
+		entry.source = source;
+		entry.css = css;
+		entry.time = System.currentTimeMillis();
+		String key = getKey(url, encoding);
+		if (entries.remove(key) != null) {
+			lru.removeElement(key);
+		} else {
+			trim(1);
+		}
+		entries.put(key, entry);
+		lru.addElement(key);
+
+		if (persistent && Storage.isInitialized()) {
+			Vector v = new Vector();
+			v.addElement(key);
+			v.addElement(validator == null ? "" : validator);
+			v.addElement(new Long(entry.time));
+			v.addElement(source);
+			Storage.getInstance().writeObject(getStorageKey(key), v);
+		}
+	}
+
+	/**
+	 * Removes all stylesheets from the cache and from Storage
+	 */
+	static synchronized void clear() {
+		entries.clear();
+		lru.removeAllElements();
+		if (Storage.isInitialized()) {
+			String[] names = Storage.getInstance().listEntries();
+			if (names != null) {
+				for (int i = 0; i < names.length; i++) {
+					if (names[i].startsWith(STORAGE_PREFIX)) {
+						Storage.getInstance().deleteStorageFile(names[i]);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the entry of the given URL and encoding from memory, or loads it
+	 * from Storage
+	 * 
+	 * @param url
+	 *            The stylesheet URL
+	 * @param encoding
+	 *            The encoding the stylesheet is parsed with or null if none
+	 * @return the entry or null if the stylesheet isn't cached
+	 */
+	private static Entry getEntry(String url, String encoding) {
+		String key = getKey(url, encoding);
+		Entry entry = (Entry) entries.get(key);
+		if (entry != null) {
+			lru.removeElement(key);
+			lru.addElement(key);
+			return entry;
+		}
+		if ((maxSize <= 0) || (!persistent) || (!Storage.isInitialized())) {
+			return null;
+		}
+		Object o = Storage.getInstance().readObject(getStorageKey(key));
+		if (!(o instanceof Vector)) {
+			return null;
+		}
+		Vector v = (Vector) o;
+		// the entry may belong to a different key with the same hash
+		if ((v.size() != 4) || (!key.equals(v.elementAt(0)))) {
+			return null;
+		}
+		entry = new Entry();
+		entry.url = url;
+		entry.validator = (String) v.elementAt(1);
+		if (entry.validator.length() == 0) {
+			entry.validator = null;
+		}
+		entry.time = ((Long) v.elementAt(2)).longValue();
+		entry.source = (byte[]) v.elementAt(3);
+		trim(1);
+		entries.put(key, entry);
+		lru.addElement(key);
+		return entry;
+	}
+
+	/**
+	 * Evicts least recently used stylesheets from memory until the given
+	 * number of stylesheets can be added, evicted stylesheets are also removed
+	 * from Storage
+	 * 
+	 * @param count
+	 *            The number of stylesheets that should be added
+	 */
+	private static void trim(int count) {
+		while ((lru.size() > 0) && (lru.size() + count > maxSize)) {
+			String key = (String) lru.firstElement();
+			lru.removeElementAt(0);
+			entries.remove(key);
+			if (Storage.isInitialized()) {
+				Storage.getInstance().deleteStorageFile(getStorageKey(key));
+			}
+		}
+	}
+
+	/**
+	 * Returns the key of the given URL and encoding
+	 * 
+	 * @param url
+	 *            The stylesheet URL
+	 * @param encoding
+	 *            The encoding the stylesheet is parsed with or null if none
+	 * @return the key of the stylesheet's entry
+	 */
+	private static String getKey(String url, String encoding) {
+		if (encoding == null) {
+			return url;
+		}
+		return encoding + ' ' + url;
+	}
+
+	/**
+	 * Returns the Storage name of the given key
+	 * 
+	 * @param key
+	 *            The key of a stylesheet's entry
+	 * @return the Storage name of the given key
+	 */
+	private static String getStorageKey(String key) {
+		return STORAGE_PREFIX + Integer.toHexString(key.hashCode());
+	}
+
+	/**
+	 * A cached stylesheet
+	 */
+	static class Entry {
+		String url;
+		String validator;
+		byte[] source;
+		long time;
+
+		/**
+		 * The parsed stylesheet, null for an entry loaded from Storage until it
+		 * is parsed
+		 */
+		CSSElement css;
+	}
+
+}
@@ -687,6 +687,23 @@ class CSSElement extends HTMLElement {
 	private String selectorTag = null; // The selector's tag (if it's a tag
 										// selector - i.e. 'div')
 
+	// Lower case forms of the selector's id and tag, and the selector's
+	// classes split into words - cached as selectors are matched against
+	// every element in the document
+	private String selectorIdLowerCase;
+	private String selectorTagLowerCase;
+	private String[] selectorClasses;
+
+	// The '* child' selector used to match later descendants of a descendant
+	// selector, created once and shared by all matches
+	private CSSElement descendantWrapper;
+
+	// The selectors of this stylesheet sorted by specificity and their index,
+	// created once per stylesheet root since stylesheets may be cached and
+	// applied to many pages
+	CSSElement[] sortedSelectors;
+	CSSSelectorIndex selectorIndex;
+
 	private int selectorPseudoClass = 0;
 
 	/**
@@ -1418,6 +1435,61 @@ class CSSElement extends HTMLElement {
 		return selectorTag;
 	}
 
+	/**
+	 * Returns this selector's id in lower case, or null if none This method
+	 * assumes that calcSelectorSpecificity was invoked before.
+	 * 
+	 * @return this selector's id in lower case, or null if none
+	 */
+	String getSelectorIdLowerCase() {
+		if ((selectorIdLowerCase == null) && (selectorId != null)) {
+			selectorIdLowerCase = selectorId.toLowerCase();
+		}
+		return selectorIdLowerCase;
+	}
+
+	/**
+	 * Returns this selector's tag in lower case, or null if none This method
+	 * assumes that calcSelectorSpecificity was invoked before.
+	 * 
+	 * @return this selector's tag in lower case, or null if none
+	 */
+	String getSelectorTagLowerCase() {
+		if ((selectorTagLowerCase == null) && (selectorTag != null)) {
+			selectorTagLowerCase = selectorTag.toLowerCase();
+		}
+		return selectorTagLowerCase;
+	}
+
+	/**
+	 * Returns the classes this selector requires, i.e. 'p.class1.class2'
+	 * results in class1 and class2. This method assumes that
+	 * calcSelectorSpecificity was invoked before.
+	 * 
+	 * @return this selector's classes, or null if this is not a class selector
+	 */
+	String[] getSelectorClasses() {
+		if ((selectorClasses == null) && (selectorClass != null)) {
+			selectorClasses = HTMLUtils.splitWords(selectorClass, '.');
+		}
+		return selectorClasses;
+	}
+
+	/**
+	 * Returns a '*' selector whose only child is a copy of this selector. This
+	 * is used for descendant selectors (i.e. 'div b') to match b elements
+	 * that are not direct children of the div.
+	 * 
+	 * @return the universal wrapper of this selector
+	 */
+	CSSElement getDescendantWrapper() {
+		if (descendantWrapper == null) {
+			descendantWrapper = new CSSElement("*");
+			descendantWrapper.addChild(new CSSElement(this));
+		}
+		return descendantWrapper;
+	}
+
 	/**
 	 * This method assumes that calcSelectorSpecificity was invoked before.
 	 * 
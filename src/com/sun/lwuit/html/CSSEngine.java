@@ -209,71 +209,134 @@ class CSSEngine {
 	}
 
 	/**
-	 * Sorts the CSS directives by their specificity level
+	 * Sorts the CSS directives by their specificity level. Each stylesheet is
+	 * sorted once and the sorted stylesheets are merged, selectors of the same
+	 * specificity keep the order of their stylesheets.
 	 * 
 	 * @param css
 	 *            A css vector holding CSSElements, where each element holds CSS
 	 *            selectors as its children
+	 * @param positions
+	 *            Receives for each stylesheet the position of each of its
+	 *            sorted selectors in the result, left untouched if there is a
+	 *            single stylesheet
 	 * @return a flat vector containing CSS selectors, sorted by specificity
 	 */
-	private CSSElement[] sortSelectorsBySpecificity(CSSElement[] css) {
-		Vector sortedSelectors = new Vector();
+	private CSSElement[] sortSelectorsBySpecificity(CSSElement[] css, int[][] positions) {
+		CSSElement[][] sorted = new CSSElement[css.length][];
+		int total = 0;
+		for (int s = 0; s < css.length; s++) {
+			sorted[s] = getSortedSelectors(css[s]);
+			total += sorted[s].length;
+		}
+		if (css.length == 1) {
+			return sorted[0];
+		}
 
+		CSSElement[] result = new CSSElement[total];
+		int[] pos = new int[css.length];
 		for (int s = 0; s < css.length; s++) {
-			CSSElement cssRoot = css[s];
-			String cssPageURL = cssRoot.getAttributeById(CSSElement.CSS_PAGEURL);
-			DocumentInfo cssDocInfo = null;
-			if (cssPageURL != null) {
-				cssDocInfo = new DocumentInfo(cssPageURL);
-			}
-			for (int iter = 0; iter < cssRoot.getNumChildren(); iter++) {
-				CSSElement currentSelector = cssRoot.getCSSChildAt(iter);
-				if (cssPageURL != null) { // Since with external CSS pages, the
-											// base URL is that of the CSS file
-											// and not of the HTML document, we
-											// have to convert relative image
-											// URLs to absolute URLs
-					for (int i = 0; i < URL_ATTRIBUTES.length; i++) {
-						String imageURL = getCSSUrl(currentSelector.getAttributeById(URL_ATTRIBUTES[i]));
-						if (imageURL != null) {
-							imageURL = cssDocInfo.convertURL(imageURL);
-							currentSelector.setAttribute(currentSelector.getAttributeName(new Integer(URL_ATTRIBUTES[i])), "url(" + imageURL + ")");
-						}
+			positions[s] = new int[sorted[s].length];
+		}
+		for (int r = 0; r < total; r++) {
+			int best = -1;
+			int bestSpecificity = 0;
+			for (int s = 0; s < css.length; s++) {
+				if (pos[s] < sorted[s].length) {
+					int specificity = sorted[s][pos[s]].getSelectorSpecificity();
+					if ((best == -1) || (specificity < bestSpecificity)) {
+						best = s;
+						bestSpecificity = specificity;
 					}
 				}
-				int i = 0;
-				int specificity = currentSelector.getSelectorSpecificity(); // Note
-																			// that
-																			// it
-																			// is
-																			// important
-																			// to
-																			// get
-																			// the
-																			// specificity
-																			// outside
-																			// the
-																			// loop,
-																			// so
-																			// it
-																			// will
-																			// necessarily
-																			// get
-																			// called
-																			// (triggering
-																			// the
-																			// cal)
-				while ((i < sortedSelectors.size()) && (specificity >= ((CSSElement) sortedSelectors.elementAt(i)).getSelectorSpecificity())) {
-					i++;
+			}
+			result[r] = sorted[best][pos[best]];
+			positions[best][pos[best]] = r;
+			pos[best]++;
+		}
+		return result;
+	}
+
+	/**
+	 * Sorts the selectors of a parsed stylesheet and builds their index, this
+	 * is called once the stylesheet was parsed so stylesheets that are cached
+	 * and applied to many pages are sorted and indexed only once
+	 * 
+	 * @param cssRoot
+	 *            A CSSElement holding CSS selectors as its children
+	 */
+	void prepareStyleSheet(CSSElement cssRoot) {
+		getSortedSelectors(cssRoot);
+	}
+
+	/**
+	 * Returns the selectors of the given stylesheet sorted by specificity, the
+	 * result is kept on the stylesheet along with the selectors index so a
+	 * cached stylesheet is sorted and indexed only once
+	 * 
+	 * @param cssRoot
+	 *            A CSSElement holding CSS selectors as its children
+	 * @return the selectors of the stylesheet, sorted by specificity
+	 */
+	private CSSElement[] getSortedSelectors(CSSElement cssRoot) {
+		if (cssRoot.sortedSelectors != null) {
+			return cssRoot.sortedSelectors;
+		}
+		Vector sortedSelectors = new Vector();
+		String cssPageURL = cssRoot.getAttributeById(CSSElement.CSS_PAGEURL);
+		DocumentInfo cssDocInfo = null;
+		if (cssPageURL != null) {
+			cssDocInfo = new DocumentInfo(cssPageURL);
+		}
+		for (int iter = 0; iter < cssRoot.getNumChildren(); iter++) {
+			CSSElement currentSelector = cssRoot.getCSSChildAt(iter);
+			if (cssPageURL != null) { // Since with external CSS pages, the
+										// base URL is that of the CSS file
+										// and not of the HTML document, we
+										// have to convert relative image
+										// URLs to absolute URLs
+				for (int i = 0; i < URL_ATTRIBUTES.length; i++) {
+					String imageURL = getCSSUrl(currentSelector.getAttributeById(URL_ATTRIBUTES[i]));
+					if (imageURL != null) {
+						imageURL = cssDocInfo.convertURL(imageURL);
+						currentSelector.setAttribute(currentSelector.getAttributeName(new Integer(URL_ATTRIBUTES[i])), "url(" + imageURL + ")");
+					}
 				}
-				sortedSelectors.insertElementAt(currentSelector, i);
 			}
+			int i = 0;
+			int specificity = currentSelector.getSelectorSpecificity(); // Note
+																		// that
+																		// it
+																		// is
+																		// important
+																		// to
+																		// get
+																		// the
+																		// specificity
+																		// outside
+																		// the
+																		// loop,
+																		// so
+																		// it
+																		// will
+																		// necessarily
+																		// get
+																		// called
+																		// (triggering
+																		// the
+																		// cal)
+			while ((i < sortedSelectors.size()) && (specificity >= ((CSSElement) sortedSelectors.elementAt(i)).getSelectorSpecificity())) {
+				i++;
+			}
+			sortedSelectors.insertElementAt(currentSelector, i);
 		}
 
-		css = new CSSElement[sortedSelectors.size()];
+		CSSElement[] css = new CSSElement[sortedSelectors.size()];
 		for (int i = 0; i < sortedSelectors.size(); i++) {
 			css[i] = (CSSElement) sortedSelectors.elementAt(i);
 		}
+		cssRoot.selectorIndex = new CSSSelectorIndex(css);
+		cssRoot.sortedSelectors = css;
 
 		return css;
 	}
@@ -321,8 +384,16 @@ class CSSEngine {
 				css[i + externalSize] = (CSSElement) embeddedCSS.elementAt(i);
 			}
 
-			css = sortSelectorsBySpecificity(css);
-			applyCSS(document, htmlC, css, null, null);
+			int[][] positions = null;
+			if (css.length > 1) {
+				positions = new int[css.length][];
+			}
+			CSSElement[] selectors = sortSelectorsBySpecificity(css, positions);
+			CSSSelectorIndex[] indexes = new CSSSelectorIndex[css.length];
+			for (int i = 0; i < css.length; i++) {
+				indexes[i] = css[i].selectorIndex;
+			}
+			applyCSS(document, htmlC, new CSSSelectorCandidates(selectors, indexes, positions), 0, null, null);
 		}
 		// System.out.println("Total: "+count+", Time="+(System.currentTimeMillis()-startTime));
 	}
@@ -376,38 +447,48 @@ class CSSEngine {
 	 * @param htmlC
 	 *            The HTMLComponent to apply the CSS on
 	 * @param css
-	 *            An array containing selectors sorted by specificity from all
-	 *            the external CSS files and then the embedded CSS segments
+	 *            An index of the selectors sorted by specificity from all the
+	 *            external CSS files and then the embedded CSS segments
+	 * @param depth
+	 *            The depth of the element in the document
 	 * @param nestedSelectors
 	 *            A vector containing nested selectors, or null if none
 	 */
-	private Vector applyCSS(HTMLElement element, HTMLComponent htmlC, CSSElement[] css, Vector nestedSelectors, Vector siblingSelectors) { // Vector
-																																			// styleAttributes
+	private Vector applyCSS(HTMLElement element, HTMLComponent htmlC, CSSSelectorCandidates css, int depth, Vector nestedSelectors, Vector siblingSelectors) { // Vector
+																																							// styleAttributes
 		String id = element.getAttributeById(HTMLElement.ATTR_ID);
-		String className = element.getAttributeById(HTMLElement.ATTR_CLASS);
+		if (id != null) {
+			id = id.toLowerCase();
+		}
+		String[] classes = HTMLUtils.splitWords(element.getAttributeById(HTMLElement.ATTR_CLASS), ' ');
+		String tag = null;
+		if (!element.isTextElement()) {
+			tag = element.getTagName().toLowerCase();
+		}
 
-		Vector nextNestedSelectors = new Vector();
+		Vector nextNestedSelectors = css.getNestedSelectors(depth);
 		Vector nextSiblingSelectors = null;
 		if (!HTMLComponent.PROCESS_HTML_MP1_ONLY) { // sibling selectors are not
 													// supported in HTML-MP1
-			nextSiblingSelectors = new Vector();
+			nextSiblingSelectors = css.getSiblingSelectors(depth, siblingSelectors);
 		}
-		for (int e = 0; e < css.length; e++) {
-			CSSElement currentSelector = css[e];
-			checkSelector(currentSelector, element, htmlC, className, id, nextNestedSelectors, nextSiblingSelectors);
+		int candidates = css.collectCandidates(tag, id, classes);
+		for (int e = 0; e < candidates; e++) {
+			CSSElement currentSelector = css.getSelector(css.getCandidate(e));
+			checkSelector(currentSelector, element, htmlC, tag, id, classes, nextNestedSelectors, nextSiblingSelectors);
 		}
 
 		if (nestedSelectors != null) {
 			for (Enumeration e = nestedSelectors.elements(); e.hasMoreElements();) {
 				CSSElement currentSelector = (CSSElement) e.nextElement();
-				checkSelector(currentSelector, element, htmlC, className, id, nextNestedSelectors, nextSiblingSelectors);
+				checkSelector(currentSelector, element, htmlC, tag, id, classes, nextNestedSelectors, nextSiblingSelectors);
 			}
 		}
 
 		if ((!HTMLComponent.PROCESS_HTML_MP1_ONLY) && (siblingSelectors != null)) {
 			for (Enumeration e = siblingSelectors.elements(); e.hasMoreElements();) {
 				CSSElement currentSelector = (CSSElement) e.nextElement();
-				checkSelector(currentSelector, element, htmlC, className, id, nextNestedSelectors, nextSiblingSelectors);
+				checkSelector(currentSelector, element, htmlC, tag, id, classes, nextNestedSelectors, nextSiblingSelectors);
 			}
 		}
 
@@ -424,7 +505,7 @@ class CSSEngine {
 		Vector curSiblingSelectors = null;
 		for (int i = 0; i < element.getNumChildren(); i++) {
 			HTMLElement child = (HTMLElement) element.getChildAt(i);
-			Vector v = applyCSS(child, htmlC, css, nextNestedSelectors, curSiblingSelectors);
+			Vector v = applyCSS(child, htmlC, css, depth + 1, nextNestedSelectors, curSiblingSelectors);
 			if (!child.isTextElement()) { // Sibling selectors skip text
 											// elements
 				curSiblingSelectors = v;
@@ -447,20 +528,22 @@ class CSSEngine {
 	 *            The element to check
 	 * @param htmlC
 	 *            The HTMLComponent
-	 * @param className
-	 *            The element's class name (Can be derived from element but
-	 *            since this method is called a lot it is extracted before and
-	 *            sent as a parameter)
+	 * @param tag
+	 *            The element's tag name in lower case, or null for text
+	 *            elements (Can be derived from element but since this method is
+	 *            called a lot it is extracted before and sent as a parameter)
 	 * @param id
-	 *            The element's id (Same comment as in className)
+	 *            The element's id in lower case (Same comment as in tag)
+	 * @param classes
+	 *            The element's classes (Same comment as in tag)
 	 * @param nextNestedSelectors
 	 *            A vector containing the nested selectors
 	 */
-	private void checkSelector(CSSElement currentSelector, HTMLElement element, HTMLComponent htmlC, String className, String id, Vector nextNestedSelectors, Vector nextSiblingSelectors) {
+	private void checkSelector(CSSElement currentSelector, HTMLElement element, HTMLComponent htmlC, String tag, String id, String[] classes, Vector nextNestedSelectors, Vector nextSiblingSelectors) {
 
-		if (((currentSelector.getSelectorTag() == null) || ((!element.isTextElement()) && (currentSelector.getSelectorTag().equalsIgnoreCase(element.getTagName())))) &&
-				((currentSelector.getSelectorClass() == null) || (containsClass(className, currentSelector.getSelectorClass()))) &&
-				((currentSelector.getSelectorId() == null) || (currentSelector.getSelectorId().equalsIgnoreCase(id))) &&
+		if (((currentSelector.getSelectorTagLowerCase() == null) || ((tag != null) && (currentSelector.getSelectorTagLowerCase().equals(tag)))) &&
+				((currentSelector.getSelectorClasses() == null) || (containsClasses(classes, currentSelector.getSelectorClasses()))) &&
+				((currentSelector.getSelectorIdLowerCase() == null) || (currentSelector.getSelectorIdLowerCase().equals(id))) &&
 				(((currentSelector.getSelectorPseudoClass() & (CSSElement.PC_FIRST_CHILD)) == 0) || (element.isFirstChild())) && // element.getParent().getChildIndex(element)==0))
 																																	// &&
 				(currentSelector.matchAttributeSelections(element))) {
@@ -493,9 +576,7 @@ class CSSEngine {
 					// If so then we pass not only the child selector (i.e. the
 					// b) but also the "* b" to allow matching later decendants
 					if (child.descendantSelector) {
-						CSSElement elem = new CSSElement("*");
-						elem.addChild(new CSSElement(child));
-						nextNestedSelectors.addElement(elem);
+						nextNestedSelectors.addElement(child.getDescendantWrapper());
 					}
 				}
 			}
@@ -503,39 +584,32 @@ class CSSEngine {
 	}
 
 	/**
-	 * Checks if the specified class is contained in the specified text This is
-	 * used for elements that have several classes i.e. class="class1 class2"
-	 * Note: A simple indexOf could not be used since we need to find whole
-	 * words and not frgaments of words
+	 * Checks if all the specified selector classes are contained in the
+	 * element's classes This is used for elements that have several classes
+	 * i.e. class="class1 class2" and selectors that require multiple classes
+	 * i.e. class1.class2 (which needs to match to "class1 class2" and
+	 * "class2 class1" and also "class1 otherclasses class2")
 	 * 
-	 * @param selectorClass
-	 *            The text
-	 * @param elementClass
-	 *            The word to find in the text
-	 * @return true if the word is found, false otherwise
+	 * @param elementClasses
+	 *            The element's classes
+	 * @param selectorClasses
+	 *            The classes required by the selector
+	 * @return true if all the selector classes are found, false otherwise
 	 */
-	private boolean containsClass(String elementClass, String selectorClass) {
-		if ((elementClass == null) || (selectorClass == null)) {
+	private boolean containsClasses(String[] elementClasses, String[] selectorClasses) {
+		if ((elementClasses.length == 0) || (selectorClasses.length == 0)) {
 			return false;
 		}
-		// The spaces addition is to make sure we get a whole word and not a
-		// fragment of a word
-		elementClass = " " + elementClass + " ";
-
-		// Selector can require multiple classes, i.e. class.1class2 (which
-		// needs to match to "class 1 class2" and "class2 class1" and also
-		// "class1 otherclasses class2"
-		int dotIndex = selectorClass.indexOf('.');
-		while (dotIndex != -1) {
-			String curWord = selectorClass.substring(0, dotIndex);
-			if (elementClass.indexOf(" " + curWord + " ") == -1) {
+		for (int i = 0; i < selectorClasses.length; i++) {
+			boolean found = false;
+			for (int j = 0; (j < elementClasses.length) && (!found); j++) {
+				found = elementClasses[j].equals(selectorClasses[i]);
+			}
+			if (!found) {
 				return false;
 			}
-			selectorClass = selectorClass.substring(dotIndex + 1);
-			dotIndex = selectorClass.indexOf('.');
 		}
-
-		return (elementClass.indexOf(" " + selectorClass + " ") != -1);
+		return true;
 	}
 
 	/**
@@ -0,0 +1,267 @@
+/*
+ * Copyright (c) 2008, 2010, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores
+ * CA 94065 USA or visit www.oracle.com if you need additional information or
+ * have any questions.
+ */
+package com.sun.lwuit.html;
+
+import java.util.Vector;
+
+/**
+ * Collects the top level selectors that may match an element while CSSEngine
+ * applies the stylesheets of a document, using the CSSSelectorIndex of each
+ * stylesheet. Unlike the indexes, which are shared by all documents using a
+ * stylesheet, an instance is created per CSS application and holds its
+ * working buffers.
+ * 
+ * It also holds the per-depth vectors used by CSSEngine to pass nested and
+ * sibling selectors down the document, so these are allocated once per
+ * document depth and not once per element.
+ */
+class CSSSelectorCandidates {
+
+	/**
+	 * The selectors of all stylesheets sorted by specificity
+	 */
+	private CSSElement[] selectors;
+
+	private CSSSelectorIndex[] indexes;
+
+	/**
+	 * Maps the positions in each stylesheet's index to positions in selectors,
+	 * null when there is a single stylesheet and the positions are the same
+	 */
+	private int[][] positions;
+
+	// Buffers reused between elements when collecting candidates
+	private int[][] buckets = new int[4][];
+	private int[][] bucketPositions = new int[4][];
+	private int[] bucketOffsets = new int[4];
+	private int[] candidates = new int[16];
+
+	// Per depth selector vectors, see CSSEngine.applyCSS
+	private Vector[] nestedStack = new Vector[16];
+	private Vector[][] siblingStack = new Vector[16][];
+
+	/**
+	 * Creates the candidates for the given stylesheets
+	 * 
+	 * @param selectors
+	 *            The selectors of all stylesheets sorted by specificity
+	 * @param indexes
+	 *            The index of each stylesheet
+	 * @param positions
+	 *            For each stylesheet, the position in selectors of each of its
+	 *            sorted selectors, or null if there is a single stylesheet
+	 */
+	CSSSelectorCandidates(CSSElement[] selectors, CSSSelectorIndex[] indexes, int[][] positions) {
+		this.selectors = selectors;
+		this.indexes = indexes;
+		this.positions = positions;
+	}
+
+	/**
+	 * Returns the selector at the given position
+	 * 
+	 * @param pos
+	 *            A position returned by getCandidate
+	 * @return The selector at the given position
+	 */
+	CSSElement getSelector(int pos) {
+		return selectors[pos];
+	}
+
+	/**
+	 * Collects the positions of the selectors that may match an element with
+	 * the given properties. The positions are kept in specificity order, so
+	 * selectors are applied in the same order as without the index.
+	 * 
+	 * @param tag
+	 *            The element's tag name in lower case, or null for text
+	 *            elements
+	 * @param id
+	 *            The element's id in lower case, or null if none
+	 * @param classes
+	 *            The element's classes
+	 * @return The number of candidates, available via getCandidate
+	 */
+	int collectCandidates(String tag, String id, String[] classes) {
+		int count = 0;
+		for (int s = 0; s < indexes.length; s++) {
+			CSSSelectorIndex index = indexes[s];
+			int[] map = null;
+			if (positions != null) {
+				map = positions[s];
+			}
+			count = addBucket(count, index.getUniversal(), map);
+			if (tag != null) {
+				count = addBucket(count, index.getByTag(tag), map);
+			}
+			if (id != null) {
+				count = addBucket(count, index.getById(id), map);
+			}
+			for (int i = 0; i < classes.length; i++) {
+				count = addBucket(count, index.getByClass(classes[i]), map);
+			}
+		}
+		return mergeBuckets(count);
+	}
+
+	/**
+	 * Returns the position of a candidate collected by collectCandidates
+	 * 
+	 * @param i
+	 *            The candidate's offset
+	 * @return The position of the selector in the sorted selectors array
+	 */
+	int getCandidate(int i) {
+		return candidates[i];
+	}
+
+	private int addBucket(int count, int[] bucket, int[] map) {
+		if ((bucket == null) || (bucket.length == 0)) {
+			return count;
+		}
+		if (count == buckets.length) {
+			int[][] newBuckets = new int[count * 2][];
+			System.arraycopy(buckets, 0, newBuckets, 0, count);
+			buckets = newBuckets;
+			int[][] newPositions = new int[count * 2][];
+			System.arraycopy(bucketPositions, 0, newPositions, 0, count);
+			bucketPositions = newPositions;
+			bucketOffsets = new int[count * 2];
+		}
+		buckets[count] = bucket;
+		bucketPositions[count] = map;
+		return count + 1;
+	}
+
+	private int getBucketValue(int bucket) {
+		int pos = buckets[bucket][bucketOffsets[bucket]];
+		if (bucketPositions[bucket] != null) {
+			return bucketPositions[bucket][pos];
+		}
+		return pos;
+	}
+
+	/**
+	 * Merges the sorted buckets into the candidates array, dropping duplicates
+	 * (the same class may appear twice in an element's class attribute). The
+	 * positions of a stylesheet keep their order when mapped to the merged
+	 * selectors so the mapped buckets are sorted as well.
+	 */
+	private int mergeBuckets(int bucketCount) {
+		int total = 0;
+		for (int i = 0; i < bucketCount; i++) {
+			bucketOffsets[i] = 0;
+			total += buckets[i].length;
+		}
+		if (candidates.length < total) {
+			candidates = new int[total * 2];
+		}
+		int size = 0;
+		while (true) {
+			int minBucket = -1;
+			int min = Integer.MAX_VALUE;
+			for (int i = 0; i < bucketCount; i++) {
+				if (bucketOffsets[i] < buckets[i].length) {
+					int value = getBucketValue(i);
+					if (value < min) {
+						min = value;
+						minBucket = i;
+					}
+				}
+			}
+			if (minBucket == -1) {
+				break;
+			}
+			bucketOffsets[minBucket]++;
+			if ((size == 0) || (candidates[size - 1] != min)) {
+				candidates[size] = min;
+				size++;
+			}
+		}
+		for (int i = 0; i < bucketCount; i++) {
+			buckets[i] = null;
+			bucketPositions[i] = null;
+		}
+		return size;
+	}
+
+	/**
+	 * Returns an empty vector to hold the nested selectors collected for an
+	 * element at the given depth
+	 * 
+	 * @param depth
+	 *            The depth of the element in the document
+	 * @return A cleared vector reserved for the given depth
+	 */
+	Vector getNestedSelectors(int depth) {
+		ensureDepth(depth);
+		Vector v = nestedStack[depth];
+		if (v == null) {
+			v = new Vector();
+			nestedStack[depth] = v;
+		} else {
+			v.removeAllElements();
+		}
+		return v;
+	}
+
+	/**
+	 * Returns an empty vector to hold the sibling selectors collected for an
+	 * element at the given depth. Two vectors alternate per depth since the
+	 * selectors collected by the previous sibling are still in use while the
+	 * current element collects its own.
+	 * 
+	 * @param depth
+	 *            The depth of the element in the document
+	 * @param inUse
+	 *            The sibling selectors passed from the previous sibling, or
+	 *            null if none
+	 * @return A cleared vector reserved for the given depth
+	 */
+	Vector getSiblingSelectors(int depth, Vector inUse) {
+		ensureDepth(depth);
+		Vector[] pair = siblingStack[depth];
+		if (pair == null) {
+			pair = new Vector[] { new Vector(), new Vector() };
+			siblingStack[depth] = pair;
+		}
+		Vector v = pair[0];
+		if (v == inUse) {
+			v = pair[1];
+		}
+		v.removeAllElements();
+		return v;
+	}
+
+	private void ensureDepth(int depth) {
+		if (depth >= nestedStack.length) {
+			Vector[] newNested = new Vector[depth * 2];
+			System.arraycopy(nestedStack, 0, newNested, 0, nestedStack.length);
+			nestedStack = newNested;
+			Vector[][] newSibling = new Vector[depth * 2][];
+			System.arraycopy(siblingStack, 0, newSibling, 0, siblingStack.length);
+			siblingStack = newSibling;
+		}
+	}
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2008, 2010, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores
+ * CA 94065 USA or visit www.oracle.com if you need additional information or
+ * have any questions.
+ */
+package com.sun.lwuit.html;
+
+import java.util.Enumeration;
+import java.util.Hashtable;
+import java.util.Vector;
+
+/**
+ * Indexes the top level CSS selectors of a stylesheet by their id, class and
+ * tag, so that only selectors that can possibly match an element are checked
+ * against it. Each selector is placed in exactly one bucket - by id if it has
+ * one, otherwise by its first class, otherwise by its tag. Selectors with none
+ * of these (i.e. '*' or pseudo-class only selectors) are checked against all
+ * elements.
+ * 
+ * The index is built once per stylesheet together with its sorted selectors
+ * and is never modified afterwards, so a cached stylesheet shares it between
+ * all the documents it is applied to. The buckets hold the positions of the
+ * selectors in the stylesheet's sorted selectors, CSSSelectorCandidates merges
+ * them per element.
+ */
+class CSSSelectorIndex {
+
+	static final int[] EMPTY = new int[0];
+
+	private Hashtable idIndex = new Hashtable();
+	private Hashtable classIndex = new Hashtable();
+	private Hashtable tagIndex = new Hashtable();
+	private int[] universal;
+
+	/**
+	 * Builds the index for the given selectors
+	 * 
+	 * @param selectors
+	 *            The selectors of a stylesheet sorted by specificity, the index
+	 *            holds the positions of the selectors in this array
+	 */
+	CSSSelectorIndex(CSSElement[] selectors) {
+		Hashtable ids = new Hashtable();
+		Hashtable classes = new Hashtable();
+		Hashtable tags = new Hashtable();
+		Vector all = new Vector();
+		for (int i = 0; i < selectors.length; i++) {
+			CSSElement selector = selectors[i];
+			selector.getSelectorSpecificity(); // makes sure the selector's id,
+												// class and tag are calculated
+			Integer pos = new Integer(i);
+			if (selector.getSelectorIdLowerCase() != null) {
+				addToBucket(ids, selector.getSelectorIdLowerCase(), pos);
+			} else if ((selector.getSelectorClasses() != null) && (selector.getSelectorClasses().length > 0)) {
+				addToBucket(classes, selector.getSelectorClasses()[0], pos);
+			} else if (selector.getSelectorTagLowerCase() != null) {
+				addToBucket(tags, selector.getSelectorTagLowerCase(), pos);
+			} else {
+				all.addElement(pos);
+			}
+		}
+		toIndex(ids, idIndex);
+		toIndex(classes, classIndex);
+		toIndex(tags, tagIndex);
+		universal = toArray(all);
+	}
+
+	private static void addToBucket(Hashtable buckets, String key, Integer pos) {
+		Vector v = (Vector) buckets.get(key);
+		if (v == null) {
+			v = new Vector();
+			buckets.put(key, v);
+		}
+		v.addElement(pos);
+	}
+
+	private static void toIndex(Hashtable buckets, Hashtable index) {
+		for (Enumeration e = buckets.keys(); e.hasMoreElements();) {
+			Object key = e.nextElement();
+			index.put(key, toArray((Vector) buckets.get(key)));
+		}
+	}
+
+	private static int[] toArray(Vector v) {
+		if (v.size() == 0) {
+			return EMPTY;
+		}
+		int[] arr = new int[v.size()];
+		for (int i = 0; i < arr.length; i++) {
+			arr[i] = ((Integer) v.elementAt(i)).intValue();
+		}
+		return arr;
+	}
+
+	/**
+	 * Returns the selectors that are checked against all elements
+	 * 
+	 * @return The sorted positions of the selectors
+	 */
+	int[] getUniversal() {
+		return universal;
+	}
+
+	/**
+	 * Returns the selectors indexed by the given tag
+	 * 
+	 * @param tag
+	 *            A tag name in lower case
+	 * @return The sorted positions of the selectors or null if none
+	 */
+	int[] getByTag(String tag) {
+		return (int[]) tagIndex.get(tag);
+	}
+
+	/**
+	 * Returns the selectors indexed by the given id
+	 * 
+	 * @param id
+	 *            An id in lower case
+	 * @return The sorted positions of the selectors or null if none
+	 */
+	int[] getById(String id) {
+		return (int[]) idIndex.get(id);
+	}
+
+	/**
+	 * Returns the selectors indexed by the given class
+	 * 
+	 * @param cls
+	 *            A class name
+	 * @return The sorted positions of the selectors or null if none
+	 */
+	int[] getByClass(String cls) {
+		return (int[]) classIndex.get(cls);
+	}
+}
@@ -68,6 +68,7 @@ public class DocumentInfo {
 	private boolean postRequest;
 	private String encoding = ENCODING_ISO;
 	private int expectedContentType = TYPE_HTML;
+	private String validator;
 
 	/**
 	 * Constructs the DocumentInfo with the given URL
@@ -255,6 +256,28 @@ public class DocumentInfo {
 		this.encoding = encoding;
 	}
 
+	/**
+	 * Returns the validator of the document content, or null if none was set
+	 * 
+	 * @return the validator of the document content
+	 */
+	public String getValidator() {
+		return validator;
+	}
+
+	/**
+	 * Sets a validator identifying the version of the document content, such
+	 * as the value of the HTTP ETag or Last-Modified headers. A request
+	 * handler that sets this when returning a CSS file allows HTMLComponent to
+	 * reuse a previously parsed copy of the same file.
+	 * 
+	 * @param validator
+	 *            the validator of the document content
+	 */
+	public void setValidator(String validator) {
+		this.validator = validator;
+	}
+
 	/**
 	 * Check if the specified URL is an absolute URL
 	 * 
@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2008, 2010, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores
+ * CA 94065 USA or visit www.oracle.com if you need additional information or
+ * have any questions.
+ */
+package com.sun.lwuit.html;
+
+/**
+ * An optional extension of HTMLCallback for callbacks that want to be notified
+ * when the content of a page is displayed for the first time. HTMLComponent
+ * calls firstPaint only if its HTMLCallback implements this interface.
+ * 
+ * Since the document is fully parsed before the page is built, the first paint
+ * in progressive rendering mode happens once the document was parsed and the
+ * first screen of content was built.
+ */
+public interface FirstPaintCallback extends HTMLCallback {
+
+	/**
+	 * Called on the EDT when the content of a page is displayed for the first
+	 * time. In progressive rendering mode this happens when the first screen
+	 * of content was built, otherwise when the page was fully built.
+	 * 
+	 * @param htmlC
+	 *            The HTMLComponent that displayed the page
+	 * @param url
+	 *            The URL of the page
+	 * @param timeToFirstPaint
+	 *            The time in milliseconds from the page request until its
+	 *            content was displayed
+	 */
+	public void firstPaint(HTMLComponent htmlC, String url, int timeToFirstPaint);
+
+}
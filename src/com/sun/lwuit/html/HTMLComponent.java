@@ -62,6 +62,16 @@ import java.util.Vector;
  * HTMLComponent is a LWUIT Component that renders HTML documents that conform
  * to the XHTML Mobile Profile 1.0
  * 
+ * <p>
+ * Text is rendered as a label per word, so when the width of the component
+ * changes (i.e. when the device is rotated) the text re-flows through the
+ * layout without rebuilding the page. Re-flowing without a rebuild is not
+ * supported in the fixed width build of this component (the FIXED_WIDTH
+ * constant), which aggregates each line of text into a single label. In that
+ * build a change of the display width rebuilds the page from the DOM, which
+ * creates the page's components again and re-applies its CSS.
+ * </p>
+ * 
  * @author Ofir Leitner
  */
 public class HTMLComponent extends Container implements ActionListener, AsyncDocumentRequestHandler.IOCallback {
@@ -77,6 +87,9 @@ public class HTMLComponent extends Container implements ActionListener, AsyncDoc
 	 * internal components as text is aggregated to long labels If false, then
 	 * the width is flexible, but every word will be rendered as a separate
 	 * label. Note that if false, RTL texts will display in
+	 * 
+	 * When true text can't re-flow when the width changes, layoutContainer
+	 * rebuilds the page once the display width changes instead.
 	 */
 	static final boolean FIXED_WIDTH = false;
 
@@ -246,6 +259,13 @@ public class HTMLComponent extends Container implements ActionListener, AsyncDoc
 															// with CSS
 	static final String CLIENT_PROPERTY_IMG_BORDER = "imgBorder";
 
+	/**
+	 * A client property holding the image size given in the width/height
+	 * attributes (without padding, 0 for a missing attribute), this is used to
+	 * decode the image directly at that size
+	 */
+	static final String CLIENT_PROPERTY_IMG_SIZE = "imgSize";
+
 	// Ordered list types
 
 	/**
@@ -391,6 +411,46 @@ public class HTMLComponent extends Container implements ActionListener, AsyncDoc
 	private boolean autoFocus = true; // Determines whether to auto-focus on the
 										// first link after page load
 
+	/**
+	 * In progressive rendering mode the page is displayed as soon as a screen
+	 * worth of content was built, the rest of the page is appended to the main
+	 * container as it is built
+	 */
+	private boolean progressiveRendering;
+
+	/**
+	 * The element whose children are built progressively (The body), or null
+	 * if the page is not built progressively
+	 */
+	private HTMLElement progressiveRoot;
+
+	/**
+	 * True once the main container was scheduled to be added to this
+	 * component during a progressive build
+	 */
+	private boolean progressiveDisplayed;
+
+	/**
+	 * The height of the content built since it was last published to the main
+	 * container, and the number of components in the staging container that
+	 * were already measured
+	 */
+	private int stagedHeight;
+	private int stagedCount;
+
+	/**
+	 * The detached container progressively built content is added to before
+	 * it is moved to the main container
+	 */
+	private Container stagingContainer;
+
+	private boolean pageRTL; // true if the page direction is right to left
+
+	private long requestTime; // The time the current page was requested
+	private int timeToFirstPaint = -1; // The time from request until content
+										// was first displayed, or -1 if not
+										// displayed yet
+
 	/**
 	 * curLine is the basic container to which components are added in the
 	 * building process. Components are added to it horizontally and when there
@@ -610,15 +670,82 @@ public class HTMLComponent extends Container implements ActionListener, AsyncDoc
 	}
 
 	/**
-	 * Sets the maximum number of threads to use for image download
+	 * Sets the number of threads in the worker pool used for image and CSS
+	 * download. The pool is shared by all HTMLComponents, and images closest
+	 * to the visible area of the page are downloaded first.
 	 * 
 	 * @param threadsNum
-	 *            the maximum number of threads to use for image download
+	 *            the number of threads to use for image download
 	 */
 	public static void setMaxThreads(int threadsNum) {
 		ResourceThreadQueue.setMaxThreads(threadsNum);
 	}
 
+	/**
+	 * Sets the size of the image cache shared by all pages and HTMLComponents.
+	 * Images are kept in the cache by URL, so an image that appears on several
+	 * pages is downloaded only once as long as it is not evicted. The size is
+	 * estimated as 4 bytes per pixel, and the default is 512KB.
+	 * 
+	 * @param bytes
+	 *            the maximum size of the image cache in bytes, 0 to disable the
+	 *            cache
+	 */
+	public static void setImageCacheSize(int bytes) {
+		ImageCache.setMaxSize(bytes);
+	}
+
+	/**
+	 * Removes all images from the image cache shared by all pages and
+	 * HTMLComponents
+	 */
+	public static void clearImageCache() {
+		ImageCache.clear();
+	}
+
+	/**
+	 * Sets the number of parsed external stylesheets kept in memory and shared
+	 * by all pages and HTMLComponents. The default is 10.
+	 * 
+	 * @param size
+	 *            the number of stylesheets to cache, 0 to disable the cache
+	 */
+	public static void setCSSCacheSize(int size) {
+		CSSCache.setMaxSize(size);
+	}
+
+	/**
+	 * Sets the time in which a cached stylesheet is used without fetching it
+	 * again. After that the stylesheet is fetched, and the parsed copy is
+	 * reused only if the request handler reported the same validator for it
+	 * (See DocumentInfo.setValidator). The default is 10 minutes.
+	 * 
+	 * @param millis
+	 *            the expiry time in milliseconds
+	 */
+	public static void setCSSCacheExpiry(long millis) {
+		CSSCache.setExpiry(millis);
+	}
+
+	/**
+	 * Sets whether cached stylesheets are also persisted to Storage so they
+	 * can be used in later sessions. This takes effect only if Storage was
+	 * initialized, the default is true.
+	 * 
+	 * @param persist
+	 *            true to persist cached stylesheets, false otherwise
+	 */
+	public static void setCSSCachePersistent(boolean persist) {
+		CSSCache.setPersistent(persist);
+	}
+
+	/**
+	 * Removes all stylesheets from the stylesheet cache and from Storage
+	 */
+	public static void clearCSSCache() {
+		CSSCache.clear();
+	}
+
 	/**
 	 * Sets the supported CSS media types to the given strings. Usually the
 	 * default media types ("all","handheld") should be suitable, but in case
@@ -1406,13 +1533,135 @@ public class HTMLComponent extends Container implements ActionListener, AsyncDoc
 		this.autoFocus = autoFocus;
 	}
 
+	/**
+	 * Sets whether pages are rendered progressively. When enabled the page is
+	 * displayed as soon as the first screen of content was built, the rest of
+	 * the content is appended as it is built and external CSS files are
+	 * applied as a re-style pass once they were all downloaded. When disabled
+	 * (the default) the page is displayed only after it was fully built and
+	 * styled.
+	 * Note that the document is always parsed in full before the UI is built,
+	 * so progressive rendering covers building and styling the page but not
+	 * the download and parsing of the document itself.
+	 * 
+	 * @param progressive
+	 *            true to render pages progressively, false otherwise
+	 */
+	public void setProgressiveRendering(boolean progressive) {
+		progressiveRendering = progressive;
+	}
+
+	/**
+	 * Returns whether pages are rendered progressively
+	 * 
+	 * @return true if pages are rendered progressively, false otherwise
+	 */
+	public boolean isProgressiveRendering() {
+		return progressiveRendering;
+	}
+
+	/**
+	 * Returns the time in milliseconds that passed from the page request until
+	 * its content was first displayed
+	 * 
+	 * @return the time to first paint of the current page, or -1 if the page
+	 *         was not displayed yet
+	 */
+	public int getTimeToFirstPaint() {
+		return timeToFirstPaint;
+	}
+
+	/**
+	 * Records the time to first paint and notifies the callback if it is a
+	 * FirstPaintCallback, this is called on the EDT when the main container is
+	 * added to this component
+	 */
+	private void firstPaint() {
+		if (timeToFirstPaint == -1) {
+			if (requestTime == 0) { // Page was set directly (i.e. setDOM)
+				requestTime = System.currentTimeMillis();
+			}
+			timeToFirstPaint = (int) (System.currentTimeMillis() - requestTime);
+			if (htmlCallback instanceof FirstPaintCallback) {
+				((FirstPaintCallback) htmlCallback).firstPaint(this, pageURL, timeToFirstPaint);
+			}
+		}
+	}
+
+	private Container createStagingContainer() {
+		stagingContainer = new Container(new BoxLayout(BoxLayout.Y_AXIS));
+		stagingContainer.setScrollableX(false);
+		stagedHeight = 0;
+		stagedCount = 0;
+		return stagingContainer;
+	}
+
+	/**
+	 * Called by the building thread after each child of the body was
+	 * processed. Once the content built so far fills a screen it is moved
+	 * from the staging container to the main container on the EDT, and the
+	 * first time this happens the main container is displayed.
+	 * 
+	 * @param last
+	 *            true if the whole body was built
+	 */
+	private void publishProgressiveContent(boolean last) {
+		final Container staging = stagingContainer;
+		if (!last) {
+			// Content can be published only between complete lines and blocks
+			if ((curContainer != staging) || (curLine.getComponentCount() != 0)) {
+				return;
+			}
+			for (; stagedCount < staging.getComponentCount(); stagedCount++) {
+				Component cmp = staging.getComponentAt(stagedCount);
+				stagedHeight += cmp.getPreferredH() + cmp.getStyle().getMargin(Component.TOP) + cmp.getStyle().getMargin(Component.BOTTOM);
+			}
+			int viewportHeight = getHeight();
+			if (viewportHeight <= 0) {
+				viewportHeight = Display.getInstance().getDisplayHeight();
+			}
+			if (stagedHeight < viewportHeight) {
+				return;
+			}
+			curContainer = createStagingContainer();
+		} else {
+			stagingContainer = null;
+		}
+		staging.applyRTL(pageRTL); // done while the staging container is still
+									// detached
+		final boolean display = !progressiveDisplayed;
+		progressiveDisplayed = true;
+		Display.getInstance().callSerially(new Runnable() {
+			public void run() {
+				if (cancelled) {
+					return;
+				}
+				while (staging.getComponentCount() > 0) {
+					Component cmp = staging.getComponentAt(0);
+					staging.removeComponent(cmp);
+					mainContainer.addComponent(cmp);
+				}
+				if (display) {
+					removeAll();
+					addComponent(BorderLayout.CENTER, mainContainer);
+					setScrollY(0);
+					firstPaint();
+				}
+				revalidate();
+			}
+		});
+	}
+
 	/**
 	 * Actually displays the HTML page - this should be run on EDT
 	 */
 	void displayPage() {
-		removeAll();
-		addComponent(BorderLayout.CENTER, mainContainer);
-		setScrollY(0);
+		if (!progressiveDisplayed) {
+			removeAll();
+			addComponent(BorderLayout.CENTER, mainContainer);
+			setScrollY(0);
+			firstPaint();
+		}
 
 		revalidate();
 		repaint();
@@ -1532,6 +1781,10 @@ public class HTMLComponent extends Container implements ActionListener, AsyncDoc
 																			// is
 																			// requested
 			pageStatus = status;
+			if (status == HTMLCallback.STATUS_REQUESTED) {
+				requestTime = System.currentTimeMillis();
+				timeToFirstPaint = -1;
+			}
 			// Performance measurement debug code
 			/*
 			 * if (status==HTMLCallback.STATUS_COMPLETED) {
@@ -1853,6 +2106,11 @@ public class HTMLComponent extends Container implements ActionListener, AsyncDoc
 		curContainer = mainContainer;
 		curLine = new Container();
 		lastWasEmpty = false;
+		progressiveRoot = null;
+		progressiveDisplayed = false;
+		stagingContainer = null;
+		stagedHeight = 0;
+		stagedCount = 0;
 
 		width = Display.getInstance().getDisplayWidth() - getStyle().getMargin(Component.LEFT) - getStyle().getPadding(Component.LEFT) -
 				getStyle().getMargin(Component.RIGHT) - getStyle().getPadding(Component.RIGHT) - 10; // The
@@ -2003,10 +2261,22 @@ public class HTMLComponent extends Container implements ActionListener, AsyncDoc
 				mainContainer.getSelectedStyle().setBgColor(DEFAULT_BGCOLOR);
 				mainContainer.getSelectedStyle().setBgTransparency(255);
 			}
+			pageRTL = (dir != null) && (dir.equalsIgnoreCase("rtl"));
+			if (progressiveRendering) {
+				progressiveRoot = body;
+				mainContainer.setRTL(pageRTL);
+				curContainer = createStagingContainer();
+			}
 			processTag(body, Component.LEFT);
 			newLineIfNotEmpty(Component.LEFT);
 			// newLine(Component.LEFT); //flush buffer
-			mainContainer.applyRTL((dir != null) && (dir.equalsIgnoreCase("rtl")));
+			if (progressiveRoot != null) {
+				progressiveRoot = null;
+				publishProgressiveContent(true);
+				curContainer = mainContainer;
+			} else {
+				mainContainer.applyRTL(pageRTL);
+			}
 
 			if ((SUPPORT_CSS) && (loadCSS)) {
 				body.setAssociatedComponents(mainContainer);
@@ -2035,6 +2305,15 @@ public class HTMLComponent extends Container implements ActionListener, AsyncDoc
 	 * Embedded CSS (STYLE tag) - Inline CSS (STYLE attribute)
 	 */
 	void applyAllCSS() {
+		// Once the page is on screen the re-style pass must be done on the EDT
+		if ((progressiveDisplayed) && (!Display.getInstance().isEdt())) {
+			Display.getInstance().callSerially(new Runnable() {
+				public void run() {
+					applyAllCSS();
+				}
+			});
+			return;
+		}
 		HTMLElement html = null;
 		if (document.getTagId() == HTMLElement.TAG_HTML) {
 			html = document;
@@ -2239,6 +2518,7 @@ public class HTMLComponent extends Container implements ActionListener, AsyncDoc
 		Vector words = new Vector();
 		String word = "";
 		String leadSpace = "";
+		int wordWidth = 0; // The width of word, calculated incrementally
 		for (int c = 0; c < text.length(); c++) {
 			char ch = text.charAt(c);
 			if ((CJK_SUPPORT) &&
@@ -2270,6 +2550,7 @@ public class HTMLComponent extends Container implements ActionListener, AsyncDoc
 					words.addElement(word);
 				}
 				word = "";
+				wordWidth = 0;
 			} else {
 				if ((ch == ' ') || (ch == 10) || (ch == 13) || (ch == '\t') || (ch == '\n')) {
 					if (word.length() != 0) {
@@ -2280,6 +2561,7 @@ public class HTMLComponent extends Container implements ActionListener, AsyncDoc
 							words.addElement(word);
 						}
 						word = "";
+						wordWidth = 0;
 					} else if ((words.isEmpty()) && (text.length() > 1)) { // The
 																			// first
 																			// word
@@ -2309,7 +2591,7 @@ public class HTMLComponent extends Container implements ActionListener, AsyncDoc
 																			// text
 						leadSpace = " ";
 					}
-				} else if ((!returnComps) && (font.stringWidth(word + ch) > width - leftIndent)) { // break
+				} else if ((!returnComps) && (wordWidth + font.charWidth(ch) > width - leftIndent)) { // break
 																									// words
 																									// that
 																									// are
@@ -2320,8 +2602,12 @@ public class HTMLComponent extends Container implements ActionListener, AsyncDoc
 																									// width
 					words.addElement(word);
 					word = "" + ch;
+					wordWidth = font.charWidth(ch);
 				} else {
 					word += ch;
+					if (!returnComps) {
+						wordWidth += font.charWidth(ch);
+					}
 				}
 			}
 		}
@@ -2363,8 +2649,10 @@ public class HTMLComponent extends Container implements ActionListener, AsyncDoc
 		Vector words = getWords(text, align, false);
 
 		if (words.size() > 0) {
-			int w = 0;
-			String wordStr = "";
+			InlineTextLayout layout = new InlineTextLayout(words, font);
+			StringBuffer wordStr = new StringBuffer();
+			int lineWidth = 0;
+			boolean hasWords = false;
 			if ((CSSParser.isWhiteSpace(text.charAt(0))) && (curLine.getComponentCount() != 0)) { // leading
 																									// space
 																									// is
@@ -2379,30 +2667,33 @@ public class HTMLComponent extends Container implements ActionListener, AsyncDoc
 																									// of
 																									// the
 																									// line
-				wordStr = " "; // leading space
+				wordStr.append(' '); // leading space
+				lineWidth = layout.getSpaceWidth();
 			}
 
-			while (w < words.size()) {
-				String nextWord = (String) words.elementAt(w);
-				String space = "";
-				if ((!wordStr.equals("")) && (!wordStr.equals(" "))) {
-					space = " ";
-				}
-				if (font.stringWidth(wordStr + space + nextWord) > spaceW - 2) {
-					comps.addElement(addString(wordStr, align));
+			int w = 0;
+			while (w < layout.getWordCount()) {
+				int fit = layout.fitWords(w, spaceW - 2, lineWidth, hasWords);
+				if (fit == 0) {
+					comps.addElement(addString(wordStr.toString(), align));
 					newLineIfNotEmpty(align);
 					spaceW = width - x;
-					wordStr = nextWord;
+					wordStr.setLength(0);
+					layout.appendWords(wordStr, w, w + 1, false);
+					lineWidth = layout.getWordWidth(w);
+					w++;
 				} else {
-					wordStr += space + nextWord;
+					layout.appendWords(wordStr, w, w + fit, hasWords);
+					lineWidth = layout.getLineWidth();
+					w += fit;
 				}
-				w++;
+				hasWords = true;
 			}
 			if (CSSParser.isWhiteSpace(text.charAt(text.length() - 1))) {
-				wordStr += " "; // trailing space
+				wordStr.append(' '); // trailing space
 			}
 
-			comps.addElement(addString(wordStr, align));
+			comps.addElement(addString(wordStr.toString(), align));
 		}
 
 		return comps;
@@ -2528,7 +2819,7 @@ public class HTMLComponent extends Container implements ActionListener, AsyncDoc
 				if (align == JUSTIFY) { // Text justification algorithm
 					Vector words = getWords(str, align, false);
 					if (words.size() > 1) {
-						int spaceW = font.getFont().stringWidth(" ");
+						int spaceW = font.getSpaceWidth();
 						int spacesToAdd = (width - lbl.getPreferredW()) / spaceW;
 						int spacesPerWord = spacesToAdd / (words.size() - 1);
 						int addtlSpaces = spacesToAdd % (words.size() - 1);
@@ -2706,6 +2997,7 @@ public class HTMLComponent extends Container implements ActionListener, AsyncDoc
 													// specified, otherwise we
 													// don't know how much to
 													// reserve
+				imgLabel.putClientProperty(CLIENT_PROPERTY_IMG_SIZE, new Dimension(iWidth, iHeight));
 				iWidth += imgLabel.getStyle().getPadding(Component.LEFT) + imgLabel.getStyle().getPadding(Component.RIGHT);
 				iHeight += imgLabel.getStyle().getPadding(Component.TOP) + imgLabel.getStyle().getPadding(Component.BOTTOM);
 				imgLabel.setPreferredSize(new Dimension(iWidth, iHeight));
@@ -4247,6 +4539,9 @@ public class HTMLComponent extends Container implements ActionListener, AsyncDoc
 
 			}
 
+			if (element == progressiveRoot) {
+				publishProgressiveContent(false);
+			}
 		}
 	}
 
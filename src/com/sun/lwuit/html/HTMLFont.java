@@ -24,6 +24,7 @@
 package com.sun.lwuit.html;
 
 import com.sun.lwuit.Font;
+import java.util.Hashtable;
 import java.util.Vector;
 
 /**
@@ -60,6 +61,20 @@ class HTMLFont {
 
 	private HTMLFont[] counterpartFonts = new HTMLFont[4];
 
+	/**
+	 * The maximum number of word widths cached per font, when exceeded the
+	 * cache is cleared
+	 */
+	private static final int WORD_WIDTH_CACHE_SIZE = 512;
+
+	/**
+	 * Caches the width of words measured with this font, since the same words
+	 * tend to repeat in a document and across page loads
+	 */
+	private Hashtable wordWidths = new Hashtable();
+
+	private int spaceWidth = -1;
+
 	/**
 	 * The following tags are tags that mainly define the style of their
 	 * content, and one of the things they can change is the font
@@ -407,6 +422,50 @@ class HTMLFont {
 		return font.stringWidth(str);
 	}
 
+	/**
+	 * Return the width of the given word in this font instance, the width is
+	 * measured once and then served from a cache
+	 * 
+	 * @param word
+	 *            the given word
+	 * @return the width of the given word in this font instance
+	 */
+	int wordWidth(String word) {
+		Integer w = (Integer) wordWidths.get(word);
+		if (w != null) {
+			return w.intValue();
+		}
+		int width = font.stringWidth(word);
+		if (wordWidths.size() >= WORD_WIDTH_CACHE_SIZE) {
+			wordWidths.clear();
+		}
+		wordWidths.put(word, new Integer(width));
+		return width;
+	}
+
+	/**
+	 * Return the width of the given character in this font instance
+	 * 
+	 * @param ch
+	 *            the given character
+	 * @return the width of the given character in this font instance
+	 */
+	int charWidth(char ch) {
+		return font.charWidth(ch);
+	}
+
+	/**
+	 * Return the width of a single space in this font instance
+	 * 
+	 * @return the width of a space character
+	 */
+	int getSpaceWidth() {
+		if (spaceWidth == -1) {
+			spaceWidth = font.charWidth(' ');
+		}
+		return spaceWidth;
+	}
+
 	/**
 	 * Return Optional operation returning the font face for system fonts
 	 * 
@@ -89,7 +89,7 @@ public class HTMLParser extends XMLParser {
 	 *             if an I/O error in the stream is encountered
 	 */
 	protected void parseTagContent(Element element, Reader is) throws IOException {
-		if ((HTMLComponent.SUPPORT_CSS) && (htmlC.loadCSS) && (((HTMLElement) element).getTagId() == HTMLElement.TAG_STYLE)) { // We
+		if ((HTMLComponent.SUPPORT_CSS) && (htmlC != null) && (htmlC.loadCSS) && (((HTMLElement) element).getTagId() == HTMLElement.TAG_STYLE)) { // We
 																																// aren't
 																																// strict
 																																// and
@@ -105,6 +105,7 @@ public class HTMLParser extends XMLParser {
 																																// "text/css".equals(element.getAttributeById(Element.ATTR_TYPE))))
 																																// {
 			CSSElement addTo = CSSParser.getInstance().parseCSSSegment(is, null, htmlC, null);
+			CSSEngine.getInstance().prepareStyleSheet(addTo);
 			htmlC.addToEmebeddedCSS(addTo);
 			return;
 		}
@@ -24,6 +24,7 @@
 package com.sun.lwuit.html;
 
 import java.util.Hashtable;
+import java.util.Vector;
 
 /**
  * This class contains several useful static methods for HTML
@@ -346,4 +347,34 @@ public class HTMLUtils {
 		return defaultValue;
 	}
 
+	/**
+	 * Splits the given string into the words separated by the given separator,
+	 * empty words (i.e. consecutive separators) are omitted
+	 * 
+	 * @param str
+	 *            The string to split
+	 * @param separator
+	 *            The separator character
+	 * @return An array holding the words, or an empty array if str is null
+	 */
+	static String[] splitWords(String str, char separator) {
+		if (str == null) {
+			return new String[0];
+		}
+		Vector words = new Vector();
+		int start = 0;
+		int len = str.length();
+		for (int i = 0; i <= len; i++) {
+			if ((i == len) || (str.charAt(i) == separator)) {
+				if (i > start) {
+					words.addElement(str.substring(start, i));
+				}
+				start = i + 1;
+			}
+		}
+		String[] result = new String[words.size()];
+		words.copyInto(result);
+		return result;
+	}
+
 }
@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2008, 2010, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores
+ * CA 94065 USA or visit www.oracle.com if you need additional information or
+ * have any questions.
+ */
+package com.sun.lwuit.html;
+
+import com.sun.lwuit.Image;
+import java.util.Hashtable;
+import java.util.Vector;
+
+/**
+ * A cache of downloaded images that is shared between pages and between
+ * HTMLComponents, so that an image used across a site (i.e. a logo) is not
+ * downloaded again on every navigation. The cache is bounded by the estimated
+ * memory of the images it holds (4 bytes per pixel), and when it is full the
+ * least recently used images are evicted.
+ */
+class ImageCache {
+
+	/**
+	 * The default size of the cache in bytes
+	 */
+	static final int DEFAULT_CACHE_SIZE = 512 * 1024;
+
+	private static Hashtable images = new Hashtable();
+	private static Vector lru = new Vector(); // least recently used url first
+	private static int maxSize = DEFAULT_CACHE_SIZE;
+	private static int size;
+
+	private ImageCache() {
+	}
+
+	/**
+	 * Sets the maximum size of the cache in bytes, 0 disables the cache
+	 * 
+	 * @param bytes
+	 *            the maximum size of the cache in bytes
+	 */
+	static synchronized void setMaxSize(int bytes) {
+		maxSize = bytes;
+		trim(0);
+	}
+
+	/**
+	 * Returns the maximum size of the cache in bytes
+	 * 
+	 * @return the maximum size of the cache in bytes
+	 */
+	static int getMaxSize() {
+		return maxSize;
+	}
+
+	/**
+	 * Returns the cached image for the given URL and marks it as the most
+	 * recently used
+	 * 
+	 * @param url
+	 *            The image URL
+	 * @return the cached image, or null if it is not in the cache
+	 */
+	static synchronized Image get(String url) {
+		Image img = (Image) images.get(url);
+		if (img != null) {
+			lru.removeElement(url);
+			lru.addElement(url);
+		}
+		return img;
+	}
+
+	/**
+	 * Adds the given image to the cache, evicting least recently used images
+	 * as needed. Images larger than the entire cache are not cached.
+	 * 
+	 * @param url
+	 *            The image URL
+	 * @param img
+	 *            The image
+	 */
+	static synchronized void put(String url, Image img) {
+		int bytes = getBytes(img);
+		if (bytes > maxSize) {
+			return;
+		}
+		Image old = (Image) images.remove(url);
+		if (old != null) {
+			lru.removeElement(url);
+			size -= getBytes(old);
+		}
+		trim(bytes);
+		images.put(url, img);
+		lru.addElement(url);
+		size += bytes;
+	}
+
+	/**
+	 * Removes all images from the cache
+	 */
+	static synchronized void clear() {
+		images.clear();
+		lru.removeAllElements();
+		size = 0;
+	}
+
+	/**
+	 * Evicts least recently used images until the given number of bytes can be
+	 * added without exceeding the maximum size
+	 * 
+	 * @param bytes
+	 *            The number of bytes that should be freed
+	 */
+	private static void trim(int bytes) {
+		while (lru.size() > 0 && size + bytes > maxSize) {
+			Object url = lru.firstElement();
+			lru.removeElementAt(0);
+			size -= getBytes((Image) images.remove(url));
+		}
+	}
+
+	/**
+	 * Returns the estimated memory used by the given image
+	 * 
+	 * @param img
+	 *            The image
+	 * @return the estimated memory used by the image in bytes
+	 */
+	private static int getBytes(Image img) {
+		return img.getWidth() * img.getHeight() * 4;
+	}
+
+}
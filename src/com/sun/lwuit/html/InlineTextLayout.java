@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2008, 2010, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores
+ * CA 94065 USA or visit www.oracle.com if you need additional information or
+ * have any questions.
+ */
+package com.sun.lwuit.html;
+
+import java.util.Vector;
+
+/**
+ * Breaks a run of words into lines based on their measured widths. Each word
+ * is measured once (through the font's word width cache) and line widths are
+ * accumulated arithmetically, instead of re-measuring the line string every
+ * time a word is appended to it.
+ * 
+ * The lines are only broken while the page is built, a width change later on
+ * rebuilds the page (see HTMLComponent.layoutContainer) and breaks the lines
+ * again using the cached word widths.
+ */
+class InlineTextLayout {
+
+	private String[] words;
+	private int[] widths;
+	private int spaceWidth;
+	private int lineWidth;
+
+	/**
+	 * Measures the given words
+	 * 
+	 * @param words
+	 *            A vector of strings, each being a single word
+	 * @param font
+	 *            The font the words will be displayed with
+	 */
+	InlineTextLayout(Vector words, HTMLFont font) {
+		this.words = new String[words.size()];
+		words.copyInto(this.words);
+		widths = new int[this.words.length];
+		for (int i = 0; i < widths.length; i++) {
+			widths[i] = font.wordWidth(this.words[i]);
+		}
+		spaceWidth = font.getSpaceWidth();
+	}
+
+	/**
+	 * Returns the number of words in this run
+	 * 
+	 * @return the number of words in this run
+	 */
+	int getWordCount() {
+		return words.length;
+	}
+
+	/**
+	 * Returns the width of the given word
+	 * 
+	 * @param index
+	 *            The word's index
+	 * @return the width of the given word
+	 */
+	int getWordWidth(int index) {
+		return widths[index];
+	}
+
+	/**
+	 * Returns the width of a space separating words
+	 * 
+	 * @return the width of a space separating words
+	 */
+	int getSpaceWidth() {
+		return spaceWidth;
+	}
+
+	/**
+	 * Calculates how many words starting at the given index fit in the
+	 * remaining width of a line
+	 * 
+	 * @param start
+	 *            The index of the first word to place
+	 * @param availableWidth
+	 *            The width available for the line
+	 * @param usedWidth
+	 *            The width already occupied by text on this line
+	 * @param separate
+	 *            true if the first word should be separated by a space from
+	 *            the text already on the line
+	 * @return The number of words that fit, the resulting line width is
+	 *         available via getLineWidth
+	 */
+	int fitWords(int start, int availableWidth, int usedWidth, boolean separate) {
+		int i = start;
+		while (i < words.length) {
+			int w = usedWidth + widths[i];
+			if (separate) {
+				w += spaceWidth;
+			}
+			if (w > availableWidth) {
+				break;
+			}
+			usedWidth = w;
+			separate = true;
+			i++;
+		}
+		lineWidth = usedWidth;
+		return i - start;
+	}
+
+	/**
+	 * Returns the width of the line as calculated by the last call to fitWords
+	 * 
+	 * @return the width of the line
+	 */
+	int getLineWidth() {
+		return lineWidth;
+	}
+
+	/**
+	 * Appends the given words to the buffer separated by spaces
+	 * 
+	 * @param line
+	 *            The buffer to append to
+	 * @param start
+	 *            The index of the first word to append
+	 * @param end
+	 *            The index after the last word to append
+	 * @param separate
+	 *            true if the first word should be separated by a space from
+	 *            the text already in the buffer
+	 */
+	void appendWords(StringBuffer line, int start, int end, boolean separate) {
+		for (int i = start; i < end; i++) {
+			if (separate) {
+				line.append(' ');
+			}
+			line.append(words[i]);
+			separate = true;
+		}
+	}
+}
@@ -28,6 +28,8 @@ import com.sun.lwuit.Display;
 import com.sun.lwuit.Image;
 import com.sun.lwuit.Label;
 import com.sun.lwuit.geom.Dimension;
+import com.sun.lwuit.io.util.Util;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
@@ -47,7 +49,7 @@ class ResourceThreadQueue {
 	/**
 	 * The default number of maximum threads used for image download
 	 */
-	private static int DEFAULT_MAX_THREADS = 2;
+	static final int DEFAULT_MAX_THREADS = 2;
 
 	HTMLComponent htmlC;
 	Vector queue = new Vector();
@@ -74,14 +76,17 @@ class ResourceThreadQueue {
 	}
 
 	/**
-	 * Sets the maximum number of threads to use for image download If
-	 * startRunning was already called, this will takes effect in the next page
-	 * loaded.
+	 * Sets the size of the worker pool used for image download. This is also
+	 * the number of resources each page keeps in flight, the rest wait in the
+	 * queue so they can be prioritized by their distance from the viewport.
+	 * If startRunning was already called, the number of resources in flight
+	 * changes only in the next page loaded.
 	 * 
 	 * @param threadsNum
-	 *            the maximum number of threads to use for image download
+	 *            the number of threads to use for image download
 	 */
 	static void setMaxThreads(int threadsNum) {
+		ResourceWorkerPool.setSize(threadsNum);
 		maxThreads = threadsNum;
 	}
 
@@ -182,6 +187,14 @@ class ResourceThreadQueue {
 		if (started) {
 			throw new IllegalStateException("ResourceThreadQueue alreadey started! stop/cancel first");
 		}
+		CSSCache.Entry cached = CSSCache.getFresh(cssUrl, getCSSEncoding());
+		if (cached != null) {
+			CSSElement css = getCachedCSS(cached);
+			if (css != null) {
+				htmlC.addToExternalCSS(css);
+				return;
+			}
+		}
 		DocumentInfo cssDocInfo = new DocumentInfo(cssUrl, DocumentInfo.TYPE_CSS);
 		if (encoding != null) {
 			cssDocInfo.setEncoding(encoding);
@@ -191,6 +204,57 @@ class ResourceThreadQueue {
 		incCSSCount();
 	}
 
+	/**
+	 * Returns the encoding external stylesheets are parsed with, which is the
+	 * encoding of the referring page (See CSSParser.parseCSSSegment)
+	 * 
+	 * @return the page encoding or null if the page has no document info
+	 */
+	String getCSSEncoding() {
+		if (htmlC.getDocumentInfo() == null) {
+			return null;
+		}
+		return htmlC.getDocumentInfo().getEncoding();
+	}
+
+	/**
+	 * Returns the parsed stylesheet of the given cache entry, parsing it if the
+	 * entry was loaded from Storage
+	 * 
+	 * @param entry
+	 *            The cache entry
+	 * @return the parsed stylesheet or null if it couldn't be parsed
+	 */
+	private CSSElement getCachedCSS(CSSCache.Entry entry) {
+		if (entry.css == null) {
+			try {
+				entry.css = parseCSS(entry.source, entry.url);
+			} catch (IOException ioe) {
+				return null;
+			}
+		}
+		return entry.css;
+	}
+
+	/**
+	 * Parses the given stylesheet source
+	 * 
+	 * @param source
+	 *            The stylesheet source
+	 * @param url
+	 *            The stylesheet URL
+	 * @return the parsed stylesheet
+	 * @throws IOException
+	 *             if thrown by the parser
+	 */
+	CSSElement parseCSS(byte[] source, String url) throws IOException {
+		InputStream is = new ByteArrayInputStream(source);
+		CSSElement result = CSSParser.getInstance().parseCSSSegment(new InputStreamReader(is), is, htmlC, url);
+		result.setAttribute(result.getAttributeName(new Integer(CSSElement.CSS_PAGEURL)), url);
+		CSSEngine.getInstance().prepareStyleSheet(result);
+		return result;
+	}
+
 	/**
 	 * Incereases the internal count of the number of pending CSS documents
 	 */
@@ -257,6 +321,17 @@ class ResourceThreadQueue {
 		}
 		urls = null;
 
+		// Images that were already downloaded by this or a previous page are
+		// applied directly from the cache
+		for (int i = queue.size() - 1; i >= 0; i--) {
+			ResourceThread t = (ResourceThread) queue.elementAt(i);
+			Image cached = ImageCache.get(t.getCacheKey());
+			if (cached != null) {
+				queue.removeElementAt(i);
+				t.applyImage(cached);
+			}
+		}
+
 		images = new Hashtable();
 
 		if (!startDequeue()) {
@@ -274,8 +349,7 @@ class ResourceThreadQueue {
 		int threads = Math.min(queue.size(), maxThreads);
 
 		for (int i = 0; i < threads; i++) {
-			ResourceThread t = (ResourceThread) queue.firstElement();
-			queue.removeElementAt(0);
+			ResourceThread t = nextThread();
 			running.addElement(t);
 			threadCount++;
 			// t.go(); //new Thread(t).start();
@@ -288,6 +362,72 @@ class ResourceThreadQueue {
 		return (threads > 0);
 	}
 
+	/**
+	 * Removes and returns the queued resource that should be downloaded next.
+	 * CSS files come first, then images ordered by their distance from the
+	 * currently visible area of the HTMLComponent. Since the distance is
+	 * evaluated whenever a download slot frees up, the order follows the user
+	 * as the page is scrolled. Images at the same distance (i.e. before the page was
+	 * laid out) are taken in queue order.
+	 * 
+	 * @return the next resource to download
+	 */
+	private ResourceThread nextThread() {
+		int best = 0;
+		int bestDistance = Integer.MAX_VALUE;
+		int viewTop = htmlC.getScrollY();
+		int viewBottom = viewTop + htmlC.getHeight();
+		for (int i = 0; i < queue.size(); i++) {
+			ResourceThread t = (ResourceThread) queue.elementAt(i);
+			int distance = t.getViewportDistance(viewTop, viewBottom);
+			if (distance < bestDistance) {
+				best = i;
+				bestDistance = distance;
+				if (distance == 0) {
+					break;
+				}
+			}
+		}
+		ResourceThread t = (ResourceThread) queue.elementAt(best);
+		queue.removeElementAt(best);
+		return t;
+	}
+
+	/**
+	 * Returns the vertical distance of the given component from the visible
+	 * area of the HTMLComponent
+	 * 
+	 * @param cmp
+	 *            The component
+	 * @param viewTop
+	 *            The top of the visible area, in the HTMLComponent coordinates
+	 * @param viewBottom
+	 *            The bottom of the visible area, in the HTMLComponent
+	 *            coordinates
+	 * @return 0 if the component is visible, the distance in pixels otherwise,
+	 *         or Integer.MAX_VALUE if the component isn't contained in the
+	 *         HTMLComponent yet
+	 */
+	private int getViewportDistance(Component cmp, int viewTop, int viewBottom) {
+		int top = 0;
+		Component c = cmp;
+		while (c != htmlC) {
+			if (c == null) {
+				return Integer.MAX_VALUE;
+			}
+			top += c.getY();
+			c = c.getParent();
+		}
+		int bottom = top + cmp.getHeight();
+		if (bottom < viewTop) {
+			return viewTop - bottom;
+		}
+		if (top > viewBottom) {
+			return top - viewBottom;
+		}
+		return 0;
+	}
+
 	/**
 	 * Called by the ResourceThread when it finishes downloading and setting the
 	 * image. This in turns starts another thread if the queue is not empty
@@ -312,8 +452,7 @@ class ResourceThreadQueue {
 		running.removeElement(finishedThread);
 
 		if (queue.size() > 0) {
-			ResourceThread t = (ResourceThread) queue.firstElement();
-			queue.removeElementAt(0);
+			ResourceThread t = nextThread();
 			running.addElement(t);
 			t.go(); // new Thread(t).start();
 		} else {
@@ -474,14 +613,41 @@ class ResourceThreadQueue {
 				DocumentInfo docInfo = cssDocInfo != null ? cssDocInfo : new DocumentInfo(imageUrl, DocumentInfo.TYPE_IMAGE);
 				((AsyncDocumentRequestHandler) handler).resourceRequestedAsync(docInfo, this);
 			} else {
-				new Thread(this).start();
+				ResourceWorkerPool.execute(this);
+			}
+		}
+
+		/**
+		 * Returns the distance of this resource from the visible area of the
+		 * HTMLComponent, which is the smallest distance of any of the
+		 * components using it
+		 * 
+		 * @param viewTop
+		 *            The top of the visible area
+		 * @param viewBottom
+		 *            The bottom of the visible area
+		 * @return the distance in pixels, 0 if visible or if this is a CSS file
+		 */
+		int getViewportDistance(int viewTop, int viewBottom) {
+			if (cssDocInfo != null) {
+				return 0;
+			}
+			int distance = threadQueue.getViewportDistance(imgLabel, viewTop, viewBottom);
+			if (labels != null) {
+				for (int i = 0; i < labels.size() && distance > 0; i++) {
+					distance = Math.min(distance, threadQueue.getViewportDistance((Component) labels.elementAt(i), viewTop, viewBottom));
+				}
 			}
+			return distance;
 		}
 
 		/**
 		 * {@inheritDoc}
 		 */
 		public void run() {
+			if (cancelled) { // the page was left while this waited in the pool
+				return;
+			}
 			DocumentInfo docInfo = cssDocInfo != null ? cssDocInfo : new DocumentInfo(imageUrl, DocumentInfo.TYPE_IMAGE);
 			InputStream is = handler.resourceRequested(docInfo);
 			streamReady(is, docInfo);
@@ -503,18 +669,34 @@ class ResourceThreadQueue {
 															// is true, since if
 															// we got so far -
 															// it is...
-							CSSElement result = CSSParser.getInstance().parseCSSSegment(new InputStreamReader(is), is, htmlC, cssDocInfo.getUrl());
-							result.setAttribute(result.getAttributeName(new Integer(CSSElement.CSS_PAGEURL)), cssDocInfo.getUrl());
+							String url = cssDocInfo.getUrl();
+							String encoding = threadQueue.getCSSEncoding();
+							CSSCache.Entry cached = CSSCache.getValidated(url, encoding, docInfo.getValidator());
+							CSSElement result = cached != null ? threadQueue.getCachedCSS(cached) : null;
+							if (result == null) {
+								byte[] source = Util.readInputStream(is);
+								result = threadQueue.parseCSS(source, url);
+								if (!containsImport(source)) {
+									CSSCache.put(url, encoding, docInfo.getValidator(), source, result);
+								}
+							}
 							htmlC.addToExternalCSS(result);
 						}
 						threadQueue.threadFinished(this, true);
 						return;
 					} else {
-						img = Image.createImage(is);
+						Dimension size = getTargetSize();
+						if (size != null) {
+							img = Image.createImage(is, size.getWidth(), size.getHeight());
+						} else {
+							img = Image.createImage(is);
+						}
 						if (img == null) {
 							if (htmlC.getHTMLCallback() != null) {
 								htmlC.getHTMLCallback().parsingError(HTMLCallback.ERROR_IMAGE_BAD_FORMAT, null, null, null, "Image could not be created from " + imageUrl);
 							}
+						} else {
+							ImageCache.put(getCacheKey(), img);
 						}
 					}
 				}
@@ -524,19 +706,16 @@ class ResourceThreadQueue {
 					return;
 				}
 				if (!cancelled) {
-					Display.getInstance().callSerially(new Runnable() {
-						public void run() {
-							handleImage(img, imgLabel);
-							if (labels != null) {
-								for (Enumeration e = labels.elements(); e.hasMoreElements();) {
-									Component cmp = (Component) e.nextElement();
-									handleImage(img, cmp);
-								}
-							}
-						}
-					});
+					applyImage(img);
 					threadQueue.threadFinished(this, true);
 				}
+			} catch (IllegalArgumentException iae) { // thrown by the sized image creation for bad image data
+				if (htmlC.getHTMLCallback() != null) {
+					htmlC.getHTMLCallback().parsingError(HTMLCallback.ERROR_IMAGE_BAD_FORMAT, null, null, null, "Image could not be created from " + imageUrl);
+				}
+				if (!cancelled) {
+					threadQueue.threadFinished(this, false);
+				}
 			} catch (IOException ioe) {
 				if (htmlC.getHTMLCallback() != null) {
 					htmlC.getHTMLCallback().parsingError(HTMLCallback.ERROR_IMAGE_BAD_FORMAT, null, null, null, "Image could not be created from " + imageUrl + ": " + ioe.getMessage());
@@ -548,6 +727,105 @@ class ResourceThreadQueue {
 
 		}
 
+		/**
+		 * Checks whether the given stylesheet source contains an @import rule
+		 * 
+		 * @param source
+		 *            The stylesheet source
+		 * @return true if the source contains an @import rule, false otherwise
+		 */
+		private boolean containsImport(byte[] source) {
+			byte[] rule = { '@', 'i', 'm', 'p', 'o', 'r', 't' };
+			for (int i = 0; i <= source.length - rule.length; i++) {
+				int j = 0;
+				while ((j < rule.length) && (source[i + j] == rule[j])) {
+					j++;
+				}
+				if (j == rule.length) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		/**
+		 * Returns the size the image should be decoded at, which is the size
+		 * specified in the width/height attributes, provided that all the
+		 * components using this image specified the same size and none of them
+		 * uses it as a background image
+		 * 
+		 * @return the size to decode the image at (-1 for a dimension that
+		 *         should keep the aspect ratio), or null to decode it at its
+		 *         original size
+		 */
+		Dimension getTargetSize() {
+			Dimension size = getTargetSize(imgLabel);
+			if (labels != null) {
+				for (int i = 0; i < labels.size() && size != null; i++) {
+					Dimension other = getTargetSize((Component) labels.elementAt(i));
+					if (other == null || other.getWidth() != size.getWidth() || other.getHeight() != size.getHeight()) {
+						size = null;
+					}
+				}
+			}
+			if (size == null) {
+				return null;
+			}
+			return new Dimension(size.getWidth() == 0 ? -1 : size.getWidth(), size.getHeight() == 0 ? -1 : size.getHeight());
+		}
+
+		/**
+		 * Returns the size given in the width/height attributes of the image
+		 * tag of the given component
+		 * 
+		 * @param cmp
+		 *            The component
+		 * @return the size given in the width/height attributes or null if
+		 *         none was given or this is a background image
+		 */
+		private Dimension getTargetSize(Component cmp) {
+			if (threadQueue.bgImageCompsUnselected.contains(cmp) || threadQueue.bgImageCompsSelected.contains(cmp) || threadQueue.bgImageCompsPressed.contains(cmp)) {
+				return null;
+			}
+			return (Dimension) cmp.getClientProperty(HTMLComponent.CLIENT_PROPERTY_IMG_SIZE);
+		}
+
+		/**
+		 * Returns the key of this image in the image cache, images decoded at
+		 * a reduced size are cached separately from the original image
+		 * 
+		 * @return the key of this image in the image cache
+		 */
+		String getCacheKey() {
+			Dimension size = getTargetSize();
+			if (size == null) {
+				return imageUrl;
+			}
+			// a space can't appear in a URL, so this can't collide with another
+			// image
+			return imageUrl + " " + size.getWidth() + "x" + size.getHeight();
+		}
+
+		/**
+		 * Places the given image on all the components that use it, on the EDT
+		 * 
+		 * @param image
+		 *            The downloaded or cached image
+		 */
+		void applyImage(final Image image) {
+			Display.getInstance().callSerially(new Runnable() {
+				public void run() {
+					handleImage(image, imgLabel);
+					if (labels != null) {
+						for (Enumeration e = labels.elements(); e.hasMoreElements();) {
+							Component cmp = (Component) e.nextElement();
+							handleImage(image, cmp);
+						}
+					}
+				}
+			});
+		}
+
 		/**
 		 * After a successful download, this handles placing the image on the
 		 * label and resizing if necessary
@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2008, 2010, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores
+ * CA 94065 USA or visit www.oracle.com if you need additional information or
+ * have any questions.
+ */
+package com.sun.lwuit.html;
+
+import java.util.Vector;
+
+/**
+ * A fixed pool of worker threads shared by all HTMLComponents for downloading
+ * images and CSS files through a synchronous DocumentRequestHandler. Workers
+ * are created lazily up to the pool size and then kept waiting for more work,
+ * instead of starting a new thread for every resource.
+ */
+class ResourceWorkerPool {
+
+	private static final Object LOCK = new Object();
+	private static Vector pending = new Vector();
+	private static int size = ResourceThreadQueue.DEFAULT_MAX_THREADS;
+	private static int workers;
+	private static int idle;
+
+	private ResourceWorkerPool() {
+	}
+
+	/**
+	 * Sets the number of worker threads in the pool. When the pool shrinks,
+	 * surplus workers exit once they become idle.
+	 * 
+	 * @param poolSize
+	 *            the number of worker threads
+	 */
+	static void setSize(int poolSize) {
+		if (poolSize < 1) {
+			throw new IllegalArgumentException("Pool size must be at least 1");
+		}
+		synchronized (LOCK) {
+			size = poolSize;
+			LOCK.notifyAll();
+		}
+	}
+
+	/**
+	 * Returns the number of worker threads in the pool
+	 * 
+	 * @return the number of worker threads in the pool
+	 */
+	static int getSize() {
+		return size;
+	}
+
+	/**
+	 * Queues the given task to be run by one of the pool workers
+	 * 
+	 * @param task
+	 *            The task to run
+	 */
+	static void execute(Runnable task) {
+		synchronized (LOCK) {
+			pending.addElement(task);
+			if (idle == 0 && workers < size) {
+				workers++;
+				new Thread(new Worker()).start();
+			} else {
+				LOCK.notify();
+			}
+		}
+	}
+
+	/**
+	 * A pool worker, runs pending tasks in the order they were queued
+	 */
+	static class Worker implements Runnable {
+
+		/**
+		 * {@inheritDoc}
+		 */
+		public void run() {
+			while (true) {
+				Runnable task;
+				synchronized (LOCK) {
+					while (pending.size() == 0) {
+						if (workers > size) {
+							workers--;
+							return;
+						}
+						idle++;
+						try {
+							LOCK.wait();
+						} catch (InterruptedException ie) {
+							ie.printStackTrace();
+						}
+						idle--;
+					}
+					task = (Runnable) pending.firstElement();
+					pending.removeElementAt(0);
+				}
+				try {
+					task.run();
+				} catch (RuntimeException re) {
+					// A failing resource must not take the worker down with it
+					re.printStackTrace();
+				}
+			}
+		}
+	}
+
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2008, 2010, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores
+ * CA 94065 USA or visit www.oracle.com if you need additional information or
+ * have any questions.
+ */
+package com.sun.lwuit.impl;
+
+import java.util.Hashtable;
+import java.util.Vector;
+
+/**
+ * Caches the visual layout of logical strings containing RTL characters so
+ * painting, measuring and cursor positioning don't repeat the bidi reordering
+ * for every frame. The cache is bounded by the number of strings and evicts
+ * the least recently used layouts first.
+ */
+class BidiCache {
+
+	/**
+	 * The default number of strings in the cache
+	 */
+	static final int DEFAULT_CACHE_SIZE = 64;
+
+	private Hashtable layouts = new Hashtable();
+
+	// least recently used layout first
+	private Vector lru = new Vector();
+	private int maxSize = DEFAULT_CACHE_SIZE;
+	private int hits;
+	private int misses;
+
+	/**
+	 * Returns the cached layout of the given logical string
+	 * 
+	 * @return the layout or null if it isn't cached
+	 */
+	Layout get(String logical) {
+		Layout l = (Layout) layouts.get(logical);
+		if (l == null) {
+			misses++;
+			return null;
+		}
+		hits++;
+		int index = lru.lastIndexOf(l);
+		if (index < lru.size() - 1) {
+			lru.removeElementAt(index);
+			lru.addElement(l);
+		}
+		return l;
+	}
+
+	/**
+	 * Adds a layout to the cache evicting the least recently used layouts as
+	 * needed
+	 */
+	void put(Layout l) {
+		if (maxSize <= 0 || layouts.containsKey(l.logical)) {
+			return;
+		}
+		trim(1);
+		layouts.put(l.logical, l);
+		lru.addElement(l);
+	}
+
+	private void trim(int count) {
+		while (lru.size() > 0 && lru.size() + count > maxSize) {
+			Layout l = (Layout) lru.firstElement();
+			lru.removeElementAt(0);
+			layouts.remove(l.logical);
+		}
+	}
+
+	/**
+	 * Removes all the layouts from the cache
+	 */
+	void clear() {
+		layouts.clear();
+		lru.removeAllElements();
+	}
+
+	void setMaxSize(int count) {
+		maxSize = count;
+		trim(0);
+	}
+
+	int getMaxSize() {
+		return maxSize;
+	}
+
+	int getHits() {
+		return hits;
+	}
+
+	int getMisses() {
+		return misses;
+	}
+
+	/**
+	 * The visual form of a logical string along with the index mappings
+	 * between the two
+	 */
+	static final class Layout {
+		String logical;
+		String visual;
+
+		/**
+		 * The visual cursor location for every logical index as returned by
+		 * getCharLocation
+		 */
+		int[] logicalToVisual;
+
+		/**
+		 * The logical index of every character in the visual string
+		 */
+		int[] visualToLogical;
+	}
+}
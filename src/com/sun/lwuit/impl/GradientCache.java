@@ -0,0 +1,198 @@
+/*
+ * Copyright (c) 2008, 2010, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores
+ * CA 94065 USA or visit www.oracle.com if you need additional information or
+ * have any questions.
+ */
+package com.sun.lwuit.impl;
+
+import java.util.Hashtable;
+import java.util.Vector;
+
+/**
+ * Caches rendered gradient images by value, the key consists of the colors,
+ * the size, the direction and the relative center of the gradient but not its
+ * position so a gradient that moves (e.g. as its component scrolls) is drawn
+ * from the cache. The cache is bounded by the estimated memory of the images
+ * (4 bytes per pixel) and evicts the least recently used images first.
+ */
+class GradientCache {
+
+	/**
+	 * The default size of the cache in bytes
+	 */
+	static final int DEFAULT_CACHE_SIZE = 256 * 1024;
+
+	static final int LINEAR = 0;
+	static final int RADIAL = 1;
+
+	private Hashtable images = new Hashtable();
+
+	// least recently used key first
+	private Vector lru = new Vector();
+	private int maxSize = DEFAULT_CACHE_SIZE;
+	private int size;
+	private int hits;
+	private int misses;
+
+	/**
+	 * Reused for lookups so searching the cache doesn't allocate, all drawing
+	 * happens on the EDT
+	 */
+	private Key lookup = new Key();
+
+	/**
+	 * Returns the cached gradient image matching the given values
+	 * 
+	 * @return the native image or null if it isn't cached
+	 */
+	Object get(int type, int startColor, int endColor, int width, int height, boolean horizontal, int centerX, int centerY, int gradientSize) {
+		lookup.set(type, startColor, endColor, width, height, horizontal, centerX, centerY, gradientSize);
+		Object img = images.get(lookup);
+		if (img == null) {
+			misses++;
+			return null;
+		}
+		hits++;
+		int index = indexOf(lookup);
+		if (index < lru.size() - 1) {
+			Object key = lru.elementAt(index);
+			lru.removeElementAt(index);
+			lru.addElement(key);
+		}
+		return img;
+	}
+
+	/**
+	 * Adds a gradient image to the cache evicting least recently used images as
+	 * needed, images larger than the entire cache aren't cached
+	 */
+	void put(int type, int startColor, int endColor, int width, int height, boolean horizontal, int centerX, int centerY, int gradientSize, Object img) {
+		int bytes = width * height * 4;
+		if (bytes > maxSize) {
+			return;
+		}
+		Key key = new Key();
+		key.set(type, startColor, endColor, width, height, horizontal, centerX, centerY, gradientSize);
+		if (images.containsKey(key)) {
+			return;
+		}
+		trim(bytes);
+		images.put(key, img);
+		lru.addElement(key);
+		size += bytes;
+	}
+
+	/**
+	 * Searches from the most recently used end since hits are usually recent
+	 */
+	private int indexOf(Key key) {
+		for (int iter = lru.size() - 1; iter >= 0; iter--) {
+			if (key.equals(lru.elementAt(iter))) {
+				return iter;
+			}
+		}
+		return -1;
+	}
+
+	private void trim(int bytes) {
+		while (lru.size() > 0 && size + bytes > maxSize) {
+			Key key = (Key) lru.firstElement();
+			lru.removeElementAt(0);
+			images.remove(key);
+			size -= key.width * key.height * 4;
+		}
+	}
+
+	/**
+	 * Removes all the images from the cache
+	 */
+	void clear() {
+		images.clear();
+		lru.removeAllElements();
+		size = 0;
+	}
+
+	void setMaxSize(int bytes) {
+		maxSize = bytes;
+		trim(0);
+	}
+
+	int getMaxSize() {
+		return maxSize;
+	}
+
+	int getHits() {
+		return hits;
+	}
+
+	int getMisses() {
+		return misses;
+	}
+
+	/**
+	 * The values identifying a gradient image
+	 */
+	static final class Key {
+		int type;
+		int startColor;
+		int endColor;
+		int width;
+		int height;
+		boolean horizontal;
+		int centerX;
+		int centerY;
+		int size;
+
+		void set(int type, int startColor, int endColor, int width, int height, boolean horizontal, int centerX, int centerY, int size) {
+			this.type = type;
+			this.startColor = startColor;
+			this.endColor = endColor;
+			this.width = width;
+			this.height = height;
+			this.horizontal = horizontal;
+			this.centerX = centerX;
+			this.centerY = centerY;
+			this.size = size;
+		}
+
+		public boolean equals(Object o) {
+			Key k = (Key) o;
+			return k.type == type && k.startColor == startColor && k.endColor == endColor &&
+					k.width == width && k.height == height && k.horizontal == horizontal &&
+					k.centerX == centerX && k.centerY == centerY && k.size == size;
+		}
+
+		public int hashCode() {
+			int h = type;
+			h = 31 * h + startColor;
+			h = 31 * h + endColor;
+			h = 31 * h + width;
+			h = 31 * h + height;
+			h = 31 * h + centerX;
+			h = 31 * h + centerY;
+			h = 31 * h + size;
+			if (horizontal) {
+				h++;
+			}
+			return h;
+		}
+	}
+}
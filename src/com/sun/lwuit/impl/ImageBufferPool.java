@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2008, 2010, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores
+ * CA 94065 USA or visit www.oracle.com if you need additional information or
+ * have any questions.
+ */
+package com.sun.lwuit.impl;
+
+import java.util.Vector;
+
+/**
+ * Keeps released mutable images so transitions and paint locks can reuse
+ * them rather than allocating a full screen image every time. Images are
+ * leased by their exact size since the size of a mutable image is visible to
+ * the code drawing it, the total estimated memory of the pooled images (4
+ * bytes per pixel) is capped and the oldest images are discarded first.
+ */
+class ImageBufferPool {
+
+	/**
+	 * Indicates the cap should be calculated as two screens
+	 */
+	static final int DEFAULT_POOL_SIZE = -1;
+
+	// oldest image first
+	private Vector images = new Vector();
+	private int maxSize = DEFAULT_POOL_SIZE;
+	private int size;
+	private int hits;
+	private int misses;
+
+	/**
+	 * Removes an image of the given size from the pool
+	 * 
+	 * @return the native image or null if there is no image of that size
+	 */
+	synchronized Object lease(LWUITImplementation impl, int width, int height) {
+		for (int iter = images.size() - 1; iter >= 0; iter--) {
+			Object img = images.elementAt(iter);
+			if (impl.getImageWidth(img) == width && impl.getImageHeight(img) == height) {
+				images.removeElementAt(iter);
+				size -= width * height * 4;
+				hits++;
+				return img;
+			}
+		}
+		misses++;
+		return null;
+	}
+
+	/**
+	 * Returns an image to the pool, the image isn't cleared until it is leased
+	 * again
+	 */
+	synchronized void release(LWUITImplementation impl, Object img) {
+		if (maxSize == DEFAULT_POOL_SIZE) {
+			maxSize = impl.getDisplayWidth() * impl.getDisplayHeight() * 4 * 2;
+		}
+		int bytes = impl.getImageWidth(img) * impl.getImageHeight(img) * 4;
+		if (bytes > maxSize || images.contains(img)) {
+			return;
+		}
+		trim(impl, bytes);
+		images.addElement(img);
+		size += bytes;
+	}
+
+	private void trim(LWUITImplementation impl, int bytes) {
+		while (images.size() > 0 && size + bytes > maxSize) {
+			Object img = images.firstElement();
+			images.removeElementAt(0);
+			size -= impl.getImageWidth(img) * impl.getImageHeight(img) * 4;
+		}
+	}
+
+	/**
+	 * Discards all the pooled images
+	 */
+	synchronized void clear() {
+		images.removeAllElements();
+		size = 0;
+	}
+
+	synchronized void setMaxSize(LWUITImplementation impl, int bytes) {
+		maxSize = bytes;
+		trim(impl, 0);
+	}
+
+	int getMaxSize() {
+		return maxSize;
+	}
+
+	int getHits() {
+		return hits;
+	}
+
+	int getMisses() {
+		return misses;
+	}
+}
@@ -31,7 +31,6 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.lang.ref.WeakReference;
-import java.util.Enumeration;
 import java.util.Hashtable;
 import java.util.Vector;
 
@@ -56,8 +55,11 @@ public abstract class LWUITImplementation {
 
 	private Object lightweightClipboard;
 
-	private Hashtable linearGradientCache;
-	private Hashtable radialGradientCache;
+	private GradientCache gradientCache = new GradientCache();
+
+	private BidiCache bidiCache = new BidiCache();
+
+	private ImageBufferPool imagePool = new ImageBufferPool();
 
 	private boolean builtinSoundEnabled = true;
 	private int dragActivationCounter = 0;
@@ -532,6 +534,45 @@ public abstract class LWUITImplementation {
 	 */
 	public abstract Object createImage(byte[] bytes, int offset, int len);
 
+	/**
+	 * Create a native image from its compressed byte data, at the given size.
+	 * Implementations whose decoder can skip pixels should override this and
+	 * decode straight to a reduced resolution, so the full size image is never
+	 * held in memory. The default implementation decodes the full image and
+	 * scales it.
+	 * 
+	 * @param bytes
+	 *            the byte array representing the image data
+	 * @param offset
+	 *            offset within the byte array
+	 * @param len
+	 *            the length for the image within the byte array
+	 * @param width
+	 *            the width of the resulting image, or -1 to keep the aspect
+	 *            ratio of the height
+	 * @param height
+	 *            the height of the resulting image, or -1 to keep the aspect
+	 *            ratio of the width
+	 * @return a native image
+	 */
+	public Object createImage(byte[] bytes, int offset, int len, int width, int height) {
+		Object image = createImage(bytes, offset, len);
+		if (image == null) {
+			return null;
+		}
+		int srcWidth = getImageWidth(image);
+		int srcHeight = getImageHeight(image);
+		if (width == -1) {
+			width = Math.max(1, srcWidth * height / srcHeight);
+		} else if (height == -1) {
+			height = Math.max(1, srcHeight * width / srcWidth);
+		}
+		if (srcWidth == width && srcHeight == height) {
+			return image;
+		}
+		return scale(image, width, height);
+	}
+
 	/**
 	 * Returns the width of a native image
 	 * 
@@ -1769,49 +1810,139 @@ public abstract class LWUITImplementation {
 		Display.getInstance().showNotify();
 	}
 
-	private Object findCachedGradient(Hashtable cache, int startColor, int endColor, int x, int y, int width, int height, boolean horizontal, int centerX, int centerY, int size) {
-		if (cache != null) {
-			Enumeration e = cache.keys();
-			while (e.hasMoreElements()) {
-				int[] current = (int[]) e.nextElement();
-				Object currentRef = cache.get(current);
-				if (currentRef == null) {
-					cache.remove(current);
-					e = cache.keys();
-					continue;
-				}
-				Object currentImage = extractHardRef(currentRef);
-				if (currentImage == null) {
-					cache.remove(current);
-					e = cache.keys();
-					continue;
-				}
-				if (current[0] == startColor &&
-						current[1] == endColor &&
-						current[2] == x &&
-						current[3] == y &&
-						current[5] == centerX &&
-						current[6] == centerY &&
-						current[7] == size &&
-						getImageWidth(currentImage) == width &&
-						getImageHeight(currentImage) == height) {
-					if ((horizontal && current[4] == 1) || ((!horizontal) && current[4] == 0)) {
-						return currentImage;
-					}
-				}
+	/**
+	 * Sets the maximum memory used by cached gradient images, the least
+	 * recently used gradients are discarded once it is exceeded
+	 * 
+	 * @param bytes
+	 *            the maximum size of the cache estimated as 4 bytes per pixel,
+	 *            0 disables the cache
+	 */
+	public void setGradientCacheSize(int bytes) {
+		gradientCache.setMaxSize(bytes);
+	}
+
+	/**
+	 * Returns the maximum memory used by cached gradient images
+	 * 
+	 * @return the maximum size of the cache in bytes
+	 */
+	public int getGradientCacheSize() {
+		return gradientCache.getMaxSize();
+	}
+
+	/**
+	 * Returns the number of gradients drawn from the cache
+	 * 
+	 * @return the number of cache hits
+	 */
+	public int getGradientCacheHits() {
+		return gradientCache.getHits();
+	}
+
+	/**
+	 * Returns the number of gradients that had to be rendered since they
+	 * weren't in the cache
+	 * 
+	 * @return the number of cache misses
+	 */
+	public int getGradientCacheMisses() {
+		return gradientCache.getMisses();
+	}
+
+	/**
+	 * Discards all the cached gradient images
+	 */
+	public void clearGradientCache() {
+		gradientCache.clear();
+	}
+
+	/**
+	 * Returns a mutable image of the given size from the pool of released
+	 * images, the image is filled with the given color before it is returned
+	 * 
+	 * @param width
+	 *            the image width
+	 * @param height
+	 *            the image height
+	 * @param fillColor
+	 *            an opaque color with which the image is filled
+	 * @return a native mutable image or null if the pool has no image of that
+	 *         size
+	 */
+	public Object leasePooledImage(int width, int height, int fillColor) {
+		Object img = imagePool.lease(this, width, height);
+		if (img != null) {
+			// pooled images are cleared lazily when they are reused
+			Object graphics = getNativeGraphics(img);
+			if (isTranslationSupported()) {
+				translate(graphics, -getTranslateX(graphics), -getTranslateY(graphics));
 			}
+			setClip(graphics, 0, 0, width, height);
+			setAlpha(graphics, 255);
+			setColor(graphics, fillColor);
+			fillRect(graphics, 0, 0, width, height);
 		}
-		return null;
+		return img;
 	}
 
-	private void storeCachedGradient(Object img, Hashtable cache, int startColor, int endColor, int x, int y, boolean horizontal, int centerX, int centerY, int size) {
-		int[] key;
-		if (horizontal) {
-			key = new int[] { startColor, endColor, x, y, 1, centerX, centerY, size };
-		} else {
-			key = new int[] { startColor, endColor, x, y, 0, centerX, centerY, size };
-		}
-		cache.put(key, createSoftWeakRef(img));
+	/**
+	 * Returns a mutable image to the pool, the image must not be used after it
+	 * is released
+	 * 
+	 * @param image
+	 *            native mutable image
+	 */
+	public void releasePooledImage(Object image) {
+		imagePool.release(this, image);
+	}
+
+	/**
+	 * Sets the maximum memory used by pooled mutable images, the oldest images
+	 * are discarded once it is exceeded
+	 * 
+	 * @param bytes
+	 *            the maximum size of the pool estimated as 4 bytes per pixel,
+	 *            0 disables the pool
+	 */
+	public void setImagePoolSize(int bytes) {
+		imagePool.setMaxSize(this, bytes);
+	}
+
+	/**
+	 * Returns the maximum memory used by pooled mutable images
+	 * 
+	 * @return the maximum size of the pool in bytes or -1 if it defaults to the
+	 *         size of two screens
+	 */
+	public int getImagePoolSize() {
+		return imagePool.getMaxSize();
+	}
+
+	/**
+	 * Returns the number of mutable images leased from the pool
+	 * 
+	 * @return the number of pool hits
+	 */
+	public int getImagePoolHits() {
+		return imagePool.getHits();
+	}
+
+	/**
+	 * Returns the number of mutable images that had to be allocated since the
+	 * pool had no image of the requested size
+	 * 
+	 * @return the number of pool misses
+	 */
+	public int getImagePoolMisses() {
+		return imagePool.getMisses();
+	}
+
+	/**
+	 * Discards all the pooled mutable images
+	 */
+	public void clearImagePool() {
+		imagePool.clear();
 	}
 
 	/**
@@ -1855,7 +1986,7 @@ public abstract class LWUITImplementation {
 		setAntiAliased(graphics, false);
 
 		if (cacheRadialGradients()) {
-			Object r = findCachedGradient(radialGradientCache, startColor, endColor, x, y, width, height, true, centerX, centerY, size);
+			Object r = gradientCache.get(GradientCache.RADIAL, startColor, endColor, width, height, true, centerX, centerY, size);
 			if (r != null) {
 				drawImage(graphics, r, x, y);
 			} else {
@@ -1865,10 +1996,7 @@ public abstract class LWUITImplementation {
 				fillRect(imageGraphics, 0, 0, width, height);
 				fillRadialGradientImpl(imageGraphics, startColor, endColor, x2, y2, size, size);
 				drawImage(graphics, r, x, y);
-				if (radialGradientCache == null) {
-					radialGradientCache = new Hashtable();
-				}
-				storeCachedGradient(r, radialGradientCache, startColor, endColor, x, y, true, centerX, centerY, size);
+				gradientCache.put(GradientCache.RADIAL, startColor, endColor, width, height, true, centerX, centerY, size, r);
 			}
 		} else {
 			setColor(graphics, endColor);
@@ -1986,17 +2114,14 @@ public abstract class LWUITImplementation {
 		boolean aa = isAntiAliased(graphics);
 		setAntiAliased(graphics, false);
 		if (cacheLinearGradients()) {
-			Object r = findCachedGradient(linearGradientCache, startColor, endColor, x, y, width, height, horizontal, 0, 0, 0);
+			Object r = gradientCache.get(GradientCache.LINEAR, startColor, endColor, width, height, horizontal, 0, 0, 0);
 			if (r != null) {
 				drawImage(graphics, r, x, y);
 			} else {
 				r = createMutableImage(width, height, 0xffffffff);
 				fillLinearGradientImpl(getNativeGraphics(r), startColor, endColor, 0, 0, width, height, horizontal);
 				drawImage(graphics, r, x, y);
-				if (linearGradientCache == null) {
-					linearGradientCache = new Hashtable();
-				}
-				storeCachedGradient(r, linearGradientCache, startColor, endColor, x, y, horizontal, 0, 0, 0);
+				gradientCache.put(GradientCache.LINEAR, startColor, endColor, width, height, horizontal, 0, 0, 0, r);
 			}
 		} else {
 			fillLinearGradientImpl(graphics, startColor, endColor, x, y, width, height, horizontal);
@@ -2715,9 +2840,10 @@ public abstract class LWUITImplementation {
 	public String convertBidiLogicalToVisual(String s) {
 		if (bidi) {
 			if (s.length() >= 2) {
-				char[] c = s.toCharArray();
-				swapBidiChars(c, 0, s.length(), -1);
-				return new String(c);
+				BidiCache.Layout l = getBidiLayout(s);
+				if (l != null) {
+					return l.visual;
+				}
 			}
 		}
 		return s;
@@ -2737,11 +2863,167 @@ public abstract class LWUITImplementation {
 	 */
 	public int getCharLocation(String source, int index) {
 		if (bidi) {
-			return swapBidiChars(source.toCharArray(), 0, source.length(), index);
+			BidiCache.Layout l = getBidiLayout(source);
+			if (l == null || index < 0 || index >= l.logicalToVisual.length) {
+				return -1;
+			}
+			return l.logicalToVisual[index];
+		}
+		return index;
+	}
+
+	/**
+	 * Returns the logical index of the character at the given location of the
+	 * visual string, this is the reverse of convertBidiLogicalToVisual and is
+	 * useful for mapping a position on the screen back to the source string.
+	 * 
+	 * @param source
+	 *            the "logical" string
+	 * @param index
+	 *            the location of the character in the "visual" string
+	 * @return the "logical" location of the character
+	 */
+	public int getLogicalCharLocation(String source, int index) {
+		if (bidi) {
+			BidiCache.Layout l = getBidiLayout(source);
+			if (l != null && index >= 0 && index < l.visualToLogical.length) {
+				return l.visualToLogical[index];
+			}
 		}
 		return index;
 	}
 
+	/**
+	 * Sets the maximum number of strings whose bidi layout is cached, the
+	 * least recently used layouts are discarded once it is exceeded
+	 * 
+	 * @param count
+	 *            the maximum number of strings, 0 disables the cache
+	 */
+	public void setBidiCacheSize(int count) {
+		bidiCache.setMaxSize(count);
+	}
+
+	/**
+	 * Returns the maximum number of strings whose bidi layout is cached
+	 * 
+	 * @return the maximum number of strings in the cache
+	 */
+	public int getBidiCacheSize() {
+		return bidiCache.getMaxSize();
+	}
+
+	/**
+	 * Returns the number of bidi layouts taken from the cache
+	 * 
+	 * @return the number of cache hits
+	 */
+	public int getBidiCacheHits() {
+		return bidiCache.getHits();
+	}
+
+	/**
+	 * Returns the number of bidi layouts that had to be calculated since they
+	 * weren't in the cache
+	 * 
+	 * @return the number of cache misses
+	 */
+	public int getBidiCacheMisses() {
+		return bidiCache.getMisses();
+	}
+
+	/**
+	 * Discards all the cached bidi layouts
+	 */
+	public void clearBidiCache() {
+		bidiCache.clear();
+	}
+
+	/**
+	 * Returns the layout of a string from the cache calculating it if needed
+	 * 
+	 * @return the layout or null if the string has no RTL characters
+	 */
+	private BidiCache.Layout getBidiLayout(String s) {
+		int len = s.length();
+		boolean rtl = false;
+		for (int iter = 0; iter < len; iter++) {
+			if (isRTL(s.charAt(iter))) {
+				rtl = true;
+				break;
+			}
+		}
+		if (!rtl) {
+			return null;
+		}
+		BidiCache.Layout l = bidiCache.get(s);
+		if (l == null) {
+			l = createBidiLayout(s);
+			bidiCache.put(l);
+		}
+		return l;
+	}
+
+	/**
+	 * Reverses the RTL runs of the string while keeping the LTR runs within
+	 * them in order and then reverses the entire line, the index maps follow
+	 * the characters as they are moved
+	 */
+	private BidiCache.Layout createBidiLayout(String s) {
+		char[] chars = s.toCharArray();
+		int len = chars.length;
+		int[] order = new int[len];
+		int[] cursor = new int[len];
+		for (int iter = 0; iter < len; iter++) {
+			order[iter] = iter;
+			cursor[iter] = iter;
+		}
+
+		int ix0 = 0;
+		int ix1;
+		while (ix0 < len) {
+			if ((ix1 = scanSecond(chars, ix0, len)) < 0) {
+				break;
+			}
+			ix0 = ix1;
+			ix1 = scanBackFirst(chars, ix0, len);
+			// swap
+			for (int iy0 = ix0, iy1 = ix1 - 1; iy0 < iy1; iy0++, iy1--) {
+				char tmp = chars[iy0];
+				chars[iy0] = chars[iy1];
+				chars[iy1] = tmp;
+				int pos = order[iy0];
+				order[iy0] = order[iy1];
+				order[iy1] = pos;
+
+				// the cursor only follows the character from the end of the
+				// run to its start
+				cursor[iy1] = iy0;
+			}
+			ix0 = ix1;
+		}
+
+		// swap the line
+		for (ix0 = 0, ix1 = len - 1; ix0 < ix1; ix0++, ix1--) {
+			char ch = chars[ix0];
+			chars[ix0] = chars[ix1];
+			chars[ix1] = ch;
+			int pos = order[ix0];
+			order[ix0] = order[ix1];
+			order[ix1] = pos;
+		}
+		for (int iter = 0; iter < len; iter++) {
+			cursor[iter] = len - 1 - cursor[iter];
+		}
+
+		BidiCache.Layout l = new BidiCache.Layout();
+		l.logical = s;
+		l.visual = new String(chars);
+		l.logicalToVisual = cursor;
+		l.visualToLogical = order;
+		return l;
+	}
+
 	private boolean isWhitespace(char c) {
 		return c == ' ' || (c == '\n') || (c == '\t') || (c == 10) || (c == 13);
 	}
@@ -2772,68 +3054,6 @@ public abstract class LWUITImplementation {
 		return (c >= RTL_RANGE_BEGIN && c <= RTL_RANGE_END);
 	}
 
-	private final int swapBidiChars(char[] chars, int ixStart, int len, int index) {
-		int destIndex = -1;
-
-		int ixEnd = ixStart + len;
-		int ix0, ix1;
-
-		ix0 = ix1 = ixStart;
-
-		boolean doSwap = false;
-		for (int i1 = ixStart; i1 < ixEnd; i1++) {
-			if (isRTL(chars[i1])) {
-				doSwap = true;
-				break;
-			}
-		}
-
-		if (doSwap) {
-			while (ix0 < ixEnd) {
-				if ((ix1 = scanSecond(chars, ix0, ixEnd)) < 0) {
-					break;
-				} else {
-					ix0 = ix1;
-					ix1 = scanBackFirst(chars, ix0, ixEnd);
-					// swap
-					for (int iy0 = ix0, iy1 = ix1 - 1; iy0 < iy1; iy0++, iy1--) {
-						char tmp = chars[iy0];
-						chars[iy0] = chars[iy1];
-						chars[iy1] = tmp;
-
-						if (index == iy1) {
-							// System.out.println("IY: Found char: new index="+iy0);
-							destIndex = iy0;
-							index = iy0;
-						}
-					}
-
-					ix0 = ix1;
-				}
-			}
-		}
-
-		if (doSwap) {
-			// swap the line
-			for (ix0 = ixStart, ix1 = ixEnd - 1; ix0 <= ix1; ix0++, ix1--) {
-				char ch0 = chars[ix0];
-				char ch1 = chars[ix1];
-
-				chars[ix0] = ch1;
-				chars[ix1] = ch0;
-
-				if (index == ix0) {
-					destIndex = ix1;
-				} else if (index == ix1) {
-					destIndex = ix0;
-				}
-			}
-		}
-
-		return destIndex;
-
-	}
-
 	private boolean isRTLBreak(char ch1) {
 		return ch1 == ')' || ch1 == ']' || ch1 == '}' || ch1 == '(' || ch1 == '[' || ch1 == '{';
 	}
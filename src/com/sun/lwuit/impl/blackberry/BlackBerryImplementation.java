@@ -52,7 +52,9 @@ import javax.microedition.media.control.VideoControl;
 import javax.microedition.midlet.MIDlet;
 import net.rim.device.api.ui.Screen;
 import net.rim.device.api.system.Application;
+import net.rim.device.api.math.Fixed32;
 import net.rim.device.api.system.Bitmap;
+import net.rim.device.api.system.EncodedImage;
 import net.rim.device.api.system.GPRSInfo;
 import net.rim.device.api.ui.Field;
 import net.rim.device.api.ui.FocusChangeListener;
@@ -373,6 +375,31 @@ public class BlackBerryImplementation extends LWUITImplementation {
 		return Bitmap.createBitmapFromBytes(bytes, offset, len, 1);
 	}
 
+	/**
+	 * Decodes the image at the largest power of two reduction that still
+	 * covers the requested size, so the decoder skips the pixels that would be
+	 * thrown away by scaling, and only the reduced bitmap is scaled to the
+	 * exact size.
+	 */
+	public Object createImage(byte[] bytes, int offset, int len, int width, int height) {
+		EncodedImage encoded = EncodedImage.createEncodedImage(bytes, offset, len);
+		int srcWidth = encoded.getWidth();
+		int srcHeight = encoded.getHeight();
+		if (width == -1) {
+			width = Math.max(1, srcWidth * height / srcHeight);
+		} else if (height == -1) {
+			height = Math.max(1, srcHeight * width / srcWidth);
+		}
+		int factor = 1;
+		while (srcWidth / (factor * 2) >= width && srcHeight / (factor * 2) >= height) {
+			factor *= 2;
+		}
+		if (factor > 1) {
+			encoded = encoded.scaleImage32(Fixed32.toFP(factor), Fixed32.toFP(factor));
+		}
+		return scale(encoded.getBitmap(), width, height);
+	}
+
 	public int getImageWidth(Object i) {
 		return ((Bitmap) i).getWidth();
 	}
@@ -51,6 +51,17 @@ public class Storage {
 		cache.setCacheSize(size);
 	}
 
+	/**
+	 * Indicates the amount of data an input stream may fetch ahead of the
+	 * reader, by default data is fetched lazily one storage record at a time
+	 * 
+	 * @param bytes
+	 *            read ahead limit in bytes, 0 to disable read ahead
+	 */
+	public void setReadAheadSize(int bytes) {
+		IOImplementation.getInstance().setStorageReadAhead(bytes);
+	}
+
 	/**
 	 * This method must be invoked before using the storage otherwise some
 	 * platforms might fail without the application data.
@@ -200,8 +211,9 @@ public class Storage {
 			cache.put(name, o);
 			return o;
 		} catch (Exception err) {
-			IOImplementation.getInstance().cleanup(d);
 			return null;
+		} finally {
+			IOImplementation.getInstance().cleanup(d);
 		}
 	}
 }
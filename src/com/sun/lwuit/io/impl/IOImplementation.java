@@ -54,6 +54,7 @@ public abstract class IOImplementation {
 	}
 
 	private Object storageData;
+	private int storageReadAhead;
 	private Hashtable cookies;
 	private ActionListener logger;
 
@@ -412,6 +413,29 @@ public abstract class IOImplementation {
 		return storageData;
 	}
 
+	/**
+	 * Indicates the amount of bytes a storage input stream may fetch ahead of
+	 * the data that was actually read. By default storage input streams fetch
+	 * a single storage record at a time, a larger value trades memory for
+	 * fewer storage round trips on implementations that support it.
+	 * 
+	 * @param storageReadAhead
+	 *            the read ahead limit in bytes, 0 to disable read ahead
+	 */
+	public void setStorageReadAhead(int storageReadAhead) {
+		this.storageReadAhead = storageReadAhead;
+	}
+
+	/**
+	 * Indicates the amount of bytes a storage input stream may fetch ahead of
+	 * the data that was actually read.
+	 * 
+	 * @return the read ahead limit in bytes
+	 */
+	public int getStorageReadAhead() {
+		return storageReadAhead;
+	}
+
 	/**
 	 * Deletes the given file name from the storage
 	 * 
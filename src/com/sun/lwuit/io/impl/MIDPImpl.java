@@ -57,27 +57,132 @@ public class MIDPImpl extends IOImplementation {
 	 */
 	private Hashtable fat = new Hashtable();
 
+	/**
+	 * Journal operation adding a name to key mapping to the FAT
+	 */
+	private static final byte JOURNAL_ADD = 1;
+
+	/**
+	 * Journal operation removing a name from the FAT
+	 */
+	private static final byte JOURNAL_DELETE = 2;
+
+	/**
+	 * The FAT store holds a compacted snapshot of the name to key mapping while
+	 * the journal holds the add/delete operations performed since the snapshot
+	 * was written
+	 */
+	private static final String FAT_JOURNAL = "FATJ";
+
+	/**
+	 * Snapshots alternate between the FAT store and this store so the previous
+	 * snapshot remains intact until the new one was fully written
+	 */
+	private static final String FAT_ALTERNATE = "FAT2";
+
+	/**
+	 * The store holding the current snapshot
+	 */
+	private String fatStore = "FAT";
+
+	/**
+	 * The generation of the current snapshot, a snapshot is complete only if
+	 * it ends with a commit record holding its generation. Older versions
+	 * wrote the FAT store without a commit record.
+	 */
+	private int fatGeneration;
+
+	/**
+	 * Number of journal entries after which the journal is folded into the FAT
+	 * snapshot
+	 */
+	private int journalCompactThreshold = 64;
+
+	/**
+	 * Number of operations currently in the journal
+	 */
+	private int journalSize;
+
 	/**
 	 * Initializes various internal states
 	 */
 	protected MIDPImpl() {
-		RecordEnumeration e = null;
+		try {
+			Hashtable primary = new Hashtable();
+			Hashtable alternate = new Hashtable();
+			int primaryGeneration = readFatSnapshot("FAT", primary);
+			int alternateGeneration = readFatSnapshot(FAT_ALTERNATE, alternate);
+
+			// the newest complete snapshot is current, an incomplete snapshot
+			// is the result of a compaction that didn't finish and the previous
+			// snapshot together with the journal still hold the full state
+			Hashtable snapshot = primary;
+			if (isNewerSnapshot(alternateGeneration, primaryGeneration)) {
+				snapshot = alternate;
+				fatStore = FAT_ALTERNATE;
+				fatGeneration = alternateGeneration;
+			} else {
+				fatGeneration = Math.max(0, primaryGeneration);
+			}
+			Enumeration names = snapshot.keys();
+			while (names.hasMoreElements()) {
+				String name = (String) names.nextElement();
+				addFatEntry(name, ((Short) snapshot.get(name)).shortValue());
+			}
+			replayJournal();
+		} catch (Exception ex) {
+			// #ifndef RIM
+			ex.printStackTrace();
+			// #else
+			// # System.out.println("Exception in object store constructor " +
+			// ex);
+			// #endif
+		}
+	}
+
+	/**
+	 * Returns true if a snapshot of the given generation is newer than a
+	 * snapshot of the other generation, generations wrap around
+	 */
+	private static boolean isNewerSnapshot(int generation, int other) {
+		if (generation < 0) {
+			return false;
+		}
+		if (other < 0 || generation == (other + 1) % Short.MAX_VALUE) {
+			return true;
+		}
+		return generation > other && other != (generation + 1) % Short.MAX_VALUE;
+	}
+
+	/**
+	 * Reads the snapshot in the given store into the table
+	 * 
+	 * @return the generation of the snapshot or -1 if the snapshot has no
+	 *         commit record (legacy, incomplete or missing)
+	 */
+	private int readFatSnapshot(String store, Hashtable snapshot) throws IOException {
 		RecordStore r = null;
+		RecordEnumeration e = null;
+		try {
+			r = RecordStore.openRecordStore(store, false);
+		} catch (RecordStoreException err) {
+			return -1;
+		}
+		int generation = -1;
 		try {
-			r = RecordStore.openRecordStore("FAT", true);
 			if (r.getNumRecords() > 0) {
 				e = r.enumerateRecords(null, null, false);
 				while (e.hasNextElement()) {
 					byte[] rec = e.nextRecord();
-					ByteArrayInputStream bi = new ByteArrayInputStream(rec);
-					DataInputStream di = new DataInputStream(bi);
+					DataInputStream di = new DataInputStream(new ByteArrayInputStream(rec));
 					String name = di.readUTF();
 					short key = di.readShort();
 					di.close();
-					bi.close();
-					fat.put(name, new Short(key));
-					if (key >= currentKey) {
-						currentKey += key;
+					if (name.length() == 0) {
+						// the commit record
+						generation = key;
+					} else {
+						snapshot.put(name, new Short(key));
 					}
 				}
 				e.destroy();
@@ -85,16 +190,87 @@ public class MIDPImpl extends IOImplementation {
 			}
 			r.closeRecordStore();
 			r = null;
-		} catch (Exception ex) {
-			// #ifndef RIM
-			ex.printStackTrace();
-			// #else
-			// # System.out.println("Exception in object store constructor " +
-			// ex);
-			// #endif
+		} catch (RecordStoreException err) {
 			cleanup(r);
 			cleanup(e);
+			return -1;
 		}
+		return generation;
+	}
+
+	private void addFatEntry(String name, short key) {
+		fat.put(name, new Short(key));
+		if (key >= currentKey) {
+			currentKey = (short) (key + 1);
+		}
+	}
+
+	/**
+	 * Applies the journal operations on top of the FAT snapshot, the journal
+	 * is written in order so replaying it by ascending record id restores the
+	 * latest state
+	 */
+	private void replayJournal() throws RecordStoreException, IOException {
+		RecordStore r = null;
+		try {
+			r = RecordStore.openRecordStore(FAT_JOURNAL, false);
+		} catch (RecordStoreException err) {
+			// no journal was written since the last compaction
+			return;
+		}
+		try {
+			int next = r.getNextRecordID();
+			for (int recordId = 1; recordId < next; recordId++) {
+				byte[] rec;
+				try {
+					rec = r.getRecord(recordId);
+				} catch (RecordStoreException missing) {
+					continue;
+				}
+				if (rec == null) {
+					continue;
+				}
+				DataInputStream di = new DataInputStream(new ByteArrayInputStream(rec));
+				byte op = di.readByte();
+				String name = di.readUTF();
+				short key = di.readShort();
+				di.close();
+				if (op == JOURNAL_ADD) {
+					addFatEntry(name, key);
+				} else {
+					fat.remove(name);
+				}
+				journalSize++;
+			}
+			r.closeRecordStore();
+			r = null;
+		} finally {
+			cleanup(r);
+		}
+		if (journalSize > journalCompactThreshold) {
+			compactFat();
+		}
+	}
+
+	/**
+	 * Indicates the number of FAT journal entries after which the journal is
+	 * compacted into the FAT snapshot
+	 * 
+	 * @param journalCompactThreshold
+	 *            number of add/delete operations
+	 */
+	public void setJournalCompactThreshold(int journalCompactThreshold) {
+		this.journalCompactThreshold = journalCompactThreshold;
+	}
+
+	/**
+	 * Indicates the number of FAT journal entries after which the journal is
+	 * compacted into the FAT snapshot
+	 * 
+	 * @return number of add/delete operations
+	 */
+	public int getJournalCompactThreshold() {
+		return journalCompactThreshold;
 	}
 
 	/**
@@ -269,8 +445,8 @@ public class MIDPImpl extends IOImplementation {
 	public void deleteStorageFile(String name) {
 		Short key = (Short) fat.get(name);
 		fat.remove(name);
-		resaveFat();
 		if (key != null) {
+			appendJournal(JOURNAL_DELETE, name, key.shortValue());
 			try {
 				for (char c = 'A'; c < 'Z'; c++) {
 					RecordStore.deleteRecordStore("" + c + key);
@@ -280,55 +456,89 @@ public class MIDPImpl extends IOImplementation {
 		}
 	}
 
-	private void resaveFat() {
+	/**
+	 * Appends a single operation to the FAT journal which makes FAT updates
+	 * constant time regardless of the number of storage entries
+	 */
+	private void appendJournal(byte op, String name, short key) {
 		RecordStore r = null;
-		RecordEnumeration e = null;
 		try {
-			r = RecordStore.openRecordStore("FAT", true);
-			Vector keys = new Vector();
-			Enumeration fatKeys = fat.keys();
-			while (fatKeys.hasMoreElements()) {
-				keys.addElement(fatKeys.nextElement());
-			}
-			e = r.enumerateRecords(null, null, false);
-			while (e.hasNextElement()) {
-				int recordId = e.nextRecordId();
-				byte[] rec = r.getRecord(recordId);
-				ByteArrayInputStream bi = new ByteArrayInputStream(rec);
-				DataInputStream di = new DataInputStream(bi);
-				String name = di.readUTF();
-				short key = di.readShort();
-				di.close();
-				bi.close();
-				Short fatKey = (Short) fat.get(name);
-				if (fatKey == null) {
-					// we need to remove this record...
-					r.deleteRecord(recordId);
-				} else {
-					// we need to update the record
-					if (fatKey.shortValue() != key) {
-						byte[] bd = toRecord(name, fatKey.shortValue());
-						r.setRecord(recordId, bd, 0, bd.length);
-					}
-				}
-				keys.removeElement(name);
+			ByteArrayOutputStream bo = new ByteArrayOutputStream();
+			DataOutputStream d = new DataOutputStream(bo);
+			d.writeByte(op);
+			d.writeUTF(name);
+			d.writeShort(key);
+			d.close();
+			byte[] bd = bo.toByteArray();
+			r = RecordStore.openRecordStore(FAT_JOURNAL, true);
+			r.addRecord(bd, 0, bd.length);
+			r.closeRecordStore();
+			r = null;
+			journalSize++;
+			if (journalSize > journalCompactThreshold) {
+				compactFat();
 			}
-			e.destroy();
-			e = null;
+		} catch (Exception err) {
+			// This might be a valid exception and some platforms (e..g. RIM)
+			// don't respond well to PST
+			// err.printStackTrace();
+			cleanup(r);
+		}
+	}
 
-			Enumeration remainingKeys = keys.elements();
-			while (remainingKeys.hasMoreElements()) {
-				String name = (String) remainingKeys.nextElement();
+	/**
+	 * Writes the in memory FAT as a fresh snapshot into the store that doesn't
+	 * hold the current snapshot and discards the journal. The previous snapshot
+	 * and the journal are only deleted once the new snapshot was fully written
+	 * and closed, if the process is interrupted before that the previous
+	 * snapshot and the journal are used on the next startup.
+	 */
+	private void compactFat() {
+		RecordStore r = null;
+		String target;
+		if (fatStore.equals(FAT_ALTERNATE)) {
+			target = "FAT";
+		} else {
+			target = FAT_ALTERNATE;
+		}
+		try {
+			try {
+				RecordStore.deleteRecordStore(target);
+			} catch (RecordStoreException ignor) {
+			}
+			r = RecordStore.openRecordStore(target, true);
+			Enumeration fatKeys = fat.keys();
+			while (fatKeys.hasMoreElements()) {
+				String name = (String) fatKeys.nextElement();
 				Short key = (Short) fat.get(name);
 				byte[] bd = toRecord(name, key.shortValue());
 				r.addRecord(bd, 0, bd.length);
 			}
+
+			// the commit record is written last and marks the snapshot as
+			// complete
+			int generation = (fatGeneration + 1) % Short.MAX_VALUE;
+			byte[] bd = toRecord("", (short) generation);
+			r.addRecord(bd, 0, bd.length);
 			r.closeRecordStore();
+			r = null;
+
+			String previous = fatStore;
+			fatStore = target;
+			fatGeneration = generation;
+			journalSize = 0;
+			try {
+				RecordStore.deleteRecordStore(FAT_JOURNAL);
+			} catch (RecordStoreException ignor) {
+			}
+			try {
+				RecordStore.deleteRecordStore(previous);
+			} catch (RecordStoreException ignor) {
+			}
 		} catch (Exception err) {
 			// This might be a valid exception and some platforms (e..g. RIM)
 			// don't respond well to PST
 			// err.printStackTrace();
-			cleanup(e);
 			cleanup(r);
 		}
 	}
@@ -428,35 +638,25 @@ public class MIDPImpl extends IOImplementation {
 		}
 	}
 
-	private class RMSInputStream extends InputStream {
-		private InputStream current;
-		private int offset;
+	/**
+	 * Reads the records of a storage entry lazily from the record stores
+	 * written by RMSOutputStream, a store is closed as soon as its last record
+	 * was consumed so a stream that is read to its last byte but never closed
+	 * doesn't keep the store open
+	 */
+	private class RMSInputStream extends RecordInputStream {
 		private short key;
+		private char letter = 'A';
+		private RecordStore store;
+		private int[] recordIds;
+		private int recordOffset;
+		private boolean finished;
 
-		public RMSInputStream(short key) throws IOException {
+		public RMSInputStream(short key, int readAheadLimit) throws IOException {
+			super(readAheadLimit);
 			this.key = key;
-			RecordStore r = null;
-			RecordEnumeration e = null;
-			char letter = 'A';
 			try {
-				ByteArrayOutputStream os = new ByteArrayOutputStream();
-				r = open("" + letter + key);
-				while (r != null) {
-					e = r.enumerateRecords(null, null, false);
-					while (e.hasNextElement()) {
-						byte[] data = e.nextRecord();
-						os.write(data);
-					}
-					e.destroy();
-					r.closeRecordStore();
-					letter++;
-					r = open("" + letter + key);
-					if (letter == 'Z') {
-						letter = 'a' - ((char) 1);
-					}
-				}
-				os.close();
-				current = new ByteArrayInputStream(os.toByteArray());
+				openStore();
 			} catch (RecordStoreException ex) {
 				// #ifndef RIM
 				ex.printStackTrace();
@@ -465,8 +665,7 @@ public class MIDPImpl extends IOImplementation {
 				// System.out.println("Exception in object store input stream constructor: "
 				// + ex);
 				// #endif
-				cleanup(r);
-				cleanup(e);
+				cleanup(store);
 				throw new IOException(ex.toString());
 			}
 		}
@@ -479,38 +678,118 @@ public class MIDPImpl extends IOImplementation {
 			}
 		}
 
-		public long skip(long n) throws IOException {
-			return super.skip(n);
+		/**
+		 * Opens the record store matching the current letter and collects its
+		 * record ids, when no such store exists the stream reached its end
+		 */
+		private void openStore() throws RecordStoreException {
+			store = open("" + letter + key);
+			recordOffset = 0;
+			if (store == null) {
+				recordIds = null;
+				finished = true;
+				return;
+			}
+			recordIds = new int[store.getNumRecords()];
+			RecordEnumeration e = store.enumerateRecords(null, null, false);
+			for (int iter = 0; iter < recordIds.length && e.hasNextElement(); iter++) {
+				recordIds[iter] = e.nextRecordId();
+			}
+			e.destroy();
 		}
 
-		public void close() throws IOException {
-			current.close();
+		/**
+		 * @inheritDoc
+		 */
+		protected boolean nextRecord() throws IOException {
+			try {
+				while (!finished) {
+					if (store != null) {
+						if (recordOffset < recordIds.length) {
+							return true;
+						}
+						RecordStore r = store;
+						store = null;
+						r.closeRecordStore();
+					}
+					if (letter == 'Z') {
+						letter = 'a';
+					} else {
+						letter++;
+					}
+					openStore();
+				}
+				return false;
+			} catch (RecordStoreException ex) {
+				throw new IOException(ex.toString());
+			}
 		}
 
-		public int read(byte[] arg0) throws IOException {
-			int r = current.read(arg0);
-			offset += r;
-			return r;
+		/**
+		 * @inheritDoc
+		 */
+		protected int getRecordSize() throws IOException {
+			try {
+				return store.getRecordSize(recordIds[recordOffset]);
+			} catch (RecordStoreException ex) {
+				throw new IOException(ex.toString());
+			}
 		}
 
-		public int read(byte[] arg0, int arg1, int arg2) throws IOException {
-			int r = current.read(arg0, arg1, arg2);
-			offset += r;
-			return r;
+		/**
+		 * @inheritDoc
+		 */
+		protected byte[] readRecord() throws IOException {
+			try {
+				byte[] data = store.getRecord(recordIds[recordOffset]);
+				recordConsumed();
+				return data;
+			} catch (RecordStoreException ex) {
+				throw new IOException(ex.toString());
+			}
+		}
+
+		/**
+		 * @inheritDoc
+		 */
+		protected void skipRecord() throws IOException {
+			try {
+				recordConsumed();
+			} catch (RecordStoreException ex) {
+				throw new IOException(ex.toString());
+			}
 		}
 
-		public int read() throws IOException {
-			offset++;
-			return current.read();
+		/**
+		 * Moves past the current record and closes the store once its last
+		 * record was consumed
+		 */
+		private void recordConsumed() throws RecordStoreException {
+			recordOffset++;
+			if (recordOffset >= recordIds.length) {
+				RecordStore r = store;
+				store = null;
+				r.closeRecordStore();
+			}
 		}
 
+		/**
+		 * @inheritDoc
+		 */
+		protected void closeRecords() {
+			finished = true;
+			if (store != null) {
+				RecordStore r = store;
+				store = null;
+				cleanup(r);
+			}
+		}
 	}
 
 	/**
 	 * @inheritDoc
 	 */
 	public OutputStream createStorageOutputStream(String name) throws IOException {
-		RecordStore r = null;
 		RMSOutputStream os = null;
 		DataOutputStream out = null;
 		try {
@@ -519,17 +798,12 @@ public class MIDPImpl extends IOImplementation {
 				// need to add a key to the FAT
 				key = new Short(currentKey);
 				fat.put(name, key);
-				r = RecordStore.openRecordStore("FAT", true);
-				byte[] data = toRecord(name, currentKey);
 				currentKey++;
-				r.addRecord(data, 0, data.length);
-				r.closeRecordStore();
-				r = null;
+				appendJournal(JOURNAL_ADD, name, key.shortValue());
 			}
 			os = new RMSOutputStream(key.shortValue());
 			return os;
 		} catch (Exception err) {
-			cleanup(r);
 			cleanup(os);
 			cleanup(out);
 			throw new IOException(err.getMessage());
@@ -546,7 +820,7 @@ public class MIDPImpl extends IOImplementation {
 		}
 
 		try {
-			return new RMSInputStream(key.shortValue());
+			return new RMSInputStream(key.shortValue(), getStorageReadAhead());
 		} catch (Exception err) {
 			err.printStackTrace();
 		}
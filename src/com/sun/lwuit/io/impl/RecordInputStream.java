@@ -0,0 +1,220 @@
+/*
+ * Copyright (c) 2008, 2010, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores
+ * CA 94065 USA or visit www.oracle.com if you need additional information or
+ * have any questions.
+ */
+package com.sun.lwuit.io.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Vector;
+
+/**
+ * Streams a storage entry that is persisted as a sequence of records, a single
+ * record is held in memory at any given moment unless read ahead is enabled in
+ * which case up to readAheadLimit additional bytes are fetched in advance.
+ * Subclasses provide the record access on top of the underlying storage.
+ */
+public abstract class RecordInputStream extends InputStream {
+	private byte[] current;
+	private int currentOffset;
+	private Vector readAhead = new Vector();
+	private int readAheadSize;
+	private int readAheadLimit;
+
+	/**
+	 * Creates a stream that fetches records on demand
+	 * 
+	 * @param readAheadLimit
+	 *            number of bytes that may be fetched in advance, 0 to fetch a
+	 *            record only when it is read
+	 */
+	protected RecordInputStream(int readAheadLimit) {
+		this.readAheadLimit = readAheadLimit;
+	}
+
+	/**
+	 * Positions the record cursor on the next unread record
+	 * 
+	 * @return false if there are no more records
+	 */
+	protected abstract boolean nextRecord() throws IOException;
+
+	/**
+	 * Returns the size of the record under the cursor without fetching it
+	 * 
+	 * @return size in bytes
+	 */
+	protected abstract int getRecordSize() throws IOException;
+
+	/**
+	 * Fetches the record under the cursor and moves the cursor past it
+	 * 
+	 * @return the record data
+	 */
+	protected abstract byte[] readRecord() throws IOException;
+
+	/**
+	 * Moves the cursor past the record under it without fetching it
+	 */
+	protected abstract void skipRecord() throws IOException;
+
+	/**
+	 * Releases the underlying storage, invoked once when the stream is closed
+	 */
+	protected abstract void closeRecords();
+
+	private byte[] fetchRecord() throws IOException {
+		if (!nextRecord()) {
+			return null;
+		}
+		byte[] data = readRecord();
+		if (data == null) {
+			return new byte[0];
+		}
+		return data;
+	}
+
+	/**
+	 * Makes sure the current record has unread bytes
+	 * 
+	 * @return false when the end of the stream was reached
+	 */
+	private boolean fill() throws IOException {
+		try {
+			while (current == null || currentOffset >= current.length) {
+				if (readAhead.size() > 0) {
+					current = (byte[]) readAhead.elementAt(0);
+					readAhead.removeElementAt(0);
+					readAheadSize -= current.length;
+				} else {
+					current = fetchRecord();
+					if (current == null) {
+						return false;
+					}
+				}
+				currentOffset = 0;
+				while (readAheadSize < readAheadLimit) {
+					byte[] data = fetchRecord();
+					if (data == null) {
+						break;
+					}
+					readAhead.addElement(data);
+					readAheadSize += data.length;
+				}
+			}
+			return true;
+		} catch (IOException ex) {
+			close();
+			throw ex;
+		}
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public long skip(long n) throws IOException {
+		long skipped = 0;
+		try {
+			while (skipped < n) {
+				if (current != null && currentOffset < current.length) {
+					int count = (int) Math.min(n - skipped, current.length - currentOffset);
+					currentOffset += count;
+					skipped += count;
+					continue;
+				}
+				if (readAhead.size() == 0) {
+					if (!nextRecord()) {
+						break;
+					}
+
+					// whole records can be skipped without fetching them
+					int size = getRecordSize();
+					if (size <= n - skipped) {
+						skipRecord();
+						skipped += size;
+						continue;
+					}
+				}
+				if (!fill()) {
+					break;
+				}
+			}
+		} catch (IOException ex) {
+			close();
+			throw ex;
+		}
+		return skipped;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public int available() throws IOException {
+		if (current == null) {
+			return readAheadSize;
+		}
+		return current.length - currentOffset + readAheadSize;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public void close() throws IOException {
+		current = null;
+		readAhead.removeAllElements();
+		readAheadSize = 0;
+		closeRecords();
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public int read(byte[] b) throws IOException {
+		return read(b, 0, b.length);
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public int read(byte[] b, int off, int len) throws IOException {
+		if (len == 0) {
+			return 0;
+		}
+		if (!fill()) {
+			return -1;
+		}
+		int count = Math.min(len, current.length - currentOffset);
+		System.arraycopy(current, currentOffset, b, off, count);
+		currentOffset += count;
+		return count;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public int read() throws IOException {
+		if (!fill()) {
+			return -1;
+		}
+		return current[currentOffset++] & 0xff;
+	}
+}
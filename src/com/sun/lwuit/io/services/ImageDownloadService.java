@@ -138,7 +138,7 @@ public class ImageDownloadService extends ConnectionRequest {
 		if (im != null) {
 			Hashtable h = (Hashtable) targetList.getModel().getItemAt(targetOffset);
 			if (toScale != null) {
-				im = im.scaled(toScale.getWidth(), toScale.getHeight());
+				im = createScaledImage(im, toScale);
 			}
 			h.put(targetKey, im);
 			targetList.repaint();
@@ -177,7 +177,7 @@ public class ImageDownloadService extends ConnectionRequest {
 		if (im != null) {
 			Hashtable h = (Hashtable) targetList.getModel().getItemAt(targetOffset);
 			if (scale != null) {
-				im = im.scaled(scale.getWidth(), scale.getHeight());
+				im = createScaledImage(im, scale);
 			}
 			h.put(targetKey, im);
 			targetList.repaint();
@@ -210,7 +210,7 @@ public class ImageDownloadService extends ConnectionRequest {
 		Image im = cacheImage(cacheId, null);
 		if (im != null) {
 			if (toScale != null) {
-				im = im.scaled(toScale.getWidth(), toScale.getHeight());
+				im = createScaledImage(im, toScale);
 			}
 			l.setIcon(im);
 			l.repaint();
@@ -291,6 +291,24 @@ public class ImageDownloadService extends ConnectionRequest {
 		return null;
 	}
 
+	/**
+	 * Returns the given image at the given size, an encoded image is decoded
+	 * directly at that size without creating the full size image first
+	 * 
+	 * @param im
+	 *            the image
+	 * @param toScale
+	 *            the size of the resulting image
+	 * @return the image at the given size
+	 */
+	private static Image createScaledImage(Image im, Dimension toScale) {
+		if (im instanceof EncodedImage) {
+			byte[] data = ((EncodedImage) im).getImageData();
+			return Image.createImage(data, 0, data.length, toScale.getWidth(), toScale.getHeight());
+		}
+		return im.scaled(toScale.getWidth(), toScale.getHeight());
+	}
+
 	/**
 	 * @inheritDoc
 	 */
@@ -310,12 +328,13 @@ public class ImageDownloadService extends ConnectionRequest {
 			result = EncodedImage.create(input);
 		}
 
-		// trigger an exception in case of an invalid image
-		result.getWidth();
-		Image image = result;
-
+		Image image;
 		if (toScale != null) {
-			image = image.scaled(toScale.getWidth(), toScale.getHeight());
+			image = createScaledImage(result, toScale);
+		} else {
+			// trigger an exception in case of an invalid image
+			result.getWidth();
+			image = result;
 		}
 
 		if (parentLabel != null) {
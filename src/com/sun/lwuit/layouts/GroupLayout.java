@@ -230,6 +230,16 @@ public class GroupLayout extends Layout {
 	// Whether or not any preferred padding (or container padding) springs exist
 	private boolean hasPreferredPaddingSprings;
 
+	// Preferred size of the groups (excluding the host margins) as of the
+	// last getPreferredSize call, UNSET if it must be recalculated.
+	private int preferredWidth = UNSET;
+	private int preferredHeight = UNSET;
+
+	// Size the springs were last laid out for, UNSET if the springs must be
+	// sized again.
+	private int layoutWidth = UNSET;
+	private int layoutHeight = UNSET;
+
 	/**
 	 * The LayoutStyle instance to use, if null the sharedInstance is used.
 	 */
@@ -780,6 +790,7 @@ public class GroupLayout extends Layout {
 	}
 
 	private void invalidateHost() {
+		invalidateCachedSizes();
 		host.invalidate();
 		host.repaint();
 	}
@@ -818,8 +829,19 @@ public class GroupLayout extends Layout {
 	public Dimension getPreferredSize(Container parent) {
 		checkParent(parent);
 		prepare(PREF_SIZE);
-		return adjustSize(horizontalGroup.getPreferredSize(HORIZONTAL),
-				verticalGroup.getPreferredSize(VERTICAL));
+		if (preferredWidth == UNSET) {
+			if (getAutocreateGaps() || getAutocreateContainerGaps() ||
+					hasPreferredPaddingSprings) {
+				calculateAutopadding(horizontalGroup, HORIZONTAL, PREF_SIZE, 0, 0);
+				calculateAutopadding(verticalGroup, VERTICAL, PREF_SIZE, 0, 0);
+
+				// the autopadding calculation resized the springs
+				layoutWidth = UNSET;
+			}
+			preferredWidth = horizontalGroup.getPreferredSize(HORIZONTAL);
+			preferredHeight = verticalGroup.getPreferredSize(VERTICAL);
+		}
+		return adjustSize(preferredWidth, preferredHeight);
 	}
 
 	/**
@@ -861,17 +883,23 @@ public class GroupLayout extends Layout {
 		int width = parent.getWidth() - insetLeft - insetRight;
 		int height = parent.getHeight() - insetTop - insetBottom;
 		boolean ltr = isLeftToRight();
-		if (getAutocreateGaps() || getAutocreateContainerGaps() ||
-				hasPreferredPaddingSprings) {
-			// Step 2: Calculate autopadding springs
-			calculateAutopadding(horizontalGroup, HORIZONTAL, SPECIFIC_SIZE, 0,
-					width);
-			calculateAutopadding(verticalGroup, VERTICAL, SPECIFIC_SIZE, 0,
-					height);
-		}
-		// Step 3: set the size of the groups.
-		horizontalGroup.setSize(HORIZONTAL, 0, width);
-		verticalGroup.setSize(VERTICAL, 0, height);
+		// Steps 2 and 3 are skipped if nothing changed since the springs were
+		// last sized for the same dimensions.
+		if (width != layoutWidth || height != layoutHeight) {
+			if (getAutocreateGaps() || getAutocreateContainerGaps() ||
+					hasPreferredPaddingSprings) {
+				// Step 2: Calculate autopadding springs
+				calculateAutopadding(horizontalGroup, HORIZONTAL, SPECIFIC_SIZE, 0,
+						width);
+				calculateAutopadding(verticalGroup, VERTICAL, SPECIFIC_SIZE, 0,
+						height);
+			}
+			// Step 3: set the size of the groups.
+			horizontalGroup.setSize(HORIZONTAL, 0, width);
+			verticalGroup.setSize(VERTICAL, 0, height);
+			layoutWidth = width;
+			layoutHeight = height;
+		}
 
 		// Step 4: apply the size to the components.
 		Enumeration componentInfo = componentInfos.elements();
@@ -958,9 +986,27 @@ public class GroupLayout extends Layout {
 
 	private void prepare(int sizeType) {
 		boolean visChanged = false;
+		if (isValid) {
+			// Step 1: Check the members for visibility and preferred size
+			// changes, only the springs of changed members (and the groups
+			// containing them) are cleared.
+			for (Enumeration cis = componentInfos.elements(); cis.hasMoreElements();) {
+				ComponentInfo ci = (ComponentInfo) cis.nextElement();
+				if (ci.updateVisibility()) {
+					visChanged = true;
+				} else if (ci.updatePreferredSize()) {
+					ci.invalidateSprings();
+					invalidateCachedSizes();
+				}
+			}
+			if (visChanged) {
+				isValid = false;
+			}
+		}
 		// Step 1: If not-valid, clear springs and update visibility.
 		if (!isValid) {
 			isValid = true;
+			invalidateCachedSizes();
 			horizontalGroup.setSize(HORIZONTAL, UNSET, UNSET);
 			verticalGroup.setSize(VERTICAL, UNSET, UNSET);
 			for (Enumeration cis = componentInfos.elements(); cis.hasMoreElements();) {
@@ -968,6 +1014,7 @@ public class GroupLayout extends Layout {
 				if (ci.updateVisibility()) {
 					visChanged = true;
 				}
+				ci.updatePreferredSize();
 				ci.clearCachedSize();
 			}
 		}
@@ -979,6 +1026,7 @@ public class GroupLayout extends Layout {
 		// Step 3: Adjust the autopadding. This removes existing
 		// autopadding, then recalculates where it should go.
 		if (springsChanged || visChanged) {
+			invalidateCachedSizes();
 			checkComponents();
 			horizontalGroup.removeAutopadding();
 			verticalGroup.removeAutopadding();
@@ -990,16 +1038,20 @@ public class GroupLayout extends Layout {
 			}
 			springsChanged = false;
 		}
-		// Step 4: (for min/pref/max size calculations only) calculate the
-		// autopadding. This invokes for unsetting the calculated values, then
-		// recalculating them.
-		// If sizeType == SPECIFIC_SIZE, it indicates we're doing layout, this
-		// step will be done later on.
-		if (sizeType != SPECIFIC_SIZE && (getAutocreateGaps() ||
-				getAutocreateContainerGaps() || hasPreferredPaddingSprings)) {
-			calculateAutopadding(horizontalGroup, HORIZONTAL, sizeType, 0, 0);
-			calculateAutopadding(verticalGroup, VERTICAL, sizeType, 0, 0);
-		}
+		// Step 4 (calculating the autopadding for min/pref/max sizes) is
+		// performed by getPreferredSize only when its cached value was
+		// invalidated by the steps above.
+	}
+
+	/**
+	 * Discards the cached preferred size and the cached spring sizes of the
+	 * last layout.
+	 */
+	private void invalidateCachedSizes() {
+		preferredWidth = UNSET;
+		preferredHeight = UNSET;
+		layoutWidth = UNSET;
+		layoutHeight = UNSET;
 	}
 
 	private void calculateAutopadding(Group group, int axis, int sizeType,
@@ -3392,6 +3444,11 @@ public class GroupLayout extends Layout {
 		private boolean visible;
 		private Boolean honorsVisibility;
 
+		// Preferred size of the component when its springs were last
+		// calculated.
+		private int prefWidth = UNSET;
+		private int prefHeight = UNSET;
+
 		ComponentInfo(Component component) {
 			this.component = component;
 			updateVisibility();
@@ -3447,6 +3504,59 @@ public class GroupLayout extends Layout {
 			return false;
 		}
 
+		/**
+		 * Updates the cached preferred size of the component.
+		 * 
+		 * @return true if the preferred size changed
+		 */
+		boolean updatePreferredSize() {
+			Dimension d = component.getPreferredSize();
+			if (d.getWidth() != prefWidth || d.getHeight() != prefHeight) {
+				prefWidth = d.getWidth();
+				prefHeight = d.getHeight();
+				return true;
+			}
+			return false;
+		}
+
+		/**
+		 * Clears the cached sizes of the springs of this component, of the
+		 * components linked to it and of the groups containing them.
+		 */
+		void invalidateSprings() {
+			invalidateSpring(horizontalSpring, HORIZONTAL);
+			invalidateSpring(verticalSpring, VERTICAL);
+			invalidateLinked(horizontalMaster, HORIZONTAL);
+			invalidateLinked(verticalMaster, VERTICAL);
+		}
+
+		private void invalidateLinked(LinkInfo master, int axis) {
+			if (master != null) {
+				master.clearCachedSize();
+				for (int i = 0; i < master.linked.size(); i++) {
+					ComponentInfo info = (ComponentInfo) master.linked.elementAt(i);
+					if (info != this) {
+						if (axis == HORIZONTAL) {
+							invalidateSpring(info.horizontalSpring, axis);
+						} else {
+							invalidateSpring(info.verticalSpring, axis);
+						}
+					}
+				}
+			}
+		}
+
+		private void invalidateSpring(Spring spring, int axis) {
+			if (spring != null) {
+				spring.setSize(axis, 0, UNSET);
+				Spring parent = spring.getParent();
+				while (parent != null) {
+					parent.unset();
+					parent = parent.getParent();
+				}
+			}
+		}
+
 		public void setBounds(int insetX, int insetY, int parentWidth, boolean ltr) {
 			int x = horizontalSpring.getOrigin();
 			int w = horizontalSpring.getSize();
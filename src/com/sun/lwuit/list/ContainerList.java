@@ -27,9 +27,11 @@ import com.sun.lwuit.Container;
 import com.sun.lwuit.Graphics;
 import com.sun.lwuit.Component;
 import com.sun.lwuit.Display;
+import com.sun.lwuit.Image;
 import com.sun.lwuit.events.ActionEvent;
 import com.sun.lwuit.events.ActionListener;
 import com.sun.lwuit.events.DataChangedListener;
+import com.sun.lwuit.events.DataRangeChangedListener;
 import com.sun.lwuit.events.SelectionListener;
 import com.sun.lwuit.geom.Dimension;
 import com.sun.lwuit.layouts.Layout;
@@ -54,6 +56,7 @@ public class ContainerList extends Container {
 	private ListModel model;
 	private Listeners listener;
 	private EventDispatcher dispatcher = new EventDispatcher();
+	private RowImageCache rowImageCache;
 
 	/**
 	 * Default constructor
@@ -99,6 +102,9 @@ public class ContainerList extends Container {
 	 */
 	public void setRenderer(CellRenderer r) {
 		renderer = r;
+		if (rowImageCache != null) {
+			rowImageCache.clear();
+		}
 		repaint();
 	}
 
@@ -109,6 +115,51 @@ public class ContainerList extends Container {
 		return renderer;
 	}
 
+	/**
+	 * Returns the size of the row image cache in bytes
+	 * 
+	 * @return the size of the row image cache in bytes, 0 if entries aren't
+	 *         cached
+	 */
+	public int getRowImageCacheSize() {
+		if (rowImageCache == null) {
+			return 0;
+		}
+		return rowImageCache.getMaxSize();
+	}
+
+	/**
+	 * Enables caching the images of rendered entries, so unchanged entries are
+	 * drawn as a single image rather than painting the renderer component on
+	 * every repaint. An entry is rendered again when the model fires a data
+	 * change event for it, notice that a model whose items mutate must fire
+	 * such an event when an item changes. The focused entry is never cached so
+	 * its animations keep running. Caching requires mutable images with
+	 * alpha and is ignored on platforms that don't support them.
+	 * 
+	 * @param bytes
+	 *            the maximum memory used by cached entries (estimated as 4
+	 *            bytes per pixel), 0 to disable caching which is the default
+	 */
+	public void setRowImageCacheSize(int bytes) {
+		if (bytes <= 0 || !RowImageCache.isSupported()) {
+			rowImageCache = null;
+		} else {
+			rowImageCache = new RowImageCache(bytes);
+		}
+		repaint();
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public void refreshTheme() {
+		if (rowImageCache != null) {
+			rowImageCache.clear();
+		}
+		super.refreshTheme();
+	}
+
 	private void updateComponentCount() {
 		int cc = getComponentCount();
 		int modelCount = model.getSize();
@@ -188,6 +239,9 @@ public class ContainerList extends Container {
 			listener = null;
 		}
 		this.model = model;
+		if (rowImageCache != null) {
+			rowImageCache.clear();
+		}
 		updateComponentCount();
 		if (model.getSelectedIndex() > 0) {
 			getComponentAt(model.getSelectedIndex()).requestFocus();
@@ -291,6 +345,26 @@ public class ContainerList extends Container {
 		}
 
 		public void paint(Graphics g) {
+			// the focused entry is always rendered so focus animations and
+			// tickers keep running, as the selected row of List
+			if (rowImageCache != null && !hasFocus() && getWidth() > 0 && getHeight() > 0) {
+				Object item = model.getItemAt(offset);
+				Image img = rowImageCache.get(offset, item, false, getWidth(), getHeight());
+				if (img == null && getWidth() * getHeight() * 4 <= rowImageCache.getMaxSize()) {
+					Component cmp = renderer.getCellRendererComponent(ContainerList.this, model, item, offset, false);
+					cmp.setX(0);
+					cmp.setY(0);
+					cmp.setWidth(getWidth());
+					cmp.setHeight(getHeight());
+					img = RowImageCache.createRowImage(getWidth(), getHeight());
+					cmp.paintComponent(img.getGraphics());
+					rowImageCache.put(offset, item, false, img);
+				}
+				if (img != null) {
+					g.drawImage(img, getX(), getY());
+					return;
+				}
+			}
 			Component cmp = renderer.getCellRendererComponent(ContainerList.this, model, model.getItemAt(offset), offset, hasFocus());
 			cmp.setX(getX());
 			cmp.setY(getY());
@@ -324,9 +398,25 @@ public class ContainerList extends Container {
 		}
 	}
 
-	private class Listeners implements DataChangedListener, SelectionListener {
+	private class Listeners implements DataRangeChangedListener, SelectionListener {
 
 		public void dataChanged(int status, int index) {
+			if (rowImageCache != null) {
+				if (status == DataChangedListener.CHANGED) {
+					rowImageCache.invalidate(index);
+				} else {
+					rowImageCache.clear();
+				}
+			}
+			updateComponentCount();
+		}
+
+		public void dataRangeChanged(int index, int count) {
+			if (rowImageCache != null) {
+				for (int iter = index; iter < index + count; iter++) {
+					rowImageCache.invalidate(iter);
+				}
+			}
 			updateComponentCount();
 		}
 
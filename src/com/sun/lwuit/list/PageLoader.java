@@ -0,0 +1,46 @@
+/*
+ * Copyright (c) 2008, 2010, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores
+ * CA 94065 USA or visit www.oracle.com if you need additional information or
+ * have any questions.
+ */
+package com.sun.lwuit.list;
+
+/**
+ * Fetches the items of a {@link PagedListModel} one page at a time. The loader
+ * is always invoked on a background thread of the model so it may block while
+ * it communicates with a server.
+ */
+public interface PageLoader {
+
+	/**
+	 * Loads a page of items, this method is invoked on a background thread
+	 * 
+	 * @param offset
+	 *            the index of the first item in the page
+	 * @param count
+	 *            the number of items requested
+	 * @return the items of the page, an array shorter than count leaves the
+	 *         remaining items as placeholders. Null indicates a failure in
+	 *         which case the page is requested again once the retry delay of
+	 *         the model elapsed or when the model is refreshed
+	 */
+	public Object[] loadPage(int offset, int count);
+}
@@ -0,0 +1,550 @@
+/*
+ * Copyright (c) 2008, 2010, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores
+ * CA 94065 USA or visit www.oracle.com if you need additional information or
+ * have any questions.
+ */
+package com.sun.lwuit.list;
+
+import com.sun.lwuit.Display;
+import com.sun.lwuit.events.DataChangedListener;
+import com.sun.lwuit.events.DataRangeChangedListener;
+import com.sun.lwuit.events.SelectionListener;
+import com.sun.lwuit.util.EventDispatcher;
+import java.util.Enumeration;
+import java.util.Hashtable;
+import java.util.Vector;
+
+/**
+ * A read only list model for very large lists whose items are fetched on demand
+ * in pages. Pages are loaded by a {@link PageLoader} on a background thread,
+ * until a page arrives its items are represented by a placeholder object which
+ * renderers can detect using {@link #isLoaded(int)}. The model prefetches pages
+ * ahead in the direction the user is moving and discards the pages furthest
+ * from the visible items once the number of loaded pages exceeds its limit.
+ * <p>
+ * A page whose loader failed (returned null or threw an exception) is
+ * requested again only once the retry delay elapsed or after a refresh, so an
+ * unavailable server isn't hammered on every repaint.
+ * <p>
+ * Pages loaded at the same time are reported together in a single pass on the
+ * EDT. Listeners implementing {@link DataRangeChangedListener} receive one
+ * event per page, other listeners receive a
+ * {@link DataChangedListener#CHANGED} event per item.
+ */
+public class PagedListModel implements ListModel {
+
+	private static final String DEFAULT_PLACEHOLDER = "...";
+
+	private final Object LOCK = new Object();
+
+	private PageLoader loader;
+	private int size;
+	private int pageSize;
+	private Object placeholder = DEFAULT_PLACEHOLDER;
+	private int maxPages = 10;
+	private int prefetchPages = 1;
+	private long retryDelay = 5000;
+
+	/**
+	 * Loaded pages, maps an Integer page number to its items
+	 */
+	private Hashtable pages = new Hashtable();
+
+	/**
+	 * Page numbers waiting for the loader in the order they should be loaded
+	 */
+	private Vector queue = new Vector();
+
+	/**
+	 * Pages that are queued or currently being loaded
+	 */
+	private Hashtable requested = new Hashtable();
+
+	/**
+	 * Pages whose loading failed, maps an Integer page number to the Long time
+	 * of the failure
+	 */
+	private Hashtable failed = new Hashtable();
+
+	/**
+	 * Pages that arrived and weren't reported to the listeners yet
+	 */
+	private Vector arrived = new Vector();
+
+	private boolean flushPending;
+	private Thread worker;
+
+	/**
+	 * Incremented on refresh so pages loaded for stale data are discarded
+	 */
+	private int generation;
+
+	private int currentPage;
+	private int lastMissedPage = -1;
+	private int direction = 1;
+
+	private EventDispatcher dataListener = new EventDispatcher();
+	private EventDispatcher selectionListener = new EventDispatcher();
+
+	private int selectedIndex = 0;
+
+	/**
+	 * Creates a new paged model
+	 * 
+	 * @param loader
+	 *            fetches the pages of the model on a background thread
+	 * @param size
+	 *            the total number of items in the model
+	 * @param pageSize
+	 *            the number of items fetched in a single request
+	 */
+	public PagedListModel(PageLoader loader, int size, int pageSize) {
+		if (pageSize < 1) {
+			throw new IllegalArgumentException("Illegal page size: " + pageSize);
+		}
+		this.loader = loader;
+		this.size = size;
+		this.pageSize = pageSize;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public Object getItemAt(int index) {
+		if (index < 0 || index >= size) {
+			return null;
+		}
+		int page = index / pageSize;
+		Object[] items;
+		synchronized (LOCK) {
+			items = (Object[]) pages.get(new Integer(page));
+			if (items == null) {
+				// misses happen at the leading edge of the movement, paint
+				// order within a screen would make other accesses misleading
+				if (lastMissedPage > -1 && page != lastMissedPage) {
+					direction = page > lastMissedPage ? 1 : -1;
+				}
+				lastMissedPage = page;
+			}
+			if (items == null || page != currentPage) {
+				currentPage = page;
+				request(page, true);
+				prefetch(page);
+			}
+		}
+		if (items != null) {
+			int offset = index - page * pageSize;
+			if (offset < items.length) {
+				return items[offset];
+			}
+		}
+		return placeholder;
+	}
+
+	/**
+	 * Indicates whether the item at the given index was loaded or whether the
+	 * model returns the placeholder for it
+	 * 
+	 * @param index
+	 *            an index into this list
+	 * @return true if the item at the given index is available
+	 */
+	public boolean isLoaded(int index) {
+		if (index < 0 || index >= size) {
+			return false;
+		}
+		int page = index / pageSize;
+		synchronized (LOCK) {
+			Object[] items = (Object[]) pages.get(new Integer(page));
+			return items != null && index - page * pageSize < items.length;
+		}
+	}
+
+	/**
+	 * Queues the given page for loading unless it is already loaded or queued
+	 * or its loading failed recently, must be invoked while holding the lock
+	 */
+	private void request(int page, boolean urgent) {
+		if (page < 0 || page * pageSize >= size) {
+			return;
+		}
+		Integer key = new Integer(page);
+		if (pages.containsKey(key)) {
+			return;
+		}
+		Long failure = (Long) failed.get(key);
+		if (failure != null) {
+			if (retryDelay < 0 || System.currentTimeMillis() - failure.longValue() < retryDelay) {
+				return;
+			}
+			failed.remove(key);
+		}
+		if (requested.containsKey(key)) {
+			// move a page that is needed now ahead of the prefetched pages
+			if (urgent && queue.removeElement(key)) {
+				queue.insertElementAt(key, 0);
+			}
+			return;
+		}
+		requested.put(key, key);
+		if (urgent) {
+			queue.insertElementAt(key, 0);
+		} else {
+			queue.addElement(key);
+		}
+		if (worker == null) {
+			worker = new Thread(new Loader(), "PagedListModel");
+			worker.start();
+		}
+	}
+
+	/**
+	 * Requests the pages following the given page in the direction of movement,
+	 * must be invoked while holding the lock
+	 */
+	private void prefetch(int page) {
+		for (int iter = 1; iter <= prefetchPages; iter++) {
+			request(page + iter * direction, false);
+		}
+	}
+
+	/**
+	 * Discards the loaded pages furthest from the current page until the number
+	 * of pages is within the limit, must be invoked while holding the lock
+	 */
+	private void evict() {
+		while (pages.size() > maxPages) {
+			Integer furthest = null;
+			int distance = -1;
+			Enumeration e = pages.keys();
+			while (e.hasMoreElements()) {
+				Integer key = (Integer) e.nextElement();
+				int d = Math.abs(key.intValue() - currentPage);
+				if (d > distance) {
+					distance = d;
+					furthest = key;
+				}
+			}
+			pages.remove(furthest);
+		}
+	}
+
+	/**
+	 * Reports the pages that arrived since the last flush, invoked on the EDT
+	 */
+	private void flush() {
+		Vector batch;
+		synchronized (LOCK) {
+			batch = arrived;
+			arrived = new Vector();
+			flushPending = false;
+		}
+		Vector v = dataListener.getListenerVector();
+		if (v == null || v.size() == 0) {
+			return;
+		}
+		Object[] listeners;
+		synchronized (dataListener) {
+			listeners = new Object[v.size()];
+			v.copyInto(listeners);
+		}
+		int count = batch.size();
+		for (int iter = 0; iter < count; iter++) {
+			int page = ((Integer) batch.elementAt(iter)).intValue();
+			int start = page * pageSize;
+			int end = Math.min(start + pageSize, size);
+			for (int l = 0; l < listeners.length; l++) {
+				if (listeners[l] instanceof DataRangeChangedListener) {
+					((DataRangeChangedListener) listeners[l]).dataRangeChanged(start, end - start);
+				} else {
+					DataChangedListener d = (DataChangedListener) listeners[l];
+					for (int index = start; index < end; index++) {
+						d.dataChanged(DataChangedListener.CHANGED, index);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Background thread that drains the page queue, it exits when the queue is
+	 * empty and is recreated on demand
+	 */
+	class Loader implements Runnable {
+		public void run() {
+			while (true) {
+				Integer key;
+				int gen;
+				int count;
+				synchronized (LOCK) {
+					if (queue.size() == 0) {
+						worker = null;
+						return;
+					}
+					key = (Integer) queue.elementAt(0);
+					queue.removeElementAt(0);
+
+					// the user moved on before we got to this page
+					if (Math.abs(key.intValue() - currentPage) > maxPages / 2 + prefetchPages) {
+						requested.remove(key);
+						continue;
+					}
+					gen = generation;
+					count = Math.min(pageSize, size - key.intValue() * pageSize);
+				}
+				Object[] items = null;
+				try {
+					items = loader.loadPage(key.intValue() * pageSize, count);
+				} catch (Throwable err) {
+					err.printStackTrace();
+				}
+				boolean post = false;
+				synchronized (LOCK) {
+					if (gen != generation) {
+						continue;
+					}
+					requested.remove(key);
+					if (items == null) {
+						failed.put(key, new Long(System.currentTimeMillis()));
+					} else {
+						pages.put(key, items);
+						evict();
+						if (pages.containsKey(key)) {
+							arrived.addElement(key);
+							if (!flushPending) {
+								flushPending = true;
+								post = true;
+							}
+						}
+					}
+				}
+				if (post) {
+					Display.getInstance().callSerially(new Runnable() {
+						public void run() {
+							flush();
+						}
+					});
+				}
+			}
+		}
+	}
+
+	/**
+	 * Discards all loaded pages and sets the number of items in the model, the
+	 * pages are fetched again as they are needed including pages whose loading
+	 * failed. Listeners are notified with a
+	 * single {@link DataChangedListener#CHANGED} event whose index is -1, which
+	 * List and ContainerList treat as a change of the entire model.
+	 * 
+	 * @param size
+	 *            the total number of items in the model
+	 */
+	public void refresh(int size) {
+		synchronized (LOCK) {
+			this.size = size;
+			generation++;
+			pages.clear();
+			queue.removeAllElements();
+			requested.clear();
+			failed.clear();
+			arrived.removeAllElements();
+			lastMissedPage = -1;
+		}
+		if (selectedIndex >= size) {
+			setSelectedIndex(Math.max(size - 1, 0));
+		}
+		dataListener.fireDataChangeEvent(-1, DataChangedListener.CHANGED);
+	}
+
+	/**
+	 * Returns the object returned for items that weren't loaded yet
+	 * 
+	 * @return the placeholder item
+	 */
+	public Object getPlaceholder() {
+		return placeholder;
+	}
+
+	/**
+	 * Sets the object returned for items that weren't loaded yet, by default
+	 * this is a short string
+	 * 
+	 * @param placeholder
+	 *            the placeholder item
+	 */
+	public void setPlaceholder(Object placeholder) {
+		this.placeholder = placeholder;
+	}
+
+	/**
+	 * Returns the maximum number of pages kept in memory
+	 * 
+	 * @return the maximum number of loaded pages
+	 */
+	public int getMaxPages() {
+		return maxPages;
+	}
+
+	/**
+	 * Sets the maximum number of pages kept in memory, when more pages are
+	 * loaded the pages furthest from the current position are discarded.
+	 * 
+	 * @param maxPages
+	 *            the maximum number of loaded pages, must be large enough to
+	 *            hold the visible items and the prefetched pages
+	 */
+	public void setMaxPages(int maxPages) {
+		synchronized (LOCK) {
+			this.maxPages = Math.max(1, maxPages);
+			evict();
+		}
+	}
+
+	/**
+	 * Returns the number of pages loaded ahead of the current page
+	 * 
+	 * @return the number of prefetched pages
+	 */
+	public int getPrefetchPages() {
+		return prefetchPages;
+	}
+
+	/**
+	 * Sets the number of pages loaded ahead of the current page in the
+	 * direction the user is moving, 0 disables prefetching
+	 * 
+	 * @param prefetchPages
+	 *            the number of prefetched pages
+	 */
+	public void setPrefetchPages(int prefetchPages) {
+		this.prefetchPages = Math.max(0, prefetchPages);
+	}
+
+	/**
+	 * Returns the time after which a page whose loading failed is requested
+	 * again
+	 * 
+	 * @return the retry delay in milliseconds, a negative value if failed
+	 *         pages are only requested again after a refresh
+	 */
+	public long getRetryDelay() {
+		return retryDelay;
+	}
+
+	/**
+	 * Sets the time after which a page whose loading failed is requested again
+	 * when it is needed, by default this is 5 seconds
+	 * 
+	 * @param retryDelay
+	 *            the retry delay in milliseconds, a negative value to request
+	 *            failed pages again only after a refresh
+	 */
+	public void setRetryDelay(long retryDelay) {
+		this.retryDelay = retryDelay;
+	}
+
+	/**
+	 * Returns the number of items fetched in a single request
+	 * 
+	 * @return the page size
+	 */
+	public int getPageSize() {
+		return pageSize;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public int getSize() {
+		return size;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public int getSelectedIndex() {
+		return selectedIndex;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public void setSelectedIndex(int index) {
+		int oldIndex = selectedIndex;
+		this.selectedIndex = index;
+		if (index > -1 && index != oldIndex) {
+			synchronized (LOCK) {
+				int page = index / pageSize;
+				int oldPage = oldIndex / pageSize;
+				if (page != oldPage) {
+					direction = page > oldPage ? 1 : -1;
+				}
+			}
+		}
+		selectionListener.fireSelectionEvent(oldIndex, selectedIndex);
+	}
+
+	/**
+	 * The paged model is read only, this method does nothing
+	 * 
+	 * @param item
+	 *            ignored
+	 */
+	public void addItem(Object item) {
+	}
+
+	/**
+	 * The paged model is read only, this method does nothing
+	 * 
+	 * @param index
+	 *            ignored
+	 */
+	public void removeItem(int index) {
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public void addDataChangedListener(DataChangedListener l) {
+		dataListener.addListener(l);
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public void removeDataChangedListener(DataChangedListener l) {
+		dataListener.removeListener(l);
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public void addSelectionListener(SelectionListener l) {
+		selectionListener.addListener(l);
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public void removeSelectionListener(SelectionListener l) {
+		selectionListener.removeListener(l);
+	}
+}
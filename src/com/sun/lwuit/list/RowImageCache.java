@@ -0,0 +1,202 @@
+/*
+ * Copyright (c) 2008, 2010, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores
+ * CA 94065 USA or visit www.oracle.com if you need additional information or
+ * have any questions.
+ */
+package com.sun.lwuit.list;
+
+import com.sun.lwuit.Image;
+import java.util.Hashtable;
+import java.util.Vector;
+
+/**
+ * Holds images of rendered list rows so that a row that hasn't changed is
+ * drawn with a single image draw rather than rendering the component tree
+ * returned by the renderer. An image is reused only for the same model index,
+ * the same item instance, the same selection state and the same size, and the
+ * list invalidates rows when its model fires data change events. The cache is
+ * bounded by the estimated memory of the images it holds (4 bytes per pixel)
+ * and evicts the least recently used rows when it is full.
+ * 
+ * @see com.sun.lwuit.List#setRowImageCacheSize(int)
+ * @see ContainerList#setRowImageCacheSize(int)
+ */
+public class RowImageCache {
+	private Hashtable entries = new Hashtable();
+	private Vector lru = new Vector(); // least recently used key first
+	private int maxSize;
+	private int size;
+
+	/**
+	 * Creates a row image cache
+	 * 
+	 * @param maxSize
+	 *            the maximum size of the cache in bytes
+	 */
+	public RowImageCache(int maxSize) {
+		this.maxSize = maxSize;
+	}
+
+	/**
+	 * Returns the maximum size of the cache in bytes
+	 * 
+	 * @return the maximum size of the cache in bytes
+	 */
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	/**
+	 * Returns the image of the given row if it was rendered for the same item,
+	 * selection state and size
+	 * 
+	 * @param index
+	 *            the model index of the row
+	 * @param item
+	 *            the item currently at this index
+	 * @param selected
+	 *            whether the row is rendered as selected
+	 * @param width
+	 *            the row width
+	 * @param height
+	 *            the row height
+	 * @return the row image or null if it should be rendered
+	 */
+	public Image get(int index, Object item, boolean selected, int width, int height) {
+		Object key = getKey(index, selected);
+		Entry e = (Entry) entries.get(key);
+		if (e == null) {
+			return null;
+		}
+		if (e.item != item || e.image.getWidth() != width || e.image.getHeight() != height) {
+			remove(key);
+			return null;
+		}
+		lru.removeElement(key);
+		lru.addElement(key);
+		return e.image;
+	}
+
+	/**
+	 * Places the image of the given row in the cache
+	 * 
+	 * @param index
+	 *            the model index of the row
+	 * @param item
+	 *            the item rendered in the row
+	 * @param selected
+	 *            whether the row was rendered as selected
+	 * @param image
+	 *            the row image
+	 * @return false if the image is larger than the entire cache and wasn't
+	 *         cached
+	 */
+	public boolean put(int index, Object item, boolean selected, Image image) {
+		int bytes = getBytes(image);
+		if (bytes > maxSize) {
+			return false;
+		}
+		Object key = getKey(index, selected);
+		remove(key);
+		while (lru.size() > 0 && size + bytes > maxSize) {
+			remove(lru.firstElement());
+		}
+		Entry e = new Entry();
+		e.item = item;
+		e.image = image;
+		entries.put(key, e);
+		lru.addElement(key);
+		size += bytes;
+		return true;
+	}
+
+	/**
+	 * Removes the images of the given row, this should be invoked when the item
+	 * at this index changed
+	 * 
+	 * @param index
+	 *            the model index of the row, a negative index (e.g. the -1 of
+	 *            a data change event that affects the whole model) removes all
+	 *            the images
+	 */
+	public void invalidate(int index) {
+		if (index < 0) {
+			clear();
+			return;
+		}
+		remove(getKey(index, false));
+		remove(getKey(index, true));
+	}
+
+	/**
+	 * Removes all the images from the cache
+	 */
+	public void clear() {
+		entries.clear();
+		lru.removeAllElements();
+		size = 0;
+	}
+
+	/**
+	 * Creates an empty image for rendering a row, the image is transparent so
+	 * the list background shows through the row
+	 * 
+	 * @param width
+	 *            the row width
+	 * @param height
+	 *            the row height
+	 * @return a mutable image
+	 */
+	public static Image createRowImage(int width, int height) {
+		return Image.createImage(width, height, 0);
+	}
+
+	/**
+	 * Indicates whether rows can be cached on this platform, this requires
+	 * mutable images with an alpha channel
+	 * 
+	 * @return true if rows can be cached
+	 */
+	public static boolean isSupported() {
+		return Image.isAlphaMutableImageSupported();
+	}
+
+	private void remove(Object key) {
+		Entry e = (Entry) entries.remove(key);
+		if (e != null) {
+			lru.removeElement(key);
+			size -= getBytes(e.image);
+		}
+	}
+
+	private Object getKey(int index, boolean selected) {
+		return new Integer(selected ? -index - 1 : index);
+	}
+
+	private static int getBytes(Image image) {
+		return image.getWidth() * image.getHeight() * 4;
+	}
+
+	private static class Entry {
+		Object item;
+		Image image;
+	}
+}
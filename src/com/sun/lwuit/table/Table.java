@@ -34,7 +34,12 @@ import com.sun.lwuit.TextField;
 import com.sun.lwuit.events.ActionEvent;
 import com.sun.lwuit.events.ActionListener;
 import com.sun.lwuit.events.DataChangedListener;
+import com.sun.lwuit.geom.Dimension;
+import com.sun.lwuit.layouts.Layout;
 import com.sun.lwuit.plaf.Style;
+import java.util.Enumeration;
+import java.util.Hashtable;
+import java.util.Vector;
 
 /**
  * The table class represents a grid of data that can be used for rendering a
@@ -95,6 +100,42 @@ public class Table extends Container {
 	 */
 	private boolean potentiallyDirtyModel;
 
+	/**
+	 * Indicates that only the cells of the visible rows are created
+	 */
+	private boolean virtualized;
+
+	/**
+	 * Column widths requested for the virtualized mode, 0 entries are sampled
+	 */
+	private int[] columnWidths;
+
+	/**
+	 * Number of model rows measured for the column widths of the virtualized
+	 * mode
+	 */
+	private int sampleRowCount = 20;
+
+	/**
+	 * The x position of every column and the total width as the last entry in
+	 * the virtualized mode
+	 */
+	private int[] columnPositions;
+
+	/**
+	 * Row heights of the virtualized mode, the header is the first row if it is
+	 * included
+	 */
+	private RowOffsets rowOffsets;
+
+	/**
+	 * The cells materialized in the virtualized mode keyed by row * columns +
+	 * column where the row includes the header
+	 */
+	private Hashtable visibleCells;
+	private Vector cellPool;
+	private Vector editableCellPool;
+
 	/**
 	 * Constructor for usage by GUI builder and automated tools, normally one
 	 * should use the version that accepts the model
@@ -177,6 +218,15 @@ public class Table extends Container {
 			}
 		}
 		removeAll();
+		if (virtualized) {
+			setLayout(new VirtualLayout());
+			visibleCells = new Hashtable();
+			cellPool = new Vector();
+			editableCellPool = new Vector();
+			columnPositions = null;
+			rowOffsets = null;
+			return;
+		}
 		int columnCount = model.getColumnCount();
 
 		// another row for the table header
@@ -222,6 +272,12 @@ public class Table extends Container {
 	 * @inheritDoc
 	 */
 	protected void paintGlass(Graphics g) {
+		if (virtualized) {
+			if ((drawBorder) && (innerBorder != INNER_BORDERS_NONE)) {
+				paintVirtualBorders(g);
+			}
+			return;
+		}
 		if ((drawBorder) && (innerBorder != INNER_BORDERS_NONE)) {
 			int xPos = getAbsoluteX();
 			int yPos = getAbsoluteY();
@@ -389,6 +445,460 @@ public class Table extends Container {
 		}
 	}
 
+	/**
+	 * Draws the collapsed inner borders of the visible rows in the virtualized
+	 * mode, separate borders and spanning aren't supported in this mode
+	 */
+	private void paintVirtualBorders(Graphics g) {
+		if (rowOffsets == null || columnPositions == null) {
+			return;
+		}
+		Style s = getStyle();
+		int top = s.getPadding(false, Component.TOP);
+		int left = s.getPadding(isRTL(), Component.LEFT);
+		int xPos = getAbsoluteX() - getScrollX() + left;
+		int yPos = getAbsoluteY() - getScrollY() + top;
+		g.translate(xPos, yPos);
+		g.setColor(s.getFgColor());
+		int cols = model.getColumnCount();
+		int actualWidth = columnPositions[cols];
+		int actualHeight = rowOffsets.getTotal();
+		if ((innerBorder == INNER_BORDERS_ALL) || (innerBorder == INNER_BORDERS_ROWS)) {
+			int first = Math.max(1, rowOffsets.getIndexAt(getScrollY() - top));
+			int last = rowOffsets.getIndexAt(getScrollY() - top + getHeight());
+			for (int row = first; row <= last; row++) {
+				int y = rowOffsets.getOffset(row);
+				if ((innerBorder != INNER_BORDERS_ROWS) || (shouldDrawInnerBorderAfterRow(row - 1))) {
+					g.drawLine(0, y, actualWidth, y);
+				}
+			}
+		}
+		if ((innerBorder == INNER_BORDERS_ALL) || (innerBorder == INNER_BORDERS_COLS)) {
+			for (int col = 1; col < cols; col++) {
+				int x = getVirtualColumnX(col, 0);
+				g.drawLine(x, 0, x, actualHeight);
+			}
+		}
+		g.translate(-xPos, -yPos);
+	}
+
+	/**
+	 * Returns the x position of the given column relative to the padding in the
+	 * virtualized mode taking RTL into consideration
+	 */
+	private int getVirtualColumnX(int column, int width) {
+		if (isRTL()) {
+			return columnPositions[columnPositions.length - 1] - columnPositions[column] - width;
+		}
+		return columnPositions[column];
+	}
+
+	private int getVirtualRowCount() {
+		if (includeHeader) {
+			return model.getRowCount() + 1;
+		}
+		return model.getRowCount();
+	}
+
+	/**
+	 * Calculates the column widths and the estimated row height of the
+	 * virtualized mode by measuring the header and the first rows of the model.
+	 * Cells created for measuring are kept for reuse.
+	 */
+	private void calcVirtualMetrics() {
+		int columns = model.getColumnCount();
+		int[] widths = new int[columns];
+		int headerHeight = 0;
+		int rowHeight = 0;
+		int samples = Math.min(sampleRowCount, model.getRowCount());
+		int first = 0;
+		if (includeHeader) {
+			first = -1;
+		}
+		for (int r = first; r < samples; r++) {
+			for (int c = 0; c < columns; c++) {
+				Object value;
+				boolean editable = false;
+				if (r == -1) {
+					value = model.getColumnName(c);
+				} else {
+					value = model.getValueAt(r, c);
+					editable = model.isCellEditable(r, c);
+				}
+				if (value == null) {
+					continue;
+				}
+				Component cell = createCellImpl(value, r, c, editable);
+				Style s = cell.getStyle();
+				widths[c] = Math.max(widths[c], cell.getPreferredW() + s.getMargin(false, Component.LEFT) + s.getMargin(false, Component.RIGHT));
+				int h = cell.getPreferredH() + s.getMargin(false, Component.TOP) + s.getMargin(false, Component.BOTTOM);
+				if (r == -1) {
+					headerHeight = Math.max(headerHeight, h);
+				} else {
+					rowHeight = Math.max(rowHeight, h);
+					recycleCell(cell);
+				}
+			}
+		}
+		if (columnWidths != null) {
+			for (int c = 0; c < Math.min(columns, columnWidths.length); c++) {
+				if (columnWidths[c] > 0) {
+					widths[c] = columnWidths[c];
+				}
+			}
+		}
+		columnPositions = new int[columns + 1];
+		for (int c = 0; c < columns; c++) {
+			columnPositions[c + 1] = columnPositions[c] + widths[c];
+		}
+		if (rowHeight == 0) {
+			rowHeight = Math.max(1, headerHeight);
+		}
+		rowOffsets = new RowOffsets(getVirtualRowCount(), rowHeight);
+		if (includeHeader && headerHeight > 0) {
+			rowOffsets.setHeight(0, headerHeight);
+		}
+	}
+
+	/**
+	 * Materializes the cells of the rows within the visible area in the
+	 * virtualized mode and recycles the cells of rows that scrolled out of it.
+	 * One row beyond each edge is kept so focus traversal can move into it.
+	 */
+	private void updateVisibleCells() {
+		if (rowOffsets == null || columnPositions == null) {
+			calcVirtualMetrics();
+		}
+		int columns = model.getColumnCount();
+		int rows = rowOffsets.size();
+		if (columns == 0) {
+			return;
+		}
+		int top = getStyle().getPadding(false, Component.TOP);
+		int viewHeight = getHeight();
+		if (viewHeight <= 0) {
+			// before the first layout we can only guess the visible area
+			viewHeight = Display.getInstance().getDisplayHeight();
+		}
+		int first = Math.max(0, rowOffsets.getIndexAt(getScrollY() - top) - 1);
+		int last = Math.min(rows - 1, rowOffsets.getIndexAt(getScrollY() - top + viewHeight) + 1);
+
+		// the focused cell is kept even when it is out of view
+		Component focused = null;
+		Form f = getComponentForm();
+		if (f != null) {
+			focused = f.getFocused();
+		}
+		Vector removed = new Vector();
+		Enumeration keys = visibleCells.keys();
+		while (keys.hasMoreElements()) {
+			Integer key = (Integer) keys.nextElement();
+			int row = key.intValue() / columns;
+			if (row < first || row > last || row >= rows) {
+				Component cell = (Component) visibleCells.get(key);
+				if (cell != focused || row >= rows) {
+					removed.addElement(key);
+				}
+			}
+		}
+		for (int iter = 0; iter < removed.size(); iter++) {
+			Component cell = (Component) visibleCells.remove(removed.elementAt(iter));
+			removeComponent(cell);
+			recycleCell(cell);
+		}
+
+		boolean heightChanged = false;
+		for (int row = first; row <= last; row++) {
+			int rowHeight = 0;
+			for (int c = 0; c < columns; c++) {
+				Integer key = new Integer(row * columns + c);
+				Component cell = (Component) visibleCells.get(key);
+				if (cell == null) {
+					cell = obtainCell(row, c);
+					if (cell == null) {
+						continue;
+					}
+					visibleCells.put(key, cell);
+					addComponent(cell);
+				}
+				if (!rowOffsets.isMeasured(row)) {
+					Style s = cell.getStyle();
+					rowHeight = Math.max(rowHeight, cell.getPreferredH() + s.getMargin(false, Component.TOP) + s.getMargin(false, Component.BOTTOM));
+				}
+			}
+			if (!rowOffsets.isMeasured(row)) {
+				if (rowHeight == 0) {
+					rowHeight = rowOffsets.getHeight(row);
+				}
+				heightChanged |= rowHeight != rowOffsets.getHeight(row);
+				rowOffsets.setHeight(row, rowHeight);
+			}
+		}
+		if (heightChanged) {
+			setShouldCalcPreferredSize(true);
+		}
+	}
+
+	/**
+	 * Returns a cell for the given row of the virtualized mode (which includes
+	 * the header) reusing a recycled cell when possible
+	 */
+	private Component obtainCell(int virtualRow, int column) {
+		int row = virtualRow;
+		if (includeHeader) {
+			row--;
+		}
+		if (row == -1) {
+			return createCellImpl(model.getColumnName(column), -1, column, false);
+		}
+		Object value = model.getValueAt(row, column);
+
+		// null should be returned for spanned over values
+		if (value == null) {
+			return null;
+		}
+		boolean editable = model.isCellEditable(row, column);
+		Vector pool = cellPool;
+		if (editable) {
+			pool = editableCellPool;
+		}
+		int size = pool.size();
+		if (size > 0) {
+			Component cell = (Component) pool.elementAt(size - 1);
+			pool.removeElementAt(size - 1);
+			if (updateCell(cell, value, row, column, editable)) {
+				cell.putClientProperty("row", new Integer(row));
+				cell.putClientProperty("column", new Integer(column));
+				return cell;
+			}
+		}
+		return createCellImpl(value, row, column, editable);
+	}
+
+	/**
+	 * Keeps a cell that is no longer visible for reuse, header cells aren't
+	 * reused
+	 */
+	private void recycleCell(Component cell) {
+		if (getCellRow(cell) < 0) {
+			return;
+		}
+		Vector pool = cellPool;
+		if (cell instanceof TextArea) {
+			pool = editableCellPool;
+		}
+		if (pool.size() < Math.max(visibleCells.size(), 2 * model.getColumnCount())) {
+			pool.addElement(cell);
+		}
+	}
+
+	/**
+	 * Binds a recycled cell to a new value in the virtualized mode. The default
+	 * implementation reuses the labels and text fields created by the default
+	 * createCell implementation, subclasses that override createCell should
+	 * override this method as well.
+	 * 
+	 * @param cell
+	 *            a cell previously returned by createCell
+	 * @param value
+	 *            the new value object
+	 * @param row
+	 *            row number
+	 * @param column
+	 *            column number
+	 * @param editable
+	 *            true if the cell is editable
+	 * @return true if the cell was updated, false if it can't be reused in which
+	 *         case a new cell is created
+	 */
+	protected boolean updateCell(Component cell, Object value, int row, int column, boolean editable) {
+		if (editable) {
+			if (cell.getClass() == TextField.class) {
+				((TextField) cell).setText("" + value);
+				return true;
+			}
+			return false;
+		}
+		if (cell.getClass() == Label.class) {
+			((Label) cell).setText("" + value);
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Updates a single cell of the virtualized mode after a model change
+	 */
+	private void virtualCellChanged(int row, int column) {
+		if (rowOffsets == null) {
+			return;
+		}
+		int columns = model.getColumnCount();
+		if (row < 0 || column < 0 || column >= columns || getVirtualRowCount() != rowOffsets.size()) {
+			// the structure of the model changed
+			updateModel();
+			revalidate();
+			return;
+		}
+		int virtualRow = row;
+		if (includeHeader) {
+			virtualRow++;
+		}
+		rowOffsets.invalidate(virtualRow);
+		Integer key = new Integer(virtualRow * columns + column);
+		Component c = (Component) visibleCells.remove(key);
+		if (c != null) {
+			boolean focus = c.hasFocus();
+			removeComponent(c);
+			recycleCell(c);
+			Component cell = obtainCell(virtualRow, column);
+			if (cell != null) {
+				visibleCells.put(key, cell);
+				addComponent(cell);
+				if (focus) {
+					cell.requestFocus();
+				}
+			}
+		}
+		revalidateLater();
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	protected void setScrollY(int scrollY) {
+		super.setScrollY(scrollY);
+		if (virtualized && visibleCells != null) {
+			updateVisibleCells();
+		}
+	}
+
+	/**
+	 * Indicates whether only the cells of the visible rows are created
+	 * 
+	 * @return true if the table is virtualized
+	 */
+	public boolean isVirtualized() {
+		return virtualized;
+	}
+
+	/**
+	 * Creates only the cells of the visible rows and reuses them as the table
+	 * scrolls, which makes tables with thousands of rows practical. In this
+	 * mode the table scrolls on its own so it should be placed in a container
+	 * that limits its height (e.g. the center of a border layout in a form that
+	 * isn't scrollable).
+	 * <p>
+	 * Column widths are measured from the header and the first rows of the
+	 * model (see setSampleRowCount) unless set explicitly with setColumnWidths,
+	 * row heights are measured as rows become visible. Cell constraints,
+	 * spanning and separate borders aren't supported in this mode.
+	 * 
+	 * @param virtualized
+	 *            true to create only the visible cells
+	 */
+	public void setVirtualized(boolean virtualized) {
+		if (this.virtualized != virtualized) {
+			this.virtualized = virtualized;
+			setScrollableY(virtualized);
+			setScrollableX(virtualized);
+			updateModel();
+			revalidate();
+		}
+	}
+
+	/**
+	 * Returns the column widths requested for the virtualized mode
+	 * 
+	 * @return the column widths in pixels or null
+	 */
+	public int[] getColumnWidths() {
+		return columnWidths;
+	}
+
+	/**
+	 * Sets the column widths used in the virtualized mode, columns whose width
+	 * is 0 (or beyond the length of the array) are measured
+	 * 
+	 * @param columnWidths
+	 *            the column widths in pixels including the cell margins
+	 */
+	public void setColumnWidths(int[] columnWidths) {
+		this.columnWidths = columnWidths;
+		if (virtualized) {
+			updateModel();
+			revalidate();
+		}
+	}
+
+	/**
+	 * Returns the number of model rows measured for the column widths of the
+	 * virtualized mode
+	 * 
+	 * @return the number of sampled rows
+	 */
+	public int getSampleRowCount() {
+		return sampleRowCount;
+	}
+
+	/**
+	 * Sets the number of model rows (after the header) measured for the column
+	 * widths of the virtualized mode, the default is 20
+	 * 
+	 * @param sampleRowCount
+	 *            the number of sampled rows
+	 */
+	public void setSampleRowCount(int sampleRowCount) {
+		this.sampleRowCount = sampleRowCount;
+	}
+
+	/**
+	 * Positions the materialized cells of the virtualized mode according to the
+	 * column positions and the row offsets
+	 */
+	class VirtualLayout extends Layout {
+		/**
+		 * @inheritDoc
+		 */
+		public void layoutContainer(Container parent) {
+			updateVisibleCells();
+			int columns = model.getColumnCount();
+			Style s = getStyle();
+			boolean rtl = isRTL();
+			int top = s.getPadding(false, Component.TOP);
+			int left = s.getPadding(rtl, Component.LEFT);
+			Enumeration keys = visibleCells.keys();
+			while (keys.hasMoreElements()) {
+				Integer key = (Integer) keys.nextElement();
+				Component cell = (Component) visibleCells.get(key);
+				int row = key.intValue() / columns;
+				int column = key.intValue() % columns;
+				int w = columnPositions[column + 1] - columnPositions[column];
+				int h = rowOffsets.getHeight(row);
+				Style cellStyle = cell.getStyle();
+				int leftMargin = cellStyle.getMargin(rtl, Component.LEFT);
+				int topMargin = cellStyle.getMargin(false, Component.TOP);
+				cell.setX(left + getVirtualColumnX(column, w) + leftMargin);
+				cell.setY(top + rowOffsets.getOffset(row) + topMargin);
+				cell.setWidth(w - leftMargin - cellStyle.getMargin(rtl, Component.RIGHT));
+				cell.setHeight(h - topMargin - cellStyle.getMargin(false, Component.BOTTOM));
+			}
+		}
+
+		/**
+		 * @inheritDoc
+		 */
+		public Dimension getPreferredSize(Container parent) {
+			if (rowOffsets == null || columnPositions == null) {
+				calcVirtualMetrics();
+			}
+			Style s = getStyle();
+			int w = s.getPadding(false, Component.LEFT) + s.getPadding(false, Component.RIGHT);
+			int h = s.getPadding(false, Component.TOP) + s.getPadding(false, Component.BOTTOM);
+			return new Dimension(w + columnPositions[columnPositions.length - 1], h + rowOffsets.getTotal());
+		}
+	}
+
 	private Component createCellImpl(Object value, final int row, final int column, boolean editable) {
 		Component c = createCell(value, row, column, editable);
 		c.putClientProperty("row", new Integer(row));
@@ -633,6 +1143,12 @@ public class Table extends Container {
 	}
 
 	private void updateMargins() {
+		if (virtualized) {
+			// cells are created with the new spacing
+			updateModel();
+			revalidate();
+			return;
+		}
 		TableLayout t = (TableLayout) getLayout();
 		int hSpace = horizontalBorderSpacing;
 		int vSpace = verticalBorderSpacing;
@@ -822,6 +1338,10 @@ public class Table extends Container {
 		 * @inheritDoc
 		 */
 		public final void dataChanged(int row, int column) {
+			if (virtualized) {
+				virtualCellChanged(row, column);
+				return;
+			}
 			Object value = model.getValueAt(row, column);
 			boolean e = model.isCellEditable(row, column);
 			Component cell = createCellImpl(value, row, column, e);
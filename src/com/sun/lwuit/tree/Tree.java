@@ -28,6 +28,7 @@ import com.sun.lwuit.Component;
 import com.sun.lwuit.Container;
 import com.sun.lwuit.Display;
 import com.sun.lwuit.Image;
+import com.sun.lwuit.Form;
 import com.sun.lwuit.Label;
 import com.sun.lwuit.animations.CommonTransitions;
 import com.sun.lwuit.events.ActionEvent;
@@ -35,8 +36,12 @@ import com.sun.lwuit.events.ActionListener;
 import com.sun.lwuit.geom.Dimension;
 import com.sun.lwuit.layouts.BorderLayout;
 import com.sun.lwuit.layouts.BoxLayout;
+import com.sun.lwuit.layouts.Layout;
 import com.sun.lwuit.plaf.Style;
+import com.sun.lwuit.plaf.UIManager;
 import com.sun.lwuit.util.EventDispatcher;
+import java.util.Enumeration;
+import java.util.Hashtable;
 import java.util.Vector;
 
 /**
@@ -53,6 +58,12 @@ public class Tree extends Container {
 	private static final String KEY_PARENT = "TREE_PARENT";
 	private static final String KEY_EXPANDED = "TREE_NODE_EXPANDED";
 	private static final String KEY_DEPTH = "TREE_DEPTH";
+	private static final String KEY_ROW = "TREE_ROW";
+
+	/**
+	 * Key for the children of the tree roots in the children cache
+	 */
+	private static final Object ROOT = new Object();
 	private EventDispatcher leafListener = new EventDispatcher();
 
 	private ActionListener expansionListener = new Handler();
@@ -62,6 +73,60 @@ public class Tree extends Container {
 	private static Image nodeImage;
 	private int depthIndent = 15;
 
+	/**
+	 * Indicates that the tree is flattened into rows and only the visible rows
+	 * have components
+	 */
+	private boolean virtualized;
+
+	/**
+	 * The rows of the virtualized mode in display order
+	 */
+	private Vector rows;
+
+	/**
+	 * Pseudo row representing the parent of the tree roots
+	 */
+	private TreeRow rootRow;
+
+	/**
+	 * The components of the materialized rows keyed by their row
+	 */
+	private Hashtable visibleNodes;
+	private Vector nodePool;
+	private int rowHeight;
+	private int rowWidth;
+	private ActionListener rowListener;
+
+	/**
+	 * Children fetched from the model keyed by their parent node, the least
+	 * recently used are discarded once the total number of children exceeds
+	 * childrenCacheSize
+	 */
+	private Hashtable childrenCache = new Hashtable();
+	private Vector childrenCacheOrder = new Vector();
+	private int cachedChildren;
+	private int childrenCacheSize = 1000;
+
+	/**
+	 * Rows whose children are waiting for the loader thread
+	 */
+	private Vector loadQueue = new Vector();
+	private Thread loader;
+
+	/**
+	 * The rows waiting for children that are being loaded keyed by their node,
+	 * the children of a node are loaded once even if it is collapsed and
+	 * expanded again while they load
+	 */
+	private Hashtable pendingLoads = new Hashtable();
+
+	/**
+	 * The row whose component is being created or updated, its leaf state was
+	 * resolved by the loader thread so the model isn't queried on the EDT
+	 */
+	private TreeRow bindingRow;
+
 	/**
 	 * Constructor for usage by GUI builder and automated tools, normally one
 	 * should use the version that accepts the model
@@ -176,7 +241,438 @@ public class Tree extends Container {
 	public void setModel(TreeModel model) {
 		this.model = model;
 		removeAll();
-		buildBranch(null, 0, this);
+		if (virtualized) {
+			initVirtualRows();
+		} else {
+			buildBranch(null, 0, this);
+		}
+	}
+
+	/**
+	 * Indicates whether the tree is flattened into rows of which only the
+	 * visible rows have components
+	 * 
+	 * @return true if the tree is virtualized
+	 */
+	public boolean isVirtualized() {
+		return virtualized;
+	}
+
+	/**
+	 * Flattens the tree into rows and creates components only for the rows
+	 * that are visible, reusing them as the tree scrolls. Children are fetched
+	 * from the model on a background thread while a loading row is displayed
+	 * and are cached so expanding a node again doesn't query the model. This
+	 * mode is useful for large or slow models such as a file system. Notice
+	 * that in this mode expanding and collapsing isn't animated and that the
+	 * model must allow getChildren and isLeaf to be invoked off the EDT, the
+	 * leaf state of a node is resolved along with the children of its parent.
+	 * 
+	 * @param virtualized
+	 *            true to flatten the tree
+	 */
+	public void setVirtualized(boolean virtualized) {
+		if (this.virtualized != virtualized) {
+			this.virtualized = virtualized;
+			removeAll();
+			if (virtualized) {
+				initVirtualRows();
+			} else {
+				rows = null;
+				visibleNodes = null;
+				nodePool = null;
+				pendingLoads.clear();
+				setLayout(new BoxLayout(BoxLayout.Y_AXIS));
+				buildBranch(null, 0, this);
+			}
+			revalidate();
+		}
+	}
+
+	/**
+	 * Returns the maximum number of children cached in the virtualized mode
+	 * 
+	 * @return the maximum number of cached children
+	 */
+	public int getChildrenCacheSize() {
+		return childrenCacheSize;
+	}
+
+	/**
+	 * Sets the maximum number of children cached in the virtualized mode, the
+	 * children of the least recently expanded nodes are discarded first
+	 * 
+	 * @param childrenCacheSize
+	 *            the maximum number of cached children, 0 disables caching
+	 */
+	public void setChildrenCacheSize(int childrenCacheSize) {
+		this.childrenCacheSize = childrenCacheSize;
+		trimChildrenCache();
+	}
+
+	/**
+	 * Discards the cached children of all nodes so the next expansion fetches
+	 * them from the model again, this is useful when the model changed
+	 */
+	public void clearChildrenCache() {
+		childrenCache.clear();
+		childrenCacheOrder.removeAllElements();
+		cachedChildren = 0;
+	}
+
+	private void initVirtualRows() {
+		setLayout(new VirtualLayout());
+		clearChildrenCache();
+		pendingLoads.clear();
+		rows = new Vector();
+		visibleNodes = new Hashtable();
+		nodePool = new Vector();
+		rowHeight = 0;
+		rowWidth = 0;
+		if (rowListener == null) {
+			rowListener = new RowHandler();
+		}
+		rootRow = new TreeRow(null, -1, null);
+		expandRow(rootRow);
+	}
+
+	private static Object getNodeKey(Object node) {
+		if (node == null) {
+			return ROOT;
+		}
+		return node;
+	}
+
+	private NodeChildren getCachedChildren(Object node) {
+		Object key = getNodeKey(node);
+		NodeChildren children = (NodeChildren) childrenCache.get(key);
+		if (children != null) {
+			childrenCacheOrder.removeElement(key);
+			childrenCacheOrder.addElement(key);
+		}
+		return children;
+	}
+
+	private void cacheChildren(Object node, NodeChildren children) {
+		Object key = getNodeKey(node);
+		NodeChildren old = (NodeChildren) childrenCache.remove(key);
+		if (old != null) {
+			childrenCacheOrder.removeElement(key);
+			cachedChildren -= old.nodes.size();
+		}
+		childrenCache.put(key, children);
+		childrenCacheOrder.addElement(key);
+		cachedChildren += children.nodes.size();
+		trimChildrenCache();
+	}
+
+	private void trimChildrenCache() {
+		while (cachedChildren > childrenCacheSize && childrenCacheOrder.size() > 0) {
+			Object key = childrenCacheOrder.elementAt(0);
+			childrenCacheOrder.removeElementAt(0);
+			NodeChildren children = (NodeChildren) childrenCache.remove(key);
+			cachedChildren -= children.nodes.size();
+		}
+	}
+
+	/**
+	 * Creates the rows of the given children of a row
+	 */
+	private Vector createChildRows(TreeRow row, NodeChildren children) {
+		Vector added = new Vector();
+		int size = children.nodes.size();
+		for (int iter = 0; iter < size; iter++) {
+			TreeRow child = new TreeRow(children.nodes.elementAt(iter), row.depth + 1, row);
+			child.leaf = children.leaves[iter];
+			added.addElement(child);
+		}
+		return added;
+	}
+
+	/**
+	 * Expands a row of the virtualized mode, if the children aren't cached a
+	 * loading row is shown until the loader thread fetches them
+	 */
+	private void expandRow(TreeRow row) {
+		row.expanded = true;
+		NodeChildren children = getCachedChildren(row.node);
+		Vector added;
+		if (children != null) {
+			added = createChildRows(row, children);
+		} else {
+			added = new Vector();
+			TreeRow loading = new TreeRow(null, row.depth + 1, row);
+			loading.loading = true;
+			added.addElement(loading);
+			requestChildren(row);
+		}
+		replaceRows(row.index + 1, row.index + 1, added);
+	}
+
+	/**
+	 * Collapses a row of the virtualized mode removing all of its descendants
+	 */
+	private void collapseRow(TreeRow row) {
+		row.expanded = false;
+		int end = row.index + 1;
+		int size = rows.size();
+		while (end < size && ((TreeRow) rows.elementAt(end)).depth > row.depth) {
+			end++;
+		}
+		replaceRows(row.index + 1, end, new Vector());
+	}
+
+	/**
+	 * Replaces the rows in the range [start, end) with the given rows and
+	 * updates the row indexes
+	 */
+	private void replaceRows(int start, int end, Vector added) {
+		int size = rows.size();
+		Vector newRows = new Vector(size - (end - start) + added.size());
+		for (int iter = 0; iter < start; iter++) {
+			newRows.addElement(rows.elementAt(iter));
+		}
+		for (int iter = start; iter < end; iter++) {
+			((TreeRow) rows.elementAt(iter)).index = -1;
+		}
+		int addedSize = added.size();
+		for (int iter = 0; iter < addedSize; iter++) {
+			newRows.addElement(added.elementAt(iter));
+		}
+		for (int iter = end; iter < size; iter++) {
+			newRows.addElement(rows.elementAt(iter));
+		}
+		rows = newRows;
+		size = rows.size();
+		for (int iter = start; iter < size; iter++) {
+			((TreeRow) rows.elementAt(iter)).index = iter;
+		}
+		revalidateLater();
+	}
+
+	/**
+	 * Queues the fetching of the children of the given row on the loader
+	 * thread unless the children of its node are already being loaded
+	 */
+	private void requestChildren(TreeRow row) {
+		Object key = getNodeKey(row.node);
+		Vector waiting = (Vector) pendingLoads.get(key);
+		if (waiting != null) {
+			if (!waiting.contains(row)) {
+				waiting.addElement(row);
+			}
+			return;
+		}
+		waiting = new Vector();
+		waiting.addElement(row);
+		pendingLoads.put(key, waiting);
+		synchronized (loadQueue) {
+			loadQueue.addElement(row);
+			if (loader == null) {
+				loader = new Thread(new Loader(), "TreeLoader");
+				loader.start();
+			}
+		}
+	}
+
+	/**
+	 * Invoked on the EDT when the children of a node arrive from the loader
+	 * thread, replaces the loading rows of the rows waiting for them
+	 */
+	private void childrenLoaded(Object node, TreeModel requestModel, NodeChildren children) {
+		if (requestModel != model || !virtualized) {
+			return;
+		}
+		if (childrenCacheSize > 0) {
+			cacheChildren(node, children);
+		}
+		Vector waiting = (Vector) pendingLoads.remove(getNodeKey(node));
+		if (waiting == null) {
+			return;
+		}
+		int count = waiting.size();
+		for (int iter = 0; iter < count; iter++) {
+			TreeRow row = (TreeRow) waiting.elementAt(iter);
+
+			// the row was collapsed or removed while loading
+			if (!row.expanded || (row != rootRow && row.index < 0)) {
+				continue;
+			}
+			int index = row.index + 1;
+			if (index >= rows.size() || !((TreeRow) rows.elementAt(index)).loading) {
+				continue;
+			}
+			replaceRows(index, index + 1, createChildRows(row, children));
+		}
+	}
+
+	/**
+	 * Materializes the components of the visible rows of the virtualized mode
+	 * and recycles the components of rows that scrolled out or were removed.
+	 * One row beyond each edge is kept so focus traversal can move into it.
+	 */
+	private void updateVisibleRows() {
+		int size = rows.size();
+		if (size == 0) {
+			recycleAll();
+			return;
+		}
+		if (rowHeight == 0) {
+			Component c = createRowComponent((TreeRow) rows.elementAt(0));
+			Style s = c.getStyle();
+			rowHeight = Math.max(1, c.getPreferredH() + s.getMargin(false, TOP) + s.getMargin(false, BOTTOM));
+			recycleNode(c);
+		}
+		int top = getStyle().getPadding(false, TOP);
+		int viewHeight = getHeight();
+		if (viewHeight <= 0) {
+			// before the first layout we can only guess the visible area
+			viewHeight = Display.getInstance().getDisplayHeight();
+		}
+		int first = Math.max(0, (getScrollY() - top) / rowHeight - 1);
+		int last = Math.min(size - 1, (getScrollY() - top + viewHeight) / rowHeight + 1);
+
+		// the focused node is kept even when it is out of view
+		Component focused = null;
+		Form f = getComponentForm();
+		if (f != null) {
+			focused = f.getFocused();
+		}
+		Vector removed = new Vector();
+		Enumeration e = visibleNodes.keys();
+		while (e.hasMoreElements()) {
+			TreeRow row = (TreeRow) e.nextElement();
+			if (row.index < 0 || ((row.index < first || row.index > last) && visibleNodes.get(row) != focused)) {
+				removed.addElement(row);
+			}
+		}
+		for (int iter = 0; iter < removed.size(); iter++) {
+			Component c = (Component) visibleNodes.remove(removed.elementAt(iter));
+			removeComponent(c);
+			recycleNode(c);
+		}
+		for (int iter = first; iter <= last; iter++) {
+			TreeRow row = (TreeRow) rows.elementAt(iter);
+			Button c = (Button) visibleNodes.get(row);
+			if (c == null) {
+				c = createRowComponent(row);
+				visibleNodes.put(row, c);
+				addComponent(c);
+			} else if (row.node != null && !row.leaf) {
+				if (row.expanded) {
+					c.setIcon(openFolder);
+				} else {
+					c.setIcon(folder);
+				}
+			}
+			Style s = c.getStyle();
+			rowWidth = Math.max(rowWidth, c.getPreferredW() + s.getMargin(false, LEFT) + s.getMargin(false, RIGHT));
+		}
+	}
+
+	private void recycleAll() {
+		Enumeration e = visibleNodes.elements();
+		while (e.hasMoreElements()) {
+			Component c = (Component) e.nextElement();
+			removeComponent(c);
+			recycleNode(c);
+		}
+		visibleNodes.clear();
+	}
+
+	/**
+	 * Returns the component of a row in the virtualized mode reusing a recycled
+	 * component when possible
+	 */
+	private Button createRowComponent(TreeRow row) {
+		if (row.loading) {
+			Button cmp = new Button(UIManager.getInstance().localize("loading", "Loading..."));
+			cmp.setUIID("TreeNode");
+			updateNodeComponentStyle(cmp.getSelectedStyle(), row.depth);
+			updateNodeComponentStyle(cmp.getUnselectedStyle(), row.depth);
+			updateNodeComponentStyle(cmp.getPressedStyle(), row.depth);
+			return cmp;
+		}
+		Button cmp = null;
+		int size = nodePool.size();
+		bindingRow = row;
+		try {
+			if (size > 0) {
+				cmp = (Button) nodePool.elementAt(size - 1);
+				nodePool.removeElementAt(size - 1);
+				if (!updateNodeComponent(cmp, row.node, row.depth)) {
+					cmp = null;
+				}
+			}
+			if (cmp == null) {
+				cmp = createNodeComponent(row.node, row.depth);
+				cmp.addActionListener(rowListener);
+			}
+		} finally {
+			bindingRow = null;
+		}
+		if (row.expanded) {
+			cmp.setIcon(openFolder);
+		}
+		cmp.putClientProperty(KEY_OBJECT, row.node);
+		cmp.putClientProperty(KEY_ROW, row);
+		if (row.parent != null) {
+			cmp.putClientProperty(KEY_PARENT, row.parent.node);
+		}
+		cmp.putClientProperty(KEY_DEPTH, new Integer(row.depth + 1));
+		return cmp;
+	}
+
+	/**
+	 * Keeps a node component that is no longer visible for reuse
+	 */
+	private void recycleNode(Component c) {
+		TreeRow row = (TreeRow) c.getClientProperty(KEY_ROW);
+		if (row != null && !row.loading && nodePool.size() < Math.max(visibleNodes.size(), 10)) {
+			c.putClientProperty(KEY_ROW, null);
+			nodePool.addElement(c);
+		}
+	}
+
+	/**
+	 * Binds a recycled node component to a new node in the virtualized mode.
+	 * The default implementation reuses the buttons created by the default
+	 * createNodeComponent implementation, subclasses that override
+	 * createNodeComponent should override this method as well.
+	 * 
+	 * @param cmp
+	 *            a component previously returned by createNodeComponent
+	 * @param node
+	 *            the node object from the model to display on the button
+	 * @param depth
+	 *            the depth within the tree
+	 * @return true if the component was updated, false if it can't be reused
+	 *         in which case a new component is created
+	 */
+	protected boolean updateNodeComponent(Button cmp, Object node, int depth) {
+		if (cmp.getClass() != Button.class) {
+			return false;
+		}
+		cmp.setText(childToDisplayLabel(node));
+		if (isLeaf(node)) {
+			cmp.setIcon(nodeImage);
+		} else {
+			cmp.setIcon(folder);
+		}
+		updateNodeComponentStyle(cmp.getSelectedStyle(), depth);
+		updateNodeComponentStyle(cmp.getUnselectedStyle(), depth);
+		updateNodeComponentStyle(cmp.getPressedStyle(), depth);
+		return true;
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	protected void setScrollY(int scrollY) {
+		super.setScrollY(scrollY);
+		if (virtualized) {
+			updateVisibleRows();
+		}
 	}
 
 	/**
@@ -287,7 +783,7 @@ public class Tree extends Container {
 	protected Button createNodeComponent(Object node, int depth) {
 		Button cmp = new Button(childToDisplayLabel(node));
 		cmp.setUIID("TreeNode");
-		if (model.isLeaf(node)) {
+		if (isLeaf(node)) {
 			cmp.setIcon(nodeImage);
 		} else {
 			cmp.setIcon(folder);
@@ -298,6 +794,17 @@ public class Tree extends Container {
 		return cmp;
 	}
 
+	/**
+	 * Returns the leaf state of a node, for the row being bound in the
+	 * virtualized mode this is the state resolved by the loader thread
+	 */
+	private boolean isLeaf(Object node) {
+		if (bindingRow != null && bindingRow.node == node) {
+			return bindingRow.leaf;
+		}
+		return model.isLeaf(node);
+	}
+
 	private void updateNodeComponentStyle(Style s, int depth) {
 		s.setMargin(LEFT, depth * depthIndent);
 	}
@@ -337,6 +844,9 @@ public class Tree extends Container {
 	 */
 	protected Dimension calcPreferredSize() {
 		Dimension d = super.calcPreferredSize();
+		if (virtualized) {
+			return d;
+		}
 
 		// if the tree is entirely collapsed try to reserve at least 6 rows for
 		// the content
@@ -354,6 +864,148 @@ public class Tree extends Container {
 		return d;
 	}
 
+	/**
+	 * A node of the tree in the flattened representation of the virtualized
+	 * mode
+	 */
+	static class TreeRow {
+		Object node;
+		int depth;
+		TreeRow parent;
+		boolean expanded;
+		boolean loading;
+		boolean leaf;
+
+		/**
+		 * The offset of the row, -1 once the row was removed
+		 */
+		int index = -1;
+
+		TreeRow(Object node, int depth, TreeRow parent) {
+			this.node = node;
+			this.depth = depth;
+			this.parent = parent;
+		}
+	}
+
+	/**
+	 * The children of a node in the virtualized mode along with their leaf
+	 * state
+	 */
+	static class NodeChildren {
+		Vector nodes;
+		boolean[] leaves;
+	}
+
+	/**
+	 * Fetches the children of the queued rows and their leaf state off the
+	 * EDT, exits when the queue is empty and is recreated on demand
+	 */
+	class Loader implements Runnable {
+		public void run() {
+			while (true) {
+				final TreeRow row;
+				synchronized (loadQueue) {
+					if (loadQueue.size() == 0) {
+						loader = null;
+						return;
+					}
+					row = (TreeRow) loadQueue.elementAt(0);
+					loadQueue.removeElementAt(0);
+				}
+				final TreeModel requestModel = model;
+				final NodeChildren result = new NodeChildren();
+				try {
+					Vector children = requestModel.getChildren(row.node);
+					if (children != null) {
+						boolean[] leaves = new boolean[children.size()];
+						for (int iter = 0; iter < leaves.length; iter++) {
+							leaves[iter] = requestModel.isLeaf(children.elementAt(iter));
+						}
+						result.nodes = children;
+						result.leaves = leaves;
+					}
+				} catch (Throwable err) {
+					err.printStackTrace();
+				}
+				if (result.nodes == null) {
+					result.nodes = new Vector();
+					result.leaves = new boolean[0];
+				}
+				Display.getInstance().callSerially(new Runnable() {
+					public void run() {
+						childrenLoaded(row.node, requestModel, result);
+					}
+				});
+			}
+		}
+	}
+
+	/**
+	 * Positions the components of the materialized rows in the virtualized
+	 * mode
+	 */
+	class VirtualLayout extends Layout {
+		/**
+		 * @inheritDoc
+		 */
+		public void layoutContainer(Container parent) {
+			updateVisibleRows();
+			Style s = getStyle();
+			boolean rtl = isRTL();
+			int top = s.getPadding(false, TOP);
+			int left = s.getPadding(rtl, LEFT);
+			int width = getLayoutWidth() - left - s.getPadding(rtl, RIGHT);
+			Enumeration e = visibleNodes.keys();
+			while (e.hasMoreElements()) {
+				TreeRow row = (TreeRow) e.nextElement();
+				Component c = (Component) visibleNodes.get(row);
+				Style cs = c.getStyle();
+				int leftMargin = cs.getMargin(rtl, LEFT);
+				int topMargin = cs.getMargin(false, TOP);
+				c.setX(left + leftMargin);
+				c.setY(top + row.index * rowHeight + topMargin);
+				c.setWidth(Math.max(0, width - leftMargin - cs.getMargin(rtl, RIGHT)));
+				c.setHeight(rowHeight - topMargin - cs.getMargin(false, BOTTOM));
+			}
+		}
+
+		/**
+		 * @inheritDoc
+		 */
+		public Dimension getPreferredSize(Container parent) {
+			Style s = getStyle();
+			int w = s.getPadding(false, LEFT) + s.getPadding(false, RIGHT);
+			int h = s.getPadding(false, TOP) + s.getPadding(false, BOTTOM);
+			return new Dimension(w + Math.max(rowWidth, Display.getInstance().getDisplayWidth() / 4 * 3), h + rows.size() * rowHeight);
+		}
+	}
+
+	/**
+	 * Expands, collapses or fires the leaf listener for rows of the virtualized
+	 * mode
+	 */
+	private class RowHandler implements ActionListener {
+		public void actionPerformed(ActionEvent evt) {
+			Component c = (Component) evt.getSource();
+			TreeRow row = (TreeRow) c.getClientProperty(KEY_ROW);
+			if (row == null || row.loading) {
+				return;
+			}
+			if (row.leaf) {
+				leafListener.fireActionEvent(new ActionEvent(row.node));
+				return;
+			}
+			if (row.expanded) {
+				collapseRow(row);
+				((Button) c).setIcon(folder);
+			} else {
+				expandRow(row);
+				((Button) c).setIcon(openFolder);
+			}
+		}
+	}
+
 	/**
 	 * This class unifies two action listeners into a single class to reduce the
 	 * size overhead
@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2008, 2010, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores
+ * CA 94065 USA or visit www.oracle.com if you need additional information or
+ * have any questions.
+ */
+package com.sun.lwuit.util;
+
+import com.sun.lwuit.Component;
+import java.util.Hashtable;
+
+/**
+ * Maps the names of the components created by the UIBuilder to the components
+ * within a root container. Like the name client property of the root the index
+ * isn't updated when components are removed, a removed component is still
+ * returned for its name.
+ */
+class ComponentIndex {
+	private Hashtable components = new Hashtable();
+
+	void put(String name, Component cmp) {
+		components.put(name, cmp);
+	}
+
+	/**
+	 * Returns the component with the given name
+	 * 
+	 * @param name
+	 *            the name of the component
+	 * @return the component or null
+	 */
+	Component get(String name) {
+		return (Component) components.get(name);
+	}
+}
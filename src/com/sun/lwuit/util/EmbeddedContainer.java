@@ -25,6 +25,7 @@
 package com.sun.lwuit.util;
 
 import com.sun.lwuit.Container;
+import com.sun.lwuit.Form;
 import com.sun.lwuit.layouts.BorderLayout;
 
 /**
@@ -37,6 +38,11 @@ import com.sun.lwuit.layouts.BorderLayout;
 public class EmbeddedContainer extends Container {
 	private String embed;
 
+	/**
+	 * The embedded container when its creation was deferred by the UIBuilder
+	 */
+	LazyContent lazyContent;
+
 	/**
 	 * Default constructor
 	 */
@@ -62,4 +68,31 @@ public class EmbeddedContainer extends Container {
 	public void setEmbed(String embed) {
 		this.embed = embed;
 	}
+
+	/**
+	 * @inheritDoc
+	 */
+	protected void initComponent() {
+		// the embedded container is created when it is shown, this happens on
+		// the EDT before the form is painted and never during a layout pass
+		// which might run on a background thread (see Form.prepareLayout)
+		if (lazyContent != null) {
+			createLazyContent();
+			Form f = getComponentForm();
+			if (f != null && f.getWidth() > 0) {
+				f.revalidate();
+			}
+		}
+	}
+
+	/**
+	 * Creates the embedded container if its creation was deferred
+	 */
+	void createLazyContent() {
+		if (lazyContent != null) {
+			LazyContent c = lazyContent;
+			lazyContent = null;
+			c.create();
+		}
+	}
 }
@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2008, 2010, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores
+ * CA 94065 USA or visit www.oracle.com if you need additional information or
+ * have any questions.
+ */
+package com.sun.lwuit.util;
+
+import com.sun.lwuit.Component;
+import com.sun.lwuit.Container;
+import com.sun.lwuit.Display;
+import com.sun.lwuit.Graphics;
+import com.sun.lwuit.events.ActionEvent;
+import com.sun.lwuit.events.ActionListener;
+import com.sun.lwuit.layouts.BorderLayout;
+import com.sun.lwuit.plaf.Style;
+
+/**
+ * Placeholder for a tab page whose creation was deferred by the UIBuilder,
+ * the page is created into the center of this container when its tab is
+ * selected. A page that is shown without being selected (e.g. while swiping
+ * between tabs) is created right after it is first painted, the page is never
+ * created during the paint pass since that changes the layout of the form.
+ */
+class LazyContainer extends Container implements ActionListener {
+	private LazyContent content;
+	private boolean createPending;
+
+	LazyContainer(LazyContent content) {
+		super(new BorderLayout());
+		this.content = content;
+		Style s = getUnselectedStyle();
+		s.setBgTransparency(0, true);
+		s.setPadding(Component.TOP, 0, true);
+		s.setPadding(Component.BOTTOM, 0, true);
+		s.setPadding(Component.LEFT, 0, true);
+		s.setPadding(Component.RIGHT, 0, true);
+		s.setMargin(Component.TOP, 0, true);
+		s.setMargin(Component.BOTTOM, 0, true);
+		s.setMargin(Component.LEFT, 0, true);
+		s.setMargin(Component.RIGHT, 0, true);
+	}
+
+	/**
+	 * Invoked when the tab of this page is selected
+	 * 
+	 * @param evt
+	 *            the tab button event
+	 */
+	public void actionPerformed(ActionEvent evt) {
+		content.create();
+	}
+
+	/**
+	 * @inheritDoc
+	 */
+	public void paint(Graphics g) {
+		if (!createPending && !content.isCreated()) {
+			createPending = true;
+			Display.getInstance().callSerially(new Runnable() {
+				public void run() {
+					content.create();
+				}
+			});
+		}
+		super.paint(g);
+	}
+}
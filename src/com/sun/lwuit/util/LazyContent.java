@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2008, 2010, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores
+ * CA 94065 USA or visit www.oracle.com if you need additional information or
+ * have any questions.
+ */
+package com.sun.lwuit.util;
+
+import com.sun.lwuit.Container;
+import java.util.Hashtable;
+import java.util.Vector;
+
+/**
+ * The content of a container that was skipped by the UIBuilder in lazy mode,
+ * the content is created when the container is selected or first shown or when
+ * a component within it is looked up by name.
+ */
+class LazyContent {
+	UIBuilder builder;
+
+	/**
+	 * The container into which the content is added
+	 */
+	Container target;
+
+	/**
+	 * The name of the resource whose creation time includes this content
+	 */
+	String resourceName;
+	Resources res;
+	Hashtable componentListeners;
+	EmbeddedContainer embedded;
+
+	/**
+	 * The name of the container to embed for embedded containers
+	 */
+	String embed;
+
+	// the section of the description for tab pages
+	UIDescription description;
+	UIDescription.Section section;
+	Container parent;
+	Container root;
+
+	/**
+	 * Offsets of the post creation entries referring to components within
+	 * this content
+	 */
+	Vector entries;
+	private boolean created;
+
+	/**
+	 * Creates the content if it wasn't created yet
+	 */
+	void create() {
+		if (!created) {
+			created = true;
+			builder.createLazyContent(this);
+		}
+	}
+
+	boolean isCreated() {
+		return created;
+	}
+
+	/**
+	 * Returns true if the component with the given name is created as part of
+	 * this content
+	 */
+	boolean contains(String name) {
+		return section != null && description.contains(section, name);
+	}
+
+	void addEntry(int entry) {
+		if (entries == null) {
+			entries = new Vector();
+		}
+		entries.addElement(new Integer(entry));
+	}
+}
@@ -637,11 +637,22 @@ public class Resources {
 	 *         resource
 	 */
 	InputStream getUi(String id) {
+		return new ByteArrayInputStream(getUiData(id));
+	}
+
+	/**
+	 * Returns the binary data of the ui resource from the file
+	 * 
+	 * @param id
+	 *            name of the ui resource
+	 * @return the data of the resource
+	 */
+	byte[] getUiData(String id) {
 		byte[] d = (byte[]) resources.get(id);
 		if (d == null) {
 			throw new RuntimeException("UI Resource Not Found: " + id);
 		}
-		return new ByteArrayInputStream(d);
+		return d;
 	}
 
 	/**
@@ -103,6 +103,8 @@ public class UIBuilder {
 	private static final String COMMAND_ARGUMENTS = "$COMMAND_ARGUMENTS$";
 	private static final String TYPE_KEY = "$TYPE_NAME$";
 	private static final String EMBEDDED_FORM_FLAG = "$EMBED$";
+	private static final String LAZY_CONTENT_KEY = "$LAZY$";
+	private static final String COMPONENT_INDEX_KEY = "$INDEX$";
 	static final int PROPERTY_CUSTOM = 1000;
 	static final int PROPERTY_TEXT = 1;
 	static final int PROPERTY_ALIGNMENT = 2;
@@ -195,6 +197,18 @@ public class UIBuilder {
 	private EventDispatcher globalCommandListeners;
 	private Hashtable localComponentListeners;
 	private boolean keepResourcesInRam = Display.getInstance().getProperty("cacheResFile", "false").equals("true");
+	private boolean lazyContainers = Display.getInstance().getProperty("lazyUI", "false").equals("true");
+
+	/**
+	 * Descriptions of the UI resources used in lazy mode by resource name
+	 */
+	private Hashtable descriptions;
+
+	/**
+	 * Time spent creating each resource by name, the values are arrays of the
+	 * last creation time and the total time
+	 */
+	private Hashtable creationTimes = new Hashtable();
 
 	// used by the resource editor
 	static boolean ignorBaseForm;
@@ -324,8 +338,16 @@ public class UIBuilder {
 	}
 
 	private Container createContainer(Resources res, String resourceName, EmbeddedContainer parentContainer) {
+		long time = System.currentTimeMillis();
 		onCreateRoot(resourceName);
-		DataInputStream in = new DataInputStream(res.getUi(resourceName));
+		DataInputStream in;
+		UIDescription description = null;
+		if (lazyContainers) {
+			description = getDescription(res, resourceName);
+			in = new UIDescriptionReader(description, 0);
+		} else {
+			in = new DataInputStream(res.getUi(resourceName));
+		}
 		try {
 			Hashtable h = null;
 			if (localComponentListeners != null) {
@@ -334,6 +356,9 @@ public class UIBuilder {
 			Container c = (Container) createComponent(in, null, null, res, h, parentContainer);
 			c.setName(resourceName);
 			postCreateComponents(in, c, res);
+			if (description != null) {
+				description.setIndexed();
+			}
 
 			// try to be smart about initializing the home form
 			if (homeForm == null) {
@@ -347,6 +372,7 @@ public class UIBuilder {
 				}
 			}
 
+			addCreationTime(resourceName, System.currentTimeMillis() - time, true);
 			return c;
 		} catch (Exception ex) {
 			// If this happens its probably a serious bug
@@ -355,6 +381,235 @@ public class UIBuilder {
 		}
 	}
 
+	private UIDescription getDescription(Resources res, String resourceName) {
+		if (descriptions == null) {
+			descriptions = new Hashtable();
+		}
+		UIDescription d = (UIDescription) descriptions.get(resourceName);
+		if (d == null) {
+			d = new UIDescription(resourceName, res.getUiData(resourceName));
+			descriptions.put(resourceName, d);
+		}
+		return d;
+	}
+
+	private void addCreationTime(String resourceName, long time, boolean created) {
+		long[] times = (long[]) creationTimes.get(resourceName);
+		if (times == null) {
+			times = new long[2];
+			creationTimes.put(resourceName, times);
+		}
+		if (created) {
+			times[0] = time;
+		} else {
+			times[0] += time;
+		}
+		times[1] += time;
+	}
+
+	/**
+	 * Returns the time spent creating the last instance of the given resource
+	 * including the time spent creating its lazy content so far
+	 * 
+	 * @param resourceName
+	 *            the name of the form or container in the res file
+	 * @return the time in milliseconds or -1 if the resource wasn't created
+	 */
+	public long getCreationTime(String resourceName) {
+		long[] times = (long[]) creationTimes.get(resourceName);
+		if (times == null) {
+			return -1;
+		}
+		return times[0];
+	}
+
+	/**
+	 * Returns the total time spent creating all the instances of the given
+	 * resource including their lazy content
+	 * 
+	 * @param resourceName
+	 *            the name of the form or container in the res file
+	 * @return the time in milliseconds or -1 if the resource wasn't created
+	 */
+	public long getTotalCreationTime(String resourceName) {
+		long[] times = (long[]) creationTimes.get(resourceName);
+		if (times == null) {
+			return -1;
+		}
+		return times[1];
+	}
+
+	/**
+	 * Indicates whether containers are created lazily, in lazy mode the
+	 * description of every UI resource is cached and indexed the first time
+	 * the resource is created. Subsequent creations (e.g. when navigating back)
+	 * don't fetch the resource again but still read the visible part of the
+	 * form from the cached binary data and create its components. They skip
+	 * the tab pages other than the first which are only created when their tab
+	 * is selected, when they are first shown (e.g. while swiping between tabs)
+	 * or when a component within them is looked up with findByName. The
+	 * content of embedded containers is created when they are shown.
+	 * Notice that the component callbacks such as postCreateComponent are only
+	 * invoked for these components when they are created. This can be toggled
+	 * in the properties (e.g. jad) using the flag: lazyUI (true/false) which
+	 * defaults to false.
+	 * 
+	 * @return true if containers are created lazily
+	 */
+	public boolean isLazyContainers() {
+		return lazyContainers;
+	}
+
+	/**
+	 * Indicates whether containers are created lazily, in lazy mode the
+	 * description of every UI resource is cached and indexed the first time
+	 * the resource is created. Subsequent creations (e.g. when navigating back)
+	 * don't fetch the resource again but still read the visible part of the
+	 * form from the cached binary data and create its components. They skip
+	 * the tab pages other than the first which are only created when their tab
+	 * is selected, when they are first shown (e.g. while swiping between tabs)
+	 * or when a component within them is looked up with findByName. The
+	 * content of embedded containers is created when they are shown.
+	 * Notice that the component callbacks such as postCreateComponent are only
+	 * invoked for these components when they are created. This can be toggled
+	 * in the properties (e.g. jad) using the flag: lazyUI (true/false) which
+	 * defaults to false.
+	 * 
+	 * @param lazyContainers
+	 *            true to create containers lazily
+	 */
+	public void setLazyContainers(boolean lazyContainers) {
+		this.lazyContainers = lazyContainers;
+		if (!lazyContainers) {
+			descriptions = null;
+		}
+	}
+
+	/**
+	 * Creates deferred content, this is invoked when the placeholder of the
+	 * content is selected or shown or a component within it is needed. This is
+	 * never invoked during a paint pass since a tab page revalidates its form.
+	 */
+	void createLazyContent(LazyContent content) {
+		long time = System.currentTimeMillis();
+		if (content.root != null) {
+			Vector pending = (Vector) content.root.getClientProperty(LAZY_CONTENT_KEY);
+			if (pending != null) {
+				pending.removeElement(content);
+			}
+		}
+		Resources res = content.res;
+		if (res == null) {
+			res = fetchResourceFile();
+		}
+		try {
+			if (content.embed != null) {
+				Container embed = createContainer(res, content.embed, content.embedded);
+				if (embed != null) {
+					if (embed instanceof Form) {
+						embed = formToContainer((Form) embed);
+					}
+					content.target.addComponent(BorderLayout.CENTER, embed);
+					beforeShowContainer(embed);
+					postShowContainer(embed);
+				}
+			} else {
+				UIDescriptionReader in = new UIDescriptionReader(content.description, content.section.start);
+				Component cmp = createComponent(in, content.parent, content.root, res, content.componentListeners, content.embedded);
+				content.target.addComponent(BorderLayout.CENTER, cmp);
+				if (content.entries != null) {
+					Component lastComponent = null;
+					for (int iter = 0; iter < content.entries.size(); iter++) {
+						int entry = ((Integer) content.entries.elementAt(iter)).intValue();
+						in.seek(entry);
+						String name = in.readUTF();
+
+						// entries of nested content that is still deferred
+						LazyContent nested = findLazyContent(name, content.root);
+						if (nested != null) {
+							nested.addEntry(entry);
+						} else {
+							lastComponent = postCreateEntry(in, entry, name, lastComponent, content.root, res);
+						}
+					}
+				}
+				// the page changes the preferred size of the enclosing
+				// containers (e.g. the Tabs) so the entire form is laid out
+				Form f = content.target.getComponentForm();
+				if (f != null) {
+					f.revalidate();
+				} else {
+					content.target.layoutContainer();
+				}
+			}
+		} catch (Exception ex) {
+			ex.printStackTrace();
+		}
+		addCreationTime(content.resourceName, System.currentTimeMillis() - time, false);
+	}
+
+	/**
+	 * Returns the deferred content of the root that creates the component with
+	 * the given name or null if the component isn't within deferred content
+	 */
+	private LazyContent findLazyContent(String name, Container root) {
+		Vector pending = (Vector) root.getClientProperty(LAZY_CONTENT_KEY);
+		if (pending != null) {
+			int size = pending.size();
+			for (int iter = 0; iter < size; iter++) {
+				LazyContent content = (LazyContent) pending.elementAt(iter);
+				if (content.contains(name)) {
+					return content;
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Creates the tab page at the current position of the stream, when the
+	 * description was indexed the page is skipped and a placeholder is
+	 * returned
+	 */
+	private Component createTabPage(UIDescriptionReader in, Tabs parent, Container root, Resources res, Hashtable componentListeners, EmbeddedContainer embedded) throws Exception {
+		if (in.isIndexing()) {
+			UIDescription.Section s = in.beginSection();
+			Component cmp = createComponent(in, parent, root, res, componentListeners, embedded);
+			in.endSection(s);
+			return cmp;
+		}
+		UIDescription.Section s = in.getDescription().getSection(in.getPosition());
+		if (s == null) {
+			return createComponent(in, parent, root, res, componentListeners, embedded);
+		}
+		LazyContent content = createLazyContent(in, root, res, componentListeners, embedded);
+		content.description = in.getDescription();
+		content.section = s;
+		content.parent = parent;
+		content.target = new LazyContainer(content);
+		Vector pending = (Vector) root.getClientProperty(LAZY_CONTENT_KEY);
+		if (pending == null) {
+			pending = new Vector();
+			root.putClientProperty(LAZY_CONTENT_KEY, pending);
+		}
+		pending.addElement(content);
+		in.seek(s.end);
+		return content.target;
+	}
+
+	private LazyContent createLazyContent(UIDescriptionReader in, Container root, Resources res, Hashtable componentListeners, EmbeddedContainer embedded) {
+		LazyContent content = new LazyContent();
+		content.builder = this;
+		content.root = root;
+		content.resourceName = in.getDescription().getName();
+		if (resourceFilePath == null || isKeepResourcesInRam()) {
+			content.res = res;
+		}
+		content.componentListeners = componentListeners;
+		content.embedded = embedded;
+		return content;
+	}
+
 	private void readCommand(DataInputStream in, Component c, Container parent, Resources res, boolean legacy) throws IOException {
 		String commandName = in.readUTF();
 		String commandImageName = in.readUTF();
@@ -418,51 +673,90 @@ public class UIBuilder {
 	 */
 	private void postCreateComponents(DataInputStream in, Container parent, Resources res) throws Exception {
 		// finds the component whose properties need to update
+		UIDescriptionReader reader = null;
+		int entry = 0;
+		if (in instanceof UIDescriptionReader) {
+			reader = (UIDescriptionReader) in;
+			entry = reader.getPosition();
+		}
 		String name = in.readUTF();
 		Component lastComponent = null;
 		while (name.length() > 0) {
-			if (lastComponent == null || !lastComponent.getName().equals(name)) {
-				lastComponent = findByName(name, parent);
+			LazyContent content = null;
+			if (reader != null && !reader.isIndexing()) {
+				content = findLazyContent(name, parent);
 			}
-			Component c = lastComponent;
-			int property = in.readInt();
-			modifyingProperty(c, property);
-
-			switch (property) {
-			case PROPERTY_COMMAND_LEGACY: {
-				readCommand(in, c, parent, res, true);
-				break;
-			}
-			case PROPERTY_COMMAND: {
-				readCommand(in, c, parent, res, false);
-				break;
+			if (content != null) {
+				// the entry is processed when the component is created
+				content.addEntry(entry);
+				reader.seek(reader.getDescription().getEntryEnd(entry));
+			} else {
+				lastComponent = postCreateEntry(in, entry, name, lastComponent, parent, res);
 			}
-			case PROPERTY_LABEL_FOR:
-				c.setLabelForComponent((Label) findByName(in.readUTF(), parent));
-				break;
-			case PROPERTY_LEAD_COMPONENT:
-				((Container) c).setLeadComponent(findByName(in.readUTF(), parent));
-				break;
-			case PROPERTY_NEXT_FOCUS_UP:
-				c.setNextFocusUp(findByName(in.readUTF(), parent));
-				break;
-			case PROPERTY_NEXT_FOCUS_DOWN:
-				c.setNextFocusDown(findByName(in.readUTF(), parent));
-				break;
-			case PROPERTY_NEXT_FOCUS_LEFT:
-				c.setNextFocusLeft(findByName(in.readUTF(), parent));
-				break;
-			case PROPERTY_NEXT_FOCUS_RIGHT:
-				c.setNextFocusRight(findByName(in.readUTF(), parent));
-				break;
+			if (reader != null) {
+				entry = reader.getPosition();
 			}
-
 			name = in.readUTF();
 		}
 	}
 
 	/**
-	 * Finds the given component by its name
+	 * Reads a single post creation property of the component with the given
+	 * name
+	 * 
+	 * @return the component whose property was read
+	 */
+	private Component postCreateEntry(DataInputStream in, int entry, String name, Component lastComponent, Container parent, Resources res) throws Exception {
+		if (lastComponent == null || !lastComponent.getName().equals(name)) {
+			lastComponent = findByName(name, parent);
+		}
+		Component c = lastComponent;
+		int property = in.readInt();
+		modifyingProperty(c, property);
+
+		switch (property) {
+		case PROPERTY_COMMAND_LEGACY: {
+			readCommand(in, c, parent, res, true);
+			break;
+		}
+		case PROPERTY_COMMAND: {
+			readCommand(in, c, parent, res, false);
+			break;
+		}
+		case PROPERTY_LABEL_FOR:
+			c.setLabelForComponent((Label) findByName(in.readUTF(), parent));
+			break;
+		case PROPERTY_LEAD_COMPONENT:
+			((Container) c).setLeadComponent(findByName(in.readUTF(), parent));
+			break;
+		case PROPERTY_NEXT_FOCUS_UP:
+			c.setNextFocusUp(findByName(in.readUTF(), parent));
+			break;
+		case PROPERTY_NEXT_FOCUS_DOWN:
+			c.setNextFocusDown(findByName(in.readUTF(), parent));
+			break;
+		case PROPERTY_NEXT_FOCUS_LEFT:
+			c.setNextFocusLeft(findByName(in.readUTF(), parent));
+			break;
+		case PROPERTY_NEXT_FOCUS_RIGHT:
+			c.setNextFocusRight(findByName(in.readUTF(), parent));
+			break;
+		}
+		if (in instanceof UIDescriptionReader) {
+			UIDescriptionReader reader = (UIDescriptionReader) in;
+			if (reader.isIndexing()) {
+				reader.getDescription().setEntryEnd(entry, reader.getPosition());
+			}
+		}
+		return lastComponent;
+	}
+
+	/**
+	 * Finds the given component by its name, the components created by the
+	 * builder are indexed by name in their root so the lookup doesn't allocate
+	 * and doesn't depend on the size of the hierarchy. As with the name client
+	 * property the component is returned even if it was removed from the root
+	 * since it was created.
 	 * 
 	 * @param name
 	 *            the name of the component as defined in the resource editor
@@ -471,7 +765,16 @@ public class UIBuilder {
 	 * @return the component matching the given name or null if its not found
 	 */
 	public Component findByName(String name, Container rootComponent) {
-		Component c = (Component) rootComponent.getClientProperty("%" + name + "%");
+		Component c = getIndexedComponent(name, rootComponent);
+		while (c == null) {
+			// the component might be within content that wasn't created yet
+			LazyContent content = findLazyContent(name, rootComponent);
+			if (content == null) {
+				break;
+			}
+			content.create();
+			c = getIndexedComponent(name, rootComponent);
+		}
 		if (c == null) {
 			Container newRoot = getRootAncestor(rootComponent);
 			if (newRoot != null && rootComponent != newRoot) {
@@ -481,6 +784,20 @@ public class UIBuilder {
 		return c;
 	}
 
+	private Component getIndexedComponent(String name, Container root) {
+		ComponentIndex index = (ComponentIndex) root.getClientProperty(COMPONENT_INDEX_KEY);
+		if (index != null) {
+			Component c = index.get(name);
+			if (c != null) {
+				return c;
+			}
+		}
+
+		// components might have been registered under the name client property
+		// by code other than the builder
+		return (Component) root.getClientProperty("%" + name + "%");
+	}
+
 	/**
 	 * This method can be overriden to create custom components in a custom way,
 	 * the component type is a shorthand for the component name and not the full
@@ -879,6 +1196,13 @@ public class UIBuilder {
 			case PROPERTY_EMBED:
 				root.putClientProperty(EMBEDDED_FORM_FLAG, "");
 				((EmbeddedContainer) cmp).setEmbed(in.readUTF());
+				if (in instanceof UIDescriptionReader) {
+					LazyContent content = createLazyContent((UIDescriptionReader) in, root, res, componentListeners, (EmbeddedContainer) cmp);
+					content.target = (Container) cmp;
+					content.embed = ((EmbeddedContainer) cmp).getEmbed();
+					((EmbeddedContainer) cmp).lazyContent = content;
+					break;
+				}
 				Container embed = createContainer(res, ((EmbeddedContainer) cmp).getEmbed(), (EmbeddedContainer) cmp);
 				if (embed != null) {
 					if (embed instanceof Form) {
@@ -1121,9 +1445,20 @@ public class UIBuilder {
 				break;
 
 			case PROPERTY_NAME:
-				String componentName = in.readUTF();
+				// names are interned since generated code looks them up
+				// using literals
+				String componentName = in.readUTF().intern();
 				cmp.setName(componentName);
 				root.putClientProperty("%" + componentName + "%", cmp);
+				ComponentIndex index = (ComponentIndex) root.getClientProperty(COMPONENT_INDEX_KEY);
+				if (index == null) {
+					index = new ComponentIndex();
+					root.putClientProperty(COMPONENT_INDEX_KEY, index);
+				}
+				index.put(componentName, cmp);
+				if (in instanceof UIDescriptionReader) {
+					((UIDescriptionReader) in).addName(componentName);
+				}
 				break;
 
 			case PROPERTY_LAYOUT_CONSTRAINT:
@@ -1151,8 +1486,17 @@ public class UIBuilder {
 				if (cmp instanceof Tabs) {
 					for (int iter = 0; iter < componentCount; iter++) {
 						String tab = in.readUTF();
-						Component child = createComponent(in, (Container) cmp, root, res, componentListeners, embedded);
+						Component child;
+						if (iter > 0 && in instanceof UIDescriptionReader) {
+							child = createTabPage((UIDescriptionReader) in, (Tabs) cmp, root, res, componentListeners, embedded);
+						} else {
+							child = createComponent(in, (Container) cmp, root, res, componentListeners, embedded);
+						}
 						((Tabs) cmp).addTab(tab, child);
+						if (child instanceof LazyContainer) {
+							// deferred pages are created when their tab is selected
+							((Button) ((Tabs) cmp).getTabsContainer().getComponentAt(iter)).addActionListener((LazyContainer) child);
+						}
 					}
 				} else {
 					for (int iter = 0; iter < componentCount; iter++) {
@@ -1366,6 +1710,9 @@ public class UIBuilder {
 	 *            the resourceFilePath to set
 	 */
 	public void setResourceFilePath(String resourceFilePath) {
+		if (this.resourceFilePath != null && !this.resourceFilePath.equals(resourceFilePath)) {
+			descriptions = null;
+		}
 		this.resourceFilePath = resourceFilePath;
 		if (resourceFilePath != null) {
 			resourceFile = null;
@@ -1931,6 +2278,7 @@ public class UIBuilder {
 					destContainer = destContainer.getParent();
 				}
 				if (destContainer instanceof EmbeddedContainer) {
+					((EmbeddedContainer) destContainer).createLazyContent();
 					Container cnt = createContainer(fetchResourceFile(), resourceName, (EmbeddedContainer) destContainer);
 					if (cnt instanceof Form) {
 						// Form f = (Form)cnt;
@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2008, 2010, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores
+ * CA 94065 USA or visit www.oracle.com if you need additional information or
+ * have any questions.
+ */
+package com.sun.lwuit.util;
+
+import java.util.Hashtable;
+
+/**
+ * The cached description of a UI resource, holds the binary data of the
+ * resource and an index of the offsets within it that is built the first time
+ * the resource is created. The index allows skipping the parts of the
+ * hierarchy that aren't visible initially (tab pages other than the first)
+ * and creating them later on from the same data.
+ */
+class UIDescription {
+	private String name;
+	private byte[] data;
+	private boolean indexed;
+
+	/**
+	 * Maps the offset of a section (Integer) to the section
+	 */
+	private Hashtable sections = new Hashtable();
+
+	/**
+	 * Maps a component name to the innermost section containing it
+	 */
+	private Hashtable names = new Hashtable();
+
+	/**
+	 * Maps the offset of a post creation entry (Integer) to the offset
+	 * following it (Integer)
+	 */
+	private Hashtable entries = new Hashtable();
+
+	/**
+	 * A part of the hierarchy that can be created separately
+	 */
+	static class Section {
+		int start;
+		int end;
+		Section parent;
+	}
+
+	UIDescription(String name, byte[] data) {
+		this.name = name;
+		this.data = data;
+	}
+
+	/**
+	 * Returns the name of the UI resource
+	 */
+	String getName() {
+		return name;
+	}
+
+	byte[] getData() {
+		return data;
+	}
+
+	/**
+	 * Indicates whether the index was built, until then the description is
+	 * created eagerly
+	 */
+	boolean isIndexed() {
+		return indexed;
+	}
+
+	void setIndexed() {
+		indexed = true;
+	}
+
+	void addSection(Section s) {
+		sections.put(new Integer(s.start), s);
+	}
+
+	Section getSection(int start) {
+		return (Section) sections.get(new Integer(start));
+	}
+
+	void addName(String name, Section s) {
+		names.put(name, s);
+	}
+
+	/**
+	 * Returns true if the component with the given name is created as part of
+	 * the given section or one of its nested sections
+	 */
+	boolean contains(Section s, String name) {
+		Section current = (Section) names.get(name);
+		while (current != null) {
+			if (current == s) {
+				return true;
+			}
+			current = current.parent;
+		}
+		return false;
+	}
+
+	void setEntryEnd(int entry, int end) {
+		entries.put(new Integer(entry), new Integer(end));
+	}
+
+	int getEntryEnd(int entry) {
+		return ((Integer) entries.get(new Integer(entry))).intValue();
+	}
+}
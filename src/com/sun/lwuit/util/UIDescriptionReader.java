@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2008, 2010, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores
+ * CA 94065 USA or visit www.oracle.com if you need additional information or
+ * have any questions.
+ */
+package com.sun.lwuit.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+
+/**
+ * Reads a cached UI description while keeping track of the offset within the
+ * data, the first read of a description builds its index and subsequent reads
+ * use the index to skip sections.
+ */
+class UIDescriptionReader extends DataInputStream {
+	private UIDescription description;
+	private boolean indexing;
+	private UIDescription.Section section;
+
+	/**
+	 * Exposes the position of the stream, the data input stream doesn't buffer
+	 * so this is the position of the next read
+	 */
+	static class Stream extends ByteArrayInputStream {
+		Stream(byte[] data, int position) {
+			super(data);
+			pos = position;
+		}
+
+		int getPosition() {
+			return pos;
+		}
+
+		void setPosition(int position) {
+			pos = position;
+		}
+	}
+
+	UIDescriptionReader(UIDescription description, int position) {
+		super(new Stream(description.getData(), position));
+		this.description = description;
+		indexing = !description.isIndexed();
+	}
+
+	UIDescription getDescription() {
+		return description;
+	}
+
+	/**
+	 * Indicates that the description is read for the first time and the index
+	 * should be built
+	 */
+	boolean isIndexing() {
+		return indexing;
+	}
+
+	int getPosition() {
+		return ((Stream) in).getPosition();
+	}
+
+	void seek(int position) {
+		((Stream) in).setPosition(position);
+	}
+
+	/**
+	 * Starts a section at the current position, sections nest within the
+	 * section that is currently read
+	 */
+	UIDescription.Section beginSection() {
+		UIDescription.Section s = new UIDescription.Section();
+		s.start = getPosition();
+		s.parent = section;
+		section = s;
+		return s;
+	}
+
+	void endSection(UIDescription.Section s) {
+		s.end = getPosition();
+		section = s.parent;
+		description.addSection(s);
+	}
+
+	/**
+	 * Records a component name read within the current section
+	 */
+	void addName(String name) {
+		if (indexing && section != null) {
+			description.addName(name, section);
+		}
+	}
+}